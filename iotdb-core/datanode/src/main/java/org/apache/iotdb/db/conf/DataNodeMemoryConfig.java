@@ -60,6 +60,21 @@ public class DataNodeMemoryConfig {
   /** whether to cache metadata(ChunkMetaData and TsFileMetaData) or not. */
   private boolean metaDataCacheEnable = true;
 
+  /**
+   * Whether to move memory among the storage engine, the query engine and the pipe according to
+   * their pressure
+   */
+  private boolean enableElasticMemory = false;
+
+  /** The interval in ms of rebalancing the elastic memory */
+  private long elasticMemoryRebalanceIntervalInMs = 10_000L;
+
+  /** The min total memory of each elastic memory pool, as a proportion of its configured size */
+  private double elasticMemoryMinProportion = 0.5;
+
+  /** The max total memory of each elastic memory pool, as a proportion of its configured size */
+  private double elasticMemoryMaxProportion = 1.5;
+
   /** How many threads can concurrently execute query statement. When <= 0, use CPU core number. */
   private int queryThreadCount = Runtime.getRuntime().availableProcessors();
 
@@ -221,6 +236,7 @@ public class DataNodeMemoryConfig {
     initSchemaMemoryAllocate(schemaEngineMemoryManager, properties);
     initStorageEngineAllocate(storageEngineMemoryManager, properties);
     initQueryEngineMemoryAllocate(queryEngineMemoryManager, properties);
+    initElasticMemory(properties);
 
     String offHeapMemoryStr = System.getProperty("OFF_HEAP_MEMORY");
     offHeapMemoryManager =
@@ -240,6 +256,34 @@ public class DataNodeMemoryConfig {
             "DirectBuffer", totalDirectBufferMemorySizeLimit);
   }
 
+  private void initElasticMemory(TrimProperties properties) {
+    setEnableElasticMemory(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_elastic_memory", Boolean.toString(isEnableElasticMemory()))));
+    setElasticMemoryRebalanceIntervalInMs(
+        Long.parseLong(
+            properties.getProperty(
+                "elastic_memory_rebalance_interval_in_ms",
+                Long.toString(getElasticMemoryRebalanceIntervalInMs()))));
+    double minProportion =
+        Double.parseDouble(
+            properties.getProperty(
+                "elastic_memory_min_proportion", Double.toString(getElasticMemoryMinProportion())));
+    double maxProportion =
+        Double.parseDouble(
+            properties.getProperty(
+                "elastic_memory_max_proportion", Double.toString(getElasticMemoryMaxProportion())));
+    if (minProportion < 0 || minProportion > 1 || maxProportion < 1) {
+      LOGGER.warn(
+          "elastic_memory_min_proportion should be in [0, 1] and elastic_memory_max_proportion "
+              + "should be no less than 1, use default values 0.5 and 1.5.");
+    } else {
+      setElasticMemoryMinProportion(minProportion);
+      setElasticMemoryMaxProportion(maxProportion);
+    }
+  }
+
   @SuppressWarnings("squid:S3518")
   private void initSchemaMemoryAllocate(
       MemoryManager schemaEngineMemoryManager, TrimProperties properties) {
@@ -561,6 +605,38 @@ public class DataNodeMemoryConfig {
     this.metaDataCacheEnable = metaDataCacheEnable;
   }
 
+  public boolean isEnableElasticMemory() {
+    return enableElasticMemory;
+  }
+
+  public void setEnableElasticMemory(boolean enableElasticMemory) {
+    this.enableElasticMemory = enableElasticMemory;
+  }
+
+  public long getElasticMemoryRebalanceIntervalInMs() {
+    return elasticMemoryRebalanceIntervalInMs;
+  }
+
+  public void setElasticMemoryRebalanceIntervalInMs(long elasticMemoryRebalanceIntervalInMs) {
+    this.elasticMemoryRebalanceIntervalInMs = elasticMemoryRebalanceIntervalInMs;
+  }
+
+  public double getElasticMemoryMinProportion() {
+    return elasticMemoryMinProportion;
+  }
+
+  public void setElasticMemoryMinProportion(double elasticMemoryMinProportion) {
+    this.elasticMemoryMinProportion = elasticMemoryMinProportion;
+  }
+
+  public double getElasticMemoryMaxProportion() {
+    return elasticMemoryMaxProportion;
+  }
+
+  public void setElasticMemoryMaxProportion(double elasticMemoryMaxProportion) {
+    this.elasticMemoryMaxProportion = elasticMemoryMaxProportion;
+  }
+
   public int getQueryThreadCount() {
     return queryThreadCount;
   }
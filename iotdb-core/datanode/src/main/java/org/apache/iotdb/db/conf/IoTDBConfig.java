@@ -65,6 +65,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
@@ -164,6 +165,12 @@ public class IoTDBConfig {
   /** Write mode of wal */
   private volatile WALMode walMode = WALMode.ASYNC;
 
+  /**
+   * Write mode of wal of some databases, which overrides {@link #walMode} unless wal is disabled.
+   * Only SYNC and ASYNC are allowed.
+   */
+  private volatile Map<String, WALMode> walModeOfDatabases = Collections.emptyMap();
+
   /** Max number of wal nodes, each node corresponds to one wal directory */
   private int maxWalNodesNum = 0;
 
@@ -337,6 +344,46 @@ public class IoTDBConfig {
 
   private int degreeOfParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
 
+  /**
+   * Whether to split the aggregation scan of one series into scans of disjoint time ranges, which
+   * run in parallel pipelines when there is spare degree of parallelism.
+   */
+  private boolean enableAggregationTimeRangeSplit = true;
+
+  /**
+   * Whether to compute M4 in time window mode over one series from the statistics of files, chunks
+   * and pages instead of by the UDTF over all raw points.
+   */
+  private boolean enableM4StatisticsScan = true;
+
+  /**
+   * Whether to build a quantile sketch of every numeric chunk of sealed TsFiles, which lets
+   * approx_percentile merge the sketches of chunks fully inside the queried time range instead of
+   * decoding them.
+   */
+  private boolean enableChunkQuantileSketch = false;
+
+  /**
+   * Whether to build a bloom filter of the values of every page of INT32, INT64, TEXT and STRING
+   * chunks in a sidecar file after flush and compaction, so that table scans skip the pages that
+   * contain none of the values of an equality or IN predicate.
+   */
+  private boolean enablePageValueIndex = false;
+
+  /**
+   * Max number of (device, TsFile) entries of the index from each device to the time ranges of the
+   * closed TsFiles of a data region, which lets single device queries look up their files instead
+   * of checking every file. The files beyond it are still checked one by one. 0 to disable.
+   */
+  private int deviceFileIndexMaxEntriesPerRegion = 500_000;
+
+  /**
+   * Max memory in bytes of the dictionary of each data region, which maps the devices written to
+   * the region to canonical device id instances shared by its memtables, time indexes and flushed
+   * time maps. The devices not written recently are evicted beyond it. 0 to disable.
+   */
+  private long deviceIdDictionaryMaxMemoryInBytesPerRegion = 16L * 1024 * 1024;
+
   private int mergeThresholdOfExplainAnalyze = 10;
 
   private int modeMapSizeThreshold = 10000;
@@ -419,6 +466,9 @@ public class IoTDBConfig {
   /** The sort algorithm used in TVList */
   private TVListSortAlgorithm tvListSortAlgorithm = TVListSortAlgorithm.TIM;
 
+  /** Whether the values of INT32, INT64, FLOAT and DOUBLE TVLists are kept in direct memory */
+  private boolean enableOffHeapTVList = false;
+
   /**
    * the threshold when working TVList is sorted and added into immutable TVList list in the
    * writable memtable
@@ -641,6 +691,25 @@ public class IoTDBConfig {
   /** Switch of creating schema automatically */
   private boolean enableAutoCreateSchema = true;
 
+  /**
+   * Whether the schema fetches of the insertions which miss the schema cache at the same time are
+   * executed together as one fetch.
+   */
+  private boolean enableSchemaFetchCoalescing = true;
+
+  /**
+   * How many coalesced schema fetches may be executed at the same time. The fetches arriving while
+   * all of them are executing are queued and executed together. Without coalescing, the fetches are
+   * only bounded by the client RPC threads.
+   */
+  private int schemaFetchCoalescingMaxConcurrentNum = 64;
+
+  /**
+   * How long the devices found missing by the schema fetch of an insertion are remembered, during
+   * which the insertions into them do not fetch their schema again. 0 to disable.
+   */
+  private long schemaFetchMissingDeviceTtlInMs = 0;
+
   /** Register time series as which type when receiving boolean string "true" or "false" */
   private TSDataType booleanStringInferType = TSDataType.BOOLEAN;
 
@@ -888,6 +957,9 @@ public class IoTDBConfig {
   /** maximum number of logged pages before log erased */
   private int pbTreeLogSize = 16384;
 
+  /** whether to load pages of pbtree file from memory-mapped segments */
+  private boolean pbTreeMmapEnabled = false;
+
   /**
    * Maximum number of measurement in one create timeseries plan node. If the number of measurement
    * in user request exceeds this limit, the request will be split.
@@ -975,6 +1047,19 @@ public class IoTDBConfig {
    */
   private int partitionCacheSize = 1000;
 
+  /**
+   * Whether to load data partitions of the current time partition of all databases into partition
+   * cache asynchronously after the DataNode restarts
+   */
+  private boolean enableDataPartitionCacheWarmUp = true;
+
+  /**
+   * Data partitions of the next time partition are fetched asynchronously when a write falls into
+   * the current time partition within this time before the next one begins, and created for the
+   * series slots written again after they are found absent. 0 means disabled.
+   */
+  private long dataPartitionPrefetchAheadTimeInMs = 600_000L;
+
   /** Cache size of user and role */
   private int authorCacheSize = 100;
 
@@ -1033,6 +1118,13 @@ public class IoTDBConfig {
   /** Maximum execution time of a DriverTask */
   private int driverTaskExecutionTimeSliceInMs = 200;
 
+  /**
+   * Number of query worker threads that long-running DriverTasks, which have been scheduled for
+   * more than 10 seconds, can never occupy, so that short queries are not queued behind heavy
+   * analytic ones. 0 means no thread is reserved.
+   */
+  private int queryThreadCountReservedForShortTasks = 0;
+
   /** Maximum size of wal buffer used in IoTConsensus. Unit: byte */
   private long throttleThreshold = 200 * 1024 * 1024 * 1024L;
 
@@ -1239,6 +1331,45 @@ public class IoTDBConfig {
 
   private int maxSubTaskNumForInformationTableScan = 4;
 
+  /** Whether to cache aggregation results of sealed time windows for group by time queries */
+  private boolean enableSealedWindowAggregationCache = false;
+
+  /** Max memory of the sealed window aggregation cache */
+  private long sealedWindowAggregationCacheSizeInBytes = 64 * 1024 * 1024L;
+
+  /** Whether concurrent scans of the same chunks of sealed TsFiles share the decoded pages */
+  private boolean enableSharedPageDecoding = false;
+
+  /** Max memory of the decoded pages shared by concurrent scans */
+  private long sharedPageDecodingCacheSizeInBytes = 32 * 1024 * 1024L;
+
+  /** How long decoded pages are kept for concurrent scans. Unit: millisecond */
+  private long sharedPageDecodingWindowInMs = 1000L;
+
+  /** Whether to reorder inner joins of table model queries by estimated cost */
+  private boolean enableJoinReorder = true;
+
+  /**
+   * How long statistics of a table derived from its TsFiles are used before being recomputed in the
+   * background. Unit: millisecond
+   */
+  private long tableStatisticsRefreshIntervalInMs = 60_000L;
+
+  /** Whether to skip data of the left side of inner joins by the keys of the right side */
+  private boolean enableJoinDynamicFilter = true;
+
+  /**
+   * Max rows of the right side of a join that are collected into a dynamic filter. The left side is
+   * not filtered if the right side has more rows.
+   */
+  private int joinDynamicFilterMaxBuildRows = 100_000;
+
+  /**
+   * Max time in ms that the table scans of the left side of a join wait for its dynamic filters
+   * before reading without them.
+   */
+  private long joinDynamicFilterWaitTimeInMs = 1_000L;
+
   /* Need use these parameters when repair data partition table */
   private int partitionTableRecoverWorkerNum = 10;
   // Rate limit set to 10 MB/s
@@ -1803,6 +1934,56 @@ public class IoTDBConfig {
     return degreeOfParallelism;
   }
 
+  public boolean isEnableAggregationTimeRangeSplit() {
+    return enableAggregationTimeRangeSplit;
+  }
+
+  public void setEnableAggregationTimeRangeSplit(boolean enableAggregationTimeRangeSplit) {
+    this.enableAggregationTimeRangeSplit = enableAggregationTimeRangeSplit;
+  }
+
+  public boolean isEnableM4StatisticsScan() {
+    return enableM4StatisticsScan;
+  }
+
+  public void setEnableM4StatisticsScan(boolean enableM4StatisticsScan) {
+    this.enableM4StatisticsScan = enableM4StatisticsScan;
+  }
+
+  public boolean isEnableChunkQuantileSketch() {
+    return enableChunkQuantileSketch;
+  }
+
+  public void setEnableChunkQuantileSketch(boolean enableChunkQuantileSketch) {
+    this.enableChunkQuantileSketch = enableChunkQuantileSketch;
+  }
+
+  public boolean isEnablePageValueIndex() {
+    return enablePageValueIndex;
+  }
+
+  public void setEnablePageValueIndex(boolean enablePageValueIndex) {
+    this.enablePageValueIndex = enablePageValueIndex;
+  }
+
+  public int getDeviceFileIndexMaxEntriesPerRegion() {
+    return deviceFileIndexMaxEntriesPerRegion;
+  }
+
+  public void setDeviceFileIndexMaxEntriesPerRegion(int deviceFileIndexMaxEntriesPerRegion) {
+    this.deviceFileIndexMaxEntriesPerRegion = deviceFileIndexMaxEntriesPerRegion;
+  }
+
+  public long getDeviceIdDictionaryMaxMemoryInBytesPerRegion() {
+    return deviceIdDictionaryMaxMemoryInBytesPerRegion;
+  }
+
+  public void setDeviceIdDictionaryMaxMemoryInBytesPerRegion(
+      long deviceIdDictionaryMaxMemoryInBytesPerRegion) {
+    this.deviceIdDictionaryMaxMemoryInBytesPerRegion =
+        deviceIdDictionaryMaxMemoryInBytesPerRegion;
+  }
+
   public void setMergeThresholdOfExplainAnalyze(int mergeThresholdOfExplainAnalyze) {
     this.mergeThresholdOfExplainAnalyze = mergeThresholdOfExplainAnalyze;
   }
@@ -1937,6 +2118,23 @@ public class IoTDBConfig {
     this.walMode = walMode;
   }
 
+  /** Get write mode of wal of the database, falling back to the global one. */
+  public WALMode getWalModeOfDatabase(String database) {
+    WALMode globalWalMode = walMode;
+    if (globalWalMode == WALMode.DISABLE || database == null) {
+      return globalWalMode;
+    }
+    return walModeOfDatabases.getOrDefault(database, globalWalMode);
+  }
+
+  public Map<String, WALMode> getWalModeOfDatabases() {
+    return walModeOfDatabases;
+  }
+
+  public void setWalModeOfDatabases(Map<String, WALMode> walModeOfDatabases) {
+    this.walModeOfDatabases = walModeOfDatabases;
+  }
+
   public int getMaxWalNodesNum() {
     return maxWalNodesNum;
   }
@@ -2291,6 +2489,14 @@ public class IoTDBConfig {
     this.tvListSortAlgorithm = tvListSortAlgorithm;
   }
 
+  public boolean isEnableOffHeapTVList() {
+    return enableOffHeapTVList;
+  }
+
+  public void setEnableOffHeapTVList(boolean enableOffHeapTVList) {
+    this.enableOffHeapTVList = enableOffHeapTVList;
+  }
+
   public int getTvListSortThreshold() {
     return tvListSortThreshold;
   }
@@ -2323,6 +2529,30 @@ public class IoTDBConfig {
     this.enableAutoCreateSchema = enableAutoCreateSchema;
   }
 
+  public boolean isEnableSchemaFetchCoalescing() {
+    return enableSchemaFetchCoalescing;
+  }
+
+  public void setEnableSchemaFetchCoalescing(boolean enableSchemaFetchCoalescing) {
+    this.enableSchemaFetchCoalescing = enableSchemaFetchCoalescing;
+  }
+
+  public int getSchemaFetchCoalescingMaxConcurrentNum() {
+    return schemaFetchCoalescingMaxConcurrentNum;
+  }
+
+  public void setSchemaFetchCoalescingMaxConcurrentNum(int schemaFetchCoalescingMaxConcurrentNum) {
+    this.schemaFetchCoalescingMaxConcurrentNum = schemaFetchCoalescingMaxConcurrentNum;
+  }
+
+  public long getSchemaFetchMissingDeviceTtlInMs() {
+    return schemaFetchMissingDeviceTtlInMs;
+  }
+
+  public void setSchemaFetchMissingDeviceTtlInMs(long schemaFetchMissingDeviceTtlInMs) {
+    this.schemaFetchMissingDeviceTtlInMs = schemaFetchMissingDeviceTtlInMs;
+  }
+
   public TSDataType getBooleanStringInferType() {
     return booleanStringInferType;
   }
@@ -3086,6 +3316,14 @@ public class IoTDBConfig {
     this.pbTreeLogSize = pbTreeLogSize;
   }
 
+  public boolean isPBTreeMmapEnabled() {
+    return pbTreeMmapEnabled;
+  }
+
+  public void setPBTreeMmapEnabled(boolean pbTreeMmapEnabled) {
+    this.pbTreeMmapEnabled = pbTreeMmapEnabled;
+  }
+
   public int getMaxMeasurementNumOfInternalRequest() {
     return maxMeasurementNumOfInternalRequest;
   }
@@ -3287,6 +3525,22 @@ public class IoTDBConfig {
     this.partitionCacheSize = partitionCacheSize;
   }
 
+  public boolean isEnableDataPartitionCacheWarmUp() {
+    return enableDataPartitionCacheWarmUp;
+  }
+
+  public void setEnableDataPartitionCacheWarmUp(boolean enableDataPartitionCacheWarmUp) {
+    this.enableDataPartitionCacheWarmUp = enableDataPartitionCacheWarmUp;
+  }
+
+  public long getDataPartitionPrefetchAheadTimeInMs() {
+    return dataPartitionPrefetchAheadTimeInMs;
+  }
+
+  public void setDataPartitionPrefetchAheadTimeInMs(long dataPartitionPrefetchAheadTimeInMs) {
+    this.dataPartitionPrefetchAheadTimeInMs = dataPartitionPrefetchAheadTimeInMs;
+  }
+
   public int getAuthorCacheSize() {
     return authorCacheSize;
   }
@@ -3481,6 +3735,14 @@ public class IoTDBConfig {
     this.driverTaskExecutionTimeSliceInMs = driverTaskExecutionTimeSliceInMs;
   }
 
+  public int getQueryThreadCountReservedForShortTasks() {
+    return queryThreadCountReservedForShortTasks;
+  }
+
+  public void setQueryThreadCountReservedForShortTasks(int queryThreadCountReservedForShortTasks) {
+    this.queryThreadCountReservedForShortTasks = queryThreadCountReservedForShortTasks;
+  }
+
   public static String getEnvironmentVariables() {
     return "\n\t"
         + IoTDBConstant.IOTDB_HOME
@@ -4441,6 +4703,87 @@ public class IoTDBConfig {
     this.maxSubTaskNumForInformationTableScan = maxSubTaskNumForInformationTableScan;
   }
 
+  public boolean isEnableSealedWindowAggregationCache() {
+    return enableSealedWindowAggregationCache;
+  }
+
+  public void setEnableSealedWindowAggregationCache(boolean enableSealedWindowAggregationCache) {
+    this.enableSealedWindowAggregationCache = enableSealedWindowAggregationCache;
+  }
+
+  public long getSealedWindowAggregationCacheSizeInBytes() {
+    return sealedWindowAggregationCacheSizeInBytes;
+  }
+
+  public void setSealedWindowAggregationCacheSizeInBytes(
+      long sealedWindowAggregationCacheSizeInBytes) {
+    this.sealedWindowAggregationCacheSizeInBytes = sealedWindowAggregationCacheSizeInBytes;
+  }
+
+  public boolean isEnableSharedPageDecoding() {
+    return enableSharedPageDecoding;
+  }
+
+  public void setEnableSharedPageDecoding(boolean enableSharedPageDecoding) {
+    this.enableSharedPageDecoding = enableSharedPageDecoding;
+  }
+
+  public long getSharedPageDecodingCacheSizeInBytes() {
+    return sharedPageDecodingCacheSizeInBytes;
+  }
+
+  public void setSharedPageDecodingCacheSizeInBytes(long sharedPageDecodingCacheSizeInBytes) {
+    this.sharedPageDecodingCacheSizeInBytes = sharedPageDecodingCacheSizeInBytes;
+  }
+
+  public long getSharedPageDecodingWindowInMs() {
+    return sharedPageDecodingWindowInMs;
+  }
+
+  public void setSharedPageDecodingWindowInMs(long sharedPageDecodingWindowInMs) {
+    this.sharedPageDecodingWindowInMs = sharedPageDecodingWindowInMs;
+  }
+
+  public boolean isEnableJoinReorder() {
+    return enableJoinReorder;
+  }
+
+  public void setEnableJoinReorder(boolean enableJoinReorder) {
+    this.enableJoinReorder = enableJoinReorder;
+  }
+
+  public long getTableStatisticsRefreshIntervalInMs() {
+    return tableStatisticsRefreshIntervalInMs;
+  }
+
+  public void setTableStatisticsRefreshIntervalInMs(long tableStatisticsRefreshIntervalInMs) {
+    this.tableStatisticsRefreshIntervalInMs = tableStatisticsRefreshIntervalInMs;
+  }
+
+  public boolean isEnableJoinDynamicFilter() {
+    return enableJoinDynamicFilter;
+  }
+
+  public void setEnableJoinDynamicFilter(boolean enableJoinDynamicFilter) {
+    this.enableJoinDynamicFilter = enableJoinDynamicFilter;
+  }
+
+  public int getJoinDynamicFilterMaxBuildRows() {
+    return joinDynamicFilterMaxBuildRows;
+  }
+
+  public void setJoinDynamicFilterMaxBuildRows(int joinDynamicFilterMaxBuildRows) {
+    this.joinDynamicFilterMaxBuildRows = joinDynamicFilterMaxBuildRows;
+  }
+
+  public long getJoinDynamicFilterWaitTimeInMs() {
+    return joinDynamicFilterWaitTimeInMs;
+  }
+
+  public void setJoinDynamicFilterWaitTimeInMs(long joinDynamicFilterWaitTimeInMs) {
+    this.joinDynamicFilterWaitTimeInMs = joinDynamicFilterWaitTimeInMs;
+  }
+
   public int getPartitionTableRecoverWorkerNum() {
     return partitionTableRecoverWorkerNum;
   }
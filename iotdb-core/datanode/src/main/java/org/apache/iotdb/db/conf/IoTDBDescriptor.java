@@ -87,7 +87,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.FileStore;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.ServiceLoader;
@@ -368,6 +371,11 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "tvlist_sort_algorithm", conf.getTvListSortAlgorithm().toString())));
 
+    conf.setEnableOffHeapTVList(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_off_heap_tvlist", Boolean.toString(conf.isEnableOffHeapTVList()))));
+
     conf.setTVListSortThreshold(
         Integer.parseInt(
             properties.getProperty(
@@ -531,6 +539,58 @@ public class IoTDBDescriptor {
       conf.setDegreeOfParallelism(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
     }
 
+    conf.setEnableAggregationTimeRangeSplit(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_aggregation_time_range_split",
+                Boolean.toString(conf.isEnableAggregationTimeRangeSplit()))));
+
+    conf.setEnableM4StatisticsScan(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_m4_statistics_scan", Boolean.toString(conf.isEnableM4StatisticsScan()))));
+
+    conf.setEnableChunkQuantileSketch(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_chunk_quantile_sketch",
+                Boolean.toString(conf.isEnableChunkQuantileSketch()))));
+
+    conf.setEnablePageValueIndex(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_page_value_index", Boolean.toString(conf.isEnablePageValueIndex()))));
+
+    conf.setDeviceFileIndexMaxEntriesPerRegion(
+        Integer.parseInt(
+            properties.getProperty(
+                "device_file_index_max_entries_per_region",
+                Integer.toString(conf.getDeviceFileIndexMaxEntriesPerRegion()))));
+
+    conf.setDeviceIdDictionaryMaxMemoryInBytesPerRegion(
+        Long.parseLong(
+            properties.getProperty(
+                "device_id_dictionary_max_memory_in_bytes_per_region",
+                Long.toString(conf.getDeviceIdDictionaryMaxMemoryInBytesPerRegion()))));
+
+    conf.setEnableSchemaFetchCoalescing(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_schema_fetch_coalescing",
+                Boolean.toString(conf.isEnableSchemaFetchCoalescing()))));
+
+    conf.setSchemaFetchCoalescingMaxConcurrentNum(
+        Integer.parseInt(
+            properties.getProperty(
+                "schema_fetch_coalescing_max_concurrent_num",
+                Integer.toString(conf.getSchemaFetchCoalescingMaxConcurrentNum()))));
+
+    conf.setSchemaFetchMissingDeviceTtlInMs(
+        Long.parseLong(
+            properties.getProperty(
+                "schema_fetch_missing_device_ttl_in_ms",
+                Long.toString(conf.getSchemaFetchMissingDeviceTtlInMs()))));
+
     conf.setMergeThresholdOfExplainAnalyze(
         Integer.parseInt(
             properties.getProperty(
@@ -871,6 +931,11 @@ public class IoTDBDescriptor {
         Integer.parseInt(
             properties.getProperty("pbtree_log_size", String.valueOf(conf.getPBTreeLogSize()))));
 
+    conf.setPBTreeMmapEnabled(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "pbtree_mmap_enabled", String.valueOf(conf.isPBTreeMmapEnabled()))));
+
     conf.setMaxMeasurementNumOfInternalRequest(
         Integer.parseInt(
             properties.getProperty(
@@ -1211,6 +1276,77 @@ public class IoTDBDescriptor {
     if (maxSubTaskNumForInformationTableScan > 0) {
       conf.setMaxSubTaskNumForInformationTableScan(maxSubTaskNumForInformationTableScan);
     }
+
+    conf.setEnableSealedWindowAggregationCache(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_sealed_window_aggregation_cache",
+                Boolean.toString(conf.isEnableSealedWindowAggregationCache()))));
+    long sealedWindowAggregationCacheSizeInBytes =
+        Long.parseLong(
+            properties.getProperty(
+                "sealed_window_aggregation_cache_size_in_bytes",
+                Long.toString(conf.getSealedWindowAggregationCacheSizeInBytes())));
+    if (sealedWindowAggregationCacheSizeInBytes > 0) {
+      conf.setSealedWindowAggregationCacheSizeInBytes(sealedWindowAggregationCacheSizeInBytes);
+    }
+
+    conf.setEnableSharedPageDecoding(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_shared_page_decoding",
+                Boolean.toString(conf.isEnableSharedPageDecoding()))));
+    long sharedPageDecodingCacheSizeInBytes =
+        Long.parseLong(
+            properties.getProperty(
+                "shared_page_decoding_cache_size_in_bytes",
+                Long.toString(conf.getSharedPageDecodingCacheSizeInBytes())));
+    if (sharedPageDecodingCacheSizeInBytes > 0) {
+      conf.setSharedPageDecodingCacheSizeInBytes(sharedPageDecodingCacheSizeInBytes);
+    }
+    long sharedPageDecodingWindowInMs =
+        Long.parseLong(
+            properties.getProperty(
+                "shared_page_decoding_window_in_ms",
+                Long.toString(conf.getSharedPageDecodingWindowInMs())));
+    if (sharedPageDecodingWindowInMs > 0) {
+      conf.setSharedPageDecodingWindowInMs(sharedPageDecodingWindowInMs);
+    }
+
+    conf.setEnableJoinReorder(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_join_reorder", Boolean.toString(conf.isEnableJoinReorder()))));
+    long tableStatisticsRefreshIntervalInMs =
+        Long.parseLong(
+            properties.getProperty(
+                "table_statistics_refresh_interval_in_ms",
+                Long.toString(conf.getTableStatisticsRefreshIntervalInMs())));
+    if (tableStatisticsRefreshIntervalInMs > 0) {
+      conf.setTableStatisticsRefreshIntervalInMs(tableStatisticsRefreshIntervalInMs);
+    }
+
+    conf.setEnableJoinDynamicFilter(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_join_dynamic_filter",
+                Boolean.toString(conf.isEnableJoinDynamicFilter()))));
+    int joinDynamicFilterMaxBuildRows =
+        Integer.parseInt(
+            properties.getProperty(
+                "join_dynamic_filter_max_build_rows",
+                Integer.toString(conf.getJoinDynamicFilterMaxBuildRows())));
+    if (joinDynamicFilterMaxBuildRows > 0) {
+      conf.setJoinDynamicFilterMaxBuildRows(joinDynamicFilterMaxBuildRows);
+    }
+    long joinDynamicFilterWaitTimeInMs =
+        Long.parseLong(
+            properties.getProperty(
+                "join_dynamic_filter_wait_time_in_ms",
+                Long.toString(conf.getJoinDynamicFilterWaitTimeInMs())));
+    if (joinDynamicFilterWaitTimeInMs >= 0) {
+      conf.setJoinDynamicFilterWaitTimeInMs(joinDynamicFilterWaitTimeInMs);
+    }
   }
 
   private void loadFixedSizeLimitForQuery(
@@ -1667,6 +1803,38 @@ public class IoTDBDescriptor {
     return !isCompactionEnabled && compactionEnabledInNewConfig;
   }
 
+  /**
+   * Parse wal modes of databases in the form of "root.db1:SYNC,root.db2:ASYNC". Illegal items are
+   * skipped with a warning.
+   */
+  private Map<String, WALMode> parseWalModeOfDatabases(String value) {
+    if (value == null || value.trim().isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<String, WALMode> walModeOfDatabases = new HashMap<>();
+    for (String item : value.split(",")) {
+      item = item.trim();
+      int separatorIndex = item.lastIndexOf(':');
+      if (separatorIndex <= 0) {
+        LOGGER.warn("Illegal item {} of wal_mode_of_databases, ignore it.", item);
+        continue;
+      }
+      WALMode walMode;
+      try {
+        walMode = WALMode.valueOf(item.substring(separatorIndex + 1).trim().toUpperCase());
+      } catch (IllegalArgumentException e) {
+        LOGGER.warn("Illegal wal mode of item {} of wal_mode_of_databases, ignore it.", item);
+        continue;
+      }
+      if (walMode == WALMode.DISABLE) {
+        LOGGER.warn("Wal cannot be disabled for a single database, ignore item {}.", item);
+        continue;
+      }
+      walModeOfDatabases.put(item.substring(0, separatorIndex).trim(), walMode);
+    }
+    return walModeOfDatabases;
+  }
+
   private void loadWALHotModifiedProps(TrimProperties properties) throws IOException {
     long walAsyncModeFsyncDelayInMs =
         Long.parseLong(
@@ -1688,6 +1856,12 @@ public class IoTDBDescriptor {
       conf.setWalSyncModeFsyncDelayInMs(walSyncModeFsyncDelayInMs);
     }
 
+    conf.setWalModeOfDatabases(
+        parseWalModeOfDatabases(
+            properties.getProperty(
+                "wal_mode_of_databases",
+                ConfigurationFileUtils.getConfigurationDefaultValue("wal_mode_of_databases"))));
+
     long walFileSizeThreshold =
         Long.parseLong(
             properties.getProperty(
@@ -2819,12 +2993,27 @@ public class IoTDBDescriptor {
         Integer.parseInt(
             properties.getProperty(
                 "partition_cache_size", Integer.toString(conf.getPartitionCacheSize()))));
+    conf.setEnableDataPartitionCacheWarmUp(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_data_partition_cache_warm_up",
+                Boolean.toString(conf.isEnableDataPartitionCacheWarmUp()))));
+    conf.setDataPartitionPrefetchAheadTimeInMs(
+        Long.parseLong(
+            properties.getProperty(
+                "data_partition_prefetch_ahead_time_in_ms",
+                Long.toString(conf.getDataPartitionPrefetchAheadTimeInMs()))));
 
     conf.setDriverTaskExecutionTimeSliceInMs(
         Integer.parseInt(
             properties.getProperty(
                 "driver_task_execution_time_slice_in_ms",
                 Integer.toString(conf.getDriverTaskExecutionTimeSliceInMs()))));
+    conf.setQueryThreadCountReservedForShortTasks(
+        Integer.parseInt(
+            properties.getProperty(
+                "query_thread_count_reserved_for_short_tasks",
+                Integer.toString(conf.getQueryThreadCountReservedForShortTasks()))));
   }
 
   /** Get default encode algorithm by data type */
@@ -25,16 +25,22 @@ import org.apache.iotdb.confignode.rpc.thrift.TTableInfo;
 import org.apache.iotdb.db.protocol.client.ConfigNodeClient;
 import org.apache.iotdb.db.protocol.client.ConfigNodeClientManager;
 import org.apache.iotdb.db.protocol.client.ConfigNodeInfo;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.DynamicFilter;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.DeviceEntry;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.QualifiedObjectName;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher.cache.TableDeviceSchemaCache;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import org.apache.thrift.TException;
 import org.apache.tsfile.read.TimeValuePair;
 import org.apache.tsfile.utils.Pair;
 
 import javax.annotation.concurrent.GuardedBy;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +72,9 @@ public class DataNodeQueryContext {
 
   private final AtomicInteger dataNodeFINum;
 
+  // Used for TableModel, symbol of a table scan column -> filters on it published by the joins
+  private final Map<String, DynamicFilterState> dynamicFilters = new ConcurrentHashMap<>();
+
   // Used for TableModel information table_disk_usage scan
   @GuardedBy("lock")
   private Map<String, List<TTableInfo>> databaseTableInfoMap;
@@ -159,6 +168,55 @@ public class DataNodeQueryContext {
     return uncachedPathToSeriesScanInfo;
   }
 
+  /**
+   * Registers the filters the table scans on this DataNode wait for, as symbol -> id of the join
+   * publishing on it -> number of its fragment instances. Registering the same join again is a
+   * no-op, as each instance of the join publishes once to every DataNode.
+   */
+  public void expectDynamicFilters(Map<String, Map<String, Integer>> expectedDynamicFilters) {
+    expectedDynamicFilters.forEach(
+        (symbol, publishers) -> {
+          DynamicFilterState state =
+              dynamicFilters.computeIfAbsent(symbol, k -> new DynamicFilterState());
+          publishers.forEach(state::expect);
+        });
+  }
+
+  /**
+   * Adds the filter published by one instance of the join {@code sourceId}. The filters of the
+   * instances of a join are united, the filters of different joins on the same symbol are
+   * intersected.
+   */
+  public void addDynamicFilter(String symbol, String sourceId, DynamicFilter dynamicFilter) {
+    dynamicFilters
+        .computeIfAbsent(symbol, k -> new DynamicFilterState())
+        .publish(sourceId, dynamicFilter);
+  }
+
+  /**
+   * Returns the filter of the joins on the symbol whose instances have all published, null if
+   * there is none yet.
+   */
+  public DynamicFilter getDynamicFilter(String symbol) {
+    DynamicFilterState state = dynamicFilters.isEmpty() ? null : dynamicFilters.get(symbol);
+    return state == null ? null : state.filter;
+  }
+
+  /** Returns a future done once all the expected filters on the symbols are published. */
+  public ListenableFuture<?> getDynamicFiltersFuture(Collection<String> symbols) {
+    List<ListenableFuture<Void>> futures = new ArrayList<>();
+    for (String symbol : symbols) {
+      DynamicFilterState state = dynamicFilters.isEmpty() ? null : dynamicFilters.get(symbol);
+      if (state != null) {
+        state.collectPendingFutures(futures);
+      }
+    }
+    if (futures.isEmpty()) {
+      return Futures.immediateVoidFuture();
+    }
+    return futures.size() == 1 ? futures.get(0) : Futures.allAsList(futures);
+  }
+
   public int decreaseDataNodeFINum() {
     return dataNodeFINum.decrementAndGet();
   }
@@ -175,4 +233,54 @@ public class DataNodeQueryContext {
       lock.unlock();
     }
   }
+
+  /** The filters published on a symbol, tracked by the id of the join publishing them. */
+  private static class DynamicFilterState {
+
+    // join -> number of its instances
+    private final Map<String, Integer> expectedPublishers = new HashMap<>();
+    // join -> number of its instances that have published
+    private final Map<String, Integer> publishedCounts = new HashMap<>();
+    // join -> union of the filters published by its instances so far
+    private final Map<String, DynamicFilter> partialFilters = new HashMap<>();
+    // join -> done once all its instances have published
+    private final Map<String, SettableFuture<Void>> completedFutures = new HashMap<>();
+
+    // intersection of the filters of the joins whose instances have all published
+    private volatile DynamicFilter filter;
+
+    private synchronized void expect(String sourceId, int publisherNum) {
+      if (expectedPublishers.putIfAbsent(sourceId, publisherNum) == null) {
+        completedFutures.put(sourceId, SettableFuture.create());
+        tryComplete(sourceId);
+      }
+    }
+
+    private synchronized void publish(String sourceId, DynamicFilter dynamicFilter) {
+      publishedCounts.merge(sourceId, 1, Integer::sum);
+      partialFilters.merge(sourceId, dynamicFilter, DynamicFilter::union);
+      tryComplete(sourceId);
+    }
+
+    private void tryComplete(String sourceId) {
+      Integer expected = expectedPublishers.get(sourceId);
+      if (expected == null
+          || publishedCounts.getOrDefault(sourceId, 0) < expected
+          || completedFutures.get(sourceId).isDone()) {
+        return;
+      }
+      // a partial union of the instances of a join could skip rows, only use complete ones
+      DynamicFilter published = partialFilters.remove(sourceId);
+      filter = filter == null ? published : filter.intersect(published);
+      completedFutures.get(sourceId).set(null);
+    }
+
+    private synchronized void collectPendingFutures(List<ListenableFuture<Void>> futures) {
+      for (SettableFuture<Void> future : completedFutures.values()) {
+        if (!future.isDone()) {
+          futures.add(future);
+        }
+      }
+    }
+  }
 }
@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.queryengine.execution.fragment;
 
+import org.apache.iotdb.common.rpc.thrift.TDataNodeLocation;
 import org.apache.iotdb.common.rpc.thrift.TSStatus;
 import org.apache.iotdb.commons.audit.UserEntity;
 import org.apache.iotdb.commons.exception.IoTDBException;
@@ -149,6 +150,9 @@ public class FragmentInstanceContext extends QueryContext {
   private final Map<QueryId, DataNodeQueryContext> dataNodeQueryContextMap;
   private DataNodeQueryContext dataNodeQueryContext;
 
+  // DataNodes running the table scans filtered by the joins of this instance
+  private List<TDataNodeLocation> dynamicFilterTargets = Collections.emptyList();
+
   // Used for EXPLAIN ANALYZE to cache statistics result when the FI is finished,
   // it will not be released until it's fetched.
   private TFetchFragmentInstanceStatisticsResp fragmentInstanceStatistics = null;
@@ -498,6 +502,14 @@ public class FragmentInstanceContext extends QueryContext {
     return dataNodeQueryContext;
   }
 
+  public List<TDataNodeLocation> getDynamicFilterTargets() {
+    return dynamicFilterTargets;
+  }
+
+  public void setDynamicFilterTargets(List<TDataNodeLocation> dynamicFilterTargets) {
+    this.dynamicFilterTargets = dynamicFilterTargets;
+  }
+
   public FragmentInstanceInfo getInstanceInfo() {
     FragmentInstanceState state = stateMachine.getState();
     long endTime = getEndTime();
@@ -19,6 +19,9 @@
 
 package org.apache.iotdb.db.queryengine.execution.fragment;
 
+import org.apache.iotdb.common.rpc.thrift.TDataNodeLocation;
+import org.apache.iotdb.common.rpc.thrift.TSStatus;
+import org.apache.iotdb.commons.client.sync.SyncDataNodeInternalServiceClient;
 import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.commons.concurrent.ThreadName;
 import org.apache.iotdb.commons.concurrent.threadpool.ScheduledExecutorUtil;
@@ -34,10 +37,12 @@ import org.apache.iotdb.db.queryengine.execution.driver.IDriver;
 import org.apache.iotdb.db.queryengine.execution.exchange.MPPDataExchangeManager;
 import org.apache.iotdb.db.queryengine.execution.exchange.MPPDataExchangeService;
 import org.apache.iotdb.db.queryengine.execution.exchange.sink.ISink;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.DynamicFilter;
 import org.apache.iotdb.db.queryengine.execution.schedule.DriverScheduler;
 import org.apache.iotdb.db.queryengine.execution.schedule.IDriverScheduler;
 import org.apache.iotdb.db.queryengine.metric.QueryExecutionMetricSet;
 import org.apache.iotdb.db.queryengine.metric.QueryRelatedResourceMetricSet;
+import org.apache.iotdb.db.queryengine.plan.Coordinator;
 import org.apache.iotdb.db.queryengine.plan.planner.LocalExecutionPlanner;
 import org.apache.iotdb.db.queryengine.plan.planner.PipelineDriverFactory;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.FragmentInstance;
@@ -45,23 +50,30 @@ import org.apache.iotdb.db.schemaengine.schemaregion.ISchemaRegion;
 import org.apache.iotdb.db.storageengine.dataregion.IDataRegionForQuery;
 import org.apache.iotdb.db.utils.SetThreadName;
 import org.apache.iotdb.mpp.rpc.thrift.TFetchFragmentInstanceStatisticsResp;
+import org.apache.iotdb.mpp.rpc.thrift.TPushDynamicFiltersReq;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.udf.api.exception.UDFException;
 import org.apache.iotdb.udf.api.exception.UDFTypeMismatchException;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Objects.requireNonNull;
 import static org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
 import static org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceExecution.createFragmentInstanceExecution;
@@ -87,6 +99,7 @@ public class FragmentInstanceManager {
 
   private final ExecutorService intoOperationExecutor;
   private final ExecutorService modelInferenceExecutor;
+  private final ExecutorService dynamicFilterPushExecutor;
 
   private final MPPDataExchangeManager exchangeManager =
       MPPDataExchangeService.getInstance().getMPPDataExchangeManager();
@@ -129,6 +142,10 @@ public class FragmentInstanceManager {
         IoTDBThreadPoolFactory.newFixedThreadPool(
             CommonDescriptor.getInstance().getConfig().getModelInferenceExecutionThreadCount(),
             "model-inference-executor");
+
+    this.dynamicFilterPushExecutor =
+        IoTDBThreadPoolFactory.newSingleThreadExecutor(
+            ThreadName.JOIN_DYNAMIC_FILTER_PUSH.getName());
   }
 
   @SuppressWarnings("squid:S1181")
@@ -149,6 +166,8 @@ public class FragmentInstanceManager {
                 DataNodeQueryContext dataNodeQueryContext =
                     getOrCreateDataNodeQueryContext(instanceId.getQueryId(), dataNodeFINum);
 
+                dataNodeQueryContext.expectDynamicFilters(instance.getExpectedDynamicFilters());
+
                 FragmentInstanceContext context =
                     instanceContext.computeIfAbsent(
                         instanceId,
@@ -163,6 +182,8 @@ public class FragmentInstanceManager {
                                 instance.isDebug(),
                                 instance.isVerbose()));
 
+                context.setDynamicFilterTargets(instance.getDynamicFilterTargets());
+
                 try {
                   List<PipelineDriverFactory> driverFactories =
                       planner.plan(
@@ -255,6 +276,81 @@ public class FragmentInstanceManager {
         queryId, queryId1 -> new DataNodeQueryContext(dataNodeFINum));
   }
 
+  /**
+   * Sends the dynamic filters published by the join {@code sourceId} of the instance to the
+   * DataNodes running the table scans they filter. Remote DataNodes are pushed to in the
+   * background, so that the driver of the join is not blocked.
+   */
+  public void publishDynamicFilters(
+      FragmentInstanceContext context, String sourceId, Map<String, DynamicFilter> dynamicFilters) {
+    QueryId queryId = context.getId().getQueryId();
+    TPushDynamicFiltersReq req = null;
+    for (TDataNodeLocation target : context.getDynamicFilterTargets()) {
+      if (target.getDataNodeId() == IoTDBDescriptor.getInstance().getConfig().getDataNodeId()) {
+        addDynamicFilters(queryId, sourceId, dynamicFilters);
+        continue;
+      }
+      if (req == null) {
+        Map<String, ByteBuffer> serializedFilters = new HashMap<>();
+        dynamicFilters.forEach(
+            (symbol, filter) -> serializedFilters.put(symbol, filter.serialize()));
+        req = new TPushDynamicFiltersReq(queryId.getId(), sourceId, serializedFilters);
+      }
+      TPushDynamicFiltersReq finalReq = req;
+      dynamicFilterPushExecutor.execute(() -> pushDynamicFilters(target, finalReq));
+    }
+  }
+
+  private void pushDynamicFilters(TDataNodeLocation target, TPushDynamicFiltersReq req) {
+    try (SyncDataNodeInternalServiceClient client =
+        Coordinator.getInstance()
+            .getInternalServiceClientManager()
+            .borrowClient(target.getInternalEndPoint())) {
+      TSStatus status = client.pushDynamicFilters(req);
+      if (status.getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        logger.warn(
+            "Failed to push dynamic filters of query {} to DataNode {}: {}",
+            req.getQueryId(),
+            target.getDataNodeId(),
+            status);
+      }
+    } catch (Exception e) {
+      // the table scans stop waiting for the filters after join_dynamic_filter_wait_time_in_ms
+      logger.warn(
+          "Failed to push dynamic filters of query {} to DataNode {}",
+          req.getQueryId(),
+          target.getDataNodeId(),
+          e);
+    }
+  }
+
+  /**
+   * Adds the dynamic filters published by the join {@code sourceId} for the table scans of the
+   * query on this DataNode. They are dropped if no instance of the query runs here any more.
+   */
+  public void addDynamicFilters(
+      QueryId queryId, String sourceId, Map<String, DynamicFilter> dynamicFilters) {
+    DataNodeQueryContext dataNodeQueryContext = dataNodeQueryContextMap.get(queryId);
+    if (dataNodeQueryContext != null) {
+      dynamicFilters.forEach(
+          (symbol, filter) -> dataNodeQueryContext.addDynamicFilter(symbol, sourceId, filter));
+    }
+  }
+
+  /** Returns a future done once the given future is done or the timeout elapses. */
+  public ListenableFuture<?> withTimeout(ListenableFuture<?> future, long timeoutInMs) {
+    if (future.isDone()) {
+      return future;
+    }
+    SettableFuture<Void> result = SettableFuture.create();
+    future.addListener(() -> result.set(null), directExecutor());
+    ScheduledFuture<?> timeout =
+        instanceManagementExecutor.schedule(
+            () -> result.set(null), timeoutInMs, TimeUnit.MILLISECONDS);
+    result.addListener(() -> timeout.cancel(false), directExecutor());
+    return result;
+  }
+
   @SuppressWarnings("squid:S1181")
   public FragmentInstanceInfo execSchemaQueryFragmentInstance(
       FragmentInstance instance, ISchemaRegion schemaRegion) {
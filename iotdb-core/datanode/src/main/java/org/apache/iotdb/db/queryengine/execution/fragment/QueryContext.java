@@ -115,7 +115,7 @@ public class QueryContext {
   protected boolean checkIfModificationExists(TsFileResource tsFileResource) {
     // The exists state of ModificationFile is maintained in memory, and ModificationFile instance
     // is set to the related TsFileResource instance after it is constructed.
-    return tsFileResource.anyModFileExists();
+    return tsFileResource.anyModFileExists() || !tsFileResource.getPendingModEntries().isEmpty();
   }
 
   protected PatternTreeMap<ModEntry, ModsSerializer> getAllModifications(TsFileResource resource) {
@@ -127,20 +127,28 @@ public class QueryContext {
       TsFileResource resource) {
     PatternTreeMap<ModEntry, ModsSerializer> modifications =
         PatternTreeMapFactory.getModsPatternTreeMap();
+    // the deletions whose mods are being written, read before the mod files
+    for (ModEntry modification : resource.getPendingModEntries()) {
+      appendModification(modifications, modification);
+    }
     TsFileResource.ModIterator modEntryIterator = resource.getModEntryIterator();
     while (modEntryIterator.hasNext()) {
-      ModEntry modification = modEntryIterator.next();
-      if (tables != null && modification instanceof TableDeletionEntry) {
-        String tableName = ((TableDeletionEntry) modification).getTableName();
-        if (!tables.contains(tableName)) {
-          continue;
-        }
-      }
-      modifications.append(modification.keyOfPatternTree(), modification);
+      appendModification(modifications, modEntryIterator.next());
     }
     return modifications;
   }
 
+  private void appendModification(
+      PatternTreeMap<ModEntry, ModsSerializer> modifications, ModEntry modification) {
+    if (tables != null && modification instanceof TableDeletionEntry) {
+      String tableName = ((TableDeletionEntry) modification).getTableName();
+      if (!tables.contains(tableName)) {
+        return;
+      }
+    }
+    modifications.append(modification.keyOfPatternTree(), modification);
+  }
+
   public List<ModEntry> getPathModifications(
       TsFileResource tsFileResource, IDeviceID deviceID, String measurement) {
     // if the mods file does not exist, do not add it to the cache
@@ -22,6 +22,7 @@ package org.apache.iotdb.db.queryengine.execution.operator.process;
 import org.apache.iotdb.db.queryengine.execution.MemoryEstimationHelper;
 import org.apache.iotdb.db.queryengine.execution.operator.Operator;
 import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
+import org.apache.iotdb.db.queryengine.execution.operator.source.TopKTimeBound;
 import org.apache.iotdb.db.utils.datastructure.MergeSortHeap;
 import org.apache.iotdb.db.utils.datastructure.MergeSortKey;
 import org.apache.iotdb.db.utils.datastructure.SortKey;
@@ -84,6 +85,11 @@ public abstract class TopKOperator implements ProcessOperator {
   // the data of every childOperator is in order
   private final boolean childrenDataInOrder;
 
+  // the time of the k-th row published to the scans below, null if not ordered by time first
+  private TopKTimeBound timeBound;
+  // index of the value column of the time, -1 for the time column
+  private int timeColumnIndex = -1;
+
   public static final int OPERATOR_BATCH_UPPER_BOUND = 100000;
 
   TopKOperator(
@@ -111,6 +117,15 @@ public abstract class TopKOperator implements ProcessOperator {
     canCallNext = new boolean[childrenOperators.size()];
   }
 
+  /**
+   * Publishes the time of the k-th row to the given bound once the heap is full, the first sort key
+   * must be the time in the same order as the bound.
+   */
+  public void setTimeBound(TopKTimeBound timeBound, int timeColumnIndex) {
+    this.timeBound = timeBound;
+    this.timeColumnIndex = timeColumnIndex;
+  }
+
   @Override
   public OperatorContext getOperatorContext() {
     return operatorContext;
@@ -209,6 +224,7 @@ public abstract class TopKOperator implements ProcessOperator {
         closeOperator(i);
       }
       canCallNext[i] = false;
+      updateTimeBound();
 
       if (System.nanoTime() - startTime > maxRuntime) {
         break;
@@ -372,6 +388,17 @@ public abstract class TopKOperator implements ProcessOperator {
     return tsBlockBuilder.build();
   }
 
+  private void updateTimeBound() {
+    if (timeBound == null || mergeSortHeap.isEmpty() || mergeSortHeap.getHeapSize() < topValue) {
+      return;
+    }
+    MergeSortKey kth = mergeSortHeap.peek();
+    timeBound.update(
+        timeColumnIndex < 0
+            ? kth.tsBlock.getTimeByIndex(kth.rowIndex)
+            : kth.tsBlock.getColumn(timeColumnIndex).getLong(kth.rowIndex));
+  }
+
   private long getMemoryUsageOfOneMergeSortKey() {
     long memory = 0;
     for (TSDataType dataType : dataTypes) {
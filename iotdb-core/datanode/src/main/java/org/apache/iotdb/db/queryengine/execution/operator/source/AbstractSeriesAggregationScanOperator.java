@@ -24,11 +24,15 @@ import org.apache.iotdb.db.queryengine.execution.aggregation.timerangeiterator.I
 import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.db.storageengine.buffer.SealedWindowAggregationCache;
 
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.block.column.ColumnBuilder;
 import org.apache.tsfile.enums.TSDataType;
 import org.apache.tsfile.file.metadata.statistics.Statistics;
 import org.apache.tsfile.read.common.TimeRange;
 import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.tsfile.utils.Pair;
 
 import java.io.IOException;
@@ -71,6 +75,16 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
   /** Some special data types(like BLOB) cannot use statistics. */
   protected final boolean canUseStatistics;
 
+  /** Not null if results of sealed time windows can be got from or put into cache. */
+  private SealedWindowAggregationCache.Handle sealedWindowCacheHandle;
+
+  /**
+   * Cached results are only served for the leading time windows of an ascending scan, i.e., before
+   * any data is read, since data of the skipped windows is left to be skipped by the following
+   * windows.
+   */
+  private boolean servingCachedWindows = false;
+
   @SuppressWarnings("squid:S107")
   protected AbstractSeriesAggregationScanOperator(
       PlanNodeId sourceId,
@@ -100,6 +114,11 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     this.canUseStatistics = canUseStatistics;
   }
 
+  public void setSealedWindowCacheHandle(SealedWindowAggregationCache.Handle handle) {
+    this.sealedWindowCacheHandle = isGroupByQuery ? handle : null;
+    this.servingCachedWindows = ascending && sealedWindowCacheHandle != null;
+  }
+
   @Override
   public long calculateMaxPeekMemory() {
     return cachedRawDataSize + maxReturnSize;
@@ -133,6 +152,10 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
       if (curTimeRange == null) {
         // move to the next time window
         curTimeRange = timeRangeIterator.nextTimeRange();
+        if (servingCachedWindows && appendCachedAggregationResult()) {
+          curTimeRange = null;
+          continue;
+        }
         // clear previous aggregation result
         for (TreeAggregator aggregator : aggregators) {
           aggregator.reset();
@@ -227,6 +250,15 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
   }
 
   protected void updateResultTsBlock() {
+    if (sealedWindowCacheHandle != null && sealedWindowCacheHandle.isSealed(curTimeRange)) {
+      TsBlockBuilder windowResultBuilder = new TsBlockBuilder(1, getAggregatorOutputTypes());
+      appendAggregationResult(
+          windowResultBuilder, aggregators, timeRangeIterator.currentOutputTime());
+      Column[] windowResult = windowResultBuilder.build().getValueColumns();
+      sealedWindowCacheHandle.put(curTimeRange, windowResult);
+      appendAggregationResult(windowResult);
+      return;
+    }
     if (!outputEndTime) {
       appendAggregationResult(
           resultTsBlockBuilder, aggregators, timeRangeIterator.currentOutputTime());
@@ -239,6 +271,34 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     }
   }
 
+  /** Return true if the result of current time window is got from cache. */
+  private boolean appendCachedAggregationResult() {
+    Column[] windowResult = sealedWindowCacheHandle.get(curTimeRange);
+    if (windowResult == null) {
+      servingCachedWindows = false;
+      return false;
+    }
+    appendAggregationResult(windowResult);
+    return true;
+  }
+
+  private void appendAggregationResult(Column[] windowResult) {
+    resultTsBlockBuilder.getTimeColumnBuilder().writeLong(timeRangeIterator.currentOutputTime());
+    ColumnBuilder[] columnBuilders = resultTsBlockBuilder.getValueColumnBuilders();
+    int columnIndex = 0;
+    if (outputEndTime) {
+      columnBuilders[columnIndex++].writeLong(curTimeRange.getMax());
+    }
+    for (Column column : windowResult) {
+      if (column.isNull(0)) {
+        columnBuilders[columnIndex++].appendNull();
+      } else {
+        columnBuilders[columnIndex++].write(column, 0);
+      }
+    }
+    resultTsBlockBuilder.declarePosition();
+  }
+
   protected boolean calcFromCachedData() {
     return calcFromRawData(inputTsBlock);
   }
@@ -273,6 +333,11 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
       }
       if (canUseStatistics && seriesScanUtil.canUseCurrentFileStatistics()) {
         Statistics fileTimeStatistics = seriesScanUtil.currentFileTimeStatistics();
+        // data of previous windows that are got from cache
+        if (ascending && fileTimeStatistics.getEndTime() < curTimeRange.getMin()) {
+          seriesScanUtil.skipCurrentFile();
+          continue;
+        }
         if (fileTimeStatistics.getStartTime() > curTimeRange.getMax()) {
           if (ascending) {
             return true;
@@ -321,6 +386,10 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
       }
       if (canUseStatistics && seriesScanUtil.canUseCurrentChunkStatistics()) {
         Statistics chunkTimeStatistics = seriesScanUtil.currentChunkTimeStatistics();
+        if (ascending && chunkTimeStatistics.getEndTime() < curTimeRange.getMin()) {
+          seriesScanUtil.skipCurrentChunk();
+          continue;
+        }
         if (chunkTimeStatistics.getStartTime() > curTimeRange.getMax()) {
           if (ascending) {
             return true;
@@ -363,6 +432,10 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
       while (System.nanoTime() - start < leftRuntimeOfOneNextCall && seriesScanUtil.hasNextPage()) {
         if (canUseStatistics && seriesScanUtil.canUseCurrentPageStatistics()) {
           Statistics pageTimeStatistics = seriesScanUtil.currentPageTimeStatistics();
+          if (ascending && pageTimeStatistics.getEndTime() < curTimeRange.getMin()) {
+            seriesScanUtil.skipCurrentPage();
+            continue;
+          }
           // There is no more eligible points in current time range
           if (pageTimeStatistics.getStartTime() > curTimeRange.getMax()) {
             if (ascending) {
@@ -412,6 +485,12 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     if (outputEndTime) {
       dataTypes.add(TSDataType.INT64);
     }
+    dataTypes.addAll(getAggregatorOutputTypes());
+    return dataTypes;
+  }
+
+  private List<TSDataType> getAggregatorOutputTypes() {
+    List<TSDataType> dataTypes = new ArrayList<>();
     for (TreeAggregator aggregator : aggregators) {
       dataTypes.addAll(Arrays.asList(aggregator.getOutputType()));
     }
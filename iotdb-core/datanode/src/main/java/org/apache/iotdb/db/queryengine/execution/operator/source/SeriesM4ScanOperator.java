@@ -0,0 +1,420 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source;
+
+import org.apache.iotdb.commons.path.IFullPath;
+import org.apache.iotdb.db.queryengine.execution.MemoryEstimationHelper;
+import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.SeriesScanOptions;
+import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
+
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.block.column.ColumnBuilder;
+import org.apache.tsfile.common.conf.TSFileDescriptor;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.statistics.Statistics;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.utils.RamUsageEstimator;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This operator computes the time window M4 representation (first, bottom, top and last points of
+ * each window) of one numeric series, with the same output as the M4 UDTF in time window mode.
+ *
+ * <p>Files, chunks and pages that lie in a single window are merged into the window by their
+ * statistics without being decoded. Only units crossing a window boundary, and units whose new
+ * minimum or maximum point cannot be located by statistics, are decoded.
+ */
+public class SeriesM4ScanOperator extends AbstractDataSourceOperator {
+
+  private static final long INSTANCE_SIZE =
+      RamUsageEstimator.shallowSizeOfInstance(SeriesM4ScanOperator.class);
+
+  private final TSDataType dataType;
+  private final boolean isFloatingPoint;
+
+  private final long timeInterval;
+  private final long displayWindowEnd;
+  // Long.MIN_VALUE means the display window begins at the first point of the series
+  private long displayWindowBegin;
+
+  // current window is [windowStartTime, windowEndTime)
+  private long windowEndTime = Long.MIN_VALUE;
+
+  // points of current window, floating point values are stored as the bits of a double
+  private boolean windowHasPoint = false;
+  private long firstTime;
+  private long firstValue;
+  private long lastTime;
+  private long lastValue;
+  private long bottomTime;
+  private long bottomValue;
+  private long topTime;
+  private long topValue;
+
+  private boolean noMoreData = false;
+  private boolean finished = false;
+
+  @SuppressWarnings("squid:S107")
+  public SeriesM4ScanOperator(
+      OperatorContext context,
+      PlanNodeId sourceId,
+      IFullPath seriesPath,
+      SeriesScanOptions seriesScanOptions,
+      TSDataType dataType,
+      long timeInterval,
+      long displayWindowBegin,
+      long displayWindowEnd) {
+    this.sourceId = sourceId;
+    this.operatorContext = context;
+    this.seriesScanUtil =
+        new SeriesScanUtil(
+            seriesPath, Ordering.ASC, seriesScanOptions, context.getInstanceContext());
+    this.dataType = dataType;
+    this.isFloatingPoint = dataType == TSDataType.FLOAT || dataType == TSDataType.DOUBLE;
+    this.timeInterval = timeInterval;
+    this.displayWindowBegin = displayWindowBegin;
+    this.displayWindowEnd = displayWindowEnd;
+  }
+
+  @Override
+  public TsBlock next() throws Exception {
+    if (retainedTsBlock != null) {
+      return getResultFromRetainedTsBlock();
+    }
+    // we don't get any data in current batch time slice, just return null
+    if (resultTsBlockBuilder.isEmpty()) {
+      return null;
+    }
+    resultTsBlock = resultTsBlockBuilder.build();
+    resultTsBlockBuilder.reset();
+    return checkTsBlockSizeAndGetResult();
+  }
+
+  @SuppressWarnings("squid:S112")
+  @Override
+  public boolean hasNext() throws Exception {
+    if (retainedTsBlock != null) {
+      return true;
+    }
+    try {
+      long maxRuntime = operatorContext.getMaxRunTime().roundTo(TimeUnit.NANOSECONDS);
+      long start = System.nanoTime();
+
+      while (!noMoreData
+          && System.nanoTime() - start < maxRuntime
+          && !resultTsBlockBuilder.isFull()) {
+        if (!consumeNextUnit()) {
+          flushWindow();
+          noMoreData = true;
+        }
+      }
+
+      finished = noMoreData && resultTsBlockBuilder.isEmpty();
+      return !finished;
+    } catch (IOException e) {
+      throw new RuntimeException("Error happened while scanning the file", e);
+    }
+  }
+
+  /**
+   * Consume one page, chunk or file of the series, pages first.
+   *
+   * @return false if there is no more data in the display window
+   */
+  private boolean consumeNextUnit() throws IOException {
+    if (seriesScanUtil.hasNextPage()) {
+      if (seriesScanUtil.canUseCurrentPageStatistics()
+          && tryConsumeStatistics(
+              seriesScanUtil.currentPageTimeStatistics(),
+              seriesScanUtil.currentPageStatistics(0))) {
+        seriesScanUtil.skipCurrentPage();
+      } else {
+        TsBlock tsBlock = seriesScanUtil.nextPage();
+        if (tsBlock != null && !tsBlock.isEmpty()) {
+          consumeRawData(tsBlock);
+        }
+      }
+      return !noMoreData;
+    }
+
+    // an empty Optional means we should yield and retry later
+    Optional<Boolean> hasNextChunk = seriesScanUtil.hasNextChunk();
+    if (!hasNextChunk.isPresent()) {
+      return true;
+    }
+    if (hasNextChunk.get()) {
+      // the pages of current chunk are consumed next time if its statistics cannot be used
+      if (seriesScanUtil.canUseCurrentChunkStatistics()
+          && tryConsumeStatistics(
+              seriesScanUtil.currentChunkTimeStatistics(),
+              seriesScanUtil.currentChunkStatistics(0))) {
+        seriesScanUtil.skipCurrentChunk();
+      }
+      return !noMoreData;
+    }
+
+    Optional<Boolean> hasNextFile = seriesScanUtil.hasNextFile();
+    if (!hasNextFile.isPresent()) {
+      return true;
+    }
+    if (hasNextFile.get()) {
+      if (seriesScanUtil.canUseCurrentFileStatistics()
+          && tryConsumeStatistics(
+              seriesScanUtil.currentFileTimeStatistics(),
+              seriesScanUtil.currentFileStatistics(0))) {
+        seriesScanUtil.skipCurrentFile();
+      }
+      return !noMoreData;
+    }
+    return false;
+  }
+
+  /**
+   * Merge a file, chunk or page into current window by its statistics.
+   *
+   * @return false if the unit should be decoded instead
+   */
+  @SuppressWarnings("squid:S3740")
+  private boolean tryConsumeStatistics(Statistics timeStatistics, Statistics valueStatistics) {
+    long startTime = timeStatistics.getStartTime();
+    long endTime = timeStatistics.getEndTime();
+    if (startTime >= displayWindowEnd) {
+      noMoreData = true;
+      return true;
+    }
+    if (displayWindowBegin == Long.MIN_VALUE) {
+      displayWindowBegin = startTime;
+    }
+    if (endTime < displayWindowBegin) {
+      return true;
+    }
+    if (startTime < displayWindowBegin) {
+      return false;
+    }
+    if (startTime >= windowEndTime) {
+      moveToWindowOf(startTime);
+    }
+    if (endTime >= windowEndTime) {
+      return false;
+    }
+
+    long first = encode(valueStatistics.getFirstValue());
+    long min = encode(valueStatistics.getMinValue());
+    long max = encode(valueStatistics.getMaxValue());
+    boolean newBottom = !windowHasPoint || lessThan(min, bottomValue);
+    boolean newTop = !windowHasPoint || lessThan(topValue, max);
+    // statistics only locate the minimum or maximum point if it is the first point of the unit
+    if ((newBottom && min != first) || (newTop && max != first)) {
+      return false;
+    }
+
+    if (!windowHasPoint) {
+      windowHasPoint = true;
+      firstTime = startTime;
+      firstValue = first;
+    }
+    lastTime = endTime;
+    lastValue = encode(valueStatistics.getLastValue());
+    if (newBottom) {
+      bottomTime = startTime;
+      bottomValue = min;
+    }
+    if (newTop) {
+      topTime = startTime;
+      topValue = max;
+    }
+    return true;
+  }
+
+  private void consumeRawData(TsBlock tsBlock) {
+    Column timeColumn = tsBlock.getTimeColumn();
+    Column valueColumn = tsBlock.getColumn(0);
+    boolean mayHaveNull = valueColumn.mayHaveNull();
+    int size = tsBlock.getPositionCount();
+    if (displayWindowBegin == Long.MIN_VALUE) {
+      displayWindowBegin = timeColumn.getLong(0);
+    }
+    for (int i = 0; i < size; i++) {
+      long time = timeColumn.getLong(i);
+      if (time < displayWindowBegin || (mayHaveNull && valueColumn.isNull(i))) {
+        continue;
+      }
+      if (time >= displayWindowEnd) {
+        noMoreData = true;
+        return;
+      }
+      if (time >= windowEndTime) {
+        moveToWindowOf(time);
+      }
+      consumePoint(time, valueAt(valueColumn, i));
+    }
+  }
+
+  private void consumePoint(long time, long value) {
+    if (!windowHasPoint) {
+      windowHasPoint = true;
+      firstTime = bottomTime = topTime = lastTime = time;
+      firstValue = bottomValue = topValue = lastValue = value;
+      return;
+    }
+    lastTime = time;
+    lastValue = value;
+    if (lessThan(value, bottomValue)) {
+      bottomTime = time;
+      bottomValue = value;
+    }
+    if (lessThan(topValue, value)) {
+      topTime = time;
+      topValue = value;
+    }
+  }
+
+  /** Output current window and move to the window containing the given time. */
+  private void moveToWindowOf(long time) {
+    flushWindow();
+    long windowStartTime =
+        displayWindowBegin + (time - displayWindowBegin) / timeInterval * timeInterval;
+    windowEndTime = windowStartTime + timeInterval;
+    // guard against overflow
+    if (windowEndTime < windowStartTime || windowEndTime > displayWindowEnd) {
+      windowEndTime = displayWindowEnd;
+    }
+  }
+
+  private void flushWindow() {
+    if (!windowHasPoint) {
+      return;
+    }
+    windowHasPoint = false;
+
+    appendPoint(firstTime, firstValue);
+
+    boolean isBottomFirst = bottomTime <= topTime;
+    long smallerTime = isBottomFirst ? bottomTime : topTime;
+    long smallerValue = isBottomFirst ? bottomValue : topValue;
+    long largerTime = isBottomFirst ? topTime : bottomTime;
+    long largerValue = isBottomFirst ? topValue : bottomValue;
+    if (smallerTime > firstTime && !valueEquals(smallerValue, lastValue)) {
+      appendPoint(smallerTime, smallerValue);
+    }
+    if (largerTime > smallerTime && !valueEquals(largerValue, lastValue)) {
+      appendPoint(largerTime, largerValue);
+    }
+
+    if (lastTime > firstTime) {
+      appendPoint(lastTime, lastValue);
+    }
+  }
+
+  private void appendPoint(long time, long value) {
+    resultTsBlockBuilder.getTimeColumnBuilder().writeLong(time);
+    ColumnBuilder columnBuilder = resultTsBlockBuilder.getColumnBuilder(0);
+    switch (dataType) {
+      case INT32:
+        columnBuilder.writeInt((int) value);
+        break;
+      case INT64:
+        columnBuilder.writeLong(value);
+        break;
+      case FLOAT:
+        columnBuilder.writeFloat((float) Double.longBitsToDouble(value));
+        break;
+      case DOUBLE:
+        columnBuilder.writeDouble(Double.longBitsToDouble(value));
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported data type: " + dataType);
+    }
+    resultTsBlockBuilder.declarePosition();
+  }
+
+  private long valueAt(Column column, int position) {
+    switch (dataType) {
+      case INT32:
+        return column.getInt(position);
+      case INT64:
+        return column.getLong(position);
+      case FLOAT:
+        return Double.doubleToLongBits(column.getFloat(position));
+      case DOUBLE:
+        return Double.doubleToLongBits(column.getDouble(position));
+      default:
+        throw new UnsupportedOperationException("Unsupported data type: " + dataType);
+    }
+  }
+
+  private long encode(Object statisticsValue) {
+    Number number = (Number) statisticsValue;
+    return isFloatingPoint ? Double.doubleToLongBits(number.doubleValue()) : number.longValue();
+  }
+
+  private boolean lessThan(long left, long right) {
+    return isFloatingPoint
+        ? Double.longBitsToDouble(left) < Double.longBitsToDouble(right)
+        : left < right;
+  }
+
+  private boolean valueEquals(long left, long right) {
+    return isFloatingPoint
+        ? Double.longBitsToDouble(left) == Double.longBitsToDouble(right)
+        : left == right;
+  }
+
+  @Override
+  public boolean isFinished() throws Exception {
+    return finished;
+  }
+
+  @Override
+  protected List<TSDataType> getResultDataTypes() {
+    return Collections.singletonList(dataType);
+  }
+
+  @Override
+  public long calculateMaxPeekMemory() {
+    return Math.max(maxReturnSize, TSFileDescriptor.getInstance().getConfig().getPageSizeInByte());
+  }
+
+  @Override
+  public long calculateMaxReturnSize() {
+    return maxReturnSize;
+  }
+
+  @Override
+  public long calculateRetainedSizeAfterCallingNext() {
+    return calculateMaxPeekMemoryWithCounter() - calculateMaxReturnSize();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return INSTANCE_SIZE
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(seriesScanUtil)
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(operatorContext)
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(sourceId)
+        + (resultTsBlockBuilder == null ? 0 : resultTsBlockBuilder.getRetainedSizeInBytes());
+  }
+}
@@ -23,13 +23,17 @@ import org.apache.iotdb.commons.path.IFullPath;
 import org.apache.iotdb.commons.path.NonAlignedFullPath;
 import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext;
 import org.apache.iotdb.db.queryengine.execution.fragment.QueryContext;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.approximate.TDigest;
 import org.apache.iotdb.db.queryengine.metric.SeriesScanCostMetricSet;
 import org.apache.iotdb.db.queryengine.plan.analyze.cache.schema.DataNodeTTLCache;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.SeriesScanOptions;
 import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
+import org.apache.iotdb.db.storageengine.buffer.DecodedPageCache;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.AlignedReadOnlyMemChunk;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.ReadOnlyMemChunk;
 import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSource;
+import org.apache.iotdb.db.storageengine.dataregion.read.reader.chunk.DiskAlignedChunkLoader;
+import org.apache.iotdb.db.storageengine.dataregion.read.reader.chunk.DiskChunkLoader;
 import org.apache.iotdb.db.storageengine.dataregion.read.reader.chunk.MemAlignedPageReader;
 import org.apache.iotdb.db.storageengine.dataregion.read.reader.chunk.MemChunkLoader;
 import org.apache.iotdb.db.storageengine.dataregion.read.reader.chunk.MemPageReader;
@@ -38,6 +42,8 @@ import org.apache.iotdb.db.storageengine.dataregion.read.reader.common.MergeRead
 import org.apache.iotdb.db.storageengine.dataregion.read.reader.common.NoDataPointReader;
 import org.apache.iotdb.db.storageengine.dataregion.read.reader.common.PriorityMergeReader;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.sketch.ChunkSketchIndex;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.valueindex.PageValueIndex;
 import org.apache.iotdb.db.utils.CommonUtils;
 import org.apache.iotdb.db.utils.SchemaUtils;
 import org.apache.iotdb.db.utils.datastructure.MemPointIterator;
@@ -45,6 +51,8 @@ import org.apache.iotdb.db.utils.datastructure.MemPointIterator;
 import org.apache.tsfile.block.column.Column;
 import org.apache.tsfile.common.conf.TSFileDescriptor;
 import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.AbstractAlignedChunkMetadata;
+import org.apache.tsfile.file.metadata.ChunkMetadata;
 import org.apache.tsfile.file.metadata.IChunkMetadata;
 import org.apache.tsfile.file.metadata.IDeviceID;
 import org.apache.tsfile.file.metadata.IMetadata;
@@ -82,11 +90,14 @@ import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.function.ToLongFunction;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -407,6 +418,13 @@ public class SeriesScanUtil implements Accountable {
     if (firstChunkMetadata == null) {
       return;
     }
+    if (canSkipByTopKTimeBound(firstChunkMetadata.getStatistics())) {
+      this.context
+          .getQueryStatistics()
+          .addFilteredRowsOfChunkLevel(firstChunkMetadata.getStatistics().getCount());
+      skipCurrentChunk();
+      return;
+    }
 
     if (currentChunkOverlapped() || firstChunkMetadata.isModified()) {
       return;
@@ -520,6 +538,40 @@ public class SeriesScanUtil implements Accountable {
     return firstChunkMetadata.getMeasurementStatistics(index).orElse(null);
   }
 
+  /**
+   * @return the quantile sketch of the index-th measurement of the current chunk, null if the chunk
+   *     is in memory or its sketch is not built
+   */
+  public TDigest currentChunkSketch(int index) throws IOException {
+    TsFileResource resource = getTsFileResource(firstChunkMetadata);
+    ChunkSketchIndex chunkSketchIndex = resource == null ? null : resource.getChunkSketchIndex();
+    if (chunkSketchIndex == null) {
+      return null;
+    }
+    IChunkMetadata valueChunkMetadata =
+        firstChunkMetadata instanceof AbstractAlignedChunkMetadata
+            ? ((AbstractAlignedChunkMetadata) firstChunkMetadata)
+                .getValueChunkMetadataList()
+                .get(index)
+            : firstChunkMetadata;
+    return valueChunkMetadata == null
+        ? null
+        : chunkSketchIndex.getSketch(valueChunkMetadata.getOffsetOfChunkHeader());
+  }
+
+  /**
+   * @return the sealed TsFile the chunk is read from, null if the chunk is in memory
+   */
+  private static TsFileResource getTsFileResource(IChunkMetadata chunkMetadata) {
+    IChunkLoader chunkLoader = chunkMetadata.getChunkLoader();
+    if (chunkLoader instanceof DiskChunkLoader) {
+      return ((DiskChunkLoader) chunkLoader).getTsFileResource();
+    } else if (chunkLoader instanceof DiskAlignedChunkLoader) {
+      return ((DiskAlignedChunkLoader) chunkLoader).getTsFileResource();
+    }
+    return null;
+  }
+
   public void skipCurrentChunk() {
     firstChunkMetadata = null;
   }
@@ -667,45 +719,53 @@ public class SeriesScanUtil implements Accountable {
     List<IPageReader> pageReaderList =
         FileLoaderUtils.loadPageReaderList(
             chunkMetaData, scanOptions.getGlobalTimeFilter(), getTsDataTypeList());
+    if (DecodedPageCache.getInstance().isEnable()
+        && chunkLoader instanceof DiskChunkLoader
+        && chunkMetaData instanceof ChunkMetadata) {
+      // share the decoded pages with concurrent scans of the same chunk
+      pageReaderList =
+          DecodedPageCache.getInstance()
+              .share(
+                  context,
+                  ((DiskChunkLoader) chunkLoader).getTsFileResource(),
+                  (ChunkMetadata) chunkMetaData,
+                  pageReaderList,
+                  scanOptions.getGlobalTimeFilter());
+    }
 
     // init TsBlockBuilder for each page reader
     pageReaderList.forEach(p -> p.initTsBlockBuilder(getTsDataTypeList()));
 
+    Set<IPageReader> valueIndexExcludedPages =
+        !scanOptions.getValueIndexHashes().isEmpty()
+                && chunkMetaData instanceof AbstractAlignedChunkMetadata
+            ? getPagesExcludedByValueIndex(
+                (AbstractAlignedChunkMetadata) chunkMetaData, pageReaderList)
+            : Collections.emptySet();
+
     if (chunkMetaData.isSeq()) {
       if (orderUtils.getAscending()) {
         for (IPageReader iPageReader : pageReaderList) {
           seqPageReaders.add(
-              new VersionPageReader(
-                  context,
-                  timestampInFileName,
-                  chunkMetaData.getVersion(),
-                  chunkMetaData.getOffsetOfChunkHeader(),
-                  iPageReader,
-                  true));
+              createVersionPageReader(
+                  timestampInFileName, chunkMetaData, iPageReader, valueIndexExcludedPages));
         }
       } else {
         for (int i = pageReaderList.size() - 1; i >= 0; i--) {
           seqPageReaders.add(
-              new VersionPageReader(
-                  context,
+              createVersionPageReader(
                   timestampInFileName,
-                  chunkMetaData.getVersion(),
-                  chunkMetaData.getOffsetOfChunkHeader(),
+                  chunkMetaData,
                   pageReaderList.get(i),
-                  true));
+                  valueIndexExcludedPages));
         }
       }
     } else {
       pageReaderList.forEach(
           pageReader ->
               unSeqPageReaders.add(
-                  new VersionPageReader(
-                      context,
-                      timestampInFileName,
-                      chunkMetaData.getVersion(),
-                      chunkMetaData.getOffsetOfChunkHeader(),
-                      pageReader,
-                      false)));
+                  createVersionPageReader(
+                      timestampInFileName, chunkMetaData, pageReader, valueIndexExcludedPages)));
     }
 
     if (LOGGER.isDebugEnabled()) {
@@ -715,6 +775,62 @@ public class SeriesScanUtil implements Accountable {
     }
   }
 
+  private VersionPageReader createVersionPageReader(
+      long timestampInFileName,
+      IChunkMetadata chunkMetaData,
+      IPageReader pageReader,
+      Set<IPageReader> valueIndexExcludedPages) {
+    VersionPageReader versionPageReader =
+        new VersionPageReader(
+            context,
+            timestampInFileName,
+            chunkMetaData.getVersion(),
+            chunkMetaData.getOffsetOfChunkHeader(),
+            pageReader,
+            chunkMetaData.isSeq());
+    versionPageReader.excludedByValueIndex = valueIndexExcludedPages.contains(pageReader);
+    return versionPageReader;
+  }
+
+  /**
+   * Get the pages which contain none of the values some measurement has to equal. Only
+   * non-overlapped pages are skipped later, since the rows of an overlapped page may hide older
+   * rows of the same timestamps.
+   */
+  private Set<IPageReader> getPagesExcludedByValueIndex(
+      AbstractAlignedChunkMetadata chunkMetaData, List<IPageReader> pageReaderList)
+      throws IOException {
+    TsFileResource resource = getTsFileResource(chunkMetaData);
+    PageValueIndex pageValueIndex = resource == null ? null : resource.getPageValueIndex();
+    if (pageValueIndex == null) {
+      return Collections.emptySet();
+    }
+    Set<IPageReader> valueIndexExcludedPages = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<IChunkMetadata> valueChunkMetadataList = chunkMetaData.getValueChunkMetadataList();
+    for (Map.Entry<Integer, long[]> entry : scanOptions.getValueIndexHashes().entrySet()) {
+      IChunkMetadata valueChunkMetadata =
+          entry.getKey() < valueChunkMetadataList.size()
+              ? valueChunkMetadataList.get(entry.getKey())
+              : null;
+      if (valueChunkMetadata == null) {
+        // the measurement has no value in this chunk
+        continue;
+      }
+      PageValueIndex.ChunkPageBlooms chunkPageBlooms =
+          pageValueIndex.getChunkPageBlooms(valueChunkMetadata.getOffsetOfChunkHeader());
+      if (chunkPageBlooms == null) {
+        continue;
+      }
+      for (IPageReader pageReader : pageReaderList) {
+        if (!chunkPageBlooms.mightContainAny(
+            pageReader.getStatistics().getStartTime(), entry.getValue())) {
+          valueIndexExcludedPages.add(pageReader);
+        }
+      }
+    }
+    return valueIndexExcludedPages;
+  }
+
   private void unpackOneFakeMemChunkMetaData(
       IChunkMetadata chunkMetaData, MemChunkLoader chunkLoader, long timestampInFileName) {
     ReadOnlyMemChunk readOnlyMemChunk = chunkLoader.getReadOnlyMemChunk();
@@ -1397,10 +1513,18 @@ public class SeriesScanUtil implements Accountable {
     }
 
     IPageReader pageReader = firstPageReader.getPageReader();
+    if (canSkipByTopKTimeBound(pageReader.getStatistics())) {
+      this.context
+          .getQueryStatistics()
+          .addFilteredRowsOfPageLevel(pageReader.getStatistics().getCount());
+      skipCurrentPage();
+      return;
+    }
 
     // globalTimeFilter.canSkip() must be FALSE
     Filter pushDownFilter = scanOptions.getPushDownFilter();
-    if (pushDownFilter != null && pushDownFilter.canSkip(pageReader)) {
+    if (firstPageReader.isExcludedByValueIndex()
+        || (pushDownFilter != null && pushDownFilter.canSkip(pageReader))) {
       // record the page level filtered data
       this.context
           .getQueryStatistics()
@@ -1876,6 +2000,13 @@ public class SeriesScanUtil implements Accountable {
     if (firstTimeSeriesMetadata == null) {
       return;
     }
+    if (canSkipByTopKTimeBound(firstTimeSeriesMetadata.getStatistics())) {
+      this.context
+          .getQueryStatistics()
+          .addFilteredRowsOfTimeSeriesLevel(firstTimeSeriesMetadata.getStatistics().getCount());
+      skipCurrentFile();
+      return;
+    }
     // if the time range is overLapped, current file cannot be considered as truth, so all filters
     // are invalid
     if (currentFileOverlapped() || firstTimeSeriesMetadata.isModified()) {
@@ -1906,6 +2037,26 @@ public class SeriesScanUtil implements Accountable {
     }
   }
 
+  /**
+   * Data skipped by the time bound of the TopK above can be dropped even if it overlaps others,
+   * because every row in it, including the ones overwriting older rows, is out of the top k.
+   */
+  @SuppressWarnings("squid:S3740")
+  private boolean canSkipByTopKTimeBound(Statistics statistics) {
+    TopKTimeBound topKTimeBound = scanOptions.getTopKTimeBound();
+    return topKTimeBound != null
+        && topKTimeBound.canSkip(statistics.getStartTime(), statistics.getEndTime());
+  }
+
+  /**
+   * The resources are visited in the order of their order times, so once the order time of a
+   * resource exceeds the time bound of the TopK above, all the remaining ones can be skipped.
+   */
+  private boolean exceedsTopKTimeBound(long orderTime) {
+    TopKTimeBound topKTimeBound = scanOptions.getTopKTimeBound();
+    return topKTimeBound != null && topKTimeBound.canSkip(orderTime, orderTime);
+  }
+
   private void unpackAllOverlappedTsFilesToTimeSeriesMetadata(long endpointTime)
       throws IOException {
     while (orderUtils.hasNextUnseqResource() && orderUtils.isCurUnSeqOverlappedWith(endpointTime)) {
@@ -1996,6 +2147,9 @@ public class SeriesScanUtil implements Accountable {
     boolean isSeq();
 
     void setLimitOffset(PaginationController paginationController);
+
+    /** Whether the page contains none of the values of some equality or IN predicate. */
+    boolean isExcludedByValueIndex();
   }
 
   protected static class VersionPageReader implements IVersionPageReader {
@@ -2007,6 +2161,8 @@ public class SeriesScanUtil implements Accountable {
     protected final boolean isAligned;
     protected final boolean isMem;
 
+    private boolean excludedByValueIndex = false;
+
     VersionPageReader(
         QueryContext context,
         long fileTimestamp,
@@ -2102,6 +2258,11 @@ public class SeriesScanUtil implements Accountable {
     public void setLimitOffset(PaginationController paginationController) {
       data.setLimitOffset(paginationController);
     }
+
+    @Override
+    public boolean isExcludedByValueIndex() {
+      return excludedByValueIndex;
+    }
   }
 
   protected static class LazyMemVersionPageReader implements IVersionPageReader {
@@ -2252,6 +2413,11 @@ public class SeriesScanUtil implements Accountable {
       return isSeq;
     }
 
+    @Override
+    public boolean isExcludedByValueIndex() {
+      return false;
+    }
+
     public void setInited() {
       inited = true;
     }
@@ -2386,7 +2552,8 @@ public class SeriesScanUtil implements Accountable {
         }
         curSeqFileIndex--;
       }
-      return dataSource.hasNextSeqResource(curSeqFileIndex, false, deviceID);
+      return dataSource.hasNextSeqResource(curSeqFileIndex, false, deviceID)
+          && !exceedsTopKTimeBound(dataSource.getCurrentSeqOrderTime(curSeqFileIndex));
     }
 
     @Override
@@ -2398,7 +2565,8 @@ public class SeriesScanUtil implements Accountable {
         }
         curUnseqFileIndex++;
       }
-      return dataSource.hasNextUnseqResource(curUnseqFileIndex, false, deviceID);
+      return dataSource.hasNextUnseqResource(curUnseqFileIndex, false, deviceID)
+          && !exceedsTopKTimeBound(dataSource.getCurrentUnSeqOrderTime(curUnseqFileIndex));
     }
 
     @Override
@@ -2515,7 +2683,8 @@ public class SeriesScanUtil implements Accountable {
         }
         curSeqFileIndex++;
       }
-      return dataSource.hasNextSeqResource(curSeqFileIndex, true, deviceID);
+      return dataSource.hasNextSeqResource(curSeqFileIndex, true, deviceID)
+          && !exceedsTopKTimeBound(dataSource.getCurrentSeqOrderTime(curSeqFileIndex));
     }
 
     @Override
@@ -2527,7 +2696,8 @@ public class SeriesScanUtil implements Accountable {
         }
         curUnseqFileIndex++;
       }
-      return dataSource.hasNextUnseqResource(curUnseqFileIndex, true, deviceID);
+      return dataSource.hasNextUnseqResource(curUnseqFileIndex, true, deviceID)
+          && !exceedsTopKTimeBound(dataSource.getCurrentUnSeqOrderTime(curUnseqFileIndex));
     }
 
     @Override
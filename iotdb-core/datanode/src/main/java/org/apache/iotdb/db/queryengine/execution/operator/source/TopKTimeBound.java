@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source;
+
+/**
+ * The time of the k-th row kept by a TopK operator ordered by time first. It is published to the
+ * scans below the TopK, so that they can skip the files, chunks and pages whose rows cannot be in
+ * the top k any more.
+ */
+public class TopKTimeBound {
+
+  private final boolean ascending;
+
+  // time of the k-th row, rows strictly after it in the order of the TopK cannot be in the top k.
+  // It is written by the TopK operator and read by the scans, which may run in other pipelines.
+  private volatile long bound;
+
+  public TopKTimeBound(boolean ascending) {
+    this.ascending = ascending;
+    this.bound = ascending ? Long.MAX_VALUE : Long.MIN_VALUE;
+  }
+
+  /** Called by the TopK operator each time the k-th row of its full heap changes. */
+  public void update(long kthTime) {
+    this.bound = kthTime;
+  }
+
+  /**
+   * Rows of the same time as the k-th row may still be in the top k because of the other sort
+   * keys, so only the time ranges strictly after the bound can be skipped.
+   *
+   * @return true if no row in [startTime, endTime] can be in the top k
+   */
+  public boolean canSkip(long startTime, long endTime) {
+    return ascending ? startTime > bound : endTime < bound;
+  }
+}
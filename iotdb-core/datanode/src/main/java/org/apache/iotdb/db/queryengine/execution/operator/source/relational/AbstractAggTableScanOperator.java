@@ -21,12 +21,14 @@ package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
 
 import org.apache.iotdb.commons.path.AlignedFullPath;
 import org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.queryengine.execution.aggregation.timerangeiterator.ITableTimeRangeIterator;
 import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
 import org.apache.iotdb.db.queryengine.execution.operator.source.AbstractDataSourceOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.AlignedSeriesScanUtil;
 import org.apache.iotdb.db.queryengine.execution.operator.source.SeriesScanUtil;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.TableAggregator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.approximate.TDigest;
 import org.apache.iotdb.db.queryengine.execution.operator.window.IWindow;
 import org.apache.iotdb.db.queryengine.execution.operator.window.TimeWindow;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
@@ -36,6 +38,7 @@ import org.apache.iotdb.db.queryengine.plan.relational.metadata.ColumnSchema;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.DeviceEntry;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
 import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
+import org.apache.iotdb.db.storageengine.buffer.SealedWindowAggregationCache;
 import org.apache.iotdb.db.storageengine.dataregion.read.IQueryDataSource;
 import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSource;
 
@@ -99,6 +102,8 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
   private final Ordering scanOrder;
   // Some special data types(like BLOB) cannot use statistics
   protected final boolean canUseStatistics;
+  // All aggregators can merge the quantile sketches of chunks instead of the raw data
+  private final boolean canUseSketches;
   private final long cachedRawDataSize;
 
   // stores all inputChannels of tableAggregators,
@@ -111,6 +116,11 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
 
   protected boolean allAggregatorsHasFinalResult = false;
 
+  // cache access of each device, only set for ascending date_bin aggregations
+  private SealedWindowAggregationCache.Handle[] sealedWindowCacheHandles;
+  // points of current device no later than it are in windows whose results are got from cache
+  private long servedFromCacheUntil = Long.MIN_VALUE;
+
   protected AbstractAggTableScanOperator(AbstractAggTableScanOperatorParameter parameter) {
 
     this.sourceId = parameter.sourceId;
@@ -148,10 +158,36 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
         timeIterator.getType() == ITableTimeRangeIterator.TimeIteratorType.DATE_BIN_TIME_ITERATOR
             ? 1
             : 0;
+    this.canUseSketches = canUseSketches();
 
     constructAlignedSeriesScanUtil();
   }
 
+  private boolean canUseSketches() {
+    if (!IoTDBDescriptor.getInstance().getConfig().isEnableChunkQuantileSketch()
+        || tableAggregators.isEmpty()) {
+      return false;
+    }
+    int idx = 0;
+    for (TableAggregator aggregator : tableAggregators) {
+      if (!aggregator.supportsSketch()
+          || aggregator.getChannelCount() != 1
+          || aggColumnSchemas.get(aggregatorInputChannels.get(idx)).getColumnCategory()
+              != TsTableColumnCategory.FIELD) {
+        return false;
+      }
+      idx++;
+    }
+    return true;
+  }
+
+  public void setSealedWindowCacheHandles(SealedWindowAggregationCache.Handle[] handles) {
+    // windows are only skipped in ascending order
+    if (ascending && dateBinSize > 0) {
+      this.sealedWindowCacheHandles = handles;
+    }
+  }
+
   @Override
   public boolean isFinished() throws Exception {
     if (!finished) {
@@ -294,6 +330,15 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
     }
 
     updateCurTimeRange(inputTsBlock.getStartTime());
+    while (inputTsBlock.getStartTime() <= servedFromCacheUntil) {
+      inputTsBlock =
+          skipPointsOutOfTimeRange(
+              inputTsBlock, new TimeRange(servedFromCacheUntil + 1, Long.MAX_VALUE), true);
+      if (inputTsBlock == null || inputTsBlock.isEmpty()) {
+        return new Pair<>(false, inputTsBlock);
+      }
+      updateCurTimeRange(inputTsBlock.getStartTime());
+    }
 
     TimeRange curTimeRange = timeIterator.getCurTimeRange();
     // check if the tsBlock does not contain points in current interval
@@ -480,20 +525,24 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
         Statistics fileTimeStatistics = seriesScanUtil.currentFileTimeStatistics();
 
         updateCurTimeRange(fileTimeStatistics.getStartTime());
-
-        if (fileTimeStatistics.getStartTime() > timeIterator.getCurTimeRange().getMax()) {
+        if (fileTimeStatistics.getStartTime() <= servedFromCacheUntil) {
+          // some points of the file are in windows whose results are got from cache
+          if (fileTimeStatistics.getEndTime() <= servedFromCacheUntil) {
+            seriesScanUtil.skipCurrentFile();
+            continue;
+          }
+          // the other points are read from the chunks
+        } else if (fileTimeStatistics.getStartTime() > timeIterator.getCurTimeRange().getMax()) {
           if (ascending) {
             return true;
           } else {
             seriesScanUtil.skipCurrentFile();
             continue;
           }
-        }
-
-        // calc from fileMetaData
-        if (timeIterator
+        } else if (timeIterator
             .getCurTimeRange()
             .contains(fileTimeStatistics.getStartTime(), fileTimeStatistics.getEndTime())) {
+          // calc from fileMetaData
           Statistics[] statisticsList = new Statistics[measurementCount];
           for (int i = 0; i < measurementCount; i++) {
             statisticsList[i] = seriesScanUtil.currentFileStatistics(i);
@@ -529,30 +578,36 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
       if (!b.get()) {
         break;
       }
-      if (canUseStatistics && seriesScanUtil.canUseCurrentChunkStatistics()) {
+      if ((canUseStatistics || canUseSketches) && seriesScanUtil.canUseCurrentChunkStatistics()) {
         Statistics chunkTimeStatistics = seriesScanUtil.currentChunkTimeStatistics();
 
         updateCurTimeRange(chunkTimeStatistics.getStartTime());
-
-        if (chunkTimeStatistics.getStartTime() > timeIterator.getCurTimeRange().getMax()) {
+        if (chunkTimeStatistics.getStartTime() <= servedFromCacheUntil) {
+          // some points of the chunk are in windows whose results are got from cache
+          if (chunkTimeStatistics.getEndTime() <= servedFromCacheUntil) {
+            seriesScanUtil.skipCurrentChunk();
+            continue;
+          }
+          // the other points are read from the pages
+        } else if (chunkTimeStatistics.getStartTime() > timeIterator.getCurTimeRange().getMax()) {
           if (ascending) {
             return true;
           } else {
             seriesScanUtil.skipCurrentChunk();
             continue;
           }
-        }
-
-        // calc from chunkMetaData
-        if (timeIterator
-            .getCurTimeRange()
-            .contains(chunkTimeStatistics.getStartTime(), chunkTimeStatistics.getEndTime())) {
-          // calc from chunkMetaData
-          Statistics[] statisticsList = new Statistics[measurementCount];
-          for (int i = 0; i < measurementCount; i++) {
-            statisticsList[i] = seriesScanUtil.currentChunkStatistics(i);
+        } else if (timeIterator
+                .getCurTimeRange()
+                .contains(chunkTimeStatistics.getStartTime(), chunkTimeStatistics.getEndTime())
+            && (canUseStatistics || calcFromChunkSketches())) {
+          if (canUseStatistics) {
+            // calc from chunkMetaData
+            Statistics[] statisticsList = new Statistics[measurementCount];
+            for (int i = 0; i < measurementCount; i++) {
+              statisticsList[i] = seriesScanUtil.currentChunkStatistics(i);
+            }
+            calcFromStatistics(chunkTimeStatistics, statisticsList);
           }
-          calcFromStatistics(chunkTimeStatistics, statisticsList);
           seriesScanUtil.skipCurrentChunk();
           if (isAllAggregatorsHasFinalResult(tableAggregators)) {
             return true;
@@ -570,6 +625,32 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
     return false;
   }
 
+  /**
+   * Merge the quantile sketches of the current chunk into the aggregators.
+   *
+   * @return false if some measurement of the chunk has no sketch, then the chunk has to be decoded
+   */
+  private boolean calcFromChunkSketches() throws IOException {
+    TDigest[] sketches = new TDigest[tableAggregators.size()];
+    for (int i = 0; i < tableAggregators.size(); i++) {
+      int measurementIndex = aggColumnsIndexArray[aggregatorInputChannels.get(i)];
+      if (seriesScanUtil.currentChunkStatistics(measurementIndex) == null) {
+        // all values of this measurement are null in the chunk
+        continue;
+      }
+      sketches[i] = seriesScanUtil.currentChunkSketch(measurementIndex);
+      if (sketches[i] == null) {
+        return false;
+      }
+    }
+    for (int i = 0; i < tableAggregators.size(); i++) {
+      if (sketches[i] != null) {
+        tableAggregators.get(i).processSketch(sketches[i]);
+      }
+    }
+    return true;
+  }
+
   long leftRuntimeOfOneNextCall = Long.MAX_VALUE;
 
   @SuppressWarnings({"squid:S3776", "squid:S135", "squid:S3740"})
@@ -581,22 +662,26 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
           Statistics pageTimeStatistics = seriesScanUtil.currentPageTimeStatistics();
 
           updateCurTimeRange(pageTimeStatistics.getStartTime());
-
-          // There is no more eligible points in current time range
-          // TODO(beyyes) will not appear in table model?
-          if (pageTimeStatistics.getStartTime() > timeIterator.getCurTimeRange().getMax()) {
+          if (pageTimeStatistics.getStartTime() <= servedFromCacheUntil) {
+            // some points of the page are in windows whose results are got from cache
+            if (pageTimeStatistics.getEndTime() <= servedFromCacheUntil) {
+              seriesScanUtil.skipCurrentPage();
+              continue;
+            }
+            // the other points are read from the page data
+          } else if (pageTimeStatistics.getStartTime() > timeIterator.getCurTimeRange().getMax()) {
+            // There is no more eligible points in current time range
+            // TODO(beyyes) will not appear in table model?
             if (ascending) {
               return true;
             } else {
               seriesScanUtil.skipCurrentPage();
               continue;
             }
-          }
-
-          // can use pageHeader
-          if (timeIterator
+          } else if (timeIterator
               .getCurTimeRange()
               .contains(pageTimeStatistics.getStartTime(), pageTimeStatistics.getEndTime())) {
+            // can use pageHeader
             Statistics[] statisticsList = new Statistics[measurementCount];
             for (int i = 0; i < measurementCount; i++) {
               statisticsList[i] = seriesScanUtil.currentPageStatistics(i);
@@ -635,16 +720,49 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
       return;
     }
 
+    if (startTime <= servedFromCacheUntil) {
+      // the window has been got from cache
+      return;
+    }
     if (!timeIterator.hasCachedTimeRange()) {
       timeIterator.updateCurTimeRange(startTime);
+      appendCachedAggregationResult();
     } else if (timeIterator.canFinishCurrentTimeRange(startTime)) {
       updateResultTsBlock();
       timeIterator.resetCurTimeRange();
       timeIterator.updateCurTimeRange(startTime);
       resetTableAggregators();
+      appendCachedAggregationResult();
     }
   }
 
+  /**
+   * Append the cached result of current time window if there is one. Then the window is done, and
+   * all its points are skipped.
+   */
+  private void appendCachedAggregationResult() {
+    SealedWindowAggregationCache.Handle handle = getSealedWindowCacheHandle();
+    if (handle == null) {
+      return;
+    }
+    TimeRange curTimeRange = timeIterator.getCurTimeRange();
+    Column[] windowResult = handle.get(curTimeRange);
+    if (windowResult == null) {
+      return;
+    }
+    appendGroupKeysToResult(deviceEntries, currentDeviceIndex);
+    resultTsBlockBuilder.getValueColumnBuilders()[groupingKeySize].writeLong(curTimeRange.getMin());
+    appendAggregationResult(windowResult);
+    servedFromCacheUntil = curTimeRange.getMax();
+    timeIterator.resetCurTimeRange();
+  }
+
+  private SealedWindowAggregationCache.Handle getSealedWindowCacheHandle() {
+    return sealedWindowCacheHandles == null || currentDeviceIndex >= sealedWindowCacheHandles.length
+        ? null
+        : sealedWindowCacheHandles[currentDeviceIndex];
+  }
+
   /** Append a row of aggregation results to the result tsBlock. */
   protected void appendAggregationResult() {
     // no data in current time range, just output empty
@@ -659,6 +777,25 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
           timeIterator.getCurTimeRange().getMin());
     }
 
+    SealedWindowAggregationCache.Handle handle = getSealedWindowCacheHandle();
+    if (handle != null && handle.isSealed(timeIterator.getCurTimeRange())) {
+      TsBlockBuilder windowResultBuilder =
+          new TsBlockBuilder(
+              1,
+              tableAggregators.stream().map(TableAggregator::getType).collect(Collectors.toList()));
+      for (int i = 0; i < tableAggregators.size(); i++) {
+        tableAggregators.get(i).evaluate(windowResultBuilder.getValueColumnBuilders()[i]);
+      }
+      windowResultBuilder.declarePosition();
+      Column[] windowResult =
+          windowResultBuilder
+              .build(new RunLengthEncodedColumn(TIME_COLUMN_TEMPLATE, 1))
+              .getValueColumns();
+      handle.put(timeIterator.getCurTimeRange(), windowResult);
+      appendAggregationResult(windowResult);
+      return;
+    }
+
     for (int i = 0; i < tableAggregators.size(); i++) {
       tableAggregators
           .get(i)
@@ -669,6 +806,18 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
     resultTsBlockBuilder.declarePosition();
   }
 
+  private void appendAggregationResult(Column[] windowResult) {
+    ColumnBuilder[] columnBuilders = resultTsBlockBuilder.getValueColumnBuilders();
+    for (int i = 0; i < windowResult.length; i++) {
+      if (windowResult[i].isNull(0)) {
+        columnBuilders[groupingKeySize + dateBinSize + i].appendNull();
+      } else {
+        columnBuilders[groupingKeySize + dateBinSize + i].write(windowResult[i], 0);
+      }
+    }
+    resultTsBlockBuilder.declarePosition();
+  }
+
   protected void appendGroupKeysToResult(List<DeviceEntry> deviceEntries, int deviceIndex) {
     ColumnBuilder[] columnBuilders = resultTsBlockBuilder.getValueColumnBuilders();
     for (int i = 0; i < groupingKeySize; i++) {
@@ -732,6 +881,7 @@ public abstract class AbstractAggTableScanOperator extends AbstractDataSourceOpe
 
   protected void nextDevice() throws Exception {
     currentDeviceIndex++;
+    servedFromCacheUntil = Long.MIN_VALUE;
     this.operatorContext.recordSpecifiedInfo(
         CURRENT_DEVICE_INDEX_STRING, Integer.toString(currentDeviceIndex));
   }
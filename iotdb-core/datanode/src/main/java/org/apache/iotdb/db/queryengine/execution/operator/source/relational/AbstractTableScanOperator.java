@@ -21,6 +21,8 @@ package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
 
 import org.apache.iotdb.commons.path.AlignedFullPath;
 import org.apache.iotdb.db.queryengine.execution.MemoryEstimationHelper;
+import org.apache.iotdb.db.queryengine.execution.fragment.DataNodeQueryContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceManager;
 import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
 import org.apache.iotdb.db.queryengine.execution.operator.source.AbstractSeriesScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.AlignedSeriesScanUtil;
@@ -32,6 +34,7 @@ import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
 import org.apache.iotdb.db.storageengine.dataregion.read.IQueryDataSource;
 import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSource;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.tsfile.common.conf.TSFileDescriptor;
 import org.apache.tsfile.enums.TSDataType;
 import org.apache.tsfile.read.common.block.TsBlock;
@@ -42,7 +45,9 @@ import org.apache.tsfile.write.schema.IMeasurementSchema;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -89,6 +94,22 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
 
   private int currentDeviceIndex;
 
+  // whether any data of the current device has been read
+  private boolean currentDeviceStarted;
+
+  // where the joins publish the dynamic filters on the columns of this scan, null if not filtered
+  private DataNodeQueryContext dynamicFilterContext;
+  // symbol -> index of the TAG column that may be filtered
+  private Map<String, Integer> dynamicFilterTagColumns = Collections.emptyMap();
+  // symbol of the TIME column that may be filtered
+  private String dynamicFilterTimeColumn;
+  private boolean dynamicTimeFilterApplied;
+  // done once the joins have published all the filters on the columns, null if not waiting
+  private ListenableFuture<?> dynamicFiltersPublished;
+  private long dynamicFilterWaitTimeInMs;
+  // done once the filters are published or the wait times out
+  private ListenableFuture<?> dynamicFiltersBlocked;
+
   public AbstractTableScanOperator(AbstractTableScanOperatorParameter parameter) {
     this.sourceId = parameter.sourceId;
     this.operatorContext = parameter.context;
@@ -120,12 +141,43 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
     constructAlignedSeriesScanUtil();
   }
 
+  @Override
+  public ListenableFuture<?> isBlocked() {
+    if (dynamicFiltersPublished == null) {
+      return NOT_BLOCKED;
+    }
+    if (dynamicFiltersBlocked == null) {
+      // start the timeout on the first call, when the scan is ready to read
+      dynamicFiltersBlocked =
+          FragmentInstanceManager.getInstance()
+              .withTimeout(dynamicFiltersPublished, dynamicFilterWaitTimeInMs);
+    }
+    if (!dynamicFiltersBlocked.isDone()) {
+      return dynamicFiltersBlocked;
+    }
+    dynamicFiltersPublished = null;
+    dynamicFiltersBlocked = null;
+    return NOT_BLOCKED;
+  }
+
   @Override
   public TsBlock next() throws Exception {
     if (retainedTsBlock != null) {
       return getResultFromRetainedTsBlock();
     }
 
+    if (dynamicFiltersPublished != null && !isBlocked().isDone()) {
+      return null;
+    }
+
+    if (!currentDeviceStarted) {
+      currentDeviceStarted = true;
+      applyDynamicFilters();
+      if (currentDeviceIndex >= deviceCount) {
+        return null;
+      }
+    }
+
     try {
 
       // start stopwatch
@@ -164,6 +216,7 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
           && currentDeviceNoMoreData) {
         currentDeviceIndex++;
         prepareForNextDevice();
+        currentDeviceStarted = false;
       }
 
     } catch (IOException e) {
@@ -254,6 +307,67 @@ public abstract class AbstractTableScanOperator extends AbstractSeriesScanOperat
     this.measurementDataBuilder.setMaxTsBlockLineNumber(this.maxTsBlockLineNum);
   }
 
+  /**
+   * Use the columns of the given symbols to skip data by the {@link DynamicFilter}s published by
+   * the joins above. Reading waits at most {@code waitTimeInMs} for the filters the coordinator
+   * routed to this DataNode, and the filters published later are still applied from the next
+   * device.
+   */
+  public void setDynamicFilterColumns(
+      DataNodeQueryContext dynamicFilterContext,
+      Map<String, Integer> dynamicFilterTagColumns,
+      String dynamicFilterTimeColumn,
+      long waitTimeInMs) {
+    this.dynamicFilterContext = dynamicFilterContext;
+    this.dynamicFilterTagColumns = dynamicFilterTagColumns;
+    this.dynamicFilterTimeColumn = dynamicFilterTimeColumn;
+
+    List<String> symbols = new ArrayList<>(dynamicFilterTagColumns.keySet());
+    if (dynamicFilterTimeColumn != null) {
+      symbols.add(dynamicFilterTimeColumn);
+    }
+    ListenableFuture<?> published = dynamicFilterContext.getDynamicFiltersFuture(symbols);
+    if (!published.isDone() && waitTimeInMs > 0) {
+      this.dynamicFiltersPublished = published;
+      this.dynamicFilterWaitTimeInMs = waitTimeInMs;
+    }
+  }
+
+  /** Skips the devices and the time ranges that cannot match, before reading a new device. */
+  private void applyDynamicFilters() {
+    if (dynamicFilterContext == null) {
+      return;
+    }
+    boolean timeFilterAdded = false;
+    if (!dynamicTimeFilterApplied && dynamicFilterTimeColumn != null) {
+      DynamicFilter dynamicFilter = dynamicFilterContext.getDynamicFilter(dynamicFilterTimeColumn);
+      if (dynamicFilter != null && dynamicFilter.isTimeFilter() && !dynamicFilter.isAll()) {
+        seriesScanOptions.addTimeFilter(dynamicFilter.getTimeFilter());
+        dynamicTimeFilterApplied = true;
+        timeFilterAdded = true;
+      }
+    }
+    int deviceIndex = currentDeviceIndex;
+    while (currentDeviceIndex < deviceCount
+        && !mayMatchDynamicFilters(deviceEntries.get(currentDeviceIndex))) {
+      currentDeviceIndex++;
+    }
+    if (currentDeviceIndex != deviceIndex || timeFilterAdded) {
+      prepareForNextDevice();
+    }
+  }
+
+  private boolean mayMatchDynamicFilters(DeviceEntry deviceEntry) {
+    for (Map.Entry<String, Integer> tagColumn : dynamicFilterTagColumns.entrySet()) {
+      DynamicFilter dynamicFilter = dynamicFilterContext.getDynamicFilter(tagColumn.getKey());
+      if (dynamicFilter != null
+          && !dynamicFilter.mayMatch(getNthIdColumnValue(deviceEntry, tagColumn.getValue()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private void prepareForNextDevice() {
     if (currentDeviceIndex < deviceCount) {
       // construct AlignedSeriesScanUtil for next device
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import org.apache.iotdb.commons.exception.runtime.SerializationRunTimeException;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.apache.tsfile.read.filter.basic.Filter;
+import org.apache.tsfile.read.filter.factory.TimeFilterApi;
+import org.apache.tsfile.utils.PublicBAOS;
+import org.apache.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keys collected from the right side of an inner join, used by the table scans of the left side to
+ * skip the data that cannot match. A filter on a TAG column holds all the values of the key, and a
+ * filter on the TIME column holds their range.
+ */
+public class DynamicFilter {
+
+  /** Published instead when the right side is too large to filter on, it matches every row. */
+  public static final DynamicFilter ALL = new DynamicFilter(null, Long.MIN_VALUE, Long.MAX_VALUE);
+
+  private static final byte ALL_TYPE = 0;
+  private static final byte VALUES_TYPE = 1;
+  private static final byte TIME_RANGE_TYPE = 2;
+
+  // null for a filter on the TIME column
+  private final Set<String> values;
+
+  private final long minTime;
+  private final long maxTime;
+
+  private DynamicFilter(Set<String> values, long minTime, long maxTime) {
+    this.values = values;
+    this.minTime = minTime;
+    this.maxTime = maxTime;
+  }
+
+  public static DynamicFilter ofValues(Set<String> values) {
+    return new DynamicFilter(ImmutableSet.copyOf(values), Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  /** minTime > maxTime if the right side is empty. */
+  public static DynamicFilter ofTimeRange(long minTime, long maxTime) {
+    return new DynamicFilter(null, minTime, maxTime);
+  }
+
+  public boolean isTimeFilter() {
+    return values == null;
+  }
+
+  public boolean isAll() {
+    return this == ALL;
+  }
+
+  /**
+   * Merges the filters collected from different parts of the right side of the same join, a row
+   * may match if it matches either of them.
+   */
+  public DynamicFilter union(DynamicFilter other) {
+    if (isAll() || other.isAll()) {
+      return ALL;
+    }
+    if (isTimeFilter()) {
+      return ofTimeRange(Math.min(minTime, other.minTime), Math.max(maxTime, other.maxTime));
+    }
+    Set<String> union = new HashSet<>(values);
+    union.addAll(other.values);
+    return ofValues(union);
+  }
+
+  /**
+   * Merges the filters published on the same symbol by different joins, a row may match only if it
+   * matches both of them.
+   */
+  public DynamicFilter intersect(DynamicFilter other) {
+    if (isAll()) {
+      return other;
+    }
+    if (other.isAll()) {
+      return this;
+    }
+    if (isTimeFilter()) {
+      return ofTimeRange(Math.max(minTime, other.minTime), Math.min(maxTime, other.maxTime));
+    }
+    return ofValues(Sets.intersection(values, other.values));
+  }
+
+  /** Returns false if no row with the given TAG value can match the join. */
+  public boolean mayMatch(String value) {
+    return values == null || (value != null && values.contains(value));
+  }
+
+  /** Returns the filter on time, only valid if this is a filter on the TIME column. */
+  public Filter getTimeFilter() {
+    return TimeFilterApi.between(minTime, maxTime);
+  }
+
+  public ByteBuffer serialize() {
+    try (PublicBAOS publicBAOS = new PublicBAOS();
+        DataOutputStream stream = new DataOutputStream(publicBAOS)) {
+      serialize(stream);
+      return ByteBuffer.wrap(publicBAOS.getBuf(), 0, publicBAOS.size());
+    } catch (IOException e) {
+      throw new SerializationRunTimeException(e);
+    }
+  }
+
+  private void serialize(DataOutputStream stream) throws IOException {
+    if (isAll()) {
+      ReadWriteIOUtils.write(ALL_TYPE, stream);
+    } else if (isTimeFilter()) {
+      ReadWriteIOUtils.write(TIME_RANGE_TYPE, stream);
+      ReadWriteIOUtils.write(minTime, stream);
+      ReadWriteIOUtils.write(maxTime, stream);
+    } else {
+      ReadWriteIOUtils.write(VALUES_TYPE, stream);
+      ReadWriteIOUtils.write(values.size(), stream);
+      for (String value : values) {
+        ReadWriteIOUtils.write(value, stream);
+      }
+    }
+  }
+
+  public static DynamicFilter deserialize(ByteBuffer buffer) {
+    byte type = ReadWriteIOUtils.readByte(buffer);
+    switch (type) {
+      case ALL_TYPE:
+        return ALL;
+      case TIME_RANGE_TYPE:
+        return ofTimeRange(ReadWriteIOUtils.readLong(buffer), ReadWriteIOUtils.readLong(buffer));
+      case VALUES_TYPE:
+        int size = ReadWriteIOUtils.readInt(buffer);
+        Set<String> values = new HashSet<>(size);
+        for (int i = 0; i < size; i++) {
+          values.add(ReadWriteIOUtils.readString(buffer));
+        }
+        return ofValues(values);
+      default:
+        throw new IllegalArgumentException("Invalid dynamic filter type: " + type);
+    }
+  }
+
+  @Override
+  public String toString() {
+    if (isAll()) {
+      return "DynamicFilter{all}";
+    }
+    return isTimeFilter()
+        ? "DynamicFilter{time in [" + minTime + ", " + maxTime + "]}"
+        : "DynamicFilter{" + values.size() + " values}";
+  }
+}
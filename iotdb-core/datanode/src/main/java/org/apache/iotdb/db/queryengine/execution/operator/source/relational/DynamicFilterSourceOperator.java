@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import org.apache.iotdb.db.queryengine.execution.MemoryEstimationHelper;
+import org.apache.iotdb.db.queryengine.execution.operator.Operator;
+import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
+import org.apache.iotdb.db.queryengine.execution.operator.process.ProcessOperator;
+import org.apache.iotdb.db.queryengine.plan.planner.memory.MemoryReservationManager;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.common.conf.TSFileConfig;
+import org.apache.tsfile.common.conf.TSFileDescriptor;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.utils.RamUsageEstimator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Placed on the right side of an inner join. It consumes the whole right side before returning
+ * anything, collects the join keys into {@link DynamicFilter}s and publishes them to the DataNodes
+ * running the table scans of the left side. If the right side has more rows than the limit, {@link
+ * DynamicFilter#ALL} is published so that the scans stop waiting, and the buffered blocks are
+ * returned as they are.
+ */
+public class DynamicFilterSourceOperator implements ProcessOperator {
+
+  private static final long INSTANCE_SIZE =
+      RamUsageEstimator.shallowSizeOfInstance(DynamicFilterSourceOperator.class);
+
+  private final OperatorContext operatorContext;
+  private final Operator child;
+  // sends the filters of each symbol to the table scans
+  private final Consumer<Map<String, DynamicFilter>> publisher;
+
+  // symbols of the left side to publish the filters for
+  private final List<String> filteredSymbols;
+  // channel of the right side key of each filter
+  private final int[] keyChannels;
+  // whether the key of each filter is a time, or else a string
+  private final boolean[] isTimeKey;
+  private final int maxBuildRows;
+
+  private final List<Set<String>> values;
+  private final long[] minTimes;
+  private final long[] maxTimes;
+
+  private final Queue<TsBlock> bufferedBlocks = new ArrayDeque<>();
+  private long bufferedRows;
+  private boolean collecting = true;
+
+  private final MemoryReservationManager memoryReservationManager;
+  private long reservedMemory;
+
+  public DynamicFilterSourceOperator(
+      OperatorContext operatorContext,
+      Operator child,
+      Consumer<Map<String, DynamicFilter>> publisher,
+      List<String> filteredSymbols,
+      int[] keyChannels,
+      boolean[] isTimeKey,
+      int maxBuildRows) {
+    this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+    this.child = requireNonNull(child, "child operator is null");
+    this.publisher = requireNonNull(publisher, "publisher is null");
+    this.filteredSymbols = filteredSymbols;
+    this.keyChannels = keyChannels;
+    this.isTimeKey = isTimeKey;
+    this.maxBuildRows = maxBuildRows;
+
+    this.values = new ArrayList<>(keyChannels.length);
+    this.minTimes = new long[keyChannels.length];
+    this.maxTimes = new long[keyChannels.length];
+    for (int i = 0; i < keyChannels.length; i++) {
+      values.add(isTimeKey[i] ? null : new HashSet<>());
+      minTimes[i] = Long.MAX_VALUE;
+      maxTimes[i] = Long.MIN_VALUE;
+    }
+
+    this.memoryReservationManager =
+        operatorContext
+            .getDriverContext()
+            .getFragmentInstanceContext()
+            .getMemoryReservationContext();
+  }
+
+  @Override
+  public OperatorContext getOperatorContext() {
+    return operatorContext;
+  }
+
+  @Override
+  public ListenableFuture<?> isBlocked() {
+    return !collecting && !bufferedBlocks.isEmpty() ? NOT_BLOCKED : child.isBlocked();
+  }
+
+  @Override
+  public TsBlock next() throws Exception {
+    if (collecting) {
+      if (child.hasNextWithTimer()) {
+        TsBlock block = child.nextWithTimer();
+        if (block != null && !block.isEmpty()) {
+          collect(block);
+          bufferedBlocks.add(block);
+          bufferedRows += block.getPositionCount();
+          reserveMemory(block.getRetainedSizeInBytes());
+          if (bufferedRows > maxBuildRows) {
+            // too many keys to be worth filtering on, pass the right side through
+            collecting = false;
+            values.clear();
+            publishAll();
+          }
+        }
+        return null;
+      }
+      collecting = false;
+      publish();
+    }
+
+    if (!bufferedBlocks.isEmpty()) {
+      TsBlock block = bufferedBlocks.poll();
+      releaseMemory(block.getRetainedSizeInBytes());
+      return block;
+    }
+    return child.hasNextWithTimer() ? child.nextWithTimer() : null;
+  }
+
+  private void collect(TsBlock block) {
+    for (int i = 0; i < keyChannels.length; i++) {
+      Column column = block.getColumn(keyChannels[i]);
+      for (int position = 0, count = block.getPositionCount(); position < count; position++) {
+        if (column.isNull(position)) {
+          continue;
+        }
+        if (isTimeKey[i]) {
+          long time = column.getLong(position);
+          minTimes[i] = Math.min(minTimes[i], time);
+          maxTimes[i] = Math.max(maxTimes[i], time);
+        } else {
+          values
+              .get(i)
+              .add(column.getBinary(position).getStringValue(TSFileConfig.STRING_CHARSET));
+        }
+      }
+    }
+  }
+
+  private void publish() {
+    Map<String, DynamicFilter> dynamicFilters = new HashMap<>();
+    for (int i = 0; i < keyChannels.length; i++) {
+      dynamicFilters.put(
+          filteredSymbols.get(i),
+          isTimeKey[i]
+              ? DynamicFilter.ofTimeRange(minTimes[i], maxTimes[i])
+              : DynamicFilter.ofValues(values.get(i)));
+    }
+    values.clear();
+    publisher.accept(dynamicFilters);
+  }
+
+  private void publishAll() {
+    Map<String, DynamicFilter> dynamicFilters = new HashMap<>();
+    for (String symbol : filteredSymbols) {
+      dynamicFilters.put(symbol, DynamicFilter.ALL);
+    }
+    publisher.accept(dynamicFilters);
+  }
+
+  private void reserveMemory(long size) {
+    reservedMemory += size;
+    memoryReservationManager.reserveMemoryCumulatively(size);
+  }
+
+  private void releaseMemory(long size) {
+    reservedMemory -= size;
+    memoryReservationManager.releaseMemoryCumulatively(size);
+  }
+
+  @Override
+  public boolean hasNext() throws Exception {
+    return collecting || !bufferedBlocks.isEmpty() || child.hasNextWithTimer();
+  }
+
+  @Override
+  public boolean isFinished() throws Exception {
+    return !collecting && bufferedBlocks.isEmpty() && child.isFinished();
+  }
+
+  @Override
+  public void close() throws Exception {
+    child.close();
+    bufferedBlocks.clear();
+    if (reservedMemory > 0) {
+      memoryReservationManager.releaseMemoryCumulatively(reservedMemory);
+      reservedMemory = 0;
+    }
+  }
+
+  @Override
+  public long calculateMaxPeekMemory() {
+    return child.calculateMaxPeekMemoryWithCounter() + calculateMaxBufferedSize();
+  }
+
+  @Override
+  public long calculateMaxReturnSize() {
+    return child.calculateMaxReturnSize();
+  }
+
+  @Override
+  public long calculateRetainedSizeAfterCallingNext() {
+    return child.calculateRetainedSizeAfterCallingNext() + calculateMaxBufferedSize();
+  }
+
+  /** The blocks of the right side buffered until it is drained or exceeds the limit. */
+  private long calculateMaxBufferedSize() {
+    long maxBufferedBlocks =
+        (long) maxBuildRows / TSFileDescriptor.getInstance().getConfig().getMaxTsBlockLineNumber()
+            + 1;
+    return maxBufferedBlocks * child.calculateMaxReturnSize();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return INSTANCE_SIZE
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(child)
+        + MemoryEstimationHelper.getEstimatedSizeOfAccountableObject(operatorContext);
+  }
+}
@@ -56,7 +56,8 @@ public abstract class AbstractApproxPercentileAccumulator implements TableAccumu
       percentage = arguments[1].getDouble(0);
     } else if (arguments.length == 3) {
       percentage = arguments[2].getDouble(0);
-    } else {
+    } else if (arguments.length != 1) {
+      // with one argument, the constant percentage has been set when folded into AggTableScan
       throw new SemanticException(
           String.format(
               "APPROX_PERCENTILE requires 2 or 3 arguments, but got %d", arguments.length));
@@ -52,6 +52,7 @@ import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggr
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.LongGroupedApproxMostFrequentAccumulator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.UpdateMemory;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.grouped.hash.MarkDistinctHash;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.DoubleLiteral;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
 import org.apache.iotdb.db.queryengine.plan.relational.type.InternalTypeManager;
 import org.apache.iotdb.db.queryengine.plan.udf.TableUDFUtils;
@@ -78,6 +79,7 @@ import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
+import static org.apache.iotdb.commons.udf.builtin.relational.TableBuiltinAggregationFunction.APPROX_PERCENTILE;
 import static org.apache.iotdb.commons.udf.builtin.relational.TableBuiltinAggregationFunction.FIRST;
 import static org.apache.iotdb.commons.udf.builtin.relational.TableBuiltinAggregationFunction.FIRST_BY;
 import static org.apache.iotdb.commons.udf.builtin.relational.TableBuiltinAggregationFunction.LAST;
@@ -157,6 +159,13 @@ public class AccumulatorFactory {
           ascending && orderKeyIsTimeColumn
               ? new FirstAccumulator(inputDataTypes.get(0), isAggTableScan)
               : new FirstDescAccumulator(inputDataTypes.get(0));
+    } else if (APPROX_PERCENTILE.getFunctionName().equals(functionName)
+        && inputExpressions.size() == 2
+        && inputExpressions.get(1) instanceof DoubleLiteral) {
+      // the constant percentage is folded into AggTableScan, which only inputs the value column
+      result =
+          new ApproxPercentileAccumulator(
+              inputDataTypes.get(0), ((DoubleLiteral) inputExpressions.get(1)).getValue());
     } else {
       result = createBuiltinAccumulator(aggregationType, inputDataTypes);
     }
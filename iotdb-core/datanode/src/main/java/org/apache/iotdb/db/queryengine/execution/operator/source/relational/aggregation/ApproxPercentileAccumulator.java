@@ -14,6 +14,8 @@
 
 package org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation;
 
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.approximate.TDigest;
+
 import org.apache.tsfile.block.column.Column;
 import org.apache.tsfile.enums.TSDataType;
 
@@ -23,6 +25,27 @@ public class ApproxPercentileAccumulator extends AbstractApproxPercentileAccumul
     super(seriesDataType);
   }
 
+  /** The percentage is a constant argument folded into AggTableScan. */
+  public ApproxPercentileAccumulator(TSDataType seriesDataType, double percentage) {
+    super(seriesDataType);
+    this.percentage = percentage;
+  }
+
+  @Override
+  public TableAccumulator copy() {
+    return new ApproxPercentileAccumulator(seriesDataType, percentage);
+  }
+
+  @Override
+  public boolean supportsSketch() {
+    return true;
+  }
+
+  @Override
+  public void addSketch(TDigest sketch) {
+    tDigest.add(sketch);
+  }
+
   @Override
   public void addIntInput(Column[] arguments, AggregationMask mask) {
 
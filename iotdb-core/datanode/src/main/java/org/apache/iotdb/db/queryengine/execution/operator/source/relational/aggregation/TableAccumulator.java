@@ -19,6 +19,8 @@
 
 package org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation;
 
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.approximate.TDigest;
+
 import org.apache.tsfile.block.column.Column;
 import org.apache.tsfile.block.column.ColumnBuilder;
 import org.apache.tsfile.file.metadata.statistics.Statistics;
@@ -52,6 +54,19 @@ public interface TableAccumulator {
    */
   void addStatistics(Statistics[] statistics);
 
+  /**
+   * This method can only be used in AggTableScan, whether the quantile sketches of chunks can be
+   * merged by {@link #addSketch(TDigest)} instead of the raw data.
+   */
+  default boolean supportsSketch() {
+    return false;
+  }
+
+  /** This method can only be used in AggTableScan, merge the quantile sketch of one chunk. */
+  default void addSketch(TDigest sketch) {
+    throw new UnsupportedOperationException("This Accumulator does not support sketches!");
+  }
+
   void reset();
 
   default boolean removable() {
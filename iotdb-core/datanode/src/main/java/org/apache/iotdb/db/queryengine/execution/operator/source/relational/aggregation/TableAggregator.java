@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation;
 
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.approximate.TDigest;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationNode;
 
 import com.google.common.primitives.Ints;
@@ -108,6 +109,14 @@ public class TableAggregator {
     accumulator.addStatistics(statistics);
   }
 
+  public boolean supportsSketch() {
+    return accumulator.supportsSketch();
+  }
+
+  public void processSketch(TDigest sketch) {
+    accumulator.addSketch(sketch);
+  }
+
   public boolean hasFinalResult() {
     return accumulator.hasFinalResult();
   }
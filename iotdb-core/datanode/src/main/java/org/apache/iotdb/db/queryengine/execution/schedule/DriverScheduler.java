@@ -38,7 +38,6 @@ import org.apache.iotdb.db.queryengine.execution.driver.IDriver;
 import org.apache.iotdb.db.queryengine.execution.exchange.IMPPDataExchangeManager;
 import org.apache.iotdb.db.queryengine.execution.exchange.MPPDataExchangeService;
 import org.apache.iotdb.db.queryengine.execution.schedule.queue.IndexedBlockingQueue;
-import org.apache.iotdb.db.queryengine.execution.schedule.queue.IndexedBlockingReserveQueue;
 import org.apache.iotdb.db.queryengine.execution.schedule.queue.L1PriorityQueue;
 import org.apache.iotdb.db.queryengine.execution.schedule.queue.multilevelqueue.DriverTaskHandle;
 import org.apache.iotdb.db.queryengine.execution.schedule.queue.multilevelqueue.MultilevelPriorityQueue;
@@ -79,7 +78,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
     return InstanceHolder.instance;
   }
 
-  private final IndexedBlockingReserveQueue<DriverTask> readyQueue;
+  private final MultilevelPriorityQueue readyQueue;
   private final IndexedBlockingQueue<DriverTask> timeoutQueue;
   private final Set<DriverTask> blockedTasks;
   private final Map<QueryId, Map<FragmentInstanceId, Set<DriverTask>>> queryMap;
@@ -96,8 +95,15 @@ public class DriverScheduler implements IDriverScheduler, IService {
   private final List<AbstractDriverThread> threads;
 
   private DriverScheduler() {
+    int reservedThreadNum = config.getQueryThreadCountReservedForShortTasks();
     this.readyQueue =
-        new MultilevelPriorityQueue(LEVEL_TIME_MULTIPLIER, TASK_MAX_CAPACITY, new DriverTask());
+        new MultilevelPriorityQueue(
+            LEVEL_TIME_MULTIPLIER,
+            TASK_MAX_CAPACITY,
+            new DriverTask(),
+            reservedThreadNum > 0
+                ? Math.max(1, WORKER_THREAD_NUM - reservedThreadNum)
+                : Integer.MAX_VALUE);
     this.timeoutQueue =
         new L1PriorityQueue<>(
             QUERY_MAX_CAPACITY, new DriverTask.TimeoutComparator(), new DriverTask());
@@ -181,9 +187,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
       throws CpuNotEnoughException, MemoryNotEnoughException {
     DriverTaskHandle driverTaskHandle =
         new DriverTaskHandle(
-            getNextDriverTaskHandleId(),
-            (MultilevelPriorityQueue) readyQueue,
-            OptionalInt.of(Integer.MAX_VALUE));
+            getNextDriverTaskHandleId(), readyQueue, OptionalInt.of(Integer.MAX_VALUE));
     List<DriverTask> tasks = new ArrayList<>();
     drivers.forEach(
         driver ->
@@ -346,6 +350,8 @@ public class DriverScheduler implements IDriverScheduler, IService {
           case READY:
             task.setStatus(DriverTaskStatus.ABORTED);
             readyQueue.remove(task.getDriverTaskId());
+            // it may have been polled by a worker which has not run it yet
+            readyQueue.releaseRunningSlot(task);
             break;
           case BLOCKED:
             task.setStatus(DriverTaskStatus.ABORTED);
@@ -354,6 +360,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
             break;
           case RUNNING:
             task.setStatus(DriverTaskStatus.ABORTED);
+            readyQueue.releaseRunningSlot(task);
             readyQueue.decreaseReservedSize();
             break;
           case FINISHED:
@@ -520,6 +527,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
         task.updateSchedulePriority(context);
         task.setStatus(DriverTaskStatus.READY);
         task.setLastEnterReadyQueueTime(System.nanoTime());
+        readyQueue.releaseRunningSlot(task);
         readyQueue.repush(task);
       } finally {
         task.unlock();
@@ -535,6 +543,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
         }
         task.updateSchedulePriority(context);
         task.setStatus(DriverTaskStatus.BLOCKED);
+        readyQueue.releaseRunningSlot(task);
         task.setLastEnterBlockQueueTime(System.nanoTime());
         blockedTasks.add(task);
       } finally {
@@ -551,6 +560,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
         }
         task.updateSchedulePriority(context);
         task.setStatus(DriverTaskStatus.FINISHED);
+        readyQueue.releaseRunningSlot(task);
         readyQueue.decreaseReservedSize();
       } finally {
         task.unlock();
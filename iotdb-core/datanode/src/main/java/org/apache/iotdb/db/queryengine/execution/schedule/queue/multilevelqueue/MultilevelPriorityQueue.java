@@ -23,7 +23,9 @@ import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.queryengine.execution.schedule.queue.IndexedBlockingReserveQueue;
 import org.apache.iotdb.db.queryengine.execution.schedule.task.DriverTask;
 
+import java.util.HashSet;
 import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -42,6 +44,9 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
   /** the upper limit one Task can contribute to its level in one scheduled time. */
   static final long LEVEL_CONTRIBUTION_CAP = SECONDS.toNanos(30);
 
+  /** Tasks in this level and the following ones have been scheduled for more than 10 seconds. */
+  static final int LONG_RUNNING_LEVEL = 2;
+
   private final PriorityQueue<DriverTask>[] levelWaitingSplits;
 
   /**
@@ -67,9 +72,24 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
    */
   private final double levelTimeMultiplier;
 
+  /** The max number of tasks polled from long-running levels that are running at the same time. */
+  private final int maxRunningLongTasks;
+
+  /** Tasks polled from long-running levels and not yet done with their time slice. */
+  private final Set<DriverTask> runningLongTasks = new HashSet<>();
+
   public MultilevelPriorityQueue(
       double levelTimeMultiplier, int maxCapacity, DriverTask queryHolder) {
+    this(levelTimeMultiplier, maxCapacity, queryHolder, Integer.MAX_VALUE);
+  }
+
+  public MultilevelPriorityQueue(
+      double levelTimeMultiplier,
+      int maxCapacity,
+      DriverTask queryHolder,
+      int maxRunningLongTasks) {
     super(maxCapacity, queryHolder);
+    this.maxRunningLongTasks = maxRunningLongTasks;
     this.levelScheduledTime = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
     this.levelMinScheduledTime = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
     this.levelWaitingSplits = new PriorityQueue[LEVEL_THRESHOLD_SECONDS.length];
@@ -85,6 +105,18 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
 
   // region overridden functions
 
+  /**
+   * Tasks of long-running levels wait here while the max number of them are running, even if some
+   * workers are idle. The idle workers are kept for tasks of the other levels.
+   */
+  @Override
+  public synchronized DriverTask poll() throws InterruptedException {
+    while (!hasRunnableTask()) {
+      this.wait();
+    }
+    return super.poll();
+  }
+
   /**
    * During periods of time when a level has no waiting splits, it will not accumulate scheduled
    * time and will fall behind relative to other levels.
@@ -128,7 +160,11 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
 
     DriverTask result;
     while (true) {
-      result = chooseLevelAndTask();
+      result = chooseLevelAndTask(runningLongTasks.size() < maxRunningLongTasks);
+      if (result == null) {
+        // the runnable tasks have just moved to long-running levels, let one of them run anyway
+        result = chooseLevelAndTask(true);
+      }
       if (result.updatePriority()) {
         // result.updatePriority() returns true means that the Priority of DriverTaskHandle the
         // result belongs to has changed.
@@ -139,6 +175,9 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
       }
       int selectedLevel = result.getPriority().getLevel();
       levelMinScheduledTime[selectedLevel].set(result.getPriority().getLevelScheduledTime());
+      if (selectedLevel >= LONG_RUNNING_LEVEL) {
+        runningLongTasks.add(result);
+      }
       return result;
     }
   }
@@ -193,6 +232,7 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
 
   @Override
   protected void clearAllElements() {
+    runningLongTasks.clear();
     highestPriorityLevelQueue.clear();
     for (PriorityQueue<DriverTask> level : levelWaitingSplits) {
       level.clear();
@@ -201,8 +241,34 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
 
   // endregion
 
+  /**
+   * Release the running slot taken by the task if it is polled from a long-running level. It shall
+   * be called when the task stops running, before it is pushed into the queue again.
+   */
+  public synchronized void releaseRunningSlot(DriverTask driverTask) {
+    if (runningLongTasks.remove(driverTask)) {
+      this.notifyAll();
+    }
+  }
+
   // region helper functions
 
+  private boolean hasRunnableTask() {
+    if (!highestPriorityLevelQueue.isEmpty()) {
+      return true;
+    }
+    int levelCount =
+        runningLongTasks.size() < maxRunningLongTasks
+            ? LEVEL_THRESHOLD_SECONDS.length
+            : LONG_RUNNING_LEVEL;
+    for (int level = 0; level < levelCount; level++) {
+      if (!levelWaitingSplits[level].isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * We attempt to give each level a target amount of scheduled time, which is configurable using
    * levelTimeMultiplier.
@@ -210,12 +276,15 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
    * <p>This function selects the level that has the lowest ratio of actual to the target time with
    * the objective of minimizing deviation from the target scheduled time. From this level, we pick
    * the DriverTask with the lowest scheduled time.
+   *
+   * @return null if all waiting tasks are in long-running levels which are not included
    */
-  private DriverTask chooseLevelAndTask() {
+  private DriverTask chooseLevelAndTask(boolean includeLongRunningLevels) {
     long targetScheduledTime = getLevel0TargetTime();
     double worstRatio = 1;
     int selectedLevel = -1;
-    for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+    int levelCount = includeLongRunningLevels ? LEVEL_THRESHOLD_SECONDS.length : LONG_RUNNING_LEVEL;
+    for (int level = 0; level < levelCount; level++) {
       if (!levelWaitingSplits[level].isEmpty()) {
         long levelTime = levelScheduledTime[level].get();
         double ratio = levelTime == 0 ? 0 : targetScheduledTime / (1.0 * levelTime);
@@ -228,6 +297,9 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
       targetScheduledTime /= levelTimeMultiplier;
     }
 
+    if (selectedLevel == -1 && !includeLongRunningLevels) {
+      return null;
+    }
     // selected level == -1 means that the queue is empty and this method is only called when the
     // queue is not empty.
     checkState(selectedLevel != -1, "selected level can not equal to -1");
@@ -81,6 +81,7 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.GroupByTimePa
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.GroupByVariationParameter;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.IntoPathDescriptor;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.OrderByParameter;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher.cache.TreeDeviceSchemaCacheManager;
 import org.apache.iotdb.db.queryengine.plan.statement.StatementNode;
 import org.apache.iotdb.db.queryengine.plan.statement.StatementVisitor;
 import org.apache.iotdb.db.queryengine.plan.statement.component.FillComponent;
@@ -2522,6 +2523,9 @@ public class AnalyzeVisitor extends StatementVisitor<Analysis, MPPQueryContext>
         partitionFetcher.getOrCreateSchemaPartition(
             patternTree, context.getSession().getUserName());
     analysis.setSchemaPartitionInfo(schemaPartitionInfo);
+    // the device is no longer known to be missing once the statement is executed
+    TreeDeviceSchemaCacheManager.getInstance()
+        .notifySchemaChange(createTimeSeriesStatement.getPath().getDevicePath());
     return analysis;
   }
 
@@ -2625,6 +2629,8 @@ public class AnalyzeVisitor extends StatementVisitor<Analysis, MPPQueryContext>
         partitionFetcher.getOrCreateSchemaPartition(
             pathPatternTree, context.getSession().getUserName());
     analysis.setSchemaPartitionInfo(schemaPartitionInfo);
+    TreeDeviceSchemaCacheManager.getInstance()
+        .notifySchemaChange(createAlignedTimeSeriesStatement.getDevicePath());
     return analysis;
   }
 
@@ -2707,6 +2713,9 @@ public class AnalyzeVisitor extends StatementVisitor<Analysis, MPPQueryContext>
         partitionFetcher.getOrCreateSchemaPartition(
             patternTree, context.getSession().getUserName());
     analysis.setSchemaPartitionInfo(schemaPartitionInfo);
+    for (final PartialPath path : createMultiTimeSeriesStatement.getPaths()) {
+      TreeDeviceSchemaCacheManager.getInstance().notifySchemaChange(path.getDevicePath());
+    }
     return analysis;
   }
 
@@ -3518,6 +3527,7 @@ public class AnalyzeVisitor extends StatementVisitor<Analysis, MPPQueryContext>
             patternTree, context.getSession().getUserName());
 
     analysis.setSchemaPartitionInfo(partition);
+    TreeDeviceSchemaCacheManager.getInstance().notifySchemaChange(activatePath);
 
     return analysis;
   }
@@ -46,6 +46,7 @@ import org.apache.iotdb.db.exception.sql.StatementAnalyzeException;
 import org.apache.iotdb.db.protocol.client.ConfigNodeClient;
 import org.apache.iotdb.db.protocol.client.ConfigNodeClientManager;
 import org.apache.iotdb.db.protocol.client.ConfigNodeInfo;
+import org.apache.iotdb.db.queryengine.plan.analyze.cache.partition.DataPartitionPrefetcher;
 import org.apache.iotdb.db.queryengine.plan.analyze.cache.partition.PartitionCache;
 import org.apache.iotdb.mpp.rpc.thrift.TRegionRouteReq;
 import org.apache.iotdb.rpc.TSStatusCode;
@@ -77,6 +78,8 @@ public class ClusterPartitionFetcher implements IPartitionFetcher {
 
   private final PartitionCache partitionCache;
 
+  private final DataPartitionPrefetcher dataPartitionPrefetcher;
+
   private final IClientManager<ConfigRegionId, ConfigNodeClient> configNodeClientManager =
       ConfigNodeClientManager.getInstance();
 
@@ -96,6 +99,12 @@ public class ClusterPartitionFetcher implements IPartitionFetcher {
         SeriesPartitionExecutor.getSeriesPartitionExecutor(
             config.getSeriesPartitionExecutorClass(), config.getSeriesPartitionSlotNum());
     this.partitionCache = new PartitionCache();
+    this.dataPartitionPrefetcher = new DataPartitionPrefetcher(partitionCache, partitionExecutor);
+  }
+
+  /** Load data partitions of the current time partition into cache asynchronously. */
+  public void warmUpDataPartitionCache() {
+    dataPartitionPrefetcher.warmUp();
   }
 
   @Override
@@ -267,6 +276,7 @@ public class ClusterPartitionFetcher implements IPartitionFetcher {
             "An error occurred when executing getOrCreateDataPartition():" + e.getMessage());
       }
     }
+    dataPartitionPrefetcher.prefetchNextTimePartition(sgNameToQueryParamsMap);
     return dataPartition;
   }
 
@@ -296,6 +306,7 @@ public class ClusterPartitionFetcher implements IPartitionFetcher {
               dataPartitionTableResp.getStatus().getCode());
         }
       }
+      dataPartitionPrefetcher.prefetchNextTimePartition(splitDataPartitionQueryParams);
     } catch (final ClientManagerException | TException e) {
       throw new StatementAnalyzeException(
           "An error occurred when executing getOrCreateDataPartition():" + e.getMessage());
@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.analyze.cache.partition;
+
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupId;
+import org.apache.iotdb.common.rpc.thrift.TSeriesPartitionSlot;
+import org.apache.iotdb.common.rpc.thrift.TTimePartitionSlot;
+import org.apache.iotdb.commons.client.IClientManager;
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.commons.conf.CommonDescriptor;
+import org.apache.iotdb.commons.consensus.ConfigRegionId;
+import org.apache.iotdb.commons.partition.DataPartitionQueryParam;
+import org.apache.iotdb.commons.partition.executor.SeriesPartitionExecutor;
+import org.apache.iotdb.commons.utils.CommonDateTimeUtils;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.commons.utils.TimePartitionUtils;
+import org.apache.iotdb.confignode.rpc.thrift.TDataPartitionReq;
+import org.apache.iotdb.confignode.rpc.thrift.TDataPartitionTableResp;
+import org.apache.iotdb.confignode.rpc.thrift.TTimeSlotList;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.protocol.client.ConfigNodeClient;
+import org.apache.iotdb.db.protocol.client.ConfigNodeClientManager;
+import org.apache.iotdb.db.protocol.client.ConfigNodeInfo;
+import org.apache.iotdb.rpc.TSStatusCode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Fill the {@link PartitionCache} with data partitions ahead of the writes that need them, so that
+ * the writes do not wait for the config node:
+ *
+ * <ul>
+ *   <li>warm up: after restart, data partitions of the current time partition of all databases are
+ *       loaded.
+ *   <li>prefetch: when a write falls into the current time partition shortly before the next one
+ *       begins, data partitions of the next time partition of the same series slots are loaded if
+ *       they already exist, e.g. created by the writes of other DataNodes. If a series slot is
+ *       written again after its partition is found absent, it is being written actively and its
+ *       partition is created ahead, so that the first write into the next time partition does not
+ *       wait for the config node. A series slot written only once within the prefetch ahead time
+ *       gets no partition, since it may receive no data in the next time partition.
+ * </ul>
+ *
+ * <p>All requests are sent by a single background thread, and failures are only logged since the
+ * write path will fetch the partitions itself on cache miss.
+ */
+public class DataPartitionPrefetcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(DataPartitionPrefetcher.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private final PartitionCache partitionCache;
+  private final SeriesPartitionExecutor partitionExecutor;
+  private final long prefetchAheadTime;
+
+  private final IClientManager<ConfigRegionId, ConfigNodeClient> configNodeClientManager;
+
+  /** the series slots requested for the next time partition */
+  private volatile NextTimePartition nextTimePartition;
+
+  private final ExecutorService prefetchExecutor =
+      IoTDBThreadPoolFactory.newSingleThreadExecutor(
+          ThreadName.DATA_PARTITION_CACHE_PREFETCH.getName());
+
+  public DataPartitionPrefetcher(
+      PartitionCache partitionCache, SeriesPartitionExecutor partitionExecutor) {
+    this(
+        partitionCache,
+        partitionExecutor,
+        ConfigNodeClientManager.getInstance(),
+        CommonDateTimeUtils.convertMilliTimeWithPrecision(
+            config.getDataPartitionPrefetchAheadTimeInMs(),
+            CommonDescriptor.getInstance().getConfig().getTimestampPrecision()));
+  }
+
+  @TestOnly
+  DataPartitionPrefetcher(
+      PartitionCache partitionCache,
+      SeriesPartitionExecutor partitionExecutor,
+      IClientManager<ConfigRegionId, ConfigNodeClient> configNodeClientManager,
+      long prefetchAheadTime) {
+    this.partitionCache = partitionCache;
+    this.partitionExecutor = partitionExecutor;
+    this.configNodeClientManager = configNodeClientManager;
+    this.prefetchAheadTime = prefetchAheadTime;
+  }
+
+  /** Load data partitions of the current time partition of all databases asynchronously. */
+  public void warmUp() {
+    if (!config.isEnableDataPartitionCacheWarmUp()) {
+      return;
+    }
+    prefetchExecutor.submit(this::doWarmUp);
+  }
+
+  private void doWarmUp() {
+    long startTime = System.currentTimeMillis();
+    TTimePartitionSlot currentTimeSlot =
+        TimePartitionUtils.getTimePartitionSlot(CommonDateTimeUtils.currentTime());
+    TTimeSlotList timeSlotList =
+        new TTimeSlotList(Collections.singletonList(currentTimeSlot), false, false);
+    Map<TSeriesPartitionSlot, TTimeSlotList> seriesSlotMap = new HashMap<>();
+    for (int slotId = 0; slotId < config.getSeriesPartitionSlotNum(); slotId++) {
+      seriesSlotMap.put(new TSeriesPartitionSlot(slotId), timeSlotList);
+    }
+
+    int warmedUpDatabaseNum = 0;
+    try (ConfigNodeClient client =
+        configNodeClientManager.borrowClient(ConfigNodeInfo.CONFIG_REGION_ID)) {
+      for (String database : partitionCache.fetchAllDatabases()) {
+        // one request per database to bound the size of each response
+        TDataPartitionTableResp resp =
+            client.getDataPartitionTable(
+                new TDataPartitionReq(Collections.singletonMap(database, seriesSlotMap)));
+        if (resp.getStatus().getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+          logger.warn(
+              "Failed to warm up data partition cache of database {}: {}",
+              database,
+              resp.getStatus().getMessage());
+          continue;
+        }
+        partitionCache.updateDataPartitionCache(resp.getDataPartitionTable());
+        warmUpRegionReplicaSets(resp);
+        warmedUpDatabaseNum++;
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to warm up data partition cache", e);
+    }
+    logger.info(
+        "Warmed up data partition cache of {} databases, which takes {} ms",
+        warmedUpDatabaseNum,
+        System.currentTimeMillis() - startTime);
+  }
+
+  private void warmUpRegionReplicaSets(TDataPartitionTableResp resp) {
+    Set<TConsensusGroupId> groupIds = new HashSet<>();
+    resp.getDataPartitionTable()
+        .values()
+        .forEach(
+            seriesSlotMap ->
+                seriesSlotMap
+                    .values()
+                    .forEach(timeSlotMap -> timeSlotMap.values().forEach(groupIds::addAll)));
+    if (!groupIds.isEmpty()) {
+      partitionCache.getRegionReplicaSet(new ArrayList<>(groupIds));
+    }
+  }
+
+  /**
+   * Load the existing data partitions of the next time partition asynchronously if the given params
+   * hit the current time partition within the prefetch ahead time before the next one begins.
+   *
+   * @param databaseToQueryParamsMap database to dataPartitionQueryParam map of one write
+   */
+  public void prefetchNextTimePartition(
+      Map<String, List<DataPartitionQueryParam>> databaseToQueryParamsMap) {
+    if (prefetchAheadTime <= 0) {
+      return;
+    }
+    long currentTime = CommonDateTimeUtils.currentTime();
+    long nextStartTime = TimePartitionUtils.getTimePartitionUpperBound(currentTime);
+    if (nextStartTime == Long.MAX_VALUE || nextStartTime - currentTime > prefetchAheadTime) {
+      return;
+    }
+    TTimePartitionSlot currentTimeSlot = TimePartitionUtils.getTimePartitionSlot(currentTime);
+    TTimePartitionSlot nextTimeSlot = TimePartitionUtils.getTimePartitionSlot(nextStartTime);
+    NextTimePartition next = nextTimePartition;
+    if (next == null || !nextTimeSlot.equals(next.timeSlot)) {
+      synchronized (this) {
+        next = nextTimePartition;
+        if (next == null || !nextTimeSlot.equals(next.timeSlot)) {
+          next = new NextTimePartition(nextTimeSlot);
+          nextTimePartition = next;
+        }
+      }
+    }
+
+    Map<String, Map<TSeriesPartitionSlot, TTimeSlotList>> slotsToGet = new HashMap<>();
+    Map<String, Map<TSeriesPartitionSlot, TTimeSlotList>> slotsToCreate = new HashMap<>();
+    TTimeSlotList nextTimeSlotList =
+        new TTimeSlotList(Collections.singletonList(nextTimeSlot), false, false);
+    for (Map.Entry<String, List<DataPartitionQueryParam>> entry :
+        databaseToQueryParamsMap.entrySet()) {
+      String database = entry.getKey();
+      Set<TSeriesPartitionSlot> inFlight = next.getInFlightSlots(database);
+      Set<TSeriesPartitionSlot> absent = next.getAbsentSlots(database);
+      for (DataPartitionQueryParam param : entry.getValue()) {
+        if (param.getDeviceID() == null
+            || !param.getTimePartitionSlotList().contains(currentTimeSlot)) {
+          continue;
+        }
+        TSeriesPartitionSlot seriesSlot =
+            partitionExecutor.getSeriesPartitionSlot(param.getDeviceID());
+        if (partitionCache.containsDataPartition(database, seriesSlot, nextTimeSlot)
+            || !inFlight.add(seriesSlot)) {
+          continue;
+        }
+        (absent.contains(seriesSlot) ? slotsToCreate : slotsToGet)
+            .computeIfAbsent(database, k -> new HashMap<>())
+            .put(seriesSlot, nextTimeSlotList);
+      }
+    }
+    NextTimePartition requested = next;
+    if (!slotsToGet.isEmpty()) {
+      prefetchExecutor.submit(() -> doPrefetch(requested, slotsToGet, false));
+    }
+    if (!slotsToCreate.isEmpty()) {
+      prefetchExecutor.submit(() -> doPrefetch(requested, slotsToCreate, true));
+    }
+  }
+
+  /** Wait for the submitted requests to finish. */
+  @TestOnly
+  void awaitRequests() throws Exception {
+    prefetchExecutor.submit(() -> {}).get();
+  }
+
+  private void doPrefetch(
+      NextTimePartition next,
+      Map<String, Map<TSeriesPartitionSlot, TTimeSlotList>> partitionSlotsMap,
+      boolean create) {
+    Map<String, Map<TSeriesPartitionSlot, Map<TTimePartitionSlot, List<TConsensusGroupId>>>>
+        partitionTable = null;
+    try (ConfigNodeClient client =
+        configNodeClientManager.borrowClient(ConfigNodeInfo.CONFIG_REGION_ID)) {
+      TDataPartitionReq req = new TDataPartitionReq(partitionSlotsMap);
+      // only the existing partitions are returned by getDataPartitionTable
+      TDataPartitionTableResp resp =
+          create ? client.getOrCreateDataPartitionTable(req) : client.getDataPartitionTable(req);
+      if (resp.getStatus().getCode() == TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        partitionCache.updateDataPartitionCache(resp.getDataPartitionTable());
+        partitionTable = resp.getDataPartitionTable();
+      } else {
+        logger.warn(
+            "Failed to prefetch data partitions of next time partition: {}",
+            resp.getStatus().getMessage());
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to prefetch data partitions of next time partition", e);
+    }
+
+    for (Map.Entry<String, Map<TSeriesPartitionSlot, TTimeSlotList>> entry :
+        partitionSlotsMap.entrySet()) {
+      String database = entry.getKey();
+      Map<TSeriesPartitionSlot, Map<TTimePartitionSlot, List<TConsensusGroupId>>> seriesSlotMap =
+          partitionTable == null ? null : partitionTable.get(database);
+      for (TSeriesPartitionSlot seriesSlot : entry.getValue().keySet()) {
+        Map<TTimePartitionSlot, List<TConsensusGroupId>> timeSlotMap =
+            seriesSlotMap == null ? null : seriesSlotMap.get(seriesSlot);
+        if (partitionTable != null && (timeSlotMap == null || timeSlotMap.isEmpty())) {
+          // the partition does not exist yet, it is created if the series slot is written again
+          next.getAbsentSlots(database).add(seriesSlot);
+        }
+        // the slots whose partition did not come back are requested again by the next write
+        next.getInFlightSlots(database).remove(seriesSlot);
+      }
+    }
+  }
+
+  /** The series slots requested for one next time partition. */
+  private static class NextTimePartition {
+
+    private final TTimePartitionSlot timeSlot;
+
+    /** database -> series slots whose request has not finished */
+    private final Map<String, Set<TSeriesPartitionSlot>> inFlightSlots = new ConcurrentHashMap<>();
+
+    /** database -> series slots whose partition is found absent by a get-only request */
+    private final Map<String, Set<TSeriesPartitionSlot>> absentSlots = new ConcurrentHashMap<>();
+
+    private NextTimePartition(TTimePartitionSlot timeSlot) {
+      this.timeSlot = timeSlot;
+    }
+
+    private Set<TSeriesPartitionSlot> getInFlightSlots(String database) {
+      return inFlightSlots.computeIfAbsent(database, k -> ConcurrentHashMap.newKeySet());
+    }
+
+    private Set<TSeriesPartitionSlot> getAbsentSlots(String database) {
+      return absentSlots.computeIfAbsent(database, k -> ConcurrentHashMap.newKeySet());
+    }
+  }
+}
@@ -546,6 +546,21 @@ public class PartitionCache {
     }
   }
 
+  /**
+   * get all database from configNode and update database cache
+   *
+   * @return names of all databases
+   */
+  public Set<String> fetchAllDatabases() throws ClientManagerException, TException {
+    fetchDatabaseAndUpdateCache();
+    databaseCacheLock.readLock().lock();
+    try {
+      return new HashSet<>(databaseCache);
+    } finally {
+      databaseCacheLock.readLock().unlock();
+    }
+  }
+
   /** invalidate all database cache */
   public void removeFromDatabaseCache() {
     databaseCacheLock.writeLock().lock();
@@ -1046,6 +1061,37 @@ public class PartitionCache {
     }
   }
 
+  /**
+   * judge whether the data partition of the series slot in the time slot is cached
+   *
+   * @param databaseName the name of database
+   * @param seriesPartitionSlot the series partition slot
+   * @param timePartitionSlot the time partition slot
+   * @return {@code true} if the data partition is cached
+   */
+  public boolean containsDataPartition(
+      String databaseName,
+      TSeriesPartitionSlot seriesPartitionSlot,
+      TTimePartitionSlot timePartitionSlot) {
+    dataPartitionCacheLock.readLock().lock();
+    try {
+      DataPartitionTable dataPartitionTable = dataPartitionCache.getIfPresent(databaseName);
+      if (null == dataPartitionTable) {
+        return false;
+      }
+      SeriesPartitionTable seriesPartitionTable =
+          dataPartitionTable.getDataPartitionMap().get(seriesPartitionSlot);
+      if (null == seriesPartitionTable) {
+        return false;
+      }
+      List<TConsensusGroupId> consensusGroupIds =
+          seriesPartitionTable.getSeriesPartitionMap().get(timePartitionSlot);
+      return null != consensusGroupIds && !consensusGroupIds.isEmpty();
+    } finally {
+      dataPartitionCacheLock.readLock().unlock();
+    }
+  }
+
   /** invalid all dataPartitionCache */
   public void invalidAllDataPartitionCache() {
     dataPartitionCacheLock.writeLock().lock();
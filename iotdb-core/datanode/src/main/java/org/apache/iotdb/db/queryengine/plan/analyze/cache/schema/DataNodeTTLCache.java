@@ -27,6 +27,7 @@ import org.apache.iotdb.commons.utils.CommonDateTimeUtils;
 import org.apache.iotdb.commons.utils.PathUtils;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.schemaengine.table.DataNodeTableCache;
+import org.apache.iotdb.db.storageengine.buffer.SealedWindowAggregationCache;
 
 import org.apache.tsfile.file.metadata.IDeviceID;
 
@@ -57,6 +58,8 @@ public class DataNodeTTLCache {
     } finally {
       lock.writeLock().unlock();
     }
+    // expired data silently disappears from results of sealed windows
+    SealedWindowAggregationCache.getInstance().invalidateAll();
   }
 
   public void setTTLForTree(String[] path, long ttl) {
@@ -66,6 +69,8 @@ public class DataNodeTTLCache {
     } finally {
       lock.writeLock().unlock();
     }
+    // expired data silently disappears from results of sealed windows
+    SealedWindowAggregationCache.getInstance().invalidateAll();
   }
 
   public void unsetTTLForTree(String[] path) {
@@ -75,6 +80,8 @@ public class DataNodeTTLCache {
     } finally {
       lock.writeLock().unlock();
     }
+    // expired data silently disappears from results of sealed windows
+    SealedWindowAggregationCache.getInstance().invalidateAll();
   }
 
   public long getTTLForTree(IDeviceID deviceID) {
@@ -140,5 +147,7 @@ public class DataNodeTTLCache {
     } finally {
       lock.writeLock().unlock();
     }
+    // expired data silently disappears from results of sealed windows
+    SealedWindowAggregationCache.getInstance().invalidateAll();
   }
 }
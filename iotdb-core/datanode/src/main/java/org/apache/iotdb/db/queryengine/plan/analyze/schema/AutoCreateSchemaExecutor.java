@@ -64,6 +64,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
@@ -74,12 +75,18 @@ class AutoCreateSchemaExecutor {
   private final Coordinator coordinator;
   private final ITemplateManager templateManager;
   private final ISchemaFetcher schemaFetcher;
+  // notified of the devices which may have been created, even if partially failed
+  private final Consumer<PartialPath> deviceCreationListener;
 
   AutoCreateSchemaExecutor(
-      Coordinator coordinator, ITemplateManager templateManager, ISchemaFetcher schemaFetcher) {
+      Coordinator coordinator,
+      ITemplateManager templateManager,
+      ISchemaFetcher schemaFetcher,
+      Consumer<PartialPath> deviceCreationListener) {
     this.coordinator = coordinator;
     this.templateManager = templateManager;
     this.schemaFetcher = schemaFetcher;
+    this.deviceCreationListener = deviceCreationListener;
   }
 
   private ExecutionResult executeStatement(Statement statement, MPPQueryContext context) {
@@ -510,6 +517,7 @@ class AutoCreateSchemaExecutor {
     }
 
     ExecutionResult executionResult = executeStatement(statement, context);
+    devicesNeedAutoCreateTimeSeries.keySet().forEach(deviceCreationListener);
 
     final int statusCode = executionResult.status.getCode();
     if (statusCode == TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
@@ -566,6 +574,7 @@ class AutoCreateSchemaExecutor {
       throw new IoTDBRuntimeException(status.getMessage(), status.getCode());
     }
     ExecutionResult executionResult = executeStatement(statement, context);
+    deviceCreationListener.accept(devicePath);
     status = executionResult.status;
     if (status.getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()
         && status.getCode() != TSStatusCode.TEMPLATE_IS_IN_USE.getStatusCode()) {
@@ -584,6 +593,7 @@ class AutoCreateSchemaExecutor {
       throw new IoTDBRuntimeException(status.getMessage(), status.getCode());
     }
     ExecutionResult executionResult = executeStatement(statement, context);
+    devicesNeedActivateTemplate.keySet().forEach(deviceCreationListener);
     status = executionResult.status;
     if (status.getCode() == TSStatusCode.SUCCESS_STATUS.getStatusCode()
         || status.getCode() == TSStatusCode.TEMPLATE_IS_IN_USE.getStatusCode()) {
@@ -50,6 +50,7 @@ import org.apache.tsfile.utils.ReadWriteIOUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -57,6 +58,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 class ClusterSchemaFetchExecutor {
 
@@ -65,6 +67,12 @@ class ClusterSchemaFetchExecutor {
   private final ITemplateManager templateManager;
   private final ISchemaFetcher schemaFetcher;
   private final Consumer<ClusterSchemaTree> schemaCacheUpdater;
+  private final SchemaFetchCoalescer schemaFetchCoalescer =
+      new SchemaFetchCoalescer(
+          this::fetchSchemaAndCacheResult,
+          config.isEnableSchemaFetchCoalescing(),
+          config.getSchemaFetchCoalescingMaxConcurrentNum(),
+          config.getSchemaFetchMissingDeviceTtlInMs());
 
   ClusterSchemaFetchExecutor(
       Coordinator coordinator,
@@ -181,12 +189,19 @@ class ClusterSchemaFetchExecutor {
       String[] measurements,
       List<Integer> indexOfTargetMeasurements,
       MPPQueryContext context) {
-    PathPatternTree patternTree = new PathPatternTree();
-    for (int index : indexOfTargetMeasurements) {
-      patternTree.appendFullPath(devicePath, measurements[index]);
+    if (schemaFetchCoalescer.isMissingDevice(devicePath)) {
+      return new ClusterSchemaTree();
     }
-    patternTree.constructTree();
-    return fetchSchemaAndCacheResult(patternTree, context);
+    ClusterSchemaTree schemaTree =
+        schemaFetchCoalescer.fetch(
+            patternTree -> {
+              for (int index : indexOfTargetMeasurements) {
+                patternTree.appendFullPath(devicePath, measurements[index]);
+              }
+            },
+            context);
+    schemaFetchCoalescer.recordIfMissing(schemaTree, devicePath);
+    return schemaTree;
   }
 
   ClusterSchemaTree fetchSchemaOfMultiDevices(
@@ -195,17 +210,42 @@ class ClusterSchemaFetchExecutor {
       List<Integer> indexOfTargetDevices,
       List<List<Integer>> indexOfTargetMeasurementsList,
       MPPQueryContext context) {
-    PathPatternTree patternTree = new PathPatternTree();
-    int deviceIndex;
+    List<Integer> indexOfDevicesToFetch = new ArrayList<>(indexOfTargetDevices.size());
     for (int i = 0, size = indexOfTargetDevices.size(); i < size; i++) {
-      deviceIndex = indexOfTargetDevices.get(i);
-      for (int measurementIndex : indexOfTargetMeasurementsList.get(i)) {
-        patternTree.appendFullPath(
-            devicePathList.get(deviceIndex), measurementsList.get(deviceIndex)[measurementIndex]);
+      if (!schemaFetchCoalescer.isMissingDevice(devicePathList.get(indexOfTargetDevices.get(i)))) {
+        indexOfDevicesToFetch.add(i);
       }
     }
-    patternTree.constructTree();
-    return fetchSchemaAndCacheResult(patternTree, context);
+    if (indexOfDevicesToFetch.isEmpty()) {
+      return new ClusterSchemaTree();
+    }
+    ClusterSchemaTree schemaTree =
+        schemaFetchCoalescer.fetch(
+            patternTree -> {
+              int deviceIndex;
+              for (int i : indexOfDevicesToFetch) {
+                deviceIndex = indexOfTargetDevices.get(i);
+                for (int measurementIndex : indexOfTargetMeasurementsList.get(i)) {
+                  patternTree.appendFullPath(
+                      devicePathList.get(deviceIndex),
+                      measurementsList.get(deviceIndex)[measurementIndex]);
+                }
+              }
+            },
+            context);
+    for (int i : indexOfDevicesToFetch) {
+      schemaFetchCoalescer.recordIfMissing(
+          schemaTree, devicePathList.get(indexOfTargetDevices.get(i)));
+    }
+    return schemaTree;
+  }
+
+  /**
+   * Forget that the device is missing, called after the device is auto created on this node or its
+   * schema may have changed, {@code null} for all devices.
+   */
+  void invalidateMissingDevice(PartialPath devicePath) {
+    schemaFetchCoalescer.invalidateMissingDevice(devicePath);
   }
 
   ClusterSchemaTree fetchSchemaWithFullPaths(List<String> fullPathList, MPPQueryContext context) {
@@ -229,6 +269,11 @@ class ClusterSchemaFetchExecutor {
 
   private ClusterSchemaTree fetchSchemaAndCacheResult(
       PathPatternTree patternTree, MPPQueryContext context) {
+    return fetchSchemaAndCacheResult(patternTree, context, getMemoryReserver(context));
+  }
+
+  private ClusterSchemaTree fetchSchemaAndCacheResult(
+      PathPatternTree patternTree, MPPQueryContext context, LongConsumer memoryReserver) {
     ClusterSchemaTree schemaTree =
         executeSchemaFetchQuery(
             new SeriesSchemaFetchStatement(
@@ -239,7 +284,8 @@ class ClusterSchemaFetchExecutor {
                 true,
                 false,
                 true),
-            context);
+            context,
+            memoryReserver);
     if (!schemaTree.isEmpty()) {
       schemaCacheUpdater.accept(schemaTree);
     }
@@ -256,6 +302,16 @@ class ClusterSchemaFetchExecutor {
 
   private ClusterSchemaTree executeSchemaFetchQuery(
       Statement fetchStatement, MPPQueryContext context) {
+    return executeSchemaFetchQuery(fetchStatement, context, getMemoryReserver(context));
+  }
+
+  /**
+   * @param context {@code null} if the fetch is not executed for a single query
+   * @param memoryReserver charged with the memory of the fetched schema tree, {@code null} if it is
+   *     not charged
+   */
+  private ClusterSchemaTree executeSchemaFetchQuery(
+      Statement fetchStatement, MPPQueryContext context, LongConsumer memoryReserver) {
     long queryId = SessionManager.getInstance().requestQueryId();
     Throwable t = null;
     try {
@@ -286,7 +342,8 @@ class ClusterSchemaFetchExecutor {
           }
           Column column = tsBlock.get().getColumn(0);
           for (int i = 0; i < column.getPositionCount(); i++) {
-            parseFetchedData(column.getBinary(i), result, deserializer, databaseSet, context);
+            parseFetchedData(
+                column.getBinary(i), result, deserializer, databaseSet, memoryReserver);
           }
         }
         result.setDatabases(databaseSet);
@@ -305,7 +362,7 @@ class ClusterSchemaFetchExecutor {
       ClusterSchemaTree resultSchemaTree,
       ClusterSchemaTree.SchemaNodeBatchDeserializer deserializer,
       Set<String> databaseSet,
-      MPPQueryContext context) {
+      LongConsumer memoryReserver) {
     InputStream inputStream = new ByteArrayInputStream(data.getValues());
     try {
       byte type = ReadWriteIOUtils.readByte(inputStream);
@@ -317,15 +374,15 @@ class ClusterSchemaFetchExecutor {
       } else if (type == 1) {
         // for data from old version
         ClusterSchemaTree deserializedSchemaTree = ClusterSchemaTree.deserialize(inputStream);
-        if (context != null) {
-          context.reserveMemoryForSchemaTree(deserializedSchemaTree.ramBytesUsed());
+        if (memoryReserver != null) {
+          memoryReserver.accept(deserializedSchemaTree.ramBytesUsed());
         }
         resultSchemaTree.mergeSchemaTree(deserializedSchemaTree);
       } else if (type == 2 || type == 3) {
         if (deserializer.isFirstBatch()) {
           long memCost = ReadWriteIOUtils.readLong(inputStream);
-          if (context != null) {
-            context.reserveMemoryForSchemaTree(memCost);
+          if (memoryReserver != null) {
+            memoryReserver.accept(memCost);
           }
         }
         deserializer.deserializeFromBatch(inputStream);
@@ -343,4 +400,8 @@ class ClusterSchemaFetchExecutor {
       throw new RuntimeException(e);
     }
   }
+
+  private static LongConsumer getMemoryReserver(MPPQueryContext context) {
+    return context == null ? null : context::reserveMemoryForSchemaTree;
+  }
 }
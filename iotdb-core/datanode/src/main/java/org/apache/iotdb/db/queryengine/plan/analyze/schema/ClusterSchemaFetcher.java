@@ -65,10 +65,14 @@ public class ClusterSchemaFetcher implements ISchemaFetcher {
       TreeDeviceSchemaCacheManager.getInstance();
   private final ITemplateManager templateManager = ClusterTemplateManager.getInstance();
 
-  private final AutoCreateSchemaExecutor autoCreateSchemaExecutor =
-      new AutoCreateSchemaExecutor(coordinator, templateManager, this);
   private final ClusterSchemaFetchExecutor clusterSchemaFetchExecutor =
       new ClusterSchemaFetchExecutor(coordinator, templateManager, this, schemaCache::put);
+  private final AutoCreateSchemaExecutor autoCreateSchemaExecutor =
+      new AutoCreateSchemaExecutor(
+          coordinator,
+          templateManager,
+          this,
+          clusterSchemaFetchExecutor::invalidateMissingDevice);
 
   private final NormalSchemaFetcher normalSchemaFetcher =
       new NormalSchemaFetcher(schemaCache, autoCreateSchemaExecutor, clusterSchemaFetchExecutor);
@@ -85,7 +89,9 @@ public class ClusterSchemaFetcher implements ISchemaFetcher {
     return ClusterSchemaFetcherHolder.INSTANCE;
   }
 
-  private ClusterSchemaFetcher() {}
+  private ClusterSchemaFetcher() {
+    schemaCache.addSchemaChangeListener(clusterSchemaFetchExecutor::invalidateMissingDevice);
+  }
 
   @Override
   public ClusterSchemaTree fetchSchema(
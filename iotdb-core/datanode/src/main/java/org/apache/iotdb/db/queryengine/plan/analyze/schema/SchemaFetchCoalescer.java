@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.analyze.schema;
+
+import org.apache.iotdb.commons.exception.QuerySchemaFetchFailedException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.commons.path.PathPatternTree;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.common.MPPQueryContext;
+import org.apache.iotdb.db.queryengine.common.QueryId;
+import org.apache.iotdb.db.queryengine.common.schematree.ClusterSchemaTree;
+import org.apache.iotdb.db.queryengine.plan.planner.memory.MemoryReservationManager;
+import org.apache.iotdb.db.queryengine.plan.planner.memory.NotThreadSafeMemoryReservationManager;
+import org.apache.iotdb.rpc.TSStatusCode;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Coalesces the schema fetches of the insertions which miss the schema cache at the same time. Up
+ * to a limited number of fetches are executed at the same time. The fetches arriving while the
+ * limit is reached are queued, and then executed together as one fetch by the first of them to get
+ * a free slot while the others wait for its result. So when many sessions write to new devices at
+ * the same time, they share the round trips to the schema regions instead of waiting for one round
+ * trip each. A fetch arriving when a slot is free is executed at once.
+ *
+ * <p>Each insertion waits no longer than the remaining time of its own query. A fetch merged from
+ * the fetches of several insertions is not executed in the context of any of them, but with the
+ * default query timeout, so that it is not failed by the timeout of one of them. The memory of the
+ * merged schema tree is reserved on behalf of the whole batch while it is fetched, and then each
+ * insertion charges its share of it to its own query, which releases it after analysis.
+ *
+ * <p>The devices found missing by a fetch may also be remembered for a while, so that the
+ * insertions into them skip the fetch until the remembered result expires or the schema of the
+ * device may have changed on this node, see {@link #invalidateMissingDevice(PartialPath)}.
+ */
+class SchemaFetchCoalescer {
+
+  private static final int MAX_MISSING_DEVICE_NUM = 100_000;
+
+  private static final QueryId COALESCED_FETCH_QUERY_ID = new QueryId("coalesced_schema_fetch");
+
+  private final SchemaFetcher schemaFetcher;
+
+  private final boolean enableCoalescing;
+
+  private final int maxConcurrentFetchNum;
+
+  // null if the missing devices are not remembered
+  private final Cache<PartialPath, Boolean> missingDevices;
+
+  private final Object lock = new Object();
+
+  // guarded by lock
+  private List<PendingFetch> pendingFetches = new ArrayList<>();
+  private int executingFetchNum = 0;
+
+  /**
+   * @param schemaFetcher fetches the schema of the paths of a constructed pattern tree
+   * @param maxConcurrentFetchNum how many coalesced fetches may be executed at the same time
+   * @param missingDeviceTtlInMs how long the missing devices are remembered, 0 to disable
+   */
+  SchemaFetchCoalescer(
+      SchemaFetcher schemaFetcher,
+      boolean enableCoalescing,
+      int maxConcurrentFetchNum,
+      long missingDeviceTtlInMs) {
+    this.schemaFetcher = schemaFetcher;
+    this.enableCoalescing = enableCoalescing && maxConcurrentFetchNum > 0;
+    this.maxConcurrentFetchNum = maxConcurrentFetchNum;
+    this.missingDevices =
+        missingDeviceTtlInMs > 0
+            ? Caffeine.newBuilder()
+                .maximumSize(MAX_MISSING_DEVICE_NUM)
+                .expireAfterWrite(missingDeviceTtlInMs, TimeUnit.MILLISECONDS)
+                .build()
+            : null;
+  }
+
+  /**
+   * Fetch the schema of the given paths, together with the fetches of the other insertions queued
+   * meanwhile. The result may contain the schema of other paths as well.
+   *
+   * @param pathAppender appends the full paths to fetch to the given pattern tree
+   */
+  ClusterSchemaTree fetch(Consumer<PathPatternTree> pathAppender, MPPQueryContext context) {
+    if (!enableCoalescing) {
+      return fetchAlone(pathAppender, context);
+    }
+    long deadline = System.currentTimeMillis() + getRemainingTime(context);
+    PendingFetch pendingFetch = new PendingFetch(pathAppender);
+    List<PendingFetch> batch = null;
+    synchronized (lock) {
+      pendingFetches.add(pendingFetch);
+      while (!pendingFetch.taken && executingFetchNum >= maxConcurrentFetchNum) {
+        long remainingTime = deadline - System.currentTimeMillis();
+        if (remainingTime <= 0) {
+          pendingFetches.remove(pendingFetch);
+          throw new QuerySchemaFetchFailedException(
+              "Timeout while waiting for the schema fetch",
+              TSStatusCode.QUERY_TIMEOUT.getStatusCode());
+        }
+        try {
+          lock.wait(remainingTime);
+        } catch (InterruptedException e) {
+          pendingFetches.remove(pendingFetch);
+          Thread.currentThread().interrupt();
+          throw new QuerySchemaFetchFailedException(
+              "Interrupted while waiting for the schema fetch",
+              TSStatusCode.QUERY_PROCESS_ERROR.getStatusCode());
+        }
+      }
+      if (!pendingFetch.taken) {
+        // become the one executing the queued fetches
+        batch = pendingFetches;
+        pendingFetches = new ArrayList<>();
+        for (PendingFetch queuedFetch : batch) {
+          queuedFetch.taken = true;
+        }
+        executingFetchNum++;
+      }
+    }
+    return batch == null
+        ? waitForResult(pendingFetch, deadline, context)
+        : executeBatch(batch, context);
+  }
+
+  private ClusterSchemaTree waitForResult(
+      PendingFetch pendingFetch, long deadline, MPPQueryContext context) {
+    try {
+      ClusterSchemaTree schemaTree =
+          pendingFetch.result.get(
+              Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      reserveMemory(context, pendingFetch.memoryShare);
+      return schemaTree;
+    } catch (TimeoutException e) {
+      throw new QuerySchemaFetchFailedException(
+          "Timeout while waiting for the schema fetch", TSStatusCode.QUERY_TIMEOUT.getStatusCode());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QuerySchemaFetchFailedException(
+          "Interrupted while waiting for the schema fetch",
+          TSStatusCode.QUERY_PROCESS_ERROR.getStatusCode());
+    } catch (ExecutionException e) {
+      // the coalesced fetch failed, retry in the context of this insertion alone
+      return fetchAlone(pendingFetch.pathAppender, context);
+    }
+  }
+
+  private ClusterSchemaTree executeBatch(List<PendingFetch> batch, MPPQueryContext context) {
+    try {
+      PathPatternTree patternTree = new PathPatternTree();
+      for (PendingFetch queuedFetch : batch) {
+        queuedFetch.pathAppender.accept(patternTree);
+      }
+      patternTree.constructTree();
+      if (batch.size() == 1) {
+        ClusterSchemaTree schemaTree =
+            schemaFetcher.fetch(patternTree, context, getMemoryReserver(context));
+        batch.get(0).result.complete(schemaTree);
+        return schemaTree;
+      }
+      // a fetch shared with other insertions must not be bound to the context of this one
+      MemoryReservationManager memoryReservationManager =
+          new NotThreadSafeMemoryReservationManager(
+              COALESCED_FETCH_QUERY_ID, SchemaFetchCoalescer.class.getName());
+      long[] memoryCost = new long[1];
+      ClusterSchemaTree schemaTree;
+      try {
+        schemaTree =
+            schemaFetcher.fetch(
+                patternTree,
+                null,
+                bytes -> {
+                  memoryReservationManager.reserveMemoryCumulatively(bytes);
+                  memoryReservationManager.reserveMemoryImmediately();
+                  memoryCost[0] += bytes;
+                });
+      } finally {
+        memoryReservationManager.releaseAllReservedMemory();
+      }
+      long memoryShare = (memoryCost[0] + batch.size() - 1) / batch.size();
+      for (PendingFetch queuedFetch : batch) {
+        queuedFetch.memoryShare = memoryShare;
+        queuedFetch.result.complete(schemaTree);
+      }
+      reserveMemory(context, memoryShare);
+      return schemaTree;
+    } catch (Throwable t) {
+      for (PendingFetch queuedFetch : batch) {
+        queuedFetch.result.completeExceptionally(t);
+      }
+      throw t;
+    } finally {
+      synchronized (lock) {
+        executingFetchNum--;
+        lock.notifyAll();
+      }
+    }
+  }
+
+  private ClusterSchemaTree fetchAlone(
+      Consumer<PathPatternTree> pathAppender, MPPQueryContext context) {
+    PathPatternTree patternTree = new PathPatternTree();
+    pathAppender.accept(patternTree);
+    patternTree.constructTree();
+    return schemaFetcher.fetch(patternTree, context, getMemoryReserver(context));
+  }
+
+  private static LongConsumer getMemoryReserver(MPPQueryContext context) {
+    return context == null ? null : context::reserveMemoryForSchemaTree;
+  }
+
+  private static void reserveMemory(MPPQueryContext context, long bytes) {
+    if (context != null && bytes > 0) {
+      context.reserveMemoryForSchemaTree(bytes);
+    }
+  }
+
+  private static long getRemainingTime(MPPQueryContext context) {
+    return context == null
+        ? IoTDBDescriptor.getInstance().getConfig().getQueryTimeoutThreshold()
+        : context.getTimeOut() - (System.currentTimeMillis() - context.getStartTime());
+  }
+
+  boolean isMissingDevice(PartialPath devicePath) {
+    return missingDevices != null && missingDevices.getIfPresent(devicePath) != null;
+  }
+
+  /** Remember the device if it is not in the fetched schema. */
+  void recordIfMissing(ClusterSchemaTree schemaTree, PartialPath devicePath) {
+    if (missingDevices != null
+        && schemaTree.searchDeviceSchemaInfo(devicePath, Collections.emptyList()) == null) {
+      missingDevices.put(devicePath, Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Forget that the device is missing, e.g. after it is auto created, put into the schema cache or
+   * created by a statement on this node.
+   *
+   * @param devicePath {@code null} for all devices, e.g. after the schema cache is invalidated
+   */
+  void invalidateMissingDevice(PartialPath devicePath) {
+    if (missingDevices == null) {
+      return;
+    }
+    if (devicePath == null) {
+      missingDevices.invalidateAll();
+    } else {
+      missingDevices.invalidate(devicePath);
+    }
+  }
+
+  /** Fetches the schema of the paths of a constructed pattern tree. */
+  @FunctionalInterface
+  interface SchemaFetcher {
+
+    /**
+     * @param context {@code null} for a fetch merged from the fetches of several insertions
+     * @param memoryReserver charged with the memory of the fetched schema tree, {@code null} if it
+     *     is not charged
+     */
+    ClusterSchemaTree fetch(
+        PathPatternTree patternTree, MPPQueryContext context, LongConsumer memoryReserver);
+  }
+
+  private static class PendingFetch {
+
+    private final Consumer<PathPatternTree> pathAppender;
+    private final CompletableFuture<ClusterSchemaTree> result = new CompletableFuture<>();
+    // the share of the memory of the result to charge, set before the result is completed
+    private long memoryShare = 0;
+
+    // guarded by lock, whether the fetch has been taken into a batch to execute
+    private boolean taken = false;
+
+    private PendingFetch(Consumer<PathPatternTree> pathAppender) {
+      this.pathAppender = pathAppender;
+    }
+  }
+}
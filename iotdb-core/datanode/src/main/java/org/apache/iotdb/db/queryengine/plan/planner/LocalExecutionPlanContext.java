@@ -28,6 +28,7 @@ import org.apache.iotdb.db.queryengine.execution.fragment.DataNodeQueryContext;
 import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext;
 import org.apache.iotdb.db.queryengine.execution.operator.Operator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.ExchangeOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.TopKTimeBound;
 import org.apache.iotdb.db.queryengine.plan.analyze.TemplatedInfo;
 import org.apache.iotdb.db.queryengine.plan.analyze.TypeProvider;
 import org.apache.iotdb.db.queryengine.plan.planner.memory.PipelineMemoryEstimator;
@@ -101,6 +102,9 @@ public class LocalExecutionPlanContext {
   private Map<PlanNodeId, List<PipelineMemoryEstimator>> parentPlanNodeIdToMemoryEstimator =
       new ConcurrentHashMap<>();
 
+  /** Records the time bounds published by the TopK operators to the scans below them. */
+  private Map<PlanNodeId, TopKTimeBound> scanNodeIdToTopKTimeBound = new ConcurrentHashMap<>();
+
   // for data region
   public LocalExecutionPlanContext(
       TypeProvider typeProvider,
@@ -131,6 +135,7 @@ public class LocalExecutionPlanContext {
     this.dataNodeQueryContext = parentContext.dataNodeQueryContext;
     this.timePartitions = parentContext.timePartitions;
     this.parentPlanNodeIdToMemoryEstimator = parentContext.parentPlanNodeIdToMemoryEstimator;
+    this.scanNodeIdToTopKTimeBound = parentContext.scanNodeIdToTopKTimeBound;
   }
 
   // for schema region
@@ -351,6 +356,18 @@ public class LocalExecutionPlanContext {
     return parentPlanNodeIdToMemoryEstimator;
   }
 
+  /** Should be called before the scan node is visited. */
+  public void addTopKTimeBound(PlanNodeId scanNodeId, TopKTimeBound topKTimeBound) {
+    scanNodeIdToTopKTimeBound.put(scanNodeId, topKTimeBound);
+  }
+
+  /**
+   * @return the time bound published by the TopK above the scan, null if there is none
+   */
+  public TopKTimeBound getTopKTimeBound(PlanNodeId scanNodeId) {
+    return scanNodeIdToTopKTimeBound.get(scanNodeId);
+  }
+
   public void invalidateParentPlanNodeIdToMemoryEstimator() {
     parentPlanNodeIdToMemoryEstimator = null;
   }
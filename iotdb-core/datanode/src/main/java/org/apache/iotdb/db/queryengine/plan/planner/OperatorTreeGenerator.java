@@ -28,6 +28,8 @@ import org.apache.iotdb.commons.path.IFullPath;
 import org.apache.iotdb.commons.path.MeasurementPath;
 import org.apache.iotdb.commons.path.NonAlignedFullPath;
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.commons.udf.builtin.UDTFM4;
+import org.apache.iotdb.commons.utils.TimePartitionUtils;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.queryengine.common.DeviceContext;
@@ -151,9 +153,11 @@ import org.apache.iotdb.db.queryengine.execution.operator.source.AlignedSeriesAg
 import org.apache.iotdb.db.queryengine.execution.operator.source.AlignedSeriesScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.ExchangeOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.SeriesAggregationScanOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.SeriesM4ScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.SeriesScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.ShowDiskUsageOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.ShowQueriesOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.TopKTimeBound;
 import org.apache.iotdb.db.queryengine.execution.operator.window.ConditionWindowParameter;
 import org.apache.iotdb.db.queryengine.execution.operator.window.CountWindowParameter;
 import org.apache.iotdb.db.queryengine.execution.operator.window.SessionWindowParameter;
@@ -173,6 +177,7 @@ import org.apache.iotdb.db.queryengine.plan.expression.leaf.TimeSeriesOperand;
 import org.apache.iotdb.db.queryengine.plan.expression.leaf.TimestampOperand;
 import org.apache.iotdb.db.queryengine.plan.expression.multi.FunctionExpression;
 import org.apache.iotdb.db.queryengine.plan.expression.visitor.ColumnTransformerVisitor;
+import org.apache.iotdb.db.queryengine.plan.planner.distribution.SourceRewriter;
 import org.apache.iotdb.db.queryengine.plan.planner.memory.PipelineMemoryEstimator;
 import org.apache.iotdb.db.queryengine.plan.planner.memory.PipelineMemoryEstimatorFactory;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.ExplainAnalyzeNode;
@@ -240,10 +245,12 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.LastQuerySc
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.SeriesAggregationScanNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.SeriesAggregationSourceNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.SeriesScanSourceNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.ShowDiskUsageNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.ShowQueriesNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.source.TimeseriesRegionScanNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.AggregationDescriptor;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.AggregationStep;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.CrossSeriesAggregationDescriptor;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.DeviceViewIntoPathDescriptor;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.FillDescriptor;
@@ -265,9 +272,12 @@ import org.apache.iotdb.db.queryengine.plan.statement.component.OrderByKey;
 import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
 import org.apache.iotdb.db.queryengine.plan.statement.component.SortItem;
 import org.apache.iotdb.db.queryengine.plan.statement.literal.Literal;
+import org.apache.iotdb.db.queryengine.plan.udf.BuiltinTimeSeriesGeneratingFunction;
 import org.apache.iotdb.db.queryengine.transformation.dag.column.ColumnTransformer;
 import org.apache.iotdb.db.queryengine.transformation.dag.column.leaf.LeafColumnTransformer;
 import org.apache.iotdb.db.queryengine.transformation.dag.udf.UDTFContext;
+import org.apache.iotdb.db.storageengine.buffer.SealedWindowAggregationCache;
+import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
 import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSourceType;
 import org.apache.iotdb.db.utils.columngenerator.ColumnGenerator;
 import org.apache.iotdb.db.utils.columngenerator.ColumnGeneratorType;
@@ -286,6 +296,8 @@ import org.apache.tsfile.read.TimeValuePair;
 import org.apache.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.tsfile.read.common.block.column.TimeColumn;
 import org.apache.tsfile.read.filter.basic.Filter;
+import org.apache.tsfile.read.filter.factory.FilterFactory;
+import org.apache.tsfile.read.filter.factory.TimeFilterApi;
 import org.apache.tsfile.read.filter.operator.TimeFilterOperators.TimeGt;
 import org.apache.tsfile.read.filter.operator.TimeFilterOperators.TimeGtEq;
 import org.apache.tsfile.read.reader.series.PaginationController;
@@ -329,6 +341,8 @@ import static org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.Aggreg
 import static org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.SeriesScanOptions.updateFilterUsingTTL;
 import static org.apache.iotdb.db.queryengine.plan.statement.component.Ordering.ASC;
 import static org.apache.iotdb.db.utils.TimestampPrecisionUtils.TIMESTAMP_PRECISION;
+import static org.apache.iotdb.db.utils.constant.SqlConstant.MODE;
+import static org.apache.iotdb.db.utils.constant.SqlConstant.TIME_DURATION;
 
 /** This Visitor is responsible for transferring PlanNode Tree to Operator Tree. */
 public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionPlanContext> {
@@ -393,13 +407,11 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
                 node.getPlanNodeId(),
                 SeriesScanOperator.class.getSimpleName());
     operatorContext.recordSpecifiedInfo("SeriesPath", seriesPath.toString());
+    SeriesScanOptions scanOptions = scanOptionsBuilder.build();
+    scanOptions.setTopKTimeBound(context.getTopKTimeBound(node.getPlanNodeId()));
     SeriesScanOperator seriesScanOperator =
         new SeriesScanOperator(
-            operatorContext,
-            node.getPlanNodeId(),
-            seriesPath,
-            node.getScanOrder(),
-            scanOptionsBuilder.build());
+            operatorContext, node.getPlanNodeId(), seriesPath, node.getScanOrder(), scanOptions);
 
     ((DataDriverContext) context.getDriverContext()).addSourceOperator(seriesScanOperator);
     ((DataDriverContext) context.getDriverContext()).addPath(seriesPath);
@@ -493,13 +505,15 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
                   context.getTypeProvider().getTemplatedInfo().getLimitValue(), maxTsBlockLineNum);
     }
 
+    SeriesScanOptions scanOptions = scanOptionsBuilder.build();
+    scanOptions.setTopKTimeBound(context.getTopKTimeBound(node.getPlanNodeId()));
     AlignedSeriesScanOperator seriesScanOperator =
         new AlignedSeriesScanOperator(
             operatorContext,
             node.getPlanNodeId(),
             seriesPath,
             node.getScanOrder(),
-            scanOptionsBuilder.build(),
+            scanOptions,
             node.isQueryAllSensors(),
             context.getTypeProvider().getTemplatedInfo() != null
                 ? context.getTypeProvider().getTemplatedInfo().getDataTypes()
@@ -626,6 +640,11 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
   @Override
   public Operator visitSeriesAggregationScan(
       SeriesAggregationScanNode node, LocalExecutionPlanContext context) {
+    PlanNode splitNode = splitAggregationScanByTimeRange(node, context);
+    if (splitNode != null) {
+      return splitNode.accept(this, context);
+    }
+
     NonAlignedFullPath seriesPath =
         (NonAlignedFullPath) IFullPath.convertToIFullPath(node.getSeriesPath());
     boolean ascending = node.getScanOrder() == ASC;
@@ -653,7 +672,8 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
         AggregationUtil.calculateMaxAggregationResultSize(
             aggregationDescriptors, timeRangeIterator, context.getTypeProvider());
 
-    SeriesScanOptions.Builder scanOptionsBuilder = getSeriesScanOptionsBuilder(context);
+    SeriesScanOptions.Builder scanOptionsBuilder =
+        getSeriesScanOptionsBuilder(context, node.getSplitTimeFilter());
     scanOptionsBuilder.withAllSensors(
         context.getAllSensors(seriesPath.getDeviceId(), seriesPath.getMeasurement()));
 
@@ -693,6 +713,16 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
             node.getGroupByTimeParameter(),
             maxReturnSize,
             canUseStatistics);
+    if (ascending) {
+      aggregateScanOperator.setSealedWindowCacheHandle(
+          createSealedWindowCacheHandle(
+              seriesPath.getDeviceId(),
+              Collections.singletonList(seriesPath.getMeasurement()),
+              aggregationDescriptors,
+              pushDownPredicate,
+              groupByTimeParameter,
+              context));
+    }
 
     ((DataDriverContext) context.getDriverContext()).addSourceOperator(aggregateScanOperator);
     ((DataDriverContext) context.getDriverContext()).addPath(seriesPath);
@@ -704,6 +734,11 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
   public Operator visitAlignedSeriesAggregationScan(
       AlignedSeriesAggregationScanNode node, LocalExecutionPlanContext context) {
 
+    PlanNode splitNode = splitAggregationScanByTimeRange(node, context);
+    if (splitNode != null) {
+      return splitNode.accept(this, context);
+    }
+
     if (context.isBuildPlanUseTemplate()) {
       Ordering scanOrder = context.getTemplatedInfo().getScanOrder();
       if (node.getDescriptorType() == 1) {
@@ -718,6 +753,7 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
           scanOrder,
           context.getTemplatedInfo().getGroupByTimeParameter(),
           context.getTemplatedInfo().isOutputEndTime(),
+          null,
           context);
     }
 
@@ -729,9 +765,120 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
         node.getScanOrder(),
         node.getGroupByTimeParameter(),
         node.isOutputEndTime(),
+        node.getSplitTimeFilter(),
         context);
   }
 
+  /**
+   * Split the aggregation scan of one series into scans of disjoint time ranges, whose partial
+   * results are merged by an {@link AggregationNode}, so that the ranges are aggregated in parallel
+   * pipelines. The ranges are bounded by the time partitions of the data region, hence each TsFile
+   * is read by only one of them. The first and the last range are unbounded, so that data of time
+   * partitions created after planning is not missed.
+   *
+   * @return null if the scan is not split
+   */
+  private PlanNode splitAggregationScanByTimeRange(
+      SeriesAggregationSourceNode node, LocalExecutionPlanContext context) {
+    if (!IoTDBDescriptor.getInstance().getConfig().isEnableAggregationTimeRangeSplit()
+        || context.getDegreeOfParallelism() <= 1
+        || context.isBuildPlanUseTemplate()
+        || node.getSplitTimeFilter() != null
+        || node.getGroupByTimeParameter() != null
+        || !(context.getInstanceContext().getDataRegion() instanceof DataRegion)) {
+      return null;
+    }
+    AggregationStep step = node.getAggregationDescriptorList().get(0).getStep();
+    if ((step != AggregationStep.SINGLE && step != AggregationStep.PARTIAL)
+        || node.getAggregationDescriptorList().stream().anyMatch(o -> o.getStep() != step)) {
+      return null;
+    }
+    if (!canMergeAcrossTimeRanges(node.getAggregationDescriptorList())) {
+      return null;
+    }
+    // the merging accumulators need the types of the inputs
+    TypeProvider typeProvider = context.getTypeProvider();
+    if (node.getAggregationDescriptorList().stream()
+        .flatMap(o -> o.getInputExpressions().stream())
+        .anyMatch(o -> typeProvider.getTreeModelType(o.getExpressionString()) == null)) {
+      return null;
+    }
+
+    Filter globalTimeFilter = context.getGlobalTimeFilter();
+    List<Long> timePartitions =
+        ((DataRegion) context.getInstanceContext().getDataRegion())
+            .getTimePartitions().stream()
+                .filter(
+                    partition ->
+                        globalTimeFilter == null
+                            || TimePartitionUtils.satisfyTimePartition(globalTimeFilter, partition))
+                .sorted()
+                .collect(Collectors.toList());
+    int splitNum = Math.min(context.getDegreeOfParallelism(), timePartitions.size());
+    if (splitNum <= 1) {
+      return null;
+    }
+
+    // start time of each range except the first one
+    long[] startTimes = new long[splitNum];
+    for (int i = 1; i < splitNum; i++) {
+      startTimes[i] =
+          TimePartitionUtils.getStartTimeByPartitionId(
+              timePartitions.get(i * timePartitions.size() / splitNum));
+    }
+    List<PlanNode> splits = new ArrayList<>(splitNum);
+    for (int i = 0; i < splitNum; i++) {
+      SeriesAggregationSourceNode split = (SeriesAggregationSourceNode) node.clone();
+      split.setPlanNodeId(new PlanNodeId(String.format("%s-%s", node.getPlanNodeId(), i)));
+      split.setAggregationDescriptorList(
+          node.getAggregationDescriptorList().stream()
+              .map(AggregationDescriptor::deepClone)
+              .collect(Collectors.toList()));
+      split
+          .getAggregationDescriptorList()
+          .forEach(
+              descriptor -> {
+                descriptor.setStep(AggregationStep.PARTIAL);
+                LogicalPlanBuilder.updateTypeProviderByPartialAggregation(descriptor, typeProvider);
+              });
+      if (i == 0) {
+        split.setSplitTimeFilter(TimeFilterApi.lt(startTimes[1]));
+      } else if (i == splitNum - 1) {
+        split.setSplitTimeFilter(TimeFilterApi.gtEq(startTimes[i]));
+      } else {
+        split.setSplitTimeFilter(TimeFilterApi.between(startTimes[i], startTimes[i + 1] - 1));
+      }
+      splits.add(split);
+    }
+
+    List<AggregationDescriptor> mergeDescriptors =
+        node.getAggregationDescriptorList().stream()
+            .map(AggregationDescriptor::deepClone)
+            .collect(Collectors.toList());
+    mergeDescriptors.forEach(
+        descriptor ->
+            descriptor.setStep(
+                step == AggregationStep.SINGLE
+                    ? AggregationStep.FINAL
+                    : AggregationStep.INTERMEDIATE));
+    return new AggregationNode(
+        node.getPlanNodeId(), splits, mergeDescriptors, null, node.getScanOrder());
+  }
+
+  /**
+   * Whether the aggregations can be computed by merging their partial results of disjoint time
+   * ranges. Those depending on the rows around the boundaries of the ranges can not.
+   */
+  static boolean canMergeAcrossTimeRanges(List<AggregationDescriptor> aggregationDescriptors) {
+    return aggregationDescriptors.stream()
+        .map(AggregationDescriptor::getAggregationFuncName)
+        .noneMatch(
+            name ->
+                SourceRewriter.dependsOnAdjacentRows(name)
+                    || TIME_DURATION.equalsIgnoreCase(name)
+                    || MODE.equalsIgnoreCase(name));
+  }
+
   private Operator constructAlignedSeriesAggregationScanOperator(
       PlanNodeId planNodeId,
       AlignedPath alignedPath,
@@ -740,6 +887,7 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
       Ordering scanOrder,
       GroupByTimeParameter groupByTimeParameter,
       boolean outputEndTime,
+      Filter splitTimeFilter,
       LocalExecutionPlanContext context) {
     AlignedFullPath seriesPath = (AlignedFullPath) IFullPath.convertToIFullPath(alignedPath);
     boolean ascending = scanOrder == ASC;
@@ -800,7 +948,8 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
         AggregationUtil.calculateMaxAggregationResultSize(
             aggregationDescriptorList, timeRangeIterator, context.getTypeProvider());
 
-    SeriesScanOptions.Builder scanOptionsBuilder = getSeriesScanOptionsBuilder(context);
+    SeriesScanOptions.Builder scanOptionsBuilder =
+        getSeriesScanOptionsBuilder(context, splitTimeFilter);
     scanOptionsBuilder.withAllSensors(new HashSet<>(alignedPath.getMeasurementList()));
 
     if (pushDownPredicate != null) {
@@ -834,6 +983,16 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
             groupByTimeParameter,
             maxReturnSize,
             canUseStatistics);
+    if (ascending) {
+      seriesAggregationScanOperator.setSealedWindowCacheHandle(
+          createSealedWindowCacheHandle(
+              seriesPath.getDeviceId(),
+              alignedPath.getMeasurementList(),
+              aggregationDescriptorList,
+              pushDownPredicate,
+              groupByTimeParameter,
+              context));
+    }
 
     ((DataDriverContext) context.getDriverContext())
         .addSourceOperator(seriesAggregationScanOperator);
@@ -842,6 +1001,26 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
     return seriesAggregationScanOperator;
   }
 
+  private SealedWindowAggregationCache.Handle createSealedWindowCacheHandle(
+      IDeviceID deviceId,
+      List<String> measurements,
+      List<AggregationDescriptor> aggregationDescriptors,
+      Expression pushDownPredicate,
+      GroupByTimeParameter groupByTimeParameter,
+      LocalExecutionPlanContext context) {
+    SealedWindowAggregationCache cache = SealedWindowAggregationCache.getInstance();
+    if (!cache.isEnable() || groupByTimeParameter == null) {
+      return null;
+    }
+    return cache.createHandle(
+        ((DataDriverContext) context.getDriverContext()).getDataRegion(),
+        deviceId,
+        SealedWindowAggregationCache.getSignature(
+            measurements, aggregationDescriptors, pushDownPredicate),
+        groupByTimeParameter,
+        context.getGlobalTimeFilter());
+  }
+
   private boolean judgeCanUseStatistics(
       final TAggregationType aggregationType, final TSDataType seriesType) {
     return !TSDataType.BLOB.equals(seriesType)
@@ -861,6 +1040,20 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
     return scanOptionsBuilder;
   }
 
+  private SeriesScanOptions.Builder getSeriesScanOptionsBuilder(
+      LocalExecutionPlanContext context, Filter splitTimeFilter) {
+    if (splitTimeFilter == null) {
+      return getSeriesScanOptionsBuilder(context);
+    }
+    SeriesScanOptions.Builder scanOptionsBuilder = new SeriesScanOptions.Builder();
+    Filter globalTimeFilter = context.getGlobalTimeFilter();
+    scanOptionsBuilder.withGlobalTimeFilter(
+        globalTimeFilter == null
+            ? splitTimeFilter.copy()
+            : FilterFactory.and(globalTimeFilter.copy(), splitTimeFilter.copy()));
+    return scanOptionsBuilder;
+  }
+
   @Override
   public Operator visitSchemaQueryOrderByHeat(
       SchemaQueryOrderByHeatNode node, LocalExecutionPlanContext context) {
@@ -1268,6 +1461,7 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
                 TreeTopKOperator.class.getSimpleName());
     List<TSDataType> dataTypes = getOutputColumnTypes(node, context.getTypeProvider());
     context.setCachedDataTypes(dataTypes);
+    TopKTimeBound timeBound = createTopKTimeBound(node, context);
     List<Operator> children = dealWithConsumeAllChildrenPipelineBreaker(node, context);
     List<SortItem> sortItemList = node.getMergeOrderParameter().getSortItemList();
 
@@ -1279,19 +1473,59 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
         sortItemList,
         sortItemIndexList,
         sortItemDataTypeList);
-    return new TreeTopKOperator(
-        operatorContext,
-        children,
-        dataTypes,
-        getComparator(sortItemList, sortItemIndexList, sortItemDataTypeList),
-        node.getTopValue(),
-        !sortItemList.isEmpty()
-            && sortItemList.get(0).getSortKey().equalsIgnoreCase(OrderByKey.TIME)
-            && sortItemList.stream()
-                .allMatch(
-                    i ->
-                        (i.getSortKey().equals(OrderByKey.TIME)
-                            || i.getSortKey().equals(OrderByKey.DEVICE))));
+    TreeTopKOperator topKOperator =
+        new TreeTopKOperator(
+            operatorContext,
+            children,
+            dataTypes,
+            getComparator(sortItemList, sortItemIndexList, sortItemDataTypeList),
+            node.getTopValue(),
+            !sortItemList.isEmpty()
+                && sortItemList.get(0).getSortKey().equalsIgnoreCase(OrderByKey.TIME)
+                && sortItemList.stream()
+                    .allMatch(
+                        i ->
+                            (i.getSortKey().equals(OrderByKey.TIME)
+                                || i.getSortKey().equals(OrderByKey.DEVICE))));
+    if (timeBound != null) {
+      topKOperator.setTimeBound(timeBound, -1);
+    }
+    return topKOperator;
+  }
+
+  /**
+   * If the TopK is ordered by time first, registers a time bound for its children which scan the
+   * raw data of a series or a device in the same order without offset, so that they can skip the
+   * data which cannot be in the top k.
+   *
+   * @return null if no child can be skipped by the time bound
+   */
+  private TopKTimeBound createTopKTimeBound(TopKNode node, LocalExecutionPlanContext context) {
+    List<SortItem> sortItemList = node.getMergeOrderParameter().getSortItemList();
+    if (node.getTopValue() <= 0
+        || sortItemList.isEmpty()
+        || !sortItemList.get(0).getSortKey().equalsIgnoreCase(OrderByKey.TIME)) {
+      return null;
+    }
+    Ordering ordering = sortItemList.get(0).getOrdering();
+    TopKTimeBound timeBound = null;
+    for (PlanNode child : node.getChildren()) {
+      if (child instanceof SingleDeviceViewNode) {
+        child = ((SingleDeviceViewNode) child).getChild();
+      }
+      if (!(child instanceof SeriesScanSourceNode)) {
+        continue;
+      }
+      SeriesScanSourceNode scanNode = (SeriesScanSourceNode) child;
+      if (scanNode.getPushDownOffset() > 0 || scanNode.getScanOrder() != ordering) {
+        continue;
+      }
+      if (timeBound == null) {
+        timeBound = new TopKTimeBound(ordering == ASC);
+      }
+      context.addTopKTimeBound(scanNode.getPlanNodeId(), timeBound);
+    }
+    return timeBound;
   }
 
   private void genSortInformation(
@@ -1525,8 +1759,114 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
     return linearFill;
   }
 
+  /**
+   * Replace M4 UDTF in time window mode over one raw series by {@link SeriesM4ScanOperator}, which
+   * computes the same result from statistics instead of from all raw points.
+   *
+   * @return null if the transform is not such a M4 query
+   */
+  private Operator tryConstructSeriesM4ScanOperator(
+      TransformNode node, LocalExecutionPlanContext context) {
+    if (!IoTDBDescriptor.getInstance().getConfig().isEnableM4StatisticsScan()
+        || context.isBuildPlanUseTemplate()
+        || node.getOutputExpressions().length != 1
+        || node.getScanOrder() != Ordering.ASC
+        || !(node.getOutputExpressions()[0] instanceof FunctionExpression)
+        || !(node.getChild() instanceof SeriesScanNode)) {
+      return null;
+    }
+    FunctionExpression m4 = (FunctionExpression) node.getOutputExpressions()[0];
+    if (!m4.getFunctionName()
+            .equalsIgnoreCase(BuiltinTimeSeriesGeneratingFunction.M4.getFunctionName())
+        || m4.getExpressions().size() != 1
+        || !(m4.getExpressions().get(0) instanceof TimeSeriesOperand)) {
+      return null;
+    }
+    PartialPath inputPath = ((TimeSeriesOperand) m4.getExpressions().get(0)).getPath();
+    SeriesScanNode scanNode = (SeriesScanNode) node.getChild();
+    if (!inputPath.getFullPath().equals(scanNode.getSeriesPath().getFullPath())
+        || scanNode.getPushDownPredicate() != null
+        || scanNode.getPushDownLimit() > 0
+        || scanNode.getPushDownOffset() > 0
+        || scanNode.getScanOrder() != Ordering.ASC) {
+      return null;
+    }
+    TSDataType dataType = scanNode.getSeriesPath().getSeriesType();
+    if (dataType != TSDataType.INT32
+        && dataType != TSDataType.INT64
+        && dataType != TSDataType.FLOAT
+        && dataType != TSDataType.DOUBLE) {
+      return null;
+    }
+
+    Map<String, String> attributes = m4.getFunctionAttributes();
+    if (attributes.containsKey(UDTFM4.WINDOW_SIZE_KEY)
+        || !attributes.containsKey(UDTFM4.TIME_INTERVAL_KEY)) {
+      return null;
+    }
+    long timeInterval;
+    long displayWindowBegin;
+    long displayWindowEnd;
+    try {
+      timeInterval = Long.parseLong(attributes.get(UDTFM4.TIME_INTERVAL_KEY));
+      displayWindowBegin =
+          Long.parseLong(
+              attributes.getOrDefault(
+                  UDTFM4.DISPLAY_WINDOW_BEGIN_KEY, String.valueOf(Long.MIN_VALUE)));
+      displayWindowEnd =
+          Long.parseLong(
+              attributes.getOrDefault(
+                  UDTFM4.DISPLAY_WINDOW_END_KEY, String.valueOf(Long.MAX_VALUE)));
+      // sliding windows overlap or leave gaps, which are left to the UDTF
+      if (timeInterval <= 0
+          || Long.parseLong(
+                  attributes.getOrDefault(UDTFM4.SLIDING_STEP_KEY, String.valueOf(timeInterval)))
+              != timeInterval) {
+        return null;
+      }
+    } catch (NumberFormatException e) {
+      // let the UDTF report invalid attributes
+      return null;
+    }
+
+    NonAlignedFullPath seriesPath =
+        (NonAlignedFullPath) IFullPath.convertToIFullPath(scanNode.getSeriesPath());
+    SeriesScanOptions.Builder scanOptionsBuilder = getSeriesScanOptionsBuilder(context);
+    scanOptionsBuilder.withAllSensors(
+        context.getAllSensors(seriesPath.getDeviceId(), seriesPath.getMeasurement()));
+
+    OperatorContext operatorContext =
+        context
+            .getDriverContext()
+            .addOperatorContext(
+                context.getNextOperatorId(),
+                node.getPlanNodeId(),
+                SeriesM4ScanOperator.class.getSimpleName());
+    operatorContext.recordSpecifiedInfo("SeriesPath", seriesPath.toString());
+    SeriesM4ScanOperator m4ScanOperator =
+        new SeriesM4ScanOperator(
+            operatorContext,
+            scanNode.getPlanNodeId(),
+            seriesPath,
+            scanOptionsBuilder.build(),
+            dataType,
+            timeInterval,
+            displayWindowBegin,
+            displayWindowEnd);
+
+    ((DataDriverContext) context.getDriverContext()).addSourceOperator(m4ScanOperator);
+    ((DataDriverContext) context.getDriverContext()).addPath(seriesPath);
+    context.getDriverContext().setInputDriver(true);
+    return m4ScanOperator;
+  }
+
   @Override
   public Operator visitTransform(TransformNode node, LocalExecutionPlanContext context) {
+    final Operator m4ScanOperator = tryConstructSeriesM4ScanOperator(node, context);
+    if (m4ScanOperator != null) {
+      return m4ScanOperator;
+    }
+
     final OperatorContext operatorContext =
         context
             .getDriverContext()
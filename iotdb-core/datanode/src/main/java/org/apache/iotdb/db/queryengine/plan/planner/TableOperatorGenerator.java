@@ -42,6 +42,7 @@ import org.apache.iotdb.db.queryengine.execution.exchange.sink.DownStreamChannel
 import org.apache.iotdb.db.queryengine.execution.exchange.sink.ISinkHandle;
 import org.apache.iotdb.db.queryengine.execution.exchange.sink.ShuffleSinkHandle;
 import org.apache.iotdb.db.queryengine.execution.exchange.source.ISourceHandle;
+import org.apache.iotdb.db.queryengine.execution.fragment.DataNodeQueryContext;
 import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext;
 import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceManager;
 import org.apache.iotdb.db.queryengine.execution.operator.EmptyDataOperator;
@@ -119,6 +120,7 @@ import org.apache.iotdb.db.queryengine.execution.operator.sink.IdentitySinkOpera
 import org.apache.iotdb.db.queryengine.execution.operator.source.AbstractDataSourceOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.ExchangeOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.SeriesScanOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.TopKTimeBound;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.AbstractAggTableScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.AbstractTableScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.AsofMergeSortInnerJoinOperator;
@@ -126,6 +128,7 @@ import org.apache.iotdb.db.queryengine.execution.operator.source.relational.Asof
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.CteScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.DefaultAggTableScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.DeviceIteratorScanOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.DynamicFilterSourceOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.InformationSchemaTableScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.LastQueryAggTableScanOperator;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.MarkDistinctOperator;
@@ -242,8 +245,11 @@ import org.apache.iotdb.db.queryengine.plan.relational.planner.rowpattern.ValueP
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.ComparisonExpression;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.FunctionCall;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.InListExpression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.InPredicate;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Literal;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.LongLiteral;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.StringLiteral;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.SymbolReference;
 import org.apache.iotdb.db.queryengine.plan.relational.type.InternalTypeManager;
 import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
@@ -253,6 +259,9 @@ import org.apache.iotdb.db.queryengine.transformation.dag.column.unary.scalar.Da
 import org.apache.iotdb.db.schemaengine.schemaregion.read.resp.info.IDeviceSchemaInfo;
 import org.apache.iotdb.db.schemaengine.table.DataNodeTableCache;
 import org.apache.iotdb.db.schemaengine.table.DataNodeTreeViewSchemaUtils;
+import org.apache.iotdb.db.storageengine.buffer.SealedWindowAggregationCache;
+import org.apache.iotdb.db.storageengine.dataregion.IDataRegionForQuery;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.valueindex.PageValueIndex;
 import org.apache.iotdb.db.utils.TimestampPrecisionUtils;
 import org.apache.iotdb.db.utils.datastructure.SortKey;
 import org.apache.iotdb.udf.api.relational.TableFunction;
@@ -319,6 +328,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.util.Objects.requireNonNull;
+import static org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory.ATTRIBUTE;
 import static org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory.FIELD;
 import static org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory.TIME;
 import static org.apache.iotdb.commons.udf.builtin.relational.TableBuiltinAggregationFunction.getAggregationTypeByFuncName;
@@ -1113,6 +1123,8 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
 
     TreeAlignedDeviceViewScanOperator treeAlignedDeviceViewScanOperator =
         new TreeAlignedDeviceViewScanOperator(parameter, idColumnValueExtractor);
+    // the time filter of table views is regenerated with ttl for each device
+    setDynamicFilterColumns(treeAlignedDeviceViewScanOperator, node, context, false);
 
     addSource(
         treeAlignedDeviceViewScanOperator,
@@ -1188,6 +1200,7 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
             node.getPushDownPredicate());
     seriesScanOptions.setTTLForTableView(viewTTL);
     seriesScanOptions.setIsTableViewForTreeModel(node instanceof TreeDeviceViewScanNode);
+    seriesScanOptions.setTopKTimeBound(context.getTopKTimeBound(node.getPlanNodeId()));
 
     OperatorContext operatorContext =
         context
@@ -1272,6 +1285,7 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
         constructAbstractTableScanOperatorParameter(node, context);
 
     TableScanOperator tableScanOperator = new TableScanOperator(parameter);
+    setDynamicFilterColumns(tableScanOperator, node, context, true);
 
     context.getInstanceContext().collectTable(node.getQualifiedObjectName().getObjectName());
     addSource(
@@ -1286,6 +1300,37 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
     return tableScanOperator;
   }
 
+  private void setDynamicFilterColumns(
+      AbstractTableScanOperator operator,
+      DeviceTableScanNode node,
+      LocalExecutionPlanContext context,
+      boolean filterTime) {
+    DataNodeQueryContext dataNodeQueryContext =
+        context.getInstanceContext().getDataNodeQueryContext();
+    if (dataNodeQueryContext == null
+        || !IoTDBDescriptor.getInstance().getConfig().isEnableJoinDynamicFilter()) {
+      return;
+    }
+    Map<String, Integer> tagColumns = new HashMap<>();
+    String timeColumn = null;
+    for (Map.Entry<Symbol, ColumnSchema> entry : node.getAssignments().entrySet()) {
+      TsTableColumnCategory category = entry.getValue().getColumnCategory();
+      if (category == TsTableColumnCategory.TAG) {
+        tagColumns.put(
+            entry.getKey().getName(), node.getTagAndAttributeIndexMap().get(entry.getKey()));
+      } else if (category == TIME && filterTime) {
+        timeColumn = entry.getKey().getName();
+      }
+    }
+    if (!tagColumns.isEmpty() || timeColumn != null) {
+      operator.setDynamicFilterColumns(
+          dataNodeQueryContext,
+          tagColumns,
+          timeColumn,
+          IoTDBDescriptor.getInstance().getConfig().getJoinDynamicFilterWaitTimeInMs());
+    }
+  }
+
   public static Map<Symbol, List<InputLocation>> makeLayout(final List<PlanNode> children) {
     final Map<Symbol, List<InputLocation>> outputMappings = new LinkedHashMap<>();
     int tsBlockIndex = 0;
@@ -1967,6 +2012,7 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
                 context.getNextOperatorId(),
                 node.getPlanNodeId(),
                 TableTopKOperator.class.getSimpleName());
+    TopKTimeBound timeBound = createTopKTimeBound(node, context);
     List<Operator> children = new ArrayList<>(node.getChildren().size());
     for (PlanNode child : node.getChildren()) {
       children.add(this.process(child, context));
@@ -1982,14 +2028,55 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
         sortItemIndexList,
         sortItemDataTypeList,
         context.getTypeProvider());
-    return new TableTopKOperator(
-        operatorContext,
-        children,
-        dataTypes,
-        getComparatorForTable(
-            node.getOrderingScheme().getOrderingList(), sortItemIndexList, sortItemDataTypeList),
-        (int) node.getCount(),
-        node.isChildrenDataInOrder());
+    TableTopKOperator topKOperator =
+        new TableTopKOperator(
+            operatorContext,
+            children,
+            dataTypes,
+            getComparatorForTable(
+                node.getOrderingScheme().getOrderingList(),
+                sortItemIndexList,
+                sortItemDataTypeList),
+            (int) node.getCount(),
+            node.isChildrenDataInOrder());
+    if (timeBound != null) {
+      topKOperator.setTimeBound(timeBound, sortItemIndexList.get(0));
+    }
+    return topKOperator;
+  }
+
+  /**
+   * If the TopK is ordered by the TIME column first, registers a time bound for its children which
+   * scan the raw data in the same order without offset, so that they can skip the data which cannot
+   * be in the top k.
+   *
+   * @return null if no child can be skipped by the time bound
+   */
+  private TopKTimeBound createTopKTimeBound(TopKNode node, LocalExecutionPlanContext context) {
+    if (node.getCount() <= 0) {
+      return null;
+    }
+    Symbol firstSortKey = node.getOrderingScheme().getOrderBy().get(0);
+    boolean ascending = node.getOrderingScheme().getOrdering(firstSortKey).isAscending();
+    TopKTimeBound timeBound = null;
+    for (PlanNode child : node.getChildren()) {
+      if (!(child instanceof DeviceTableScanNode) || child instanceof AggregationTableScanNode) {
+        continue;
+      }
+      DeviceTableScanNode scanNode = (DeviceTableScanNode) child;
+      ColumnSchema columnSchema = scanNode.getAssignments().get(firstSortKey);
+      if (columnSchema == null
+          || columnSchema.getColumnCategory() != TIME
+          || scanNode.getPushDownOffset() > 0
+          || scanNode.getScanOrder() != (ascending ? Ordering.ASC : Ordering.DESC)) {
+        continue;
+      }
+      if (timeBound == null) {
+        timeBound = new TopKTimeBound(ascending);
+      }
+      context.addTopKTimeBound(scanNode.getPlanNodeId(), timeBound);
+    }
+    return timeBound;
   }
 
   private List<TSDataType> getOutputColumnTypes(PlanNode node, TypeProvider typeProvider) {
@@ -2249,6 +2336,7 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
     }
 
     if (requireNonNull(node.getJoinType()) == JoinNode.JoinType.INNER) {
+      rightChild = addDynamicFilterSource(node, rightChild, rightColumnNamesMap, context);
       OperatorContext operatorContext =
           context
               .getDriverContext()
@@ -2308,6 +2396,59 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
     throw new IllegalStateException("Unsupported join type: " + node.getJoinType());
   }
 
+  /**
+   * Collect the join keys of the right side to skip data in the table scans of the left side, see
+   * {@link DynamicFilterSourceOperator}.
+   */
+  private Operator addDynamicFilterSource(
+      JoinNode node,
+      Operator rightChild,
+      Map<Symbol, Integer> rightColumnNamesMap,
+      LocalExecutionPlanContext context) {
+    FragmentInstanceContext instanceContext = context.getInstanceContext();
+    // the coordinator routes the filters to the DataNodes running the filtered table scans
+    if (node.getDynamicFilters().isEmpty() || instanceContext.getDynamicFilterTargets().isEmpty()) {
+      return rightChild;
+    }
+    List<String> filteredSymbols = new ArrayList<>();
+    List<Integer> keyChannels = new ArrayList<>();
+    List<Boolean> isTimeKey = new ArrayList<>();
+    for (Map.Entry<Symbol, Symbol> entry : node.getDynamicFilters().entrySet()) {
+      Type type = context.getTypeProvider().getTableModelType(entry.getValue());
+      if (type != STRING && type != TIMESTAMP) {
+        continue;
+      }
+      filteredSymbols.add(entry.getKey().getName());
+      keyChannels.add(rightColumnNamesMap.get(entry.getValue()));
+      isTimeKey.add(type == TIMESTAMP);
+    }
+    if (filteredSymbols.isEmpty()) {
+      return rightChild;
+    }
+    boolean[] isTimeKeyArray = new boolean[isTimeKey.size()];
+    for (int i = 0; i < isTimeKeyArray.length; i++) {
+      isTimeKeyArray[i] = isTimeKey.get(i);
+    }
+    OperatorContext operatorContext =
+        context
+            .getDriverContext()
+            .addOperatorContext(
+                context.getNextOperatorId(),
+                node.getPlanNodeId(),
+                DynamicFilterSourceOperator.class.getSimpleName());
+    String sourceId = node.getPlanNodeId().getId();
+    return new DynamicFilterSourceOperator(
+        operatorContext,
+        rightChild,
+        dynamicFilters ->
+            FragmentInstanceManager.getInstance()
+                .publishDynamicFilters(instanceContext, sourceId, dynamicFilters),
+        filteredSymbols,
+        keyChannels.stream().mapToInt(Integer::intValue).toArray(),
+        isTimeKeyArray,
+        IoTDBDescriptor.getInstance().getConfig().getJoinDynamicFilterMaxBuildRows());
+  }
+
   private void semanticCheckForJoin(JoinNode node) {
     try {
       checkArgument(
@@ -2626,10 +2767,43 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
       boolean isAggTableScan,
       String timeColumnName,
       Set<String> measurementColumnNames) {
+    return buildAggregator(
+        childLayout,
+        symbol,
+        aggregation,
+        step,
+        typeProvider,
+        scanAscending,
+        isAggTableScan,
+        timeColumnName,
+        measurementColumnNames,
+        Collections.emptyMap());
+  }
+
+  // constantArguments are the arguments projected to literals, which are passed to the accumulator
+  // instead of being input as columns. They will only be set for AggTableScan.
+  private TableAggregator buildAggregator(
+      Map<Symbol, Integer> childLayout,
+      Symbol symbol,
+      AggregationNode.Aggregation aggregation,
+      AggregationNode.Step step,
+      TypeProvider typeProvider,
+      boolean scanAscending,
+      boolean isAggTableScan,
+      String timeColumnName,
+      Set<String> measurementColumnNames,
+      Map<Symbol, Literal> constantArguments) {
     List<Integer> argumentChannels = new ArrayList<>();
+    List<Expression> inputExpressions = new ArrayList<>(aggregation.getArguments().size());
     for (Expression argument : aggregation.getArguments()) {
       Symbol argumentSymbol = Symbol.from(argument);
+      Literal constant = constantArguments.get(argumentSymbol);
+      if (constant != null) {
+        inputExpressions.add(constant);
+        continue;
+      }
       argumentChannels.add(childLayout.get(argumentSymbol));
+      inputExpressions.add(argument);
     }
 
     String functionName = aggregation.getResolvedFunction().getSignature().getName();
@@ -2642,7 +2816,7 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
             functionName,
             getAggregationTypeByFuncName(functionName),
             originalArgumentTypes,
-            aggregation.getArguments(),
+            inputExpressions,
             Collections.emptyMap(),
             scanAscending,
             isAggTableScan,
@@ -2974,11 +3148,13 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
                 node.getAggregations().values().stream()
                     .mapToLong(aggregation -> aggregation.getArguments().size())
                     .sum());
+    Map<Symbol, Literal> constantArguments = getConstantArguments(node);
     int aggDistinctArgumentCount =
         (int)
             node.getAggregations().values().stream()
                 .flatMap(aggregation -> aggregation.getArguments().stream())
                 .map(Symbol::from)
+                .filter(symbol -> !constantArguments.containsKey(symbol))
                 .distinct()
                 .count();
     List<ColumnSchema> aggColumnSchemas = new ArrayList<>(aggDistinctArgumentCount);
@@ -2993,6 +3169,9 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
     for (Map.Entry<Symbol, AggregationNode.Aggregation> entry : node.getAggregations().entrySet()) {
       for (Expression argument : entry.getValue().getArguments()) {
         Symbol symbol = Symbol.from(argument);
+        if (constantArguments.containsKey(symbol)) {
+          continue;
+        }
         ColumnSchema schema =
             requireNonNull(node.getAssignments().get(symbol), symbol + " is null");
         if (!aggColumnLayout.containsKey(symbol)) {
@@ -3063,7 +3242,8 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
               scanAscending,
               true,
               timeColumnName,
-              measurementColumnsIndexMap.keySet()));
+              measurementColumnsIndexMap.keySet(),
+              constantArguments));
     }
 
     ITableTimeRangeIterator timeRangeIterator = null;
@@ -3183,6 +3363,8 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
           node, parameter, optimizeType == OptimizeType.LAST_ROW, context);
     } else {
       DefaultAggTableScanOperator aggTableScanOperator = new DefaultAggTableScanOperator(parameter);
+      aggTableScanOperator.setSealedWindowCacheHandles(
+          createSealedWindowCacheHandles(node, parameter, context));
 
       context.getInstanceContext().collectTable(node.getQualifiedObjectName().getObjectName());
       addSource(
@@ -3197,6 +3379,99 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
     }
   }
 
+  private SealedWindowAggregationCache.Handle[] createSealedWindowCacheHandles(
+      AggregationTableScanNode node,
+      AbstractAggTableScanOperator.AbstractAggTableScanOperatorParameter parameter,
+      LocalExecutionPlanContext context) {
+    SealedWindowAggregationCache cache = SealedWindowAggregationCache.getInstance();
+    Filter globalTimeFilter = parameter.getSeriesScanOptions().getGlobalTimeFilter();
+    if (!cache.isEnable()
+        || globalTimeFilter == null
+        || node.getDeviceEntries().isEmpty()
+        || node.getPushDownLimit() > 0
+        || node.getPushDownOffset() > 0
+        // expired data silently disappears from results of windows
+        || DataNodeTTLCache.getInstance()
+                .getTTLForTable(
+                    node.getQualifiedObjectName().getDatabaseName(),
+                    node.getQualifiedObjectName().getObjectName())
+            != Long.MAX_VALUE) {
+      return null;
+    }
+    List<TimeRange> timeRanges = globalTimeFilter.getTimeRanges();
+    if (timeRanges.isEmpty()
+        || timeRanges.get(0).getMin() == Long.MIN_VALUE
+        || timeRanges.get(timeRanges.size() - 1).getMax() == Long.MAX_VALUE) {
+      return null;
+    }
+
+    String signature = getSealedWindowCacheSignature(node);
+    if (signature == null) {
+      return null;
+    }
+
+    IDataRegionForQuery dataRegion =
+        ((DataDriverContext) context.getDriverContext()).getDataRegion();
+    SealedWindowAggregationCache.Handle[] handles =
+        new SealedWindowAggregationCache.Handle[node.getDeviceEntries().size()];
+    for (int i = 0; i < handles.length; i++) {
+      if (node.getDeviceEntries().get(i) == null) {
+        continue;
+      }
+      handles[i] =
+          cache.createHandle(
+              dataRegion,
+              node.getDeviceEntries().get(i).getDeviceID(),
+              signature,
+              timeRanges.get(0).getMin(),
+              timeRanges.get(timeRanges.size() - 1).getMax(),
+              globalTimeFilter);
+    }
+    return handles;
+  }
+
+  /**
+   * @return the description of the aggregations of the node, which the cached results of its
+   *     windows are looked up by, null if the results shall not be cached
+   */
+  static String getSealedWindowCacheSignature(AggregationTableScanNode node) {
+    // the types tell apart the results cached before and after the type of a column is altered
+    StringBuilder signature = new StringBuilder();
+    for (Map.Entry<Symbol, ColumnSchema> entry : node.getAssignments().entrySet()) {
+      signature
+          .append(entry.getKey())
+          .append('=')
+          .append(entry.getValue().getName())
+          .append(':')
+          .append(entry.getValue().getType())
+          .append(',');
+    }
+    for (AggregationNode.Aggregation aggregation : node.getAggregations().values()) {
+      if (aggregation.getFilter().isPresent()
+          || aggregation.getOrderingScheme().isPresent()
+          || aggregation.hasMask()) {
+        return null;
+      }
+      for (Expression argument : aggregation.getArguments()) {
+        // attributes may be updated after the results are cached
+        ColumnSchema schema = node.getAssignments().get(Symbol.from(argument));
+        if (schema != null && schema.getColumnCategory() == ATTRIBUTE) {
+          return null;
+        }
+      }
+      signature
+          .append(aggregation.getResolvedFunction())
+          .append(aggregation.isDistinct() ? " distinct" : "")
+          .append(aggregation.getArguments())
+          .append(',');
+    }
+    signature.append(node.getStep());
+    if (node.getPushDownPredicate() != null) {
+      signature.append(" where ").append(node.getPushDownPredicate());
+    }
+    return signature.toString();
+  }
+
   private LastQueryAggTableScanOperator constructLastQueryAggTableScanOperator(
       AggregationTableScanNode node,
       AbstractAggTableScanOperator.AbstractAggTableScanOperatorParameter parameter,
@@ -3455,10 +3730,81 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
               timeColumnName,
               context.getZoneId(),
               TimestampPrecisionUtils.currPrecision));
+      if (IoTDBDescriptor.getInstance().getConfig().isEnablePageValueIndex()) {
+        scanOptionsBuilder.withValueIndexHashes(
+            getValueIndexHashes(pushDownPredicate, measurementColumnsIndexMap, columnSchemaMap));
+      }
     }
     return scanOptionsBuilder.build();
   }
 
+  /**
+   * @return measurement index -> hashes of the literals of the top level {@code field = literal} or
+   *     {@code field IN (literals)} conjuncts on INT32, INT64, TEXT and STRING fields
+   */
+  private static Map<Integer, long[]> getValueIndexHashes(
+      Expression pushDownPredicate,
+      Map<String, Integer> measurementColumnsIndexMap,
+      Map<Symbol, ColumnSchema> columnSchemaMap) {
+    Map<Integer, long[]> valueIndexHashes = new HashMap<>();
+    for (Expression conjunct : IrUtils.extractConjuncts(pushDownPredicate)) {
+      Expression field;
+      List<Expression> literals;
+      if (conjunct instanceof ComparisonExpression
+          && ((ComparisonExpression) conjunct).getOperator()
+              == ComparisonExpression.Operator.EQUAL) {
+        ComparisonExpression comparison = (ComparisonExpression) conjunct;
+        boolean fieldOnLeft = comparison.getLeft() instanceof SymbolReference;
+        field = fieldOnLeft ? comparison.getLeft() : comparison.getRight();
+        literals =
+            Collections.singletonList(fieldOnLeft ? comparison.getRight() : comparison.getLeft());
+      } else if (conjunct instanceof InPredicate
+          && ((InPredicate) conjunct).getValueList() instanceof InListExpression) {
+        field = ((InPredicate) conjunct).getValue();
+        literals = ((InListExpression) ((InPredicate) conjunct).getValueList()).getValues();
+      } else {
+        continue;
+      }
+      if (!(field instanceof SymbolReference)) {
+        continue;
+      }
+      Symbol symbol = Symbol.from(field);
+      Integer measurementIndex = measurementColumnsIndexMap.get(symbol.getName());
+      if (measurementIndex == null) {
+        continue;
+      }
+      long[] hashes =
+          getValueIndexHashes(getTSDataType(columnSchemaMap.get(symbol).getType()), literals);
+      if (hashes != null) {
+        valueIndexHashes.putIfAbsent(measurementIndex, hashes);
+      }
+    }
+    return valueIndexHashes;
+  }
+
+  /**
+   * @return null if some literal can not be looked up in the value index of a field of the given
+   *     type
+   */
+  private static long[] getValueIndexHashes(TSDataType dataType, List<Expression> literals) {
+    long[] hashes = new long[literals.size()];
+    for (int i = 0; i < hashes.length; i++) {
+      Expression literal = literals.get(i);
+      if ((dataType == TSDataType.INT32 || dataType == TSDataType.INT64)
+          && literal instanceof LongLiteral) {
+        hashes[i] = PageValueIndex.hash(((LongLiteral) literal).getParsedValue());
+      } else if ((dataType == TSDataType.TEXT || dataType == TSDataType.STRING)
+          && literal instanceof StringLiteral) {
+        hashes[i] =
+            PageValueIndex.hash(
+                ((StringLiteral) literal).getValue().getBytes(TSFileConfig.STRING_CHARSET));
+      } else {
+        return null;
+      }
+    }
+    return hashes;
+  }
+
   @Override
   public Operator visitExplainAnalyze(ExplainAnalyzeNode node, LocalExecutionPlanContext context) {
     Operator operator = node.getChild().accept(this, context);
@@ -3953,6 +4299,27 @@ public class TableOperatorGenerator extends PlanVisitor<Operator, LocalExecution
         timeColumnOfTargetTable);
   }
 
+  /**
+   * The arguments of aggregations which are projected to literals, see
+   * PushAggregationIntoTableScan.
+   */
+  private Map<Symbol, Literal> getConstantArguments(AggregationTableScanNode node) {
+    if (node.getProjection() == null || node.getProjection().isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<Symbol, Literal> constantArguments = new HashMap<>();
+    for (AggregationNode.Aggregation aggregation : node.getAggregations().values()) {
+      for (Expression argument : aggregation.getArguments()) {
+        Symbol symbol = Symbol.from(argument);
+        Expression expression = node.getProjection().get(symbol);
+        if (expression instanceof Literal) {
+          constantArguments.put(symbol, (Literal) expression);
+        }
+      }
+    }
+    return constantArguments;
+  }
+
   private boolean[] checkStatisticAndScanOrder(
       AggregationTableScanNode node, String timeColumnName) {
     boolean canUseStatistic = true;
@@ -426,6 +426,15 @@ public class SourceRewriter extends BaseSourceRewriter<DistributionPlanContext>
    * non-mappable UDTF, we just need to check UDTF in this method, because caller has already
    * checked analysis.isDeviceViewSpecialProcess()
    */
+  /**
+   * Whether the result of the function depends on which rows are adjacent, e.g. COUNT_IF counts
+   * runs of consecutive rows, so it cannot be merged from the results of disjoint parts of the
+   * input.
+   */
+  public static boolean dependsOnAdjacentRows(String functionName) {
+    return COUNT_IF.equalsIgnoreCase(functionName) || DIFF.equalsIgnoreCase(functionName);
+  }
+
   private boolean cannotUseAggMergeSort() {
     if (analysis.hasGroupByParameter()) {
       return true;
@@ -435,8 +444,7 @@ public class SourceRewriter extends BaseSourceRewriter<DistributionPlanContext>
       if (expression instanceof FunctionExpression) {
         String functionName = ((FunctionExpression) expression).getFunctionName();
         if (((FunctionExpression) expression).getFunctionType() == FunctionType.UDTF
-            || COUNT_IF.equalsIgnoreCase(functionName)
-            || DIFF.equalsIgnoreCase(functionName)) {
+            || dependsOnAdjacentRows(functionName)) {
           return true;
         }
       }
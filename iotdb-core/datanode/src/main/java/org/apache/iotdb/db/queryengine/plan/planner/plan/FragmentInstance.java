@@ -41,6 +41,11 @@ import org.slf4j.LoggerFactory;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 public class FragmentInstance implements IConsensusRequest {
@@ -82,6 +87,12 @@ public class FragmentInstance implements IConsensusRequest {
   private final boolean debug;
   private final boolean verbose;
 
+  // Used for TableModel, symbol -> id of the join publishing a dynamic filter on it -> number of
+  // the instances of the join, which the table scans of this instance wait for
+  private Map<String, Map<String, Integer>> expectedDynamicFilters = Collections.emptyMap();
+  // Used for TableModel, DataNodes running the table scans filtered by the joins of this instance
+  private List<TDataNodeLocation> dynamicFilterTargets = Collections.emptyList();
+
   // We can add some more params for a specific FragmentInstance
   // So that we can make different FragmentInstance owns different data range.
 
@@ -267,6 +278,27 @@ public class FragmentInstance implements IConsensusRequest {
     fragmentInstance.hostDataNode =
         hasHostDataNode ? ThriftCommonsSerDeUtils.deserializeTDataNodeLocation(buffer) : null;
     fragmentInstance.isExplainAnalyze = ReadWriteIOUtils.readBool(buffer);
+    int expectedSize = ReadWriteIOUtils.readInt(buffer);
+    if (expectedSize > 0) {
+      fragmentInstance.expectedDynamicFilters = new HashMap<>(expectedSize);
+      for (int i = 0; i < expectedSize; i++) {
+        String symbol = ReadWriteIOUtils.readString(buffer);
+        int publisherSize = ReadWriteIOUtils.readInt(buffer);
+        Map<String, Integer> publishers = new HashMap<>(publisherSize);
+        for (int j = 0; j < publisherSize; j++) {
+          publishers.put(ReadWriteIOUtils.readString(buffer), ReadWriteIOUtils.readInt(buffer));
+        }
+        fragmentInstance.expectedDynamicFilters.put(symbol, publishers);
+      }
+    }
+    int targetSize = ReadWriteIOUtils.readInt(buffer);
+    if (targetSize > 0) {
+      fragmentInstance.dynamicFilterTargets = new ArrayList<>(targetSize);
+      for (int i = 0; i < targetSize; i++) {
+        fragmentInstance.dynamicFilterTargets.add(
+            ThriftCommonsSerDeUtils.deserializeTDataNodeLocation(buffer));
+      }
+    }
     return fragmentInstance;
   }
 
@@ -293,6 +325,19 @@ public class FragmentInstance implements IConsensusRequest {
         ThriftCommonsSerDeUtils.serializeTDataNodeLocation(hostDataNode, outputStream);
       }
       ReadWriteIOUtils.write(isExplainAnalyze, outputStream);
+      ReadWriteIOUtils.write(expectedDynamicFilters.size(), outputStream);
+      for (Map.Entry<String, Map<String, Integer>> entry : expectedDynamicFilters.entrySet()) {
+        ReadWriteIOUtils.write(entry.getKey(), outputStream);
+        ReadWriteIOUtils.write(entry.getValue().size(), outputStream);
+        for (Map.Entry<String, Integer> publisher : entry.getValue().entrySet()) {
+          ReadWriteIOUtils.write(publisher.getKey(), outputStream);
+          ReadWriteIOUtils.write(publisher.getValue(), outputStream);
+        }
+      }
+      ReadWriteIOUtils.write(dynamicFilterTargets.size(), outputStream);
+      for (TDataNodeLocation target : dynamicFilterTargets) {
+        ThriftCommonsSerDeUtils.serializeTDataNodeLocation(target, outputStream);
+      }
       return ByteBuffer.wrap(publicBAOS.getBuf(), 0, publicBAOS.size());
     } catch (IOException e) {
       LOGGER.error("Unexpected error occurs when serializing this FragmentInstance.", e);
@@ -341,4 +386,20 @@ public class FragmentInstance implements IConsensusRequest {
   public boolean isExplainAnalyze() {
     return isExplainAnalyze;
   }
+
+  public Map<String, Map<String, Integer>> getExpectedDynamicFilters() {
+    return expectedDynamicFilters;
+  }
+
+  public void setExpectedDynamicFilters(Map<String, Map<String, Integer>> expectedDynamicFilters) {
+    this.expectedDynamicFilters = expectedDynamicFilters;
+  }
+
+  public List<TDataNodeLocation> getDynamicFilterTargets() {
+    return dynamicFilterTargets;
+  }
+
+  public void setDynamicFilterTargets(List<TDataNodeLocation> dynamicFilterTargets) {
+    this.dynamicFilterTargets = dynamicFilterTargets;
+  }
 }
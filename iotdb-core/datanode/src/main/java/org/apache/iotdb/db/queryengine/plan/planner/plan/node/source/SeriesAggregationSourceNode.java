@@ -27,6 +27,8 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.AggregationDe
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.GroupByTimeParameter;
 import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
 
+import org.apache.tsfile.read.filter.basic.Filter;
+
 import javax.annotation.Nullable;
 
 import java.util.ArrayList;
@@ -57,6 +59,10 @@ public abstract class SeriesAggregationSourceNode extends SeriesSourceNode {
   // If the resultSet should contain 'endTime' column in GROUP BY TIME query.
   private boolean outputEndTime = false;
 
+  // The time range to aggregate when the scan is split by time on the DataNode, null if not split.
+  // It is only set while generating operators, so it is neither serialized nor compared.
+  @Nullable private Filter splitTimeFilter;
+
   protected SeriesAggregationSourceNode(
       PlanNodeId id, List<AggregationDescriptor> aggregationDescriptorList) {
     super(id);
@@ -98,6 +104,15 @@ public abstract class SeriesAggregationSourceNode extends SeriesSourceNode {
     return groupByTimeParameter;
   }
 
+  @Nullable
+  public Filter getSplitTimeFilter() {
+    return splitTimeFilter;
+  }
+
+  public void setSplitTimeFilter(@Nullable Filter splitTimeFilter) {
+    this.splitTimeFilter = splitTimeFilter;
+  }
+
   @Override
   public List<String> getOutputColumnNames() {
     List<String> outputColumnNames = new ArrayList<>();
@@ -33,6 +33,7 @@ import org.apache.iotdb.db.queryengine.plan.analyze.cache.schema.DataNodeDeviceP
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.AbstractMemTable;
+import org.apache.iotdb.db.storageengine.dataregion.memtable.DeviceIDDictionary;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.DeviceIDFactory;
 import org.apache.iotdb.db.storageengine.dataregion.wal.buffer.IWALByteBufferView;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALWriteUtils;
@@ -231,6 +232,11 @@ public abstract class InsertNode extends SearchNode {
     this.deviceID = deviceID;
   }
 
+  /** Replace the device ids of this node with the canonical ones of the data region. */
+  public void internDeviceIDs(DeviceIDDictionary dictionary) {
+    setDeviceID(dictionary.intern(getDeviceID()));
+  }
+
   public boolean isDeviceIDExists() {
     return deviceID != null;
   }
@@ -33,6 +33,7 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeType;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanVisitor;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.WritePlanNode;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.AbstractMemTable;
+import org.apache.iotdb.db.storageengine.dataregion.memtable.DeviceIDDictionary;
 import org.apache.iotdb.db.storageengine.dataregion.wal.buffer.IWALByteBufferView;
 import org.apache.iotdb.db.storageengine.dataregion.wal.buffer.WALEntryValue;
 
@@ -112,6 +113,13 @@ public class InsertRowsNode extends InsertNode implements WALEntryValue {
     return insertRowNodeList;
   }
 
+  @Override
+  public void internDeviceIDs(DeviceIDDictionary dictionary) {
+    for (InsertRowNode insertRowNode : insertRowNodeList) {
+      insertRowNode.internDeviceIDs(dictionary);
+    }
+  }
+
   public void setInsertRowNodeList(List<InsertRowNode> insertRowNodeList) {
     this.insertRowNodeList = insertRowNodeList;
   }
@@ -35,6 +35,7 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeType;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanVisitor;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.WritePlanNode;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.AbstractMemTable;
+import org.apache.iotdb.db.storageengine.dataregion.memtable.DeviceIDDictionary;
 
 import org.apache.tsfile.enums.TSDataType;
 import org.apache.tsfile.exception.NotImplementedException;
@@ -122,6 +123,13 @@ public class InsertRowsOfOneDeviceNode extends InsertNode {
     return insertRowNodeList;
   }
 
+  @Override
+  public void internDeviceIDs(DeviceIDDictionary dictionary) {
+    for (InsertRowNode insertRowNode : insertRowNodeList) {
+      insertRowNode.internDeviceIDs(dictionary);
+    }
+  }
+
   public void setInsertRowNodeList(List<InsertRowNode> insertRowNodeList) {
     this.insertRowNodeList = insertRowNodeList;
 
@@ -34,6 +34,7 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanVisitor;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.WritePlanNode;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher.cache.TableDeviceSchemaCache;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.AbstractMemTable;
+import org.apache.iotdb.db.storageengine.dataregion.memtable.DeviceIDDictionary;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.IWritableMemChunkGroup;
 import org.apache.iotdb.db.storageengine.dataregion.wal.buffer.IWALByteBufferView;
 
@@ -170,6 +171,22 @@ public class RelationalInsertTabletNode extends InsertTabletNode {
     return deviceIDs[rowIdx];
   }
 
+  @Override
+  public void internDeviceIDs(DeviceIDDictionary dictionary) {
+    // the consecutive rows of the same device share the device id of the previous row, which is
+    // interned only once
+    IDeviceID previous = null;
+    for (int i = 0; i < (singleDevice ? 1 : rowCount); i++) {
+      IDeviceID deviceID = getDeviceID(i);
+      if (i > 0 && (deviceID == previous || deviceID == deviceIDs[i - 1])) {
+        deviceIDs[i] = deviceIDs[i - 1];
+      } else {
+        deviceIDs[i] = dictionary.intern(deviceID);
+      }
+      previous = deviceID;
+    }
+  }
+
   @Override
   public <R, C> R accept(PlanVisitor<R, C> visitor, C context) {
     return visitor.visitRelationalInsertTablet(this, context);
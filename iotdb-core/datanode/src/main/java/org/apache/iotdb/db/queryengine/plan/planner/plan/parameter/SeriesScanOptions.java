@@ -23,6 +23,7 @@ import org.apache.iotdb.commons.path.AlignedFullPath;
 import org.apache.iotdb.commons.path.IFullPath;
 import org.apache.iotdb.commons.path.NonAlignedFullPath;
 import org.apache.iotdb.commons.utils.CommonDateTimeUtils;
+import org.apache.iotdb.db.queryengine.execution.operator.source.TopKTimeBound;
 import org.apache.iotdb.db.queryengine.execution.operator.source.relational.TreeNonAlignedDeviceViewAggregationScanOperator;
 
 import org.apache.tsfile.read.filter.basic.Filter;
@@ -34,6 +35,7 @@ import org.apache.tsfile.utils.RamUsageEstimator;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -55,6 +57,16 @@ public class SeriesScanOptions implements Accountable {
   private PaginationController paginationController;
   private boolean isTableViewForTreeModel;
   private long ttlForTableView = Long.MAX_VALUE;
+
+  /**
+   * measurement index -> hashes of the values one of which the measurement must equal, pages whose
+   * value index contains none of them are skipped
+   */
+  private Map<Integer, long[]> valueIndexHashes = Collections.emptyMap();
+
+  // published by the TopK operator above, null if there is no such TopK ordered by time
+  private TopKTimeBound topKTimeBound;
+
   private static final long INSTANCE_SIZE =
       RamUsageEstimator.shallowSizeOfInstance(
           TreeNonAlignedDeviceViewAggregationScanOperator.class);
@@ -147,6 +159,12 @@ public class SeriesScanOptions implements Accountable {
         updateFilterUsingTTL(originalTimeFilter, Math.min(ttlForTableView, dataTTL));
   }
 
+  /** Narrows the time filter, which takes effect on the series scans created afterwards. */
+  public void addTimeFilter(Filter timeFilter) {
+    this.globalTimeFilter =
+        globalTimeFilter == null ? timeFilter : FilterFactory.and(globalTimeFilter, timeFilter);
+  }
+
   public void setTTLForTableView(long ttlForTableView) {
     this.ttlForTableView = ttlForTableView;
   }
@@ -167,6 +185,22 @@ public class SeriesScanOptions implements Accountable {
     return filter;
   }
 
+  public Map<Integer, long[]> getValueIndexHashes() {
+    return valueIndexHashes;
+  }
+
+  public TopKTimeBound getTopKTimeBound() {
+    return topKTimeBound;
+  }
+
+  /**
+   * The scan must have no offset and must be in the same time order as the TopK, so that the data
+   * after the first skipped file cannot be in the top k either.
+   */
+  public void setTopKTimeBound(TopKTimeBound topKTimeBound) {
+    this.topKTimeBound = topKTimeBound;
+  }
+
   public boolean isTableViewForTreeModel() {
     return isTableViewForTreeModel;
   }
@@ -197,6 +231,7 @@ public class SeriesScanOptions implements Accountable {
 
     private boolean pushLimitToEachDevice = true;
     private boolean isTableViewForTreeModel = false;
+    private Map<Integer, long[]> valueIndexHashes = Collections.emptyMap();
 
     public Builder withGlobalTimeFilter(Filter globalTimeFilter) {
       this.globalTimeFilter = globalTimeFilter;
@@ -228,19 +263,27 @@ public class SeriesScanOptions implements Accountable {
       return this;
     }
 
+    public Builder withValueIndexHashes(Map<Integer, long[]> valueIndexHashes) {
+      this.valueIndexHashes = valueIndexHashes;
+      return this;
+    }
+
     public void withAllSensors(Set<String> allSensors) {
       this.allSensors = allSensors;
     }
 
     public SeriesScanOptions build() {
-      return new SeriesScanOptions(
-          globalTimeFilter,
-          pushDownFilter,
-          pushDownLimit,
-          pushDownOffset,
-          allSensors,
-          pushLimitToEachDevice,
-          isTableViewForTreeModel);
+      SeriesScanOptions options =
+          new SeriesScanOptions(
+              globalTimeFilter,
+              pushDownFilter,
+              pushDownLimit,
+              pushDownOffset,
+              allSensors,
+              pushLimitToEachDevice,
+              isTableViewForTreeModel);
+      options.valueIndexHashes = valueIndexHashes;
+      return options;
     }
   }
 }
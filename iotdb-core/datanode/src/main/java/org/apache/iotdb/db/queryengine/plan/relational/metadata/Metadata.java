@@ -58,6 +58,15 @@ public interface Metadata {
    */
   Optional<TableSchema> getTableSchema(final SessionInfo session, final QualifiedObjectName name);
 
+  /**
+   * Return statistics of the specified table for cost based optimizations, or empty if they are
+   * not available.
+   */
+  default Optional<TableStatistics> getTableStatistics(
+      final SessionInfo session, final QualifiedObjectName name) {
+    return Optional.empty();
+  }
+
   Type getOperatorReturnType(
       final OperatorType operatorType, final List<? extends Type> argumentTypes)
       throws OperatorNotFoundException;
@@ -46,6 +46,7 @@ import org.apache.iotdb.db.queryengine.plan.relational.function.arithmetic.Subtr
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher.TableDeviceSchemaFetcher;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher.TableDeviceSchemaValidator;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher.TableHeaderSchemaValidator;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher.TableStatisticsFetcher;
 import org.apache.iotdb.db.queryengine.plan.relational.security.AccessControl;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
 import org.apache.iotdb.db.queryengine.plan.relational.type.InternalTypeManager;
@@ -133,6 +134,17 @@ public class TableMetadataImpl implements Metadata {
             : new TableSchema(table.getTableName(), columnSchemaList));
   }
 
+  @Override
+  public Optional<TableStatistics> getTableStatistics(
+      final SessionInfo session, final QualifiedObjectName name) {
+    final TsTable table = tableCache.getTable(name.getDatabaseName(), name.getObjectName(), false);
+    // data of tree view tables are stored in tree model devices
+    if (table == null || TreeViewSchema.isTreeViewTable(table)) {
+      return Optional.empty();
+    }
+    return TableStatisticsFetcher.getInstance().getTableStatistics(name);
+  }
+
   @Override
   public Type getOperatorReturnType(OperatorType operatorType, List<? extends Type> argumentTypes)
       throws OperatorNotFoundException {
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.metadata;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+/**
+ * Statistics of a table derived from its sealed TsFiles, used by the optimizer to estimate the
+ * cardinality of table scans.
+ */
+public class TableStatistics {
+
+  private final long rowCount;
+  private final long deviceCount;
+  private final long minTime;
+  private final long maxTime;
+  // time partition -> row count
+  private final Map<Long, Long> timePartitionRowCounts;
+
+  public TableStatistics(
+      long rowCount,
+      long deviceCount,
+      long minTime,
+      long maxTime,
+      Map<Long, Long> timePartitionRowCounts) {
+    this.rowCount = rowCount;
+    this.deviceCount = deviceCount;
+    this.minTime = minTime;
+    this.maxTime = maxTime;
+    this.timePartitionRowCounts = ImmutableMap.copyOf(timePartitionRowCounts);
+  }
+
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  public long getDeviceCount() {
+    return deviceCount;
+  }
+
+  public long getMinTime() {
+    return minTime;
+  }
+
+  public long getMaxTime() {
+    return maxTime;
+  }
+
+  public Map<Long, Long> getTimePartitionRowCounts() {
+    return timePartitionRowCounts;
+  }
+
+  /** Number of distinct timestamps, bounded by both the row count and the time range. */
+  public long getDistinctTimeCount() {
+    if (rowCount == 0 || maxTime < minTime) {
+      return 0;
+    }
+    long timeRange = maxTime - minTime;
+    // overflow means the range is larger than any row count
+    return timeRange < 0 ? rowCount : Math.min(rowCount, timeRange + 1);
+  }
+
+  @Override
+  public String toString() {
+    return "TableStatistics{"
+        + "rowCount="
+        + rowCount
+        + ", deviceCount="
+        + deviceCount
+        + ", minTime="
+        + minTime
+        + ", maxTime="
+        + maxTime
+        + '}';
+  }
+}
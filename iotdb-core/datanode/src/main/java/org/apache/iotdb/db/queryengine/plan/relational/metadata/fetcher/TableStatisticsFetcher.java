@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher;
+
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupId;
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupType;
+import org.apache.iotdb.common.rpc.thrift.TDataNodeLocation;
+import org.apache.iotdb.common.rpc.thrift.TEndPoint;
+import org.apache.iotdb.common.rpc.thrift.TRegionInfo;
+import org.apache.iotdb.commons.client.IClientManager;
+import org.apache.iotdb.commons.client.sync.SyncDataNodeInternalServiceClient;
+import org.apache.iotdb.commons.cluster.RegionRoleType;
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.commons.consensus.DataRegionId;
+import org.apache.iotdb.commons.exception.IoTDBRuntimeException;
+import org.apache.iotdb.commons.utils.PathUtils;
+import org.apache.iotdb.confignode.rpc.thrift.TShowRegionReq;
+import org.apache.iotdb.confignode.rpc.thrift.TShowRegionResp;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.protocol.client.ConfigNodeClient;
+import org.apache.iotdb.db.protocol.client.ConfigNodeClientManager;
+import org.apache.iotdb.db.protocol.client.ConfigNodeInfo;
+import org.apache.iotdb.db.queryengine.plan.Coordinator;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.QualifiedObjectName;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.TableStatistics;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations.DataNodeLocationSupplierFactory;
+import org.apache.iotdb.db.storageengine.StorageEngine;
+import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.utils.EncryptDBUtils;
+import org.apache.iotdb.mpp.rpc.thrift.TFetchTableStatisticsReq;
+import org.apache.iotdb.mpp.rpc.thrift.TFetchTableStatisticsResp;
+import org.apache.iotdb.rpc.RpcUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.file.metadata.TimeseriesMetadata;
+import org.apache.tsfile.file.metadata.statistics.Statistics;
+import org.apache.tsfile.read.TsFileSequenceReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derive {@link TableStatistics} from the sealed TsFiles of all data regions of the table's
+ * database in the cluster: row counts and time ranges come from the metadata of the time column of
+ * each device, and are cached per TsFile since sealed files never change.
+ *
+ * <p>Every data region is counted once, by its leader, and the regions on other DataNodes are asked
+ * for their statistics through {@code fetchTableStatistics}, so all coordinators see the same
+ * numbers. The statistics are computed by a background thread and planning only reads the last
+ * known value: a table whose statistics are not computed yet has none, and stale statistics are
+ * returned while being refreshed.
+ *
+ * <p>Data in memtables is ignored, so the statistics are meant for comparing tables relative to
+ * each other rather than for exact counts.
+ */
+public class TableStatisticsFetcher {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TableStatisticsFetcher.class);
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
+  // sealed TsFile -> table name -> statistics of the table in this file
+  private final Cache<TsFileResource, Map<String, FileTableStatistics>> fileStatisticsCache =
+      Caffeine.newBuilder().weakKeys().build();
+
+  private final ExecutorService refreshExecutor =
+      IoTDBThreadPoolFactory.newSingleThreadExecutor(ThreadName.TABLE_STATISTICS_REFRESH.getName());
+
+  // tables whose first computation has been submitted
+  private final Set<QualifiedObjectName> loadingTables = ConcurrentHashMap.newKeySet();
+
+  private final LoadingCache<QualifiedObjectName, Optional<TableStatistics>> tableStatisticsCache =
+      Caffeine.newBuilder()
+          .refreshAfterWrite(CONFIG.getTableStatisticsRefreshIntervalInMs(), TimeUnit.MILLISECONDS)
+          // stop refreshing the tables no longer queried
+          .expireAfterAccess(
+              CONFIG.getTableStatisticsRefreshIntervalInMs() * 10, TimeUnit.MILLISECONDS)
+          .executor(refreshExecutor)
+          .build(this::computeTableStatistics);
+
+  private TableStatisticsFetcher() {
+    // singleton
+  }
+
+  private static class TableStatisticsFetcherHolder {
+    private static final TableStatisticsFetcher INSTANCE = new TableStatisticsFetcher();
+  }
+
+  public static TableStatisticsFetcher getInstance() {
+    return TableStatisticsFetcherHolder.INSTANCE;
+  }
+
+  /**
+   * Never waits for the statistics to be computed.
+   *
+   * @return the last known statistics of the table, or empty if they are not computed yet or the
+   *     database of the table has no data region
+   */
+  public Optional<TableStatistics> getTableStatistics(final QualifiedObjectName name) {
+    // a stale value is refreshed in the background by the cache itself
+    final Optional<TableStatistics> statistics = tableStatisticsCache.getIfPresent(name);
+    if (statistics != null) {
+      return statistics;
+    }
+    if (loadingTables.add(name)) {
+      refreshExecutor.execute(
+          () -> {
+            try {
+              tableStatisticsCache.get(name);
+            } catch (final Exception e) {
+              LOGGER.warn("Failed to compute statistics of table {}", name, e);
+            } finally {
+              loadingTables.remove(name);
+            }
+          });
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Throws on failure so that the last known statistics are kept by the cache until the next
+   * refresh.
+   */
+  private Optional<TableStatistics> computeTableStatistics(final QualifiedObjectName name)
+      throws Exception {
+    // data region id -> the replica counted for it
+    final Map<Integer, TRegionInfo> regions = new HashMap<>();
+    try (final ConfigNodeClient client =
+        ConfigNodeClientManager.getInstance().borrowClient(ConfigNodeInfo.CONFIG_REGION_ID)) {
+      final TShowRegionResp resp =
+          client.showRegion(
+              new TShowRegionReq()
+                  .setConsensusGroupType(TConsensusGroupType.DataRegion)
+                  .setIsTableModel(true));
+      if (resp.getStatus().getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        throw new IoTDBRuntimeException(resp.getStatus().getMessage(), resp.getStatus().getCode());
+      }
+      for (final TRegionInfo regionInfo : resp.getRegionInfoList()) {
+        if (!name.getDatabaseName()
+            .equals(PathUtils.unQualifyDatabaseName(regionInfo.getDatabase()))) {
+          continue;
+        }
+        if (RegionRoleType.Leader.getRoleType().equals(regionInfo.getRoleType())) {
+          regions.put(regionInfo.getConsensusGroupId().getId(), regionInfo);
+        } else {
+          regions.putIfAbsent(regionInfo.getConsensusGroupId().getId(), regionInfo);
+        }
+      }
+    }
+    if (regions.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final Map<Integer, List<TConsensusGroupId>> dataNodeToRegionIds = new HashMap<>();
+    for (final TRegionInfo regionInfo : regions.values()) {
+      dataNodeToRegionIds
+          .computeIfAbsent(regionInfo.getDataNodeId(), k -> new ArrayList<>())
+          .add(regionInfo.getConsensusGroupId());
+    }
+    final Map<Integer, TEndPoint> dataNodeEndPoints = new HashMap<>();
+    for (final TDataNodeLocation location :
+        DataNodeLocationSupplierFactory.getReadableDataNodeLocations()) {
+      dataNodeEndPoints.put(location.getDataNodeId(), location.getInternalEndPoint());
+    }
+
+    final IClientManager<TEndPoint, SyncDataNodeInternalServiceClient> clientManager =
+        Coordinator.getInstance().getInternalServiceClientManager();
+    final List<TFetchTableStatisticsResp> regionStatistics = new ArrayList<>();
+    for (final Map.Entry<Integer, List<TConsensusGroupId>> entry :
+        dataNodeToRegionIds.entrySet()) {
+      final TFetchTableStatisticsReq req =
+          new TFetchTableStatisticsReq(
+              name.getDatabaseName(), name.getObjectName(), entry.getValue());
+      final TFetchTableStatisticsResp resp;
+      if (entry.getKey() == CONFIG.getDataNodeId()) {
+        resp = fetchTableStatistics(req);
+      } else {
+        final TEndPoint endPoint = dataNodeEndPoints.get(entry.getKey());
+        if (endPoint == null) {
+          throw new IoTDBRuntimeException(
+              "DataNode " + entry.getKey() + " is not readable",
+              TSStatusCode.QUERY_PROCESS_ERROR.getStatusCode());
+        }
+        try (final SyncDataNodeInternalServiceClient client =
+            clientManager.borrowClient(endPoint)) {
+          resp = client.fetchTableStatistics(req);
+        }
+      }
+      if (resp.getStatus().getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        throw new IoTDBRuntimeException(resp.getStatus().getMessage(), resp.getStatus().getCode());
+      }
+      regionStatistics.add(resp);
+    }
+    return Optional.of(mergeRegionStatistics(regionStatistics));
+  }
+
+  /** Merge the statistics of a table fetched from disjoint sets of data regions. */
+  static TableStatistics mergeRegionStatistics(final List<TFetchTableStatisticsResp> statistics) {
+    long minTime = Long.MAX_VALUE;
+    long maxTime = Long.MIN_VALUE;
+    final Map<Long, Long> timePartitionRowCounts = new HashMap<>();
+    final Map<Long, Long> timePartitionDeviceCounts = new HashMap<>();
+    for (final TFetchTableStatisticsResp resp : statistics) {
+      minTime = Math.min(minTime, resp.getMinTime());
+      maxTime = Math.max(maxTime, resp.getMaxTime());
+      resp.getTimePartitionRowCounts()
+          .forEach((k, v) -> timePartitionRowCounts.merge(k, v, Long::sum));
+      // a device belongs to one data region within a time partition
+      resp.getTimePartitionDeviceCounts()
+          .forEach((k, v) -> timePartitionDeviceCounts.merge(k, v, Long::sum));
+    }
+    final long rowCount = timePartitionRowCounts.values().stream().mapToLong(Long::longValue).sum();
+    final long deviceCount =
+        timePartitionDeviceCounts.values().stream().mapToLong(Long::longValue).max().orElse(0);
+    return new TableStatistics(rowCount, deviceCount, minTime, maxTime, timePartitionRowCounts);
+  }
+
+  /** Compute the statistics of a table in the given data regions on this DataNode. */
+  public TFetchTableStatisticsResp fetchTableStatistics(final TFetchTableStatisticsReq req) {
+    long minTime = Long.MAX_VALUE;
+    long maxTime = Long.MIN_VALUE;
+    final Map<Long, Long> timePartitionRowCounts = new HashMap<>();
+    final Map<Long, Long> timePartitionDeviceCounts = new HashMap<>();
+    for (final TConsensusGroupId regionId : req.getRegionIds()) {
+      final DataRegion dataRegion =
+          StorageEngine.getInstance().getDataRegion(new DataRegionId(regionId.getId()));
+      if (dataRegion == null) {
+        return new TFetchTableStatisticsResp(
+            RpcUtils.getStatus(
+                TSStatusCode.DATAREGION_PROCESS_ERROR,
+                "Data region " + regionId.getId() + " is not on this DataNode"));
+      }
+      // time partition -> device count of the table in this region
+      final Map<Long, Long> regionDeviceCounts = new HashMap<>();
+      for (final boolean sequence : new boolean[] {true, false}) {
+        for (final TsFileResource resource :
+            dataRegion.getTsFileManager().getTsFileList(sequence)) {
+          if (!resource.isClosed() || resource.isDeleted()) {
+            continue;
+          }
+          final FileTableStatistics fileStatistics =
+              fileStatisticsCache
+                  .get(resource, this::readFileTableStatistics)
+                  .get(req.getTableName());
+          if (fileStatistics == null) {
+            continue;
+          }
+          minTime = Math.min(minTime, fileStatistics.minTime);
+          maxTime = Math.max(maxTime, fileStatistics.maxTime);
+          timePartitionRowCounts.merge(
+              resource.getTimePartition(), fileStatistics.rowCount, Long::sum);
+          // devices of a table usually appear in every file of a time partition, so the largest
+          // count of one file is taken instead of keeping the device sets
+          regionDeviceCounts.merge(
+              resource.getTimePartition(), fileStatistics.deviceCount, Math::max);
+        }
+      }
+      regionDeviceCounts.forEach((k, v) -> timePartitionDeviceCounts.merge(k, v, Long::sum));
+    }
+    final TFetchTableStatisticsResp resp = new TFetchTableStatisticsResp(RpcUtils.SUCCESS_STATUS);
+    resp.setMinTime(minTime);
+    resp.setMaxTime(maxTime);
+    resp.setTimePartitionRowCounts(timePartitionRowCounts);
+    resp.setTimePartitionDeviceCounts(timePartitionDeviceCounts);
+    return resp;
+  }
+
+  private Map<String, FileTableStatistics> readFileTableStatistics(final TsFileResource resource) {
+    final String filePath = resource.getTsFilePath();
+    final Map<String, FileTableStatistics> result = new HashMap<>();
+    try (final TsFileSequenceReader reader =
+        new TsFileSequenceReader(
+            filePath, null, EncryptDBUtils.getFirstEncryptParamFromTSFilePath(filePath))) {
+      for (final Map.Entry<IDeviceID, List<TimeseriesMetadata>> entry :
+          reader.getAllTimeseriesMetadata(false).entrySet()) {
+        final String tableName = entry.getKey().getTableName();
+        if (tableName == null) {
+          continue;
+        }
+        result
+            .computeIfAbsent(tableName, k -> new FileTableStatistics())
+            .addDevice(entry.getValue());
+      }
+    } catch (final IOException e) {
+      // the file may have been removed by compaction, it will be absent in the next computation
+      LOGGER.debug("Failed to read statistics of TsFile {}", filePath, e);
+      return Collections.emptyMap();
+    }
+    return result;
+  }
+
+  private static class FileTableStatistics {
+    private long rowCount = 0;
+    private long deviceCount = 0;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+
+    private void addDevice(final List<TimeseriesMetadata> timeseriesMetadataList) {
+      long deviceRowCount = 0;
+      for (final TimeseriesMetadata timeseriesMetadata : timeseriesMetadataList) {
+        final Statistics<? extends Serializable> statistics = timeseriesMetadata.getStatistics();
+        minTime = Math.min(minTime, statistics.getStartTime());
+        maxTime = Math.max(maxTime, statistics.getEndTime());
+        if (timeseriesMetadata.getMeasurementId().isEmpty()) {
+          // the time column of an aligned device counts all rows
+          deviceRowCount = statistics.getCount();
+          break;
+        }
+        deviceRowCount = Math.max(deviceRowCount, statistics.getCount());
+      }
+      rowCount += deviceRowCount;
+      deviceCount++;
+    }
+  }
+}
@@ -46,7 +46,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -63,6 +65,8 @@ public class TreeDeviceSchemaCacheManager {
   // cache update or clean have higher priority than cache read
   private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock(false);
 
+  private final List<Consumer<PartialPath>> schemaChangeListeners = new CopyOnWriteArrayList<>();
+
   private TreeDeviceSchemaCacheManager() {
     tableDeviceSchemaCache = TableDeviceSchemaCache.getInstance();
   }
@@ -92,6 +96,23 @@ public class TreeDeviceSchemaCacheManager {
     readWriteLock.writeLock().unlock();
   }
 
+  /**
+   * Register a listener notified of the devices whose schema may have changed, i.e. the devices put
+   * into the cache and the ones created by statements on this node, and of {@code null} for all
+   * devices whenever the cache is invalidated. It keeps what is derived from the absence of schema,
+   * e.g. the devices known to be missing, consistent with the cache.
+   */
+  public void addSchemaChangeListener(final Consumer<PartialPath> listener) {
+    schemaChangeListeners.add(listener);
+  }
+
+  /** Notify that the schema of the device may have changed, {@code null} for all devices. */
+  public void notifySchemaChange(final PartialPath devicePath) {
+    for (final Consumer<PartialPath> listener : schemaChangeListeners) {
+      listener.accept(devicePath);
+    }
+  }
+
   /**
    * Get SchemaEntity info without auto create schema
    *
@@ -295,9 +316,11 @@ public class TreeDeviceSchemaCacheManager {
   public void put(final ClusterSchemaTree tree) {
     tree.getAllDevices()
         .forEach(
-            deviceSchemaInfo ->
-                tableDeviceSchemaCache.putDeviceSchema(
-                    tree.getBelongedDatabase(deviceSchemaInfo.getDevicePath()), deviceSchemaInfo));
+            deviceSchemaInfo -> {
+              tableDeviceSchemaCache.putDeviceSchema(
+                  tree.getBelongedDatabase(deviceSchemaInfo.getDevicePath()), deviceSchemaInfo);
+              notifySchemaChange(deviceSchemaInfo.getDevicePath());
+            });
   }
 
   public TimeValuePair getLastCache(final MeasurementPath seriesPath) {
@@ -401,10 +424,12 @@ public class TreeDeviceSchemaCacheManager {
               isMultiLevelWildcardMeasurement ? measurementPath : measurementPath.getDevicePath(),
               isMultiLevelWildcardMeasurement);
         });
+    notifySchemaChange(null);
   }
 
   public void cleanUp() {
     tableDeviceSchemaCache.invalidateAll();
+    notifySchemaChange(null);
   }
 
   private static class WrappedSchemaInfo implements IMeasurementSchemaInfo {
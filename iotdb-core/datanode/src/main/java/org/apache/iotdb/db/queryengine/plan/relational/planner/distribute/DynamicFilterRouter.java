@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.planner.distribute;
+
+import org.apache.iotdb.common.rpc.thrift.TDataNodeLocation;
+import org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.FragmentInstance;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.ColumnSchema;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.DeviceTableScanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.TreeAlignedDeviceViewScanNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Routes the dynamic filters of the joins to the table scans they filter. A join and the scans of
+ * its left side are always in different fragments, which may run on different DataNodes. So each
+ * instance running a join is told the DataNodes to push its filters to, and each instance running
+ * a filtered scan is told which filters to wait for.
+ */
+public class DynamicFilterRouter {
+
+  private DynamicFilterRouter() {
+    // util class
+  }
+
+  public static void route(List<FragmentInstance> instances) {
+    // symbol -> id of the join publishing a filter on it -> number of the instances of the join
+    Map<String, Map<String, Integer>> publishers = new HashMap<>();
+    // id of the join -> instances running it
+    Map<String, List<FragmentInstance>> joinInstances = new HashMap<>();
+    for (FragmentInstance instance : instances) {
+      for (JoinNode join : collectJoins(instance.getFragment().getPlanNodeTree())) {
+        String joinId = join.getPlanNodeId().getId();
+        joinInstances.computeIfAbsent(joinId, k -> new ArrayList<>()).add(instance);
+        for (Symbol symbol : join.getDynamicFilters().keySet()) {
+          publishers
+              .computeIfAbsent(symbol.getName(), k -> new HashMap<>())
+              .merge(joinId, 1, Integer::sum);
+        }
+      }
+    }
+    if (publishers.isEmpty()) {
+      return;
+    }
+
+    // id of the join -> DataNodes running the scans it filters
+    Map<String, Set<TDataNodeLocation>> joinTargets = new HashMap<>();
+    for (FragmentInstance instance : instances) {
+      Map<String, Map<String, Integer>> expected = new HashMap<>();
+      for (String symbol : collectFilterableSymbols(instance.getFragment().getPlanNodeTree())) {
+        Map<String, Integer> symbolPublishers = publishers.get(symbol);
+        if (symbolPublishers != null) {
+          expected.put(symbol, symbolPublishers);
+          for (String joinId : symbolPublishers.keySet()) {
+            joinTargets
+                .computeIfAbsent(joinId, k -> new LinkedHashSet<>())
+                .add(instance.getHostDataNode());
+          }
+        }
+      }
+      if (!expected.isEmpty()) {
+        instance.setExpectedDynamicFilters(expected);
+      }
+    }
+
+    Map<FragmentInstance, Set<TDataNodeLocation>> instanceTargets = new IdentityHashMap<>();
+    joinTargets.forEach(
+        (joinId, targets) -> {
+          for (FragmentInstance instance : joinInstances.get(joinId)) {
+            instanceTargets.computeIfAbsent(instance, k -> new LinkedHashSet<>()).addAll(targets);
+          }
+        });
+    instanceTargets.forEach(
+        (instance, targets) -> instance.setDynamicFilterTargets(new ArrayList<>(targets)));
+  }
+
+  private static List<JoinNode> collectJoins(PlanNode root) {
+    List<JoinNode> joins = new ArrayList<>();
+    collectJoins(root, joins);
+    return joins;
+  }
+
+  private static void collectJoins(PlanNode node, List<JoinNode> joins) {
+    if (node instanceof JoinNode && !((JoinNode) node).getDynamicFilters().isEmpty()) {
+      joins.add((JoinNode) node);
+    }
+    for (PlanNode child : node.getChildren()) {
+      collectJoins(child, joins);
+    }
+  }
+
+  /** The symbols of the columns the scans of the fragment skip data by, mirroring the executor. */
+  private static Set<String> collectFilterableSymbols(PlanNode root) {
+    Set<String> symbols = new HashSet<>();
+    collectFilterableSymbols(root, symbols);
+    return symbols;
+  }
+
+  private static void collectFilterableSymbols(PlanNode node, Set<String> symbols) {
+    boolean isTableScan = node.getClass() == DeviceTableScanNode.class;
+    if (isTableScan || node.getClass() == TreeAlignedDeviceViewScanNode.class) {
+      // the time filter of table views is regenerated with ttl for each device
+      for (Map.Entry<Symbol, ColumnSchema> entry :
+          ((DeviceTableScanNode) node).getAssignments().entrySet()) {
+        TsTableColumnCategory category = entry.getValue().getColumnCategory();
+        if (category == TsTableColumnCategory.TAG
+            || (category == TsTableColumnCategory.TIME && isTableScan)) {
+          symbols.add(entry.getKey().getName());
+        }
+      }
+    }
+    for (PlanNode child : node.getChildren()) {
+      collectFilterableSymbols(child, symbols);
+    }
+  }
+}
@@ -190,6 +190,7 @@ public class TableDistributedPlanner {
     // only execute this step for READ operation
     if (mppQueryContext.isQuery()) {
       setSinkForRootInstance(subPlan, fragmentInstances);
+      DynamicFilterRouter.route(fragmentInstances);
     }
 
     return new DistributedQueryPlan(subPlan, fragmentInstances);
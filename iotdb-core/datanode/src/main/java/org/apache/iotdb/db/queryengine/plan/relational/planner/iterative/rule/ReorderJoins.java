@@ -0,0 +1,444 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.rule;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.common.SessionInfo;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.ColumnSchema;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.Metadata;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.QualifiedObjectName;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.TableStatistics;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Assignments;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.GroupReference;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.Lookup;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.Rule;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.FilterNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode.EquiJoinClause;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.LimitNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.ProjectNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.SortNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.TableScanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.SymbolReference;
+import org.apache.iotdb.db.queryengine.plan.relational.utils.matching.Captures;
+import org.apache.iotdb.db.queryengine.plan.relational.utils.matching.Pattern;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode.JoinType.INNER;
+import static org.apache.iotdb.db.queryengine.plan.relational.planner.node.Patterns.join;
+
+/**
+ * Reorders a tree of inner equi-joins by the cost estimated from {@link TableStatistics}.
+ *
+ * <p>The sources of the tree are joined in the left-deep order with the least total number of join
+ * input rows, which is what the merge sort joins have to sort, found by dynamic programming over
+ * the subsets of sources. Orders that need a cross join are never considered. The row count of a
+ * set of joined sources is the product of their row counts and the selectivity of each join clause
+ * among them, which is {@code 1 / max(ndv(left), ndv(right))}; the number of distinct values of a
+ * time column is bounded by the time range, and that of a tag column by the number of devices.
+ *
+ * <p>The tree is kept as is if the row count of any source is unknown, or if the best order is not
+ * noticeably cheaper, which also keeps the rule from firing again on its own result.
+ */
+public class ReorderJoins implements Rule<JoinNode> {
+
+  private static final Pattern<JoinNode> PATTERN = join().matching(ReorderJoins::isReorderable);
+
+  // the enumeration is exponential in the number of sources
+  private static final int MAX_REORDERED_SOURCES = 8;
+
+  // selectivity assumed for a filter, whose predicate is not analyzed
+  private static final double FILTER_SELECTIVITY = 0.9;
+
+  // a new order must be at least this much cheaper than the current one
+  private static final double MIN_COST_RATIO = 0.9;
+
+  private final Metadata metadata;
+
+  public ReorderJoins(Metadata metadata) {
+    this.metadata = requireNonNull(metadata, "metadata is null");
+  }
+
+  @Override
+  public Pattern<JoinNode> getPattern() {
+    return PATTERN;
+  }
+
+  @Override
+  public boolean isEnabled(SessionInfo session) {
+    return IoTDBDescriptor.getInstance().getConfig().isEnableJoinReorder();
+  }
+
+  private static boolean isReorderable(JoinNode node) {
+    return node.getJoinType() == INNER
+        && !node.getCriteria().isEmpty()
+        && !node.getAsofCriteria().isPresent()
+        && !node.getFilter().isPresent();
+  }
+
+  @Override
+  public Result apply(JoinNode node, Captures captures, Context context) {
+    Lookup lookup = context.getLookup();
+    List<PlanNode> sources = new ArrayList<>();
+    List<EquiJoinClause> clauses = new ArrayList<>();
+    flatten(node, lookup, sources, clauses);
+    int sourceCount = sources.size();
+    if (sourceCount < 3 || sourceCount > MAX_REORDERED_SOURCES) {
+      return Result.empty();
+    }
+    // the memo may hand out the sources in any order, so the order of enumeration must not depend
+    // on it, otherwise ties could make the rule flip between equivalent plans
+    sources.sort(Comparator.comparingInt(ReorderJoins::groupIdOf));
+
+    Estimator estimator = new Estimator(lookup, context.getSessionInfo());
+    double[] sourceRows = new double[sourceCount];
+    Map<Symbol, Integer> sourceOfSymbol = new HashMap<>();
+    Map<PlanNode, Integer> indexOfSource = new IdentityHashMap<>();
+    for (int i = 0; i < sourceCount; i++) {
+      PlanNode source = sources.get(i);
+      sourceRows[i] = estimator.getRowCount(source);
+      if (Double.isNaN(sourceRows[i])) {
+        return Result.empty();
+      }
+      for (Symbol symbol : source.getOutputSymbols()) {
+        sourceOfSymbol.put(symbol, i);
+      }
+      indexOfSource.put(source, i);
+    }
+
+    int[] clauseLeftSource = new int[clauses.size()];
+    int[] clauseRightSource = new int[clauses.size()];
+    double[] clauseSelectivity = new double[clauses.size()];
+    int[] adjacentSources = new int[sourceCount];
+    for (int c = 0; c < clauses.size(); c++) {
+      EquiJoinClause clause = clauses.get(c);
+      Integer left = sourceOfSymbol.get(clause.getLeft());
+      Integer right = sourceOfSymbol.get(clause.getRight());
+      if (left == null || right == null || left.equals(right)) {
+        return Result.empty();
+      }
+      clauseLeftSource[c] = left;
+      clauseRightSource[c] = right;
+      clauseSelectivity[c] =
+          1
+              / Math.max(
+                  1,
+                  Math.max(
+                      estimator.getDistinctValueCount(sources.get(left), clause.getLeft()),
+                      estimator.getDistinctValueCount(sources.get(right), clause.getRight())));
+      adjacentSources[left] |= 1 << right;
+      adjacentSources[right] |= 1 << left;
+    }
+
+    int setCount = 1 << sourceCount;
+    double[] setRows = new double[setCount];
+    for (int set = 1; set < setCount; set++) {
+      double rows = 1;
+      for (int i = 0; i < sourceCount; i++) {
+        if ((set & (1 << i)) != 0) {
+          rows *= sourceRows[i];
+        }
+      }
+      for (int c = 0; c < clauses.size(); c++) {
+        if ((set & (1 << clauseLeftSource[c])) != 0 && (set & (1 << clauseRightSource[c])) != 0) {
+          rows *= clauseSelectivity[c];
+        }
+      }
+      setRows[set] = Math.max(1, rows);
+    }
+
+    double[] currentCost = new double[1];
+    addCurrentCost(node, lookup, indexOfSource, setRows, currentCost);
+
+    // bestCost[set] is the cost of the cheapest left-deep join of set, whose last source joined on
+    // the right side is lastSource[set]
+    double[] bestCost = new double[setCount];
+    int[] lastSource = new int[setCount];
+    Arrays.fill(bestCost, Double.POSITIVE_INFINITY);
+    for (int i = 0; i < sourceCount; i++) {
+      bestCost[1 << i] = 0;
+    }
+    for (int set = 1; set < setCount; set++) {
+      if (Integer.bitCount(set) < 2) {
+        continue;
+      }
+      for (int i = 0; i < sourceCount; i++) {
+        int rest = set & ~(1 << i);
+        if ((set & (1 << i)) == 0
+            || (adjacentSources[i] & rest) == 0
+            || bestCost[rest] == Double.POSITIVE_INFINITY) {
+          continue;
+        }
+        double cost = bestCost[rest] + setRows[rest] + sourceRows[i];
+        if (cost < bestCost[set]) {
+          bestCost[set] = cost;
+          lastSource[set] = i;
+        }
+      }
+    }
+
+    int allSources = setCount - 1;
+    if (!(bestCost[allSources] < currentCost[0] * MIN_COST_RATIO)) {
+      return Result.empty();
+    }
+
+    Set<Symbol> requiredSymbols = new HashSet<>(node.getOutputSymbols());
+    for (EquiJoinClause clause : clauses) {
+      requiredSymbols.add(clause.getLeft());
+      requiredSymbols.add(clause.getRight());
+    }
+    PlanNode result =
+        new JoinTreeBuilder(
+                context,
+                sources,
+                sourceRows,
+                clauses,
+                clauseLeftSource,
+                clauseRightSource,
+                lastSource,
+                requiredSymbols)
+            .build(allSources);
+    if (!result.getOutputSymbols().equals(node.getOutputSymbols())) {
+      result =
+          new ProjectNode(
+              context.getIdAllocator().genPlanNodeId(),
+              result,
+              Assignments.identity(node.getOutputSymbols()));
+    }
+    return Result.ofPlanNode(result);
+  }
+
+  private static void flatten(
+      PlanNode node, Lookup lookup, List<PlanNode> sources, List<EquiJoinClause> clauses) {
+    Optional<JoinNode> join = resolveJoin(node, lookup);
+    if (join.isPresent()) {
+      clauses.addAll(join.get().getCriteria());
+      flatten(join.get().getLeftChild(), lookup, sources, clauses);
+      flatten(join.get().getRightChild(), lookup, sources, clauses);
+    } else {
+      sources.add(node);
+    }
+  }
+
+  /**
+   * Returns the reorderable join the node resolves to, looking through the identity projections
+   * that only prune the outputs of a join.
+   */
+  private static Optional<JoinNode> resolveJoin(PlanNode node, Lookup lookup) {
+    PlanNode resolved = lookup.resolve(node);
+    while (resolved instanceof ProjectNode
+        && ((ProjectNode) resolved).getAssignments().isIdentity()) {
+      resolved = lookup.resolve(((ProjectNode) resolved).getChild());
+    }
+    return resolved instanceof JoinNode && isReorderable((JoinNode) resolved)
+        ? Optional.of((JoinNode) resolved)
+        : Optional.empty();
+  }
+
+  /**
+   * Adds the cost of the joins under the node, as they are now, to the given cost, and returns the
+   * set of sources under the node.
+   */
+  private static int addCurrentCost(
+      PlanNode node,
+      Lookup lookup,
+      Map<PlanNode, Integer> indexOfSource,
+      double[] setRows,
+      double[] cost) {
+    Integer index = indexOfSource.get(node);
+    if (index != null) {
+      return 1 << index;
+    }
+    JoinNode join = resolveJoin(node, lookup).get();
+    int leftSet = addCurrentCost(join.getLeftChild(), lookup, indexOfSource, setRows, cost);
+    int rightSet = addCurrentCost(join.getRightChild(), lookup, indexOfSource, setRows, cost);
+    cost[0] += setRows[leftSet] + setRows[rightSet];
+    return leftSet | rightSet;
+  }
+
+  private static int groupIdOf(PlanNode node) {
+    return node instanceof GroupReference
+        ? ((GroupReference) node).getGroupId()
+        : Integer.MAX_VALUE;
+  }
+
+  private static class JoinTreeBuilder {
+    private final Context context;
+    private final List<PlanNode> sources;
+    private final double[] sourceRows;
+    private final List<EquiJoinClause> clauses;
+    private final int[] clauseLeftSource;
+    private final int[] clauseRightSource;
+    private final int[] lastSource;
+    private final Set<Symbol> requiredSymbols;
+
+    private JoinTreeBuilder(
+        Context context,
+        List<PlanNode> sources,
+        double[] sourceRows,
+        List<EquiJoinClause> clauses,
+        int[] clauseLeftSource,
+        int[] clauseRightSource,
+        int[] lastSource,
+        Set<Symbol> requiredSymbols) {
+      this.context = context;
+      this.sources = sources;
+      this.sourceRows = sourceRows;
+      this.clauses = clauses;
+      this.clauseLeftSource = clauseLeftSource;
+      this.clauseRightSource = clauseRightSource;
+      this.lastSource = lastSource;
+      this.requiredSymbols = requiredSymbols;
+    }
+
+    private PlanNode build(int set) {
+      if (Integer.bitCount(set) == 1) {
+        return sources.get(Integer.numberOfTrailingZeros(set));
+      }
+      int right = lastSource[set];
+      int rest = set & ~(1 << right);
+      if (Integer.bitCount(rest) == 1) {
+        // the larger one of the first two sources goes to the left
+        int left = Integer.numberOfTrailingZeros(rest);
+        if (sourceRows[right] > sourceRows[left]) {
+          int tmp = left;
+          left = right;
+          right = tmp;
+          rest = 1 << left;
+        }
+      }
+      PlanNode leftNode = build(rest);
+      PlanNode rightNode = sources.get(right);
+
+      ImmutableList.Builder<EquiJoinClause> criteria = ImmutableList.builder();
+      for (int c = 0; c < clauses.size(); c++) {
+        if (clauseRightSource[c] == right && (rest & (1 << clauseLeftSource[c])) != 0) {
+          criteria.add(clauses.get(c));
+        } else if (clauseLeftSource[c] == right && (rest & (1 << clauseRightSource[c])) != 0) {
+          criteria.add(clauses.get(c).flip());
+        }
+      }
+      return new JoinNode(
+          context.getIdAllocator().genPlanNodeId(),
+          INNER,
+          leftNode,
+          rightNode,
+          criteria.build(),
+          Optional.empty(),
+          requiredOutputs(leftNode),
+          requiredOutputs(rightNode),
+          Optional.empty(),
+          Optional.empty());
+    }
+
+    private List<Symbol> requiredOutputs(PlanNode node) {
+      return node.getOutputSymbols().stream()
+          .filter(requiredSymbols::contains)
+          .collect(ImmutableList.toImmutableList());
+    }
+  }
+
+  /** Estimates row counts and numbers of distinct values of the join sources. */
+  private class Estimator {
+    private final Lookup lookup;
+    private final SessionInfo session;
+    private final Map<QualifiedObjectName, Optional<TableStatistics>> statistics = new HashMap<>();
+
+    private Estimator(Lookup lookup, SessionInfo session) {
+      this.lookup = lookup;
+      this.session = session;
+    }
+
+    /** Returns NaN if unknown. */
+    private double getRowCount(PlanNode node) {
+      node = lookup.resolve(node);
+      if (node instanceof TableScanNode) {
+        return getStatistics((TableScanNode) node)
+            .map(stats -> (double) Math.max(1, stats.getRowCount()))
+            .orElse(Double.NaN);
+      } else if (node instanceof ProjectNode || node instanceof SortNode) {
+        return getRowCount(node.getChildren().get(0));
+      } else if (node instanceof FilterNode) {
+        return getRowCount(((FilterNode) node).getChild()) * FILTER_SELECTIVITY;
+      } else if (node instanceof LimitNode) {
+        return Math.min(((LimitNode) node).getCount(), getRowCount(((LimitNode) node).getChild()));
+      } else if (node instanceof AggregationNode
+          && ((AggregationNode) node).hasSingleGlobalAggregation()) {
+        return 1;
+      }
+      return Double.NaN;
+    }
+
+    private double getDistinctValueCount(PlanNode node, Symbol symbol) {
+      node = lookup.resolve(node);
+      double rows = getRowCount(node);
+      if (node instanceof TableScanNode) {
+        ColumnSchema column = ((TableScanNode) node).getAssignments().get(symbol);
+        Optional<TableStatistics> stats = getStatistics((TableScanNode) node);
+        if (column == null || !stats.isPresent()) {
+          return rows;
+        }
+        switch (column.getColumnCategory()) {
+          case TIME:
+            return Math.min(rows, stats.get().getDistinctTimeCount());
+          case TAG:
+            return Math.min(rows, stats.get().getDeviceCount());
+          default:
+            return rows;
+        }
+      } else if (node instanceof ProjectNode) {
+        Expression expression = ((ProjectNode) node).getAssignments().get(symbol);
+        if (expression instanceof SymbolReference) {
+          return Math.min(
+              rows,
+              getDistinctValueCount(((ProjectNode) node).getChild(), Symbol.from(expression)));
+        }
+        return rows;
+      } else if (node instanceof FilterNode
+          || node instanceof SortNode
+          || node instanceof LimitNode) {
+        return Math.min(rows, getDistinctValueCount(node.getChildren().get(0), symbol));
+      }
+      return rows;
+    }
+
+    private Optional<TableStatistics> getStatistics(TableScanNode node) {
+      return statistics.computeIfAbsent(
+          node.getQualifiedObjectName(), name -> metadata.getTableStatistics(session, name));
+    }
+  }
+}
@@ -30,6 +30,7 @@ import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.NullLiteral;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.apache.tsfile.utils.ReadWriteIOUtils;
 
@@ -37,7 +38,9 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -59,6 +62,10 @@ public class JoinNode extends TwoChildProcessNode {
   private final Optional<Expression> filter;
   private final Optional<Boolean> spillable;
 
+  // symbol of the left side -> symbol of the right side, for each equi-join clause whose right side
+  // values are collected to filter the table scan producing the left side symbol
+  private Map<Symbol, Symbol> dynamicFilters = ImmutableMap.of();
+
   // private final boolean maySkipOutputDuplicates;
   // private final Optional<Symbol> leftHashSymbol;
   // private final Optional<Symbol> rightHashSymbol;
@@ -181,17 +188,20 @@ public class JoinNode extends TwoChildProcessNode {
   @Override
   public PlanNode replaceChildren(List<PlanNode> newChildren) {
     checkArgument(newChildren.size() == 2, "expected newChildren to contain 2 nodes for JoinNode");
-    return new JoinNode(
-        getPlanNodeId(),
-        joinType,
-        newChildren.get(0),
-        newChildren.get(1),
-        criteria,
-        asofCriteria,
-        leftOutputSymbols,
-        rightOutputSymbols,
-        filter,
-        spillable);
+    JoinNode joinNode =
+        new JoinNode(
+            getPlanNodeId(),
+            joinType,
+            newChildren.get(0),
+            newChildren.get(1),
+            criteria,
+            asofCriteria,
+            leftOutputSymbols,
+            rightOutputSymbols,
+            filter,
+            spillable);
+    joinNode.setDynamicFilters(dynamicFilters);
+    return joinNode;
   }
 
   @Override
@@ -216,6 +226,7 @@ public class JoinNode extends TwoChildProcessNode {
             rightOutputSymbols,
             filter,
             spillable);
+    joinNode.setDynamicFilters(dynamicFilters);
     joinNode.setLeftChild(null);
     joinNode.setRightChild(null);
     return joinNode;
@@ -228,7 +239,12 @@ public class JoinNode extends TwoChildProcessNode {
 
   @Override
   protected void serializeAttributes(ByteBuffer byteBuffer) {
-    PlanNodeType.TABLE_JOIN_NODE.serialize(byteBuffer);
+    // the old node type keeps the plans without dynamic filters readable by older DataNodes
+    if (dynamicFilters.isEmpty()) {
+      PlanNodeType.TABLE_JOIN_NODE.serialize(byteBuffer);
+    } else {
+      PlanNodeType.TABLE_JOIN_NODE_WITH_DYNAMIC_FILTERS.serialize(byteBuffer);
+    }
 
     ReadWriteIOUtils.write(joinType.ordinal(), byteBuffer);
 
@@ -256,11 +272,24 @@ public class JoinNode extends TwoChildProcessNode {
     for (Symbol rightOutputSymbol : rightOutputSymbols) {
       Symbol.serialize(rightOutputSymbol, byteBuffer);
     }
+
+    if (!dynamicFilters.isEmpty()) {
+      ReadWriteIOUtils.write(dynamicFilters.size(), byteBuffer);
+      for (Map.Entry<Symbol, Symbol> entry : dynamicFilters.entrySet()) {
+        Symbol.serialize(entry.getKey(), byteBuffer);
+        Symbol.serialize(entry.getValue(), byteBuffer);
+      }
+    }
   }
 
   @Override
   protected void serializeAttributes(DataOutputStream stream) throws IOException {
-    PlanNodeType.TABLE_JOIN_NODE.serialize(stream);
+    // the old node type keeps the plans without dynamic filters readable by older DataNodes
+    if (dynamicFilters.isEmpty()) {
+      PlanNodeType.TABLE_JOIN_NODE.serialize(stream);
+    } else {
+      PlanNodeType.TABLE_JOIN_NODE_WITH_DYNAMIC_FILTERS.serialize(stream);
+    }
 
     ReadWriteIOUtils.write(joinType.ordinal(), stream);
 
@@ -288,9 +317,25 @@ public class JoinNode extends TwoChildProcessNode {
     for (Symbol rightOutputSymbol : rightOutputSymbols) {
       Symbol.serialize(rightOutputSymbol, stream);
     }
+
+    if (!dynamicFilters.isEmpty()) {
+      ReadWriteIOUtils.write(dynamicFilters.size(), stream);
+      for (Map.Entry<Symbol, Symbol> entry : dynamicFilters.entrySet()) {
+        Symbol.serialize(entry.getKey(), stream);
+        Symbol.serialize(entry.getValue(), stream);
+      }
+    }
   }
 
   public static JoinNode deserialize(ByteBuffer byteBuffer) {
+    return deserialize(byteBuffer, false);
+  }
+
+  public static JoinNode deserializeWithDynamicFilters(ByteBuffer byteBuffer) {
+    return deserialize(byteBuffer, true);
+  }
+
+  private static JoinNode deserialize(ByteBuffer byteBuffer, boolean withDynamicFilters) {
     JoinType joinType = JoinType.values()[ReadWriteIOUtils.readInt(byteBuffer)];
     int size = ReadWriteIOUtils.readInt(byteBuffer);
     List<EquiJoinClause> criteria = new ArrayList<>(size);
@@ -321,9 +366,20 @@ public class JoinNode extends TwoChildProcessNode {
       rightOutputSymbols.add(Symbol.deserialize(byteBuffer));
     }
 
+    Map<Symbol, Symbol> dynamicFilters = new LinkedHashMap<>();
+    if (withDynamicFilters) {
+      size = ReadWriteIOUtils.readInt(byteBuffer);
+      while (size-- > 0) {
+        dynamicFilters.put(Symbol.deserialize(byteBuffer), Symbol.deserialize(byteBuffer));
+      }
+    }
+
     PlanNodeId planNodeId = PlanNodeId.deserialize(byteBuffer);
-    return new JoinNode(
-        planNodeId, joinType, criteria, asofJoinClause, leftOutputSymbols, rightOutputSymbols);
+    JoinNode joinNode =
+        new JoinNode(
+            planNodeId, joinType, criteria, asofJoinClause, leftOutputSymbols, rightOutputSymbols);
+    joinNode.setDynamicFilters(dynamicFilters);
+    return joinNode;
   }
 
   public JoinType getJoinType() {
@@ -354,6 +410,14 @@ public class JoinNode extends TwoChildProcessNode {
     return spillable;
   }
 
+  public Map<Symbol, Symbol> getDynamicFilters() {
+    return dynamicFilters;
+  }
+
+  public void setDynamicFilters(Map<Symbol, Symbol> dynamicFilters) {
+    this.dynamicFilters = ImmutableMap.copyOf(dynamicFilters);
+  }
+
   public boolean isCrossJoin() {
     return !asofCriteria.isPresent()
         && criteria.isEmpty()
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations;
+
+import org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.ColumnSchema;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationTableScanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.DeviceTableScanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.FilterNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.ProjectNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.SortNode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode.JoinType.INNER;
+
+/**
+ * <b>Optimization phase:</b> Logical plan planning.
+ *
+ * <p>Marks the equi-join clauses of inner joins whose left key is a TAG or TIME column of a table
+ * scan below, where nothing in between depends on the rows that do not match the join. At runtime
+ * the keys of the right side are collected before the join starts, and the table scan skips the
+ * devices and the time ranges that cannot match them.
+ */
+public class AddJoinDynamicFilters implements PlanOptimizer {
+
+  @Override
+  public PlanNode optimize(PlanNode plan, Context context) {
+    if (!IoTDBDescriptor.getInstance().getConfig().isEnableJoinDynamicFilter()) {
+      return plan;
+    }
+    addDynamicFilters(plan);
+    return plan;
+  }
+
+  private static void addDynamicFilters(PlanNode node) {
+    for (PlanNode child : node.getChildren()) {
+      addDynamicFilters(child);
+    }
+    if (!(node instanceof JoinNode)) {
+      return;
+    }
+    JoinNode joinNode = (JoinNode) node;
+    if (joinNode.getJoinType() != INNER || joinNode.getAsofCriteria().isPresent()) {
+      return;
+    }
+    Map<Symbol, Symbol> dynamicFilters = new LinkedHashMap<>();
+    for (JoinNode.EquiJoinClause clause : joinNode.getCriteria()) {
+      // the filters of several joins on the same scan column are intersected by the scan
+      if (isFilterableScanColumn(joinNode.getLeftChild(), clause.getLeft())) {
+        dynamicFilters.put(clause.getLeft(), clause.getRight());
+      }
+    }
+    if (!dynamicFilters.isEmpty()) {
+      joinNode.setDynamicFilters(dynamicFilters);
+    }
+  }
+
+  /**
+   * Returns true if the symbol is a TAG or TIME column of a table scan under the node, and removing
+   * the rows whose value of the symbol is not in a set does not change the other rows output by the
+   * node.
+   */
+  private static boolean isFilterableScanColumn(PlanNode node, Symbol symbol) {
+    if (node instanceof DeviceTableScanNode) {
+      DeviceTableScanNode scanNode = (DeviceTableScanNode) node;
+      ColumnSchema columnSchema = scanNode.getAssignments().get(symbol);
+      return !(node instanceof AggregationTableScanNode)
+          && columnSchema != null
+          && (columnSchema.getColumnCategory() == TsTableColumnCategory.TAG
+              || columnSchema.getColumnCategory() == TsTableColumnCategory.TIME)
+          && scanNode.getPushDownLimit() <= 0
+          && scanNode.getPushDownOffset() <= 0;
+    } else if (node instanceof ProjectNode) {
+      return ((ProjectNode) node).getAssignments().isIdentity(symbol)
+          && isFilterableScanColumn(((ProjectNode) node).getChild(), symbol);
+    } else if (node instanceof FilterNode || node instanceof SortNode) {
+      return isFilterableScanColumn(node.getChildren().get(0), symbol);
+    } else if (node instanceof JoinNode) {
+      JoinNode joinNode = (JoinNode) node;
+      if (joinNode.getJoinType() != INNER || joinNode.getAsofCriteria().isPresent()) {
+        return false;
+      }
+      if (joinNode.getLeftOutputSymbols().contains(symbol)) {
+        return isFilterableScanColumn(joinNode.getLeftChild(), symbol);
+      }
+      return joinNode.getRightOutputSymbols().contains(symbol)
+          && isFilterableScanColumn(joinNode.getRightChild(), symbol);
+    }
+    return false;
+  }
+}
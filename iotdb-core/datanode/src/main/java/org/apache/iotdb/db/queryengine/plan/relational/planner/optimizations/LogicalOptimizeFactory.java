@@ -93,6 +93,7 @@ import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.rule.Re
 import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.rule.RemoveTrivialFilters;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.rule.RemoveUnreferencedScalarApplyNodes;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.rule.RemoveUnreferencedScalarSubqueries;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.rule.ReorderJoins;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.rule.ReplaceWindowWithRowNumber;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.rule.SimplifyCountOverConstant;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.iterative.rule.SimplifyExpressions;
@@ -349,6 +350,9 @@ public class LogicalOptimizeFactory {
         new IterativeOptimizer(
             plannerContext, ruleStats, ImmutableSet.of(new PruneDistinctAggregation())),
         simplifyOptimizer,
+        // must be run before PushPredicateIntoTableScan, which adds the sorts needed by the joins
+        new IterativeOptimizer(
+            plannerContext, ruleStats, ImmutableSet.of(new ReorderJoins(metadata))),
         new PushPredicateIntoTableScan(plannerContext, typeAnalyzer),
         // Currently, we inline symbols but do not simplify them in predicate push down.
         // So we have to add extra simplifyOptimizer here
@@ -388,7 +392,8 @@ public class LogicalOptimizeFactory {
                 new MergeLimitWithSort(),
                 new MergeLimitOverProjectWithSort(),
                 new PushTopKThroughUnion())),
-        new ParallelizeGrouping());
+        new ParallelizeGrouping(),
+        new AddJoinDynamicFilters());
 
     this.planOptimizers = optimizerBuilder.build();
   }
@@ -19,7 +19,9 @@
 
 package org.apache.iotdb.db.queryengine.plan.relational.planner.optimizations;
 
+import org.apache.iotdb.commons.udf.builtin.relational.TableBuiltinAggregationFunction;
 import org.apache.iotdb.commons.udf.builtin.relational.TableBuiltinScalarFunction;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.queryengine.common.QueryId;
 import org.apache.iotdb.db.queryengine.common.SessionInfo;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
@@ -31,6 +33,7 @@ import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationN
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationTableScanNode;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.DeviceTableScanNode;
 import org.apache.iotdb.db.queryengine.plan.relational.planner.node.ProjectNode;
+import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.DoubleLiteral;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.Expression;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.FunctionCall;
 import org.apache.iotdb.db.queryengine.plan.relational.sql.ast.SymbolReference;
@@ -149,12 +152,15 @@ public class PushAggregationIntoTableScan implements PlanOptimizer {
         // all the functions can be pre-agg in AggTableScanNode
 
         // if expr appears in arguments of Aggregation, we don't push down
-        if (hasProject
-            && aggregation.getArguments().stream()
-                .anyMatch(
-                    argument ->
-                        !(assignments.get(Symbol.from(argument)) instanceof SymbolReference))) {
-          return PushDownLevel.NOOP;
+        if (hasProject) {
+          List<Expression> arguments = aggregation.getArguments();
+          for (int i = 0; i < arguments.size(); i++) {
+            Expression expression = assignments.get(Symbol.from(arguments.get(i)));
+            if (!(expression instanceof SymbolReference)
+                && !isConstantPercentage(aggregation, i, expression)) {
+              return PushDownLevel.NOOP;
+            }
+          }
         }
       }
 
@@ -199,6 +205,21 @@ public class PushAggregationIntoTableScan implements PlanOptimizer {
       }
     }
 
+    /**
+     * The constant percentage of approx_percentile(x, percentage) is folded into the accumulator
+     * of AggTableScan, so that it can merge the quantile sketches of chunks.
+     */
+    private boolean isConstantPercentage(
+        AggregationNode.Aggregation aggregation, int argumentIndex, Expression expression) {
+      return IoTDBDescriptor.getInstance().getConfig().isEnableChunkQuantileSketch()
+          && TableBuiltinAggregationFunction.APPROX_PERCENTILE
+              .getFunctionName()
+              .equals(aggregation.getResolvedFunction().getSignature().getName())
+          && aggregation.getArguments().size() == 2
+          && argumentIndex == 1
+          && expression instanceof DoubleLiteral;
+    }
+
     private boolean isDateBinFunctionOfTime(
         Expression expression,
         List<FunctionCall> dateBinFunctionsOfTime,
@@ -40,6 +40,10 @@ public class SchemaFileConfig {
   public static final int SCHEMA_FILE_LOG_SIZE =
       IoTDBDescriptor.getInstance().getConfig().getPBTreeLogSize();
 
+  // whether pages are loaded from memory-mapped segments of pbtree file
+  public static final boolean PAGE_MMAP_ENABLED =
+      IoTDBDescriptor.getInstance().getConfig().isPBTreeMmapEnabled();
+
   // marks to note the state of pbtree file log
   public static final byte SF_PREPARE_MARK = (byte) 0xfe;
   public static final byte SF_COMMIT_MARK = (byte) 0xff;
@@ -51,6 +55,8 @@ public class SchemaFileConfig {
   public static final int PAGE_LENGTH = 16 * 1024; // 16 kib for default
   public static final long PAGE_INDEX_MASK = 0xffff_ffffL; // highest bit is not included
   public static final short PAGE_HEADER_SIZE = 32;
+  // size of a mapped segment, which is a multiple of page length thus no page crosses segments
+  public static final long PAGE_MMAP_SEGMENT_SIZE = 4096L * PAGE_LENGTH;
 
   // value of type flag of a schema page
   public static final int PAGE_HEADER_INDEX_OFFSET = 1; // offset of page index among page header
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.schemaengine.schemaregion.mtree.impl.pbtree.schemafile.pagemgr;
+
+import org.apache.iotdb.db.utils.MmapUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Serves page loads of a pbtree file from read-only memory-mapped segments, so that a cache miss
+ * of the page pool costs a memory copy (or a page fault) rather than a positional read syscall.
+ *
+ * <p>The file is mapped in fixed size segments starting from the base offset, i.e., the end of file
+ * header, thus a segment aligned to the page length contains only whole pages. Since pages are
+ * always appended, only the last segment may be partially mapped, and it is remapped once a page
+ * beyond its mapped length is requested. Writes still go through the {@link FileChannel} and are
+ * visible to the mapping since both share the page cache of the OS.
+ *
+ * <p>Reads hold the read lock while copying from a segment, and {@link #close()} holds the write
+ * lock to unmap segments, so that no segment is unmapped while it is being read.
+ */
+public class MappedPageReader {
+
+  private final File pmtFile;
+  private final long baseOffset;
+  private final long segmentSize;
+  private FileChannel channel;
+
+  // segments are only appended or replaced, readers take a snapshot reference of the entry
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+  private boolean closed = false;
+
+  public MappedPageReader(File pmtFile, long baseOffset, long segmentSize) throws IOException {
+    this.pmtFile = pmtFile;
+    this.baseOffset = baseOffset;
+    this.segmentSize = segmentSize;
+    this.channel = FileChannel.open(pmtFile.toPath(), StandardOpenOption.READ);
+  }
+
+  /**
+   * Copy content starting from address into dst, which shall not cross a segment boundary.
+   *
+   * @return false if the requested range is not (yet) within the file, so that caller shall fall
+   *     back to read from channel
+   */
+  public boolean read(ByteBuffer dst, long address) throws IOException {
+    if (address < baseOffset) {
+      return false;
+    }
+    int segIndex = (int) ((address - baseOffset) / segmentSize);
+    int offset = (int) ((address - baseOffset) % segmentSize);
+    int length = dst.remaining();
+    if (offset + length > segmentSize) {
+      return false;
+    }
+
+    closeLock.readLock().lock();
+    try {
+      if (closed) {
+        return false;
+      }
+      MappedByteBuffer segment = getSegment(segIndex, offset + length);
+      if (segment == null) {
+        return false;
+      }
+
+      ByteBuffer view = segment.duplicate();
+      view.position(offset);
+      view.limit(offset + length);
+      dst.put(view);
+      return true;
+    } finally {
+      closeLock.readLock().unlock();
+    }
+  }
+
+  private synchronized MappedByteBuffer getSegment(int segIndex, int requiredLength)
+      throws IOException {
+    MappedByteBuffer segment = segIndex < segments.size() ? segments.get(segIndex) : null;
+    if (segment != null && segment.capacity() >= requiredLength) {
+      return segment;
+    }
+
+    if (!channel.isOpen()) {
+      channel = FileChannel.open(pmtFile.toPath(), StandardOpenOption.READ);
+    }
+    long segStart = baseOffset + segIndex * segmentSize;
+    long mappable = Math.min(segmentSize, channel.size() - segStart);
+    if (mappable < requiredLength) {
+      return null;
+    }
+
+    while (segments.size() <= segIndex) {
+      segments.add(null);
+    }
+    // the stale mapping may still be referenced by a concurrent read, leave it to GC
+    segment = channel.map(FileChannel.MapMode.READ_ONLY, segStart, mappable);
+    segments.set(segIndex, segment);
+    return segment;
+  }
+
+  public synchronized int getMappedSegmentNum() {
+    return (int) segments.stream().filter(Objects::nonNull).count();
+  }
+
+  /**
+   * Unmap all segments after reads in progress finish. Reads afterwards return false, so that the
+   * caller falls back to read from channel.
+   */
+  public void close() throws IOException {
+    closeLock.writeLock().lock();
+    try {
+      synchronized (this) {
+        closed = true;
+        channel.close();
+        for (MappedByteBuffer segment : segments) {
+          MmapUtil.clean(segment);
+        }
+        segments.clear();
+      }
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+  }
+}
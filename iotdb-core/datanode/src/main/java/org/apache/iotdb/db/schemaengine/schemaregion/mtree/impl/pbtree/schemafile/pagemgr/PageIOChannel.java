@@ -43,6 +43,9 @@ public class PageIOChannel {
   private final AtomicInteger logCounter;
   private SchemaFileLogWriter logWriter;
 
+  // null if pages are loaded by positional read on readChannel
+  private final MappedPageReader mappedReader;
+
   // flush strategy is dependent on consensus protocol, only check protocol on init
   protected FlushPageStrategy flushDirtyPagesStrategy;
   protected SinglePageFlushStrategy singlePageFlushStrategy;
@@ -52,6 +55,13 @@ public class PageIOChannel {
     this.channel = channel;
     this.pmtFile = pmtFile;
     this.readChannel = FileChannel.open(pmtFile.toPath(), StandardOpenOption.READ);
+    this.mappedReader =
+        SchemaFileConfig.PAGE_MMAP_ENABLED
+            ? new MappedPageReader(
+                pmtFile,
+                SchemaFileConfig.FILE_HEADER_SIZE,
+                SchemaFileConfig.PAGE_MMAP_SEGMENT_SIZE)
+            : null;
     if (flushWithLogging) {
       // without RATIS, utilize physical logging for integrity
       int pageAcc = (int) recoverFromLog(logPath) / SchemaFileConfig.PAGE_LENGTH;
@@ -80,6 +90,14 @@ public class PageIOChannel {
     }
   }
 
+  public void close() throws IOException {
+    closeLogWriter();
+    readChannel.close();
+    if (mappedReader != null) {
+      mappedReader.close();
+    }
+  }
+
   /** Load bytes from log, deserialize and flush directly into channel, return current length */
   private long recoverFromLog(String logPath) throws IOException, MetadataException {
     SchemaFileLogReader reader = new SchemaFileLogReader(logPath);
@@ -104,6 +122,9 @@ public class PageIOChannel {
 
   public void loadFromFileToBuffer(ByteBuffer dst, int pageIndex) throws IOException {
     dst.clear();
+    if (mappedReader != null && mappedReader.read(dst, getPageAddress(pageIndex))) {
+      return;
+    }
     if (!readChannel.isOpen()) {
       readChannel = FileChannel.open(pmtFile.toPath(), StandardOpenOption.READ);
     }
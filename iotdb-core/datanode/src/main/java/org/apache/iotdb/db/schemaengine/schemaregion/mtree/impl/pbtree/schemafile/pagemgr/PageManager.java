@@ -520,7 +520,7 @@ public abstract class PageManager implements IPageManager {
 
   @Override
   public void close() throws IOException {
-    pageIOChannel.closeLogWriter();
+    pageIOChannel.close();
   }
 
   // endregion
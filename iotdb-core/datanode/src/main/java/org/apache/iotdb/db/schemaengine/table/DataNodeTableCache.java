@@ -28,6 +28,7 @@ import org.apache.iotdb.confignode.rpc.thrift.TFetchTableResp;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.queryengine.plan.execution.config.executor.ClusterConfigTaskExecutor;
 import org.apache.iotdb.db.queryengine.plan.relational.metadata.TableMetadataImpl;
+import org.apache.iotdb.db.storageengine.buffer.SealedWindowAggregationCache;
 import org.apache.iotdb.rpc.TSStatusCode;
 
 import org.apache.tsfile.utils.Pair;
@@ -247,6 +248,8 @@ public class DataNodeTableCache implements ITableCache {
     } finally {
       readWriteLock.writeLock().unlock();
     }
+    // TTL and column types decide the results of sealed windows
+    SealedWindowAggregationCache.getInstance().invalidateAll();
   }
 
   @Override
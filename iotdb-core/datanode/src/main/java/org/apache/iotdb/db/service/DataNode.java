@@ -88,6 +88,7 @@ import org.apache.iotdb.db.qp.sql.SqlLexer;
 import org.apache.iotdb.db.queryengine.execution.exchange.MPPDataExchangeService;
 import org.apache.iotdb.db.queryengine.execution.schedule.DriverScheduler;
 import org.apache.iotdb.db.queryengine.plan.Coordinator;
+import org.apache.iotdb.db.queryengine.plan.analyze.ClusterPartitionFetcher;
 import org.apache.iotdb.db.queryengine.plan.analyze.cache.schema.DataNodeTTLCache;
 import org.apache.iotdb.db.queryengine.plan.parser.ASTVisitor;
 import org.apache.iotdb.db.queryengine.plan.parser.StatementGenerator;
@@ -113,6 +114,7 @@ import org.apache.iotdb.db.storageengine.dataregion.wal.WALManager;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALMode;
 import org.apache.iotdb.db.storageengine.load.active.ActiveLoadAgent;
 import org.apache.iotdb.db.storageengine.rescon.disk.TierManager;
+import org.apache.iotdb.db.storageengine.rescon.memory.MemoryRuntimeAgent;
 import org.apache.iotdb.db.subscription.agent.SubscriptionAgent;
 import org.apache.iotdb.db.trigger.executor.TriggerExecutor;
 import org.apache.iotdb.db.trigger.service.TriggerInformationUpdater;
@@ -298,6 +300,11 @@ public class DataNode extends ServerCommandLine implements DataNodeMBean {
       // Setup rpc service
       setUpRPCService();
 
+      if (!isFirstStart) {
+        // Load data partitions in background so that the first writes after restart hit the cache
+        ClusterPartitionFetcher.getInstance().warmUpDataPartitionCache();
+      }
+
       // Serialize mutable system properties
       IoTDBStartCheck.getInstance().serializeMutableSystemPropertiesIfNecessary();
       ConfigurationFileUtils.updateAppliedProperties(
@@ -842,6 +849,7 @@ public class DataNode extends ServerCommandLine implements DataNodeMBean {
 
     // In mpp mode we need to start some other services
     registerManager.register(StorageEngine.getInstance());
+    registerManager.register(MemoryRuntimeAgent.getInstance());
     registerManager.register(MPPDataExchangeService.getInstance());
     registerManager.register(DriverScheduler.getInstance());
 
@@ -79,6 +79,17 @@ public class BloomFilterCache {
                         (int) (key.getRetainedSizeInBytes() + bloomFilter.getRetainedSizeInBytes()))
             .recordStats()
             .build();
+    // the memory of the query engine may be lent to others, see MemoryRuntimeAgent
+    MEMORY_CONFIG
+        .getBloomFilterCacheMemoryManager()
+        .addResizeListener((oldSize, newSize) -> resize());
+  }
+
+  /** Follow the total memory size of the cache memory block, which is scaled by rebalancing. */
+  private void resize() {
+    long size = CACHE_MEMORY_BLOCK.getTotalMemorySizeInBytes();
+    CACHE_MEMORY_BLOCK.setUsedMemoryInBytes(size);
+    lruCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(size));
   }
 
   public static BloomFilterCache getInstance() {
@@ -188,7 +199,7 @@ public class BloomFilterCache {
 
     @Override
     public int hashCode() {
-      return Objects.hash(tsFileID);
+      return tsFileID.hashCode();
     }
 
     public long getRetainedSizeInBytes() {
@@ -94,11 +94,20 @@ public class ChunkCache {
                         (int) (key.getRetainedSizeInBytes() + chunk.getRetainedSizeInBytes()))
             .recordStats()
             .build();
+    // the memory of the query engine may be lent to others, see MemoryRuntimeAgent
+    MEMORY_CONFIG.getChunkCacheMemoryManager().addResizeListener((oldSize, newSize) -> resize());
 
     // add metrics
     MetricService.getInstance().addMetricSet(new ChunkCacheMetrics(this));
   }
 
+  /** Follow the total memory size of the cache memory block, which is scaled by rebalancing. */
+  private void resize() {
+    long size = CACHE_MEMORY_BLOCK.getTotalMemorySizeInBytes();
+    CACHE_MEMORY_BLOCK.setUsedMemoryInBytes(size);
+    lruCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(size));
+  }
+
   public double getHitRate() {
     return lruCache.stats().hitRate() * 100;
   }
@@ -268,7 +277,7 @@ public class ChunkCache {
 
     @Override
     public int hashCode() {
-      return Objects.hash(tsFileID, offsetOfChunkHeader);
+      return 31 * tsFileID.hashCode() + Long.hashCode(offsetOfChunkHeader);
     }
 
     @Override
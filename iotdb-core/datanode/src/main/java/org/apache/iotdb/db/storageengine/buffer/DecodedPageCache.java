@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.buffer;
+
+import org.apache.iotdb.commons.exception.IoTDBIORuntimeException;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.execution.fragment.QueryContext;
+import org.apache.iotdb.db.storageengine.dataregion.read.reader.chunk.MemPageReader;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileID;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.ChunkMetadata;
+import org.apache.tsfile.read.common.Chunk;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.filter.basic.Filter;
+import org.apache.tsfile.read.reader.IPageReader;
+import org.apache.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.tsfile.utils.RamUsageEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class lets concurrent scans of the same non-aligned series share the decoding of the pages
+ * of sealed TsFiles, which is repeated by every query of a dashboard refresh even if the chunks hit
+ * the {@link ChunkCache}.
+ *
+ * <p>The first scan reaching a chunk decodes all its pages, and the scans asking for the same chunk
+ * meanwhile wait for and receive the same decoded pages instead of decoding them again. Decoded
+ * pages are kept for a short window only, so that scans of the same refresh wave arriving a bit
+ * later share them too. The memory is bounded, a scan whose pages have been evicted decodes them
+ * again by itself.
+ *
+ * <p>Only unmodified pages are shared. The decoded pages contain all points of the page, each scan
+ * applies its own filters, limit and offset to them. The pages of a removed TsFile are invalidated
+ * with it.
+ */
+public class DecodedPageCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DecodedPageCache.class);
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
+  private final boolean enable;
+
+  private final Cache<DecodedPagesKey, DecodedPages> cache;
+
+  private DecodedPageCache() {
+    this(
+        CONFIG.isEnableSharedPageDecoding(),
+        CONFIG.getSharedPageDecodingCacheSizeInBytes(),
+        CONFIG.getSharedPageDecodingWindowInMs());
+    if (enable) {
+      LOGGER.info("DecodedPageCache size = {}", CONFIG.getSharedPageDecodingCacheSizeInBytes());
+    }
+  }
+
+  @TestOnly
+  DecodedPageCache(boolean enable, long maxWeight, long windowInMs) {
+    this.enable = enable;
+    cache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxWeight)
+            .weigher(
+                (Weigher<DecodedPagesKey, DecodedPages>)
+                    (key, pages) -> (int) Math.min(Integer.MAX_VALUE, pages.retainedSize))
+            .expireAfterWrite(windowInMs, TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+  }
+
+  public static DecodedPageCache getInstance() {
+    return DecodedPageCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnable() {
+    return enable;
+  }
+
+  /**
+   * Replace the unmodified page readers of the given chunk of a sealed TsFile with ones reading the
+   * shared decoded pages.
+   */
+  public List<IPageReader> share(
+      QueryContext context,
+      TsFileResource resource,
+      ChunkMetadata chunkMetadata,
+      List<IPageReader> pageReaders,
+      Filter globalTimeFilter) {
+    if (!enable
+        || !resource.isClosed()
+        || chunkMetadata.getDataType() == TSDataType.OBJECT
+        || chunkMetadata.isDataTypeModifiedAndCannotUseStatistics()) {
+      return pageReaders;
+    }
+    DecodedPagesKey key =
+        new DecodedPagesKey(
+            resource.getTsFilePath(),
+            resource.getTsFileID(),
+            chunkMetadata.getOffsetOfChunkHeader());
+    List<IPageReader> sharedPageReaders = new ArrayList<>(pageReaders.size());
+    for (IPageReader pageReader : pageReaders) {
+      if (pageReader.isModified()) {
+        sharedPageReaders.add(pageReader);
+        continue;
+      }
+      long pageStartTime = pageReader.getStatistics().getStartTime();
+      sharedPageReaders.add(
+          new MemPageReader(
+              () -> getPage(context, key, chunkMetadata, pageStartTime),
+              0,
+              chunkMetadata.getDataType(),
+              chunkMetadata.getMeasurementUid(),
+              pageReader.getStatistics(),
+              globalTimeFilter));
+    }
+    return sharedPageReaders;
+  }
+
+  private TsBlock getPage(
+      QueryContext context, DecodedPagesKey key, ChunkMetadata chunkMetadata, long pageStartTime) {
+    DecodedPages decodedPages = cache.get(key, k -> decode(context, k, chunkMetadata));
+    TsBlock page = decodedPages.get(pageStartTime);
+    if (page == null) {
+      // only happens if the page statistics are inconsistent with the data
+      throw new IllegalStateException(
+          String.format("Page starting at %d not found in chunk %s", pageStartTime, key));
+    }
+    return page;
+  }
+
+  private static DecodedPages decode(
+      QueryContext context, DecodedPagesKey key, ChunkMetadata chunkMetadata) {
+    try {
+      // deletions are left out, they never overlap the pages read from the cache
+      Chunk chunk =
+          ChunkCache.getInstance()
+              .get(
+                  new ChunkCache.ChunkCacheKey(
+                      key.filePath, key.tsFileID, key.offsetOfChunkHeader, true),
+                  Collections.emptyList(),
+                  chunkMetadata.getStatistics(),
+                  context);
+      List<IPageReader> pageReaders = new ChunkReader(chunk).loadPageReaderList();
+      long[] pageStartTimes = new long[pageReaders.size()];
+      TsBlock[] pages = new TsBlock[pageReaders.size()];
+      for (int i = 0; i < pageReaders.size(); i++) {
+        pageStartTimes[i] = pageReaders.get(i).getStatistics().getStartTime();
+        pages[i] = pageReaders.get(i).getAllSatisfiedData();
+      }
+      return new DecodedPages(pageStartTimes, pages);
+    } catch (IOException e) {
+      throw new IoTDBIORuntimeException(e);
+    }
+  }
+
+  /** Invalidate the decoded pages of the removed TsFile. */
+  public void invalidate(TsFileID tsFileID) {
+    if (enable) {
+      cache.asMap().keySet().removeIf(key -> key.tsFileID.equals(tsFileID));
+    }
+  }
+
+  @TestOnly
+  long size() {
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  @TestOnly
+  long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  @TestOnly
+  long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  /** clear the cache. */
+  public void clear() {
+    cache.invalidateAll();
+    cache.cleanUp();
+  }
+
+  private static class DecodedPagesKey {
+
+    // only used to read the chunk, not compared
+    private final String filePath;
+    private final TsFileID tsFileID;
+    private final long offsetOfChunkHeader;
+
+    private DecodedPagesKey(String filePath, TsFileID tsFileID, long offsetOfChunkHeader) {
+      this.filePath = filePath;
+      this.tsFileID = tsFileID;
+      this.offsetOfChunkHeader = offsetOfChunkHeader;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      DecodedPagesKey that = (DecodedPagesKey) o;
+      return Objects.equals(tsFileID, that.tsFileID)
+          && offsetOfChunkHeader == that.offsetOfChunkHeader;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * tsFileID.hashCode() + Long.hashCode(offsetOfChunkHeader);
+    }
+
+    @Override
+    public String toString() {
+      return filePath + "@" + offsetOfChunkHeader;
+    }
+  }
+
+  private static class DecodedPages {
+
+    private static final long INSTANCE_SIZE =
+        RamUsageEstimator.shallowSizeOfInstance(DecodedPages.class);
+
+    // pages of a chunk are ordered by time
+    private final long[] pageStartTimes;
+    private final TsBlock[] pages;
+    private final long retainedSize;
+
+    private DecodedPages(long[] pageStartTimes, TsBlock[] pages) {
+      this.pageStartTimes = pageStartTimes;
+      this.pages = pages;
+      long size =
+          INSTANCE_SIZE
+              + RamUsageEstimator.sizeOf(pageStartTimes)
+              + RamUsageEstimator.shallowSizeOf(pages);
+      for (TsBlock page : pages) {
+        size += page.getRetainedSizeInBytes();
+      }
+      this.retainedSize = size;
+    }
+
+    private TsBlock get(long pageStartTime) {
+      int i = Arrays.binarySearch(pageStartTimes, pageStartTime);
+      return i < 0 ? null : pages[i];
+    }
+  }
+
+  /** singleton pattern. */
+  private static class DecodedPageCacheHolder {
+
+    private static final DecodedPageCache INSTANCE = new DecodedPageCache();
+
+    private DecodedPageCacheHolder() {}
+  }
+}
@@ -0,0 +1,525 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.buffer;
+
+import org.apache.iotdb.commons.service.metric.MetricService;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.commons.utils.TimePartitionUtils;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.metric.SealedWindowAggregationCacheMetrics;
+import org.apache.iotdb.db.queryengine.plan.analyze.cache.schema.DataNodeTTLCache;
+import org.apache.iotdb.db.queryengine.plan.expression.Expression;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.AggregationDescriptor;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
+import org.apache.iotdb.db.storageengine.dataregion.IDataRegionForQuery;
+import org.apache.iotdb.db.storageengine.dataregion.ILastFlushTimeMap;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.common.TimeRange;
+import org.apache.tsfile.read.filter.basic.Filter;
+import org.apache.tsfile.utils.RamUsageEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class caches the aggregation results of sealed time windows of group by time queries and
+ * date_bin aggregations of the table model, so that repeated dashboard queries with a sliding time
+ * range only recompute the open head windows.
+ *
+ * <p>A time window of a device is sealed if all its points are no later than the flushed time of
+ * the device in the time partition, since any later insertion into it goes into unsequence files
+ * and invalidates the overlapped windows. Deletion and loading of TsFiles invalidate the whole data
+ * region. Changes of TTL and table schemas invalidate all cached windows.
+ *
+ * <p>Invalidation is tracked by epochs of devices, data regions and the whole cache. Each query
+ * captures the epochs before it takes its query data source, and results are only put if none of
+ * them has been advanced since then, thus no result computed from a stale snapshot will be cached.
+ */
+public class SealedWindowAggregationCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SealedWindowAggregationCache.class);
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
+  // device epochs are striped by hash to bound the memory footprint and the contention of
+  // concurrent writes, a collision only causes a spurious refusal to put
+  private static final int DEVICE_EPOCH_STRIPES = 4096;
+
+  // windows crossing too many time partitions are not worth the effort to check
+  private static final int MAX_TIME_PARTITION_NUM_OF_QUERY = 16;
+
+  private final boolean enable;
+
+  private final Cache<DeviceKey, DeviceWindows> lruCache;
+
+  private final AtomicLong globalEpoch = new AtomicLong(0);
+  private final AtomicLongArray deviceEpochs = new AtomicLongArray(DEVICE_EPOCH_STRIPES);
+  private final Map<String, AtomicLong> regionEpochs = new ConcurrentHashMap<>();
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+
+  private SealedWindowAggregationCache() {
+    this(
+        CONFIG.isEnableSealedWindowAggregationCache(),
+        CONFIG.getSealedWindowAggregationCacheSizeInBytes());
+    if (enable) {
+      LOGGER.info(
+          "SealedWindowAggregationCache size = {}",
+          CONFIG.getSealedWindowAggregationCacheSizeInBytes());
+    }
+    MetricService.getInstance().addMetricSet(new SealedWindowAggregationCacheMetrics(this));
+  }
+
+  @TestOnly
+  public SealedWindowAggregationCache(boolean enable, long maxWeight) {
+    this.enable = enable;
+    lruCache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxWeight)
+            .weigher(
+                (Weigher<DeviceKey, DeviceWindows>)
+                    (key, windows) -> (int) Math.min(Integer.MAX_VALUE, windows.retainedSize))
+            .build();
+  }
+
+  public static SealedWindowAggregationCache getInstance() {
+    return SealedWindowAggregationCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnable() {
+    return enable;
+  }
+
+  /**
+   * Bind the cache to one group by time aggregation scan on the device. It shall be called before
+   * the query data source is taken.
+   *
+   * @return null if results of this scan cannot be cached
+   */
+  public Handle createHandle(
+      IDataRegionForQuery dataRegion,
+      IDeviceID deviceId,
+      String signature,
+      GroupByTimeParameter groupByTimeParameter,
+      Filter globalTimeFilter) {
+    if (!enable || groupByTimeParameter == null) {
+      return null;
+    }
+    // expired data silently disappears from results of windows
+    if (DataNodeTTLCache.getInstance().getTTLForTree(deviceId) != Long.MAX_VALUE) {
+      return null;
+    }
+    return createHandle(
+        dataRegion,
+        deviceId,
+        signature,
+        groupByTimeParameter.getStartTime(),
+        groupByTimeParameter.getEndTime(),
+        globalTimeFilter);
+  }
+
+  /**
+   * Bind the cache to one aggregation scan on the device whose windows are within [startTime,
+   * endTime]. It shall be called before the query data source is taken, and the caller shall make
+   * sure that no TTL is set on the device.
+   *
+   * @return null if results of this scan cannot be cached
+   */
+  public Handle createHandle(
+      IDataRegionForQuery dataRegion,
+      IDeviceID deviceId,
+      String signature,
+      long startTime,
+      long endTime,
+      Filter globalTimeFilter) {
+    if (!enable || !(dataRegion instanceof DataRegion)) {
+      return null;
+    }
+    long startPartition = TimePartitionUtils.getTimePartitionId(startTime);
+    long endPartition = TimePartitionUtils.getTimePartitionId(endTime);
+    if (endPartition - startPartition >= MAX_TIME_PARTITION_NUM_OF_QUERY) {
+      return null;
+    }
+
+    DeviceKey deviceKey = new DeviceKey(dataRegion.getDataRegionIdString(), deviceId);
+    int stripe = stripe(deviceKey);
+    AtomicLong regionEpoch =
+        regionEpochs.computeIfAbsent(deviceKey.regionId, k -> new AtomicLong(0));
+    // capture the epochs ahead of flushed time, which is only increasing
+    long queryGlobalEpoch = globalEpoch.get();
+    long queryRegionEpoch = regionEpoch.get();
+    long queryDeviceEpoch = deviceEpochs.get(stripe);
+    ILastFlushTimeMap lastFlushTimeMap = ((DataRegion) dataRegion).getLastFlushTimeMap();
+    Map<Long, Long> flushedTimes = new HashMap<>();
+    for (long partition = startPartition; partition <= endPartition; partition++) {
+      flushedTimes.put(partition, lastFlushTimeMap.getFlushedTimeIfPresent(partition, deviceId));
+    }
+    return new Handle(
+        deviceKey,
+        signature,
+        stripe,
+        regionEpoch,
+        queryGlobalEpoch,
+        queryRegionEpoch,
+        queryDeviceEpoch,
+        flushedTimes,
+        globalTimeFilter);
+  }
+
+  private Column[] get(DeviceKey deviceKey, String signature, TimeRange window) {
+    DeviceWindows deviceWindows = lruCache.getIfPresent(deviceKey);
+    Column[] result = deviceWindows == null ? null : deviceWindows.get(signature, window);
+    if (result == null) {
+      missCount.increment();
+    } else {
+      hitCount.increment();
+    }
+    return result;
+  }
+
+  private void put(Handle handle, TimeRange window, Column[] values) {
+    lruCache
+        .asMap()
+        .compute(
+            handle.deviceKey,
+            (k, deviceWindows) -> {
+              if (handle.isInvalidated()) {
+                return deviceWindows;
+              }
+              if (deviceWindows == null) {
+                deviceWindows = new DeviceWindows();
+              }
+              deviceWindows.put(handle.signature, window, values);
+              return deviceWindows;
+            });
+  }
+
+  /**
+   * Invalidate cached windows of the device overlapped with [startTime, endTime]. It is called on
+   * every unsequence write, so only the epoch stripe of the device is advanced and the cache map
+   * is only modified if the device has cached windows.
+   */
+  public void invalidate(String regionId, IDeviceID deviceId, long startTime, long endTime) {
+    if (!enable) {
+      return;
+    }
+    DeviceKey deviceKey = new DeviceKey(regionId, deviceId);
+    // advance the epoch ahead of removal, so that a concurrent put either sees it or is removed
+    deviceEpochs.incrementAndGet(stripe(deviceKey));
+    if (!lruCache.asMap().containsKey(deviceKey)) {
+      return;
+    }
+    lruCache
+        .asMap()
+        .computeIfPresent(
+            deviceKey,
+            (k, deviceWindows) -> {
+              deviceWindows.removeOverlapped(startTime, endTime);
+              return deviceWindows.isEmpty() ? null : deviceWindows;
+            });
+  }
+
+  /** Invalidate all cached windows of the data region. */
+  public void invalidateRegion(String regionId) {
+    if (!enable) {
+      return;
+    }
+    regionEpochs.computeIfAbsent(regionId, k -> new AtomicLong(0)).incrementAndGet();
+    lruCache.asMap().keySet().removeIf(deviceKey -> deviceKey.regionId.equals(regionId));
+  }
+
+  /**
+   * Invalidate all cached windows. It is called when TTL or table schemas are changed, which may
+   * change results of sealed windows without any write.
+   */
+  public void invalidateAll() {
+    if (!enable) {
+      return;
+    }
+    globalEpoch.incrementAndGet();
+    lruCache.invalidateAll();
+  }
+
+  private static int stripe(DeviceKey deviceKey) {
+    return (deviceKey.hashCode() & Integer.MAX_VALUE) % DEVICE_EPOCH_STRIPES;
+  }
+
+  public double getHitRate() {
+    long hit = hitCount.sum();
+    long total = hit + missCount.sum();
+    return total == 0 ? 0 : (double) hit / total * 100;
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getEstimatedSize() {
+    return lruCache.asMap().values().stream().mapToLong(windows -> windows.retainedSize).sum();
+  }
+
+  /** clear LRUCache. */
+  public void clear() {
+    lruCache.invalidateAll();
+    lruCache.cleanUp();
+  }
+
+  @TestOnly
+  public boolean isEmpty() {
+    return lruCache.asMap().isEmpty();
+  }
+
+  /**
+   * Cache access of one aggregation scan. Only windows sealed at the time the handle is created
+   * are read or written.
+   */
+  public class Handle {
+
+    private final DeviceKey deviceKey;
+    private final String signature;
+    private final int stripe;
+    private final AtomicLong regionEpoch;
+    private final long queryGlobalEpoch;
+    private final long queryRegionEpoch;
+    private final long queryDeviceEpoch;
+    private final Map<Long, Long> flushedTimes;
+    private final Filter globalTimeFilter;
+
+    private Handle(
+        DeviceKey deviceKey,
+        String signature,
+        int stripe,
+        AtomicLong regionEpoch,
+        long queryGlobalEpoch,
+        long queryRegionEpoch,
+        long queryDeviceEpoch,
+        Map<Long, Long> flushedTimes,
+        Filter globalTimeFilter) {
+      this.deviceKey = deviceKey;
+      this.signature = signature;
+      this.stripe = stripe;
+      this.regionEpoch = regionEpoch;
+      this.queryGlobalEpoch = queryGlobalEpoch;
+      this.queryRegionEpoch = queryRegionEpoch;
+      this.queryDeviceEpoch = queryDeviceEpoch;
+      this.flushedTimes = flushedTimes;
+      this.globalTimeFilter = globalTimeFilter;
+    }
+
+    /** Whether the snapshot of this scan may be stale, e.g., TTL is set after it is taken. */
+    private boolean isInvalidated() {
+      return globalEpoch.get() != queryGlobalEpoch
+          || regionEpoch.get() != queryRegionEpoch
+          || deviceEpochs.get(stripe) != queryDeviceEpoch;
+    }
+
+    public boolean isSealed(TimeRange window) {
+      // a window partly filtered out by the query does not have a reusable result
+      if (globalTimeFilter != null
+          && !globalTimeFilter.containStartEndTime(window.getMin(), window.getMax())) {
+        return false;
+      }
+      long partition = TimePartitionUtils.getTimePartitionId(window.getMin());
+      if (partition != TimePartitionUtils.getTimePartitionId(window.getMax())) {
+        return false;
+      }
+      Long flushedTime = flushedTimes.get(partition);
+      return flushedTime != null && window.getMax() <= flushedTime;
+    }
+
+    /** Return the cached result columns of the window, each of which has exactly one position. */
+    public Column[] get(TimeRange window) {
+      return isSealed(window) && globalEpoch.get() == queryGlobalEpoch
+          ? SealedWindowAggregationCache.this.get(deviceKey, signature, window)
+          : null;
+    }
+
+    public void put(TimeRange window, Column[] values) {
+      if (isSealed(window)) {
+        SealedWindowAggregationCache.this.put(this, window, values);
+      }
+    }
+  }
+
+  /**
+   * Build the signature identifying the aggregation on the given measurements, which shall decide
+   * the result of a time window together with the device.
+   */
+  public static String getSignature(
+      List<String> measurements,
+      List<AggregationDescriptor> aggregationDescriptors,
+      Expression pushDownPredicate) {
+    StringBuilder builder = new StringBuilder();
+    builder.append(measurements);
+    for (AggregationDescriptor descriptor : aggregationDescriptors) {
+      builder
+          .append(',')
+          .append(descriptor.getAggregationFuncName())
+          .append('(')
+          .append(descriptor.getParametersString())
+          .append(')')
+          .append(descriptor.getStep());
+    }
+    if (pushDownPredicate != null) {
+      builder.append(" where ").append(pushDownPredicate);
+    }
+    return builder.toString();
+  }
+
+  private static class DeviceKey {
+
+    private final String regionId;
+    private final IDeviceID deviceId;
+
+    private DeviceKey(String regionId, IDeviceID deviceId) {
+      this.regionId = regionId;
+      this.deviceId = deviceId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      DeviceKey that = (DeviceKey) o;
+      return regionId.equals(that.regionId) && deviceId.equals(that.deviceId);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * regionId.hashCode() + deviceId.hashCode();
+    }
+  }
+
+  /** Cached windows of one device. It is only modified inside the compute of the cache map. */
+  private static class DeviceWindows {
+
+    private static final long INSTANCE_SIZE =
+        RamUsageEstimator.shallowSizeOfInstance(DeviceWindows.class);
+    private static final long WINDOW_SIZE =
+        RamUsageEstimator.shallowSizeOfInstance(CachedWindow.class)
+            + RamUsageEstimator.shallowSizeOfInstance(Long.class)
+            // estimated entry of ConcurrentSkipListMap
+            + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_HEADER;
+
+    // signature -> window start time -> window
+    private final Map<String, ConcurrentSkipListMap<Long, CachedWindow>> windows =
+        new ConcurrentHashMap<>();
+
+    private volatile long retainedSize = INSTANCE_SIZE;
+
+    private Column[] get(String signature, TimeRange window) {
+      ConcurrentSkipListMap<Long, CachedWindow> windowsOfSignature = windows.get(signature);
+      if (windowsOfSignature == null) {
+        return null;
+      }
+      CachedWindow cachedWindow = windowsOfSignature.get(window.getMin());
+      return cachedWindow != null && cachedWindow.endTime == window.getMax()
+          ? cachedWindow.values
+          : null;
+    }
+
+    private void put(String signature, TimeRange window, Column[] values) {
+      ConcurrentSkipListMap<Long, CachedWindow> windowsOfSignature =
+          windows.computeIfAbsent(
+              signature,
+              k -> {
+                retainedSize += RamUsageEstimator.sizeOf(k) + INSTANCE_SIZE;
+                return new ConcurrentSkipListMap<>();
+              });
+      CachedWindow cachedWindow = new CachedWindow(window.getMax(), values);
+      CachedWindow previous = windowsOfSignature.put(window.getMin(), cachedWindow);
+      retainedSize +=
+          cachedWindow.retainedSize - (previous == null ? -WINDOW_SIZE : previous.retainedSize);
+    }
+
+    private void removeOverlapped(long startTime, long endTime) {
+      Iterator<Map.Entry<String, ConcurrentSkipListMap<Long, CachedWindow>>> signatureIterator =
+          windows.entrySet().iterator();
+      while (signatureIterator.hasNext()) {
+        ConcurrentSkipListMap<Long, CachedWindow> windowsOfSignature =
+            signatureIterator.next().getValue();
+        Iterator<CachedWindow> iterator =
+            windowsOfSignature.headMap(endTime, true).values().iterator();
+        while (iterator.hasNext()) {
+          CachedWindow cachedWindow = iterator.next();
+          if (cachedWindow.endTime >= startTime) {
+            iterator.remove();
+            retainedSize -= cachedWindow.retainedSize + WINDOW_SIZE;
+          }
+        }
+        if (windowsOfSignature.isEmpty()) {
+          signatureIterator.remove();
+        }
+      }
+    }
+
+    private boolean isEmpty() {
+      return windows.isEmpty();
+    }
+  }
+
+  private static class CachedWindow {
+
+    private final long endTime;
+    private final Column[] values;
+    private final long retainedSize;
+
+    private CachedWindow(long endTime, Column[] values) {
+      this.endTime = endTime;
+      this.values = values;
+      long size = 0;
+      for (Column value : values) {
+        size += value.getRetainedSizeInBytes();
+      }
+      this.retainedSize = size;
+    }
+  }
+
+  /** singleton pattern. */
+  private static class SealedWindowAggregationCacheHolder {
+
+    private static final SealedWindowAggregationCache INSTANCE =
+        new SealedWindowAggregationCache();
+  }
+}
@@ -101,10 +101,21 @@ public class TimeSeriesMetadataCache {
                         (int) (key.getRetainedSizeInBytes() + value.getRetainedSizeInBytes()))
             .recordStats()
             .build();
+    // the memory of the query engine may be lent to others, see MemoryRuntimeAgent
+    memoryConfig
+        .getTimeSeriesMetaDataCacheMemoryManager()
+        .addResizeListener((oldSize, newSize) -> resize());
     // add metrics
     MetricService.getInstance().addMetricSet(new TimeSeriesMetadataCacheMetrics(this));
   }
 
+  /** Follow the total memory size of the cache memory block, which is scaled by rebalancing. */
+  private void resize() {
+    long size = CACHE_MEMORY_BLOCK.getTotalMemorySizeInBytes();
+    CACHE_MEMORY_BLOCK.setUsedMemoryInBytes(size);
+    lruCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(size));
+  }
+
   public static TimeSeriesMetadataCache getInstance() {
     return TimeSeriesMetadataCache.TimeSeriesMetadataCacheHolder.INSTANCE;
   }
@@ -332,7 +343,7 @@ public class TimeSeriesMetadataCache {
 
     @Override
     public int hashCode() {
-      return Objects.hash(tsFileID, device, measurement);
+      return 31 * (31 * tsFileID.hashCode() + device.hashCode()) + measurement.hashCode();
     }
 
     @Override
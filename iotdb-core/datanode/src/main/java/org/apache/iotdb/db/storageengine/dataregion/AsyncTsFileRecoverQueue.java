@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion;
+
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * The sealed TsFiles of a data region served by their cached FileTimeIndex until their resource
+ * files are recovered asynchronously. The files touched by queries are recovered before the other
+ * pending files, whichever time partition they belong to, and every file is recovered only once.
+ */
+class AsyncTsFileRecoverQueue {
+
+  /** pending TsFiles mapped to whether they have been touched by queries. */
+  private final Map<TsFileResource, Boolean> pendingTsFileResources = new ConcurrentHashMap<>();
+
+  /** the pending TsFiles touched by queries, in the order they were touched. */
+  private final Queue<TsFileResource> queriedTsFileResources = new ConcurrentLinkedQueue<>();
+
+  void add(TsFileResource tsFileResource) {
+    pendingTsFileResources.put(tsFileResource, false);
+  }
+
+  /**
+   * Called when a query selects the given TsFile, which is queued to be recovered first if it is
+   * still pending. A file is queued at most once however many queries touch it.
+   *
+   * @return true if the file is queued by this call
+   */
+  boolean touch(TsFileResource tsFileResource) {
+    if (!pendingTsFileResources.isEmpty()
+        && pendingTsFileResources.replace(tsFileResource, false, true)) {
+      queriedTsFileResources.offer(tsFileResource);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Recover the queued TsFiles touched by queries, then the given one, skipping the files that
+   * have already been recovered. Several partitions may be recovered concurrently.
+   */
+  void recover(TsFileResource tsFileResource, Consumer<TsFileResource> recoverer) {
+    TsFileResource queriedTsFileResource;
+    while ((queriedTsFileResource = queriedTsFileResources.poll()) != null) {
+      recoverIfPending(queriedTsFileResource, recoverer);
+    }
+    recoverIfPending(tsFileResource, recoverer);
+  }
+
+  private void recoverIfPending(TsFileResource tsFileResource, Consumer<TsFileResource> recoverer) {
+    if (pendingTsFileResources.remove(tsFileResource) != null) {
+      recoverer.accept(tsFileResource);
+    }
+  }
+
+  boolean isPending(TsFileResource tsFileResource) {
+    return pendingTsFileResources.containsKey(tsFileResource);
+  }
+}
@@ -99,6 +99,7 @@ import org.apache.iotdb.db.service.metrics.WritingMetrics;
 import org.apache.iotdb.db.storageengine.StorageEngine;
 import org.apache.iotdb.db.storageengine.buffer.BloomFilterCache;
 import org.apache.iotdb.db.storageengine.buffer.ChunkCache;
+import org.apache.iotdb.db.storageengine.buffer.SealedWindowAggregationCache;
 import org.apache.iotdb.db.storageengine.buffer.TimeSeriesMetadataCache;
 import org.apache.iotdb.db.storageengine.dataregion.compaction.constant.CompactionTaskType;
 import org.apache.iotdb.db.storageengine.dataregion.compaction.execute.recover.CompactionRecoverManager;
@@ -113,6 +114,7 @@ import org.apache.iotdb.db.storageengine.dataregion.flush.CloseFileListener;
 import org.apache.iotdb.db.storageengine.dataregion.flush.FlushListener;
 import org.apache.iotdb.db.storageengine.dataregion.flush.FlushStatus;
 import org.apache.iotdb.db.storageengine.dataregion.flush.TsFileFlushPolicy;
+import org.apache.iotdb.db.storageengine.dataregion.memtable.DeviceIDDictionary;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.IMemTable;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.TsFileProcessor;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.TsFileProcessorInfo;
@@ -351,6 +353,9 @@ public class DataRegion implements IDataRegionForQuery {
 
   private List<Callable<Void>> asyncTsFileResourceRecoverTaskList;
 
+  /** sealed TsFiles served by their cached FileTimeIndex until recovered asynchronously. */
+  private final AsyncTsFileRecoverQueue asyncTsFileRecoverQueue = new AsyncTsFileRecoverQueue();
+
   /** close file listeners. */
   private List<CloseFileListener> customCloseFileListeners = Collections.emptyList();
 
@@ -359,6 +364,10 @@ public class DataRegion implements IDataRegionForQuery {
 
   private ILastFlushTimeMap lastFlushTimeMap;
 
+  /** canonical device ids of the devices written to this region. */
+  private final DeviceIDDictionary deviceIDDictionary =
+      new DeviceIDDictionary(config.getDeviceIdDictionaryMaxMemoryInBytesPerRegion());
+
   /**
    * Record the insertWriteLock in SG is being hold by which method, it will be empty string if no
    * one holds the insertWriteLock.
@@ -1052,6 +1061,7 @@ public class DataRegion implements IDataRegionForQuery {
         tsFileResource.setTimeIndex(fileTimeIndexMap.get(tsFileResource.getTsFileID()));
         tsFileResource.setStatus(TsFileResourceStatus.NORMAL);
         resourceListForAsyncRecover.add(tsFileResource);
+        asyncTsFileRecoverQueue.add(tsFileResource);
       } else {
         resourceListForSyncRecover.add(tsFileResource);
       }
@@ -1098,17 +1108,9 @@ public class DataRegion implements IDataRegionForQuery {
     }
     return () -> {
       for (TsFileResource tsFileResource : resourceList) {
-        try (SealedTsFileRecoverPerformer recoverPerformer =
-            new SealedTsFileRecoverPerformer(tsFileResource)) {
-          recoverPerformer.recover();
-          tsFileResourceManager.registerSealedTsFileResource(tsFileResource);
-        } catch (Throwable e) {
-          logger.error(
-              "Fail to recover sealed TsFile {}, skip it.", tsFileResource.getTsFilePath(), e);
-        } finally {
-          // update recovery context
-          context.incrementRecoveredFilesNum();
-        }
+        // the files touched by queries are recovered first, whichever partition they belong to
+        asyncTsFileRecoverQueue.recover(
+            tsFileResource, file -> asyncRecoverSealedTsFile(file, context));
       }
       // After recover, replace partition last flush time with device last flush time
       if (config.isEnableSeparateData()) {
@@ -1119,6 +1121,20 @@ public class DataRegion implements IDataRegionForQuery {
     };
   }
 
+  private void asyncRecoverSealedTsFile(
+      TsFileResource tsFileResource, DataRegionRecoveryContext context) {
+    try (SealedTsFileRecoverPerformer recoverPerformer =
+        new SealedTsFileRecoverPerformer(tsFileResource)) {
+      recoverPerformer.recover();
+      tsFileResourceManager.registerSealedTsFileResource(tsFileResource);
+    } catch (Throwable e) {
+      logger.error("Fail to recover sealed TsFile {}, skip it.", tsFileResource.getTsFilePath(), e);
+    } finally {
+      // update recovery context
+      context.incrementRecoveredFilesNum();
+    }
+  }
+
   private void syncRecoverFilesInPartition(
       long partitionId, DataRegionRecoveryContext context, List<TsFileResource> resourceList) {
     for (TsFileResource tsFileResource : resourceList) {
@@ -1186,6 +1202,7 @@ public class DataRegion implements IDataRegionForQuery {
       if (deleted) {
         return;
       }
+      insertRowNode.internDeviceIDs(deviceIDDictionary);
       if (delayAnalyzer != null) {
         long arrivalTime = System.currentTimeMillis();
         long generationTime = insertRowNode.getTime();
@@ -1377,6 +1394,7 @@ public class DataRegion implements IDataRegionForQuery {
             "Won't insert tablet {}, because region is deleted", insertTabletNode.getSearchIndex());
         return;
       }
+      insertTabletNode.internDeviceIDs(deviceIDDictionary);
       if (delayAnalyzer != null) {
         long arrivalTime = System.currentTimeMillis();
         long[] times = insertTabletNode.getTimes();
@@ -2114,8 +2132,10 @@ public class DataRegion implements IDataRegionForQuery {
       this.workUnsequenceTsFileProcessors.clear();
       this.tsFileManager.clear();
       lastFlushTimeMap.clearFlushedTime();
+      deviceIDDictionary.clear();
       TimePartitionManager.getInstance()
           .removeTimePartitionInfo(new DataRegionId(Integer.parseInt(dataRegionIdString)));
+      SealedWindowAggregationCache.getInstance().invalidateRegion(dataRegionIdString);
     } catch (InterruptedException e) {
       logger.error(
           "CloseFileNodeCondition error occurs while waiting for closing the storage " + "group {}",
@@ -2401,7 +2421,7 @@ public class DataRegion implements IDataRegionForQuery {
       throws QueryProcessException {
 
     Pair<List<TsFileResource>, List<TsFileResource>> pair =
-        tsFileManager.getAllTsFileListForQuery(timePartitions, globalTimeFilter);
+        tsFileManager.getAllTsFileListForQuery(timePartitions, globalTimeFilter, singleDeviceId);
 
     List<TsFileResource> seqTsFileResouceList = pair.left;
     List<TsFileResource> unSeqTsFileResouceList = pair.right;
@@ -2804,6 +2824,9 @@ public class DataRegion implements IDataRegionForQuery {
       try {
         if (tsFileResource.isClosed()) {
           tsfileResourcesForQuery.add(tsFileResource);
+          // recover its resource file first so that the later queries can use its device time
+          // index instead of the FileTimeIndex
+          asyncTsFileRecoverQueue.touch(tsFileResource);
         } else {
           tsFileResource
               .getProcessor()
@@ -2870,6 +2893,7 @@ public class DataRegion implements IDataRegionForQuery {
       // deviceMatchInfo is used for filter the matched deviceId in TsFileResource
       // deviceMatchInfo contains the DeviceId means this device matched the pattern
       deleteDataInUnsealedFiles(unsealedTsFileResource, deletion, sealedTsFileResource);
+      removeDeletedDevicesFromDictionary(deletion);
       // capture deleteDataNode and wait it to be persisted to DAL.
       DeletionResource deletionResource =
           PipeInsertionDataNodeListener.getInstance()
@@ -2878,16 +2902,23 @@ public class DataRegion implements IDataRegionForQuery {
       if (deletionResource != null && deletionResource.waitForResult() == Status.FAILURE) {
         throw deletionResource.getCause();
       }
+      addPendingDeletion(sealedTsFileResource, deletion);
       writeUnlock();
       hasReleasedLock = true;
 
-      deleteDataInSealedFiles(sealedTsFileResource, deletion);
+      try {
+        deleteDataInSealedFiles(sealedTsFileResource, deletion);
+      } finally {
+        removePendingDeletion(sealedTsFileResource, deletion);
+      }
     } catch (Exception e) {
       throw new IOException(e);
     } finally {
       if (!hasReleasedLock) {
         writeUnlock();
       }
+      // invalidate after the deletion is visible, even if it is partially done
+      SealedWindowAggregationCache.getInstance().invalidateRegion(dataRegionIdString);
     }
   }
 
@@ -2970,6 +3001,7 @@ public class DataRegion implements IDataRegionForQuery {
             modEntry.getEndTime());
         logger.debug("[Deletion] unsealed files for {}: {}", modEntry, unsealedTsFileResource);
         deleteDataInUnsealedFiles(unsealedTsFileResource, modEntry, sealedTsFileResource);
+        removeDeletedDevicesFromDictionary(modEntry);
         logger.debug("[Deletion] sealed files for {}: {}", modEntry, sealedTsFileResource);
         sealedTsFileResourceLists.add(sealedTsFileResource);
       }
@@ -2983,11 +3015,20 @@ public class DataRegion implements IDataRegionForQuery {
         throw deletionResource.getCause();
       }
 
+      for (int i = 0; i < modEntries.size(); i++) {
+        addPendingDeletion(sealedTsFileResourceLists.get(i), modEntries.get(i));
+      }
       writeUnlock();
       hasReleasedLock = true;
 
-      for (int i = 0; i < modEntries.size(); i++) {
-        deleteDataInSealedFiles(sealedTsFileResourceLists.get(i), modEntries.get(i));
+      try {
+        for (int i = 0; i < modEntries.size(); i++) {
+          deleteDataInSealedFiles(sealedTsFileResourceLists.get(i), modEntries.get(i));
+        }
+      } finally {
+        for (int i = 0; i < modEntries.size(); i++) {
+          removePendingDeletion(sealedTsFileResourceLists.get(i), modEntries.get(i));
+        }
       }
     } catch (Exception e) {
       throw new IOException(e);
@@ -2995,6 +3036,15 @@ public class DataRegion implements IDataRegionForQuery {
       if (!hasReleasedLock) {
         writeUnlock();
       }
+      // invalidate after the deletion is visible, even if it is partially done
+      SealedWindowAggregationCache.getInstance().invalidateRegion(dataRegionIdString);
+    }
+  }
+
+  /** Remove the devices whose data are all deleted, e.g. the ones of a dropped table. */
+  private void removeDeletedDevicesFromDictionary(ModEntry deletion) {
+    if (deletion.getStartTime() == Long.MIN_VALUE && deletion.getEndTime() == Long.MAX_VALUE) {
+      deviceIDDictionary.removeIf(deletion::affectsAll);
     }
   }
 
@@ -3049,6 +3099,7 @@ public class DataRegion implements IDataRegionForQuery {
       if (!releasedLock) {
         writeUnlock();
       }
+      SealedWindowAggregationCache.getInstance().invalidateRegion(dataRegionIdString);
     }
   }
 
@@ -3277,6 +3328,22 @@ public class DataRegion implements IDataRegionForQuery {
     }
   }
 
+  /**
+   * The mods of the sealed files are written after the lock of the region is released, so the
+   * deletion is registered in memory first to make it visible to the queries at once.
+   */
+  private void addPendingDeletion(Collection<TsFileResource> sealedTsFiles, ModEntry deletion) {
+    for (TsFileResource sealedTsFile : sealedTsFiles) {
+      sealedTsFile.addPendingModEntry(deletion);
+    }
+  }
+
+  private void removePendingDeletion(Collection<TsFileResource> sealedTsFiles, ModEntry deletion) {
+    for (TsFileResource sealedTsFile : sealedTsFiles) {
+      sealedTsFile.removePendingModEntry(deletion);
+    }
+  }
+
   private void deleteDataInSealedFiles(Collection<TsFileResource> sealedTsFiles, ModEntry deletion)
       throws IOException {
     Set<ModificationFile> involvedModificationFiles = new HashSet<>();
@@ -3989,6 +4056,7 @@ public class DataRegion implements IDataRegionForQuery {
       }
 
       onTsFileLoaded(newTsFileResource, isFromConsensus, lastReader);
+      SealedWindowAggregationCache.getInstance().invalidateRegion(dataRegionIdString);
       logger.info("TsFile {} is successfully loaded in unsequence list.", newFileName);
     } catch (final DiskSpaceInsufficientException e) {
       logger.error(
@@ -4443,6 +4511,7 @@ public class DataRegion implements IDataRegionForQuery {
       if (deleted) {
         return;
       }
+      insertRowsOfOneDeviceNode.internDeviceIDs(deviceIDDictionary);
       long ttl = getTTL(insertRowsOfOneDeviceNode);
       Map<TsFileProcessor, InsertRowsNode> tsFileProcessorMap = new HashMap<>();
       for (int i = 0; i < insertRowsOfOneDeviceNode.getInsertRowNodeList().size(); i++) {
@@ -4566,6 +4635,7 @@ public class DataRegion implements IDataRegionForQuery {
       if (deleted) {
         return;
       }
+      insertRowsNode.internDeviceIDs(deviceIDDictionary);
       boolean[] areSequence = new boolean[insertRowsNode.getInsertRowNodeList().size()];
       long[] timePartitionIds = new long[insertRowsNode.getInsertRowNodeList().size()];
       for (int i = 0; i < insertRowsNode.getInsertRowNodeList().size(); i++) {
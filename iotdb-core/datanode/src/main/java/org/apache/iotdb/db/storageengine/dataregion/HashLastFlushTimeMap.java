@@ -149,6 +149,12 @@ public class HashLastFlushTimeMap implements ILastFlushTimeMap {
     return partitionLatestFlushedTime.get(timePartitionId).getLastFlushTime(deviceId);
   }
 
+  @Override
+  public long getFlushedTimeIfPresent(long timePartitionId, IDeviceID deviceId) {
+    ILastFlushTime lastFlushTime = partitionLatestFlushedTime.get(timePartitionId);
+    return lastFlushTime == null ? Long.MIN_VALUE : lastFlushTime.getLastFlushTime(deviceId);
+  }
+
   @Override
   public void clearFlushedTime() {
     partitionLatestFlushedTime.clear();
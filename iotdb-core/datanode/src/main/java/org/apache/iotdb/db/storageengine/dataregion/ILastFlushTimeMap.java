@@ -47,6 +47,9 @@ public interface ILastFlushTimeMap {
   // region read
   long getFlushedTime(long timePartitionId, IDeviceID deviceId);
 
+  /** Return Long.MIN_VALUE if the time partition has not been loaded. */
+  long getFlushedTimeIfPresent(long timePartitionId, IDeviceID deviceId);
+
   // endregion
 
   // region clear
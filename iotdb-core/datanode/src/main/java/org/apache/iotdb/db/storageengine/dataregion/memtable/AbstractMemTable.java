@@ -159,12 +159,14 @@ public abstract class AbstractMemTable implements IMemTable {
    */
   private IWritableMemChunkGroup createMemChunkGroupIfNotExistAndGet(
       IDeviceID deviceId, List<IMeasurementSchema> schemaList) {
-    IWritableMemChunkGroup memChunkGroup =
-        memTableMap.computeIfAbsent(
-            deviceId,
-            k ->
-                new WritableMemChunkGroup(
-                    EncryptDBUtils.getSecondEncryptParamFromDatabase(database)));
+    // get before put instead of computeIfAbsent, whose capturing lambda is allocated on every
+    // point written
+    IWritableMemChunkGroup memChunkGroup = memTableMap.get(deviceId);
+    if (memChunkGroup == null) {
+      memChunkGroup =
+          new WritableMemChunkGroup(EncryptDBUtils.getSecondEncryptParamFromDatabase(database));
+      memTableMap.put(deviceId, memChunkGroup);
+    }
     for (IMeasurementSchema schema : schemaList) {
       if (schema != null && !memChunkGroup.contains(schema.getMeasurementName())) {
         seriesNumber++;
@@ -175,15 +177,15 @@ public abstract class AbstractMemTable implements IMemTable {
 
   private IWritableMemChunkGroup createAlignedMemChunkGroupIfNotExistAndGet(
       IDeviceID deviceId, List<IMeasurementSchema> schemaList) {
-    IWritableMemChunkGroup memChunkGroup =
-        memTableMap.computeIfAbsent(
-            deviceId,
-            k -> {
-              seriesNumber += schemaList.size();
-              return new AlignedWritableMemChunkGroup(
-                  schemaList.stream().filter(Objects::nonNull).collect(Collectors.toList()),
-                  k.isTableModel());
-            });
+    IWritableMemChunkGroup memChunkGroup = memTableMap.get(deviceId);
+    if (memChunkGroup == null) {
+      seriesNumber += schemaList.size();
+      memChunkGroup =
+          new AlignedWritableMemChunkGroup(
+              schemaList.stream().filter(Objects::nonNull).collect(Collectors.toList()),
+              deviceId.isTableModel());
+      memTableMap.put(deviceId, memChunkGroup);
+    }
     for (IMeasurementSchema schema : schemaList) {
       if (schema != null && !memChunkGroup.contains(schema.getMeasurementName())) {
         seriesNumber++;
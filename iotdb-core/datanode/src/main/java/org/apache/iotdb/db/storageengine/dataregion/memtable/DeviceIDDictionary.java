@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.storageengine.dataregion.memtable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.apache.tsfile.file.metadata.IDeviceID;
+
+import java.util.function.Predicate;
+
+/**
+ * Dictionary of the devices written to one data region, which maps each device to a canonical
+ * {@link IDeviceID} instance. Every insert node builds its own device ids, so without it the
+ * memtables, the time indexes of the TsFileResources and the flushed time maps of the region keep
+ * one copy of the segments per insert node of a device, and the equality checks of the hot maps
+ * have to compare the segments one by one instead of stopping at the identity check.
+ *
+ * <p>The dictionary is bounded by its memory, the devices not written recently are evicted beyond
+ * it, e.g. the ones whose data have all expired by TTL. The dropped devices are removed by {@link
+ * #removeIf(Predicate)}. Evicting a device only stops the sharing of its later instances, the
+ * instances already shared stay valid.
+ */
+public class DeviceIDDictionary {
+
+  // shallow size of a node of the cache and its slot in the table
+  private static final int ENTRY_OVERHEAD_IN_BYTES = 64;
+
+  // null if disabled
+  private final Cache<IDeviceID, IDeviceID> canonicalDeviceIDs;
+
+  /**
+   * @param maxMemoryInBytes max memory of the devices of the dictionary, 0 to disable interning
+   */
+  public DeviceIDDictionary(final long maxMemoryInBytes) {
+    canonicalDeviceIDs =
+        maxMemoryInBytes <= 0
+            ? null
+            : Caffeine.newBuilder()
+                .maximumWeight(maxMemoryInBytes)
+                .weigher(
+                    (Weigher<IDeviceID, IDeviceID>)
+                        (key, value) ->
+                            (int)
+                                Math.min(
+                                    Integer.MAX_VALUE,
+                                    key.ramBytesUsed() + ENTRY_OVERHEAD_IN_BYTES))
+                .build();
+  }
+
+  /**
+   * get the canonical instance of the device id, which is the given one if it is new to the
+   * dictionary or the dictionary is disabled
+   *
+   * @param deviceID device id built by an insert node
+   * @return canonical device id of the device
+   */
+  public IDeviceID intern(final IDeviceID deviceID) {
+    if (canonicalDeviceIDs == null || deviceID == null) {
+      return deviceID;
+    }
+    return canonicalDeviceIDs.get(deviceID, k -> k);
+  }
+
+  /** Remove the devices matching the predicate, e.g. the ones of a dropped table. */
+  public void removeIf(final Predicate<IDeviceID> predicate) {
+    if (canonicalDeviceIDs != null) {
+      canonicalDeviceIDs.asMap().keySet().removeIf(predicate);
+    }
+  }
+
+  public long size() {
+    if (canonicalDeviceIDs == null) {
+      return 0;
+    }
+    canonicalDeviceIDs.cleanUp();
+    return canonicalDeviceIDs.estimatedSize();
+  }
+
+  /**
+   * @return the memory of the devices of the dictionary
+   */
+  public long ramBytesUsed() {
+    if (canonicalDeviceIDs == null) {
+      return 0;
+    }
+    canonicalDeviceIDs.cleanUp();
+    return canonicalDeviceIDs
+        .policy()
+        .eviction()
+        .map(eviction -> eviction.weightedSize().orElse(0L))
+        .orElse(0L);
+  }
+
+  public void clear() {
+    if (canonicalDeviceIDs != null) {
+      canonicalDeviceIDs.invalidateAll();
+    }
+  }
+}
@@ -49,6 +49,7 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.node.write.InsertTablet
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.write.RelationalDeleteDataNode;
 import org.apache.iotdb.db.schemaengine.schemaregion.utils.ResourceByPathUtils;
 import org.apache.iotdb.db.service.metrics.WritingMetrics;
+import org.apache.iotdb.db.storageengine.buffer.SealedWindowAggregationCache;
 import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
 import org.apache.iotdb.db.storageengine.dataregion.DataRegionInfo;
 import org.apache.iotdb.db.storageengine.dataregion.flush.CloseFileListener;
@@ -64,11 +65,14 @@ import org.apache.iotdb.db.storageengine.dataregion.read.filescan.impl.DiskAlign
 import org.apache.iotdb.db.storageengine.dataregion.read.filescan.impl.DiskChunkHandleImpl;
 import org.apache.iotdb.db.storageengine.dataregion.read.filescan.impl.UnclosedFileScanHandleImpl;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.sketch.ChunkSketchIndexBuilder;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.valueindex.PageValueIndexBuilder;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.FileTimeIndexCacheRecorder;
 import org.apache.iotdb.db.storageengine.dataregion.utils.SharedTimeDataBuffer;
 import org.apache.iotdb.db.storageengine.dataregion.utils.tableDiskUsageIndex.TableDiskUsageIndex;
 import org.apache.iotdb.db.storageengine.dataregion.wal.WALManager;
 import org.apache.iotdb.db.storageengine.dataregion.wal.node.IWALNode;
+import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALMode;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.listener.AbstractResultListener;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.listener.WALFlushListener;
 import org.apache.iotdb.db.storageengine.rescon.memory.MemTableManager;
@@ -314,7 +318,7 @@ public class TsFileProcessor {
     long startTime = System.nanoTime();
     WALFlushListener walFlushListener;
     try {
-      walFlushListener = walNode.log(workMemTable.getMemTableId(), insertRowNode);
+      walFlushListener = walNode.log(workMemTable.getMemTableId(), insertRowNode, getWalMode());
       if (walFlushListener.waitForResult() == AbstractResultListener.Status.FAILURE) {
         throw walFlushListener.getCause();
       }
@@ -363,6 +367,8 @@ public class TsFileProcessor {
     // For unsequence tsfile, we have to update the endTime for each insertion.
     if (!sequence) {
       tsFileResource.updateEndTime(insertRowNode.getDeviceID(), insertRowNode.getTime());
+      invalidateSealedWindowCache(
+          insertRowNode.getDeviceID(), insertRowNode.getTime(), insertRowNode.getTime());
     }
 
     tsFileResource.updateProgressIndex(insertRowNode.getProgressIndex());
@@ -411,7 +417,7 @@ public class TsFileProcessor {
     long startTime = System.nanoTime();
     WALFlushListener walFlushListener;
     try {
-      walFlushListener = walNode.log(workMemTable.getMemTableId(), insertRowsNode);
+      walFlushListener = walNode.log(workMemTable.getMemTableId(), insertRowsNode, getWalMode());
       if (walFlushListener.waitForResult() == AbstractResultListener.Status.FAILURE) {
         throw walFlushListener.getCause();
       }
@@ -460,6 +466,8 @@ public class TsFileProcessor {
       // for unsequence tsfile, we have to update the endTime for each insertion.
       if (!sequence) {
         tsFileResource.updateEndTime(insertRowNode.getDeviceID(), insertRowNode.getTime());
+        invalidateSealedWindowCache(
+            insertRowNode.getDeviceID(), insertRowNode.getTime(), insertRowNode.getTime());
       }
     }
 
@@ -470,6 +478,13 @@ public class TsFileProcessor {
     infoForMetrics[4] += pointInserted;
   }
 
+  /** Unsequence data may fall into sealed time windows whose aggregation results are cached. */
+  private void invalidateSealedWindowCache(IDeviceID deviceId, long startTime, long endTime) {
+    SealedWindowAggregationCache.getInstance()
+        .invalidate(
+            dataRegionInfo.getDataRegion().getDataRegionIdString(), deviceId, startTime, endTime);
+  }
+
   private void createNewWorkingMemTable() {
     workMemTable =
         MemTableManager.getInstance()
@@ -582,7 +597,8 @@ public class TsFileProcessor {
     long startTime = System.nanoTime();
     WALFlushListener walFlushListener;
     try {
-      walFlushListener = walNode.log(workMemTable.getMemTableId(), insertTabletNode, rangeList);
+      walFlushListener =
+          walNode.log(workMemTable.getMemTableId(), insertTabletNode, rangeList, getWalMode());
       if (walFlushListener.waitForResult() == WALFlushListener.Status.FAILURE) {
         throw walFlushListener.getCause();
       }
@@ -652,6 +668,10 @@ public class TsFileProcessor {
         tsFileResource.updateEndTime(
             deviceEndOffsetPairs.get(0).left,
             insertTabletNode.getTimes()[deviceEndOffsetPairs.get(0).right - 1]);
+        invalidateSealedWindowCache(
+            deviceEndOffsetPairs.get(0).left,
+            insertTabletNode.getTimes()[start],
+            insertTabletNode.getTimes()[deviceEndOffsetPairs.get(0).right - 1]);
       }
       for (int i = 1; i < deviceEndOffsetPairs.size(); i++) {
         // the end offset of i - 1 is the start offset of i
@@ -662,6 +682,10 @@ public class TsFileProcessor {
           tsFileResource.updateEndTime(
               deviceEndOffsetPairs.get(i).left,
               insertTabletNode.getTimes()[deviceEndOffsetPairs.get(i).right - 1]);
+          invalidateSealedWindowCache(
+              deviceEndOffsetPairs.get(i).left,
+              insertTabletNode.getTimes()[deviceEndOffsetPairs.get(i - 1).right],
+              insertTabletNode.getTimes()[deviceEndOffsetPairs.get(i).right - 1]);
         }
       }
     }
@@ -1177,6 +1201,11 @@ public class TsFileProcessor {
     workMemTable.addTextDataSize(textDataIncrement);
   }
 
+  /** Write mode of wal of the database this processor belongs to. */
+  private WALMode getWalMode() {
+    return config.getWalModeOfDatabase(dataRegionInfo.getDataRegion().getDatabaseName());
+  }
+
   private void rollbackMemoryInfo(long[] memIncrements) {
     long memTableIncrement = memIncrements[0];
     long textDataIncrement = memIncrements[1];
@@ -1715,6 +1744,8 @@ public class TsFileProcessor {
 
     tsFileResource.serialize();
     FileTimeIndexCacheRecorder.getInstance().logFileTimeIndex(tsFileResource);
+    ChunkSketchIndexBuilder.getInstance().submit(tsFileResource);
+    PageValueIndexBuilder.getInstance().submit(tsFileResource);
     TableDiskUsageIndex.getInstance()
         .write(
             tsFileResource.getDatabaseName(),
@@ -81,8 +81,12 @@ public class WritableMemChunkGroup implements IWritableMemChunkGroup {
   }
 
   private IWritableMemChunk createMemChunkIfNotExistAndGet(IMeasurementSchema schema) {
-    return memChunkMap.computeIfAbsent(
-        schema.getMeasurementName(), k -> new WritableMemChunk(schema, encryptParameter));
+    IWritableMemChunk memChunk = memChunkMap.get(schema.getMeasurementName());
+    if (memChunk == null) {
+      memChunk = new WritableMemChunk(schema, encryptParameter);
+      memChunkMap.put(schema.getMeasurementName(), memChunk);
+    }
+    return memChunk;
   }
 
   @Override
@@ -159,9 +163,6 @@ public class WritableMemChunkGroup implements IWritableMemChunkGroup {
 
   @Override
   public IWritableMemChunk getWritableMemChunk(String measurement) {
-    if (!memChunkMap.containsKey(measurement)) {
-      return null;
-    }
     return memChunkMap.get(measurement);
   }
 
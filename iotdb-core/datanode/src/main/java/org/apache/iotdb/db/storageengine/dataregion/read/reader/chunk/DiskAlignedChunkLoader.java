@@ -142,4 +142,8 @@ public class DiskAlignedChunkLoader implements IChunkLoader {
   public TsFileID getTsFileID() {
     return resource.getTsFileID();
   }
+
+  public TsFileResource getTsFileResource() {
+    return resource;
+  }
 }
@@ -0,0 +1,326 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile;
+
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.ITimeIndex;
+
+import com.google.common.math.LongMath;
+import org.apache.tsfile.file.metadata.IDeviceID;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of the files of a {@link TsFileResourceList} from each device to the time ranges of the
+ * device in the closed files, so that a single device query looks up its files instead of checking
+ * every file of the time partition.
+ *
+ * <p>The index is kept up to date incrementally: the files inserted into or removed from the list
+ * should be passed to {@link #add(TsFileResourceList, TsFileResource)} and {@link
+ * #remove(TsFileResourceList, TsFileResource)} right after each change, which is what {@link
+ * TsFileManager} does for flush, compaction and load. Each of them costs O(log n) per device of
+ * the file. The list is only rescanned by the next lookup if it has been changed in any other way,
+ * which is detected by the modification count of the list.
+ *
+ * <p>The files not indexed yet, i.e. the unclosed ones, the ones whose time index has been degraded
+ * before they are indexed and the ones beyond the max entries of the region, are always returned
+ * for the caller to check one by one. Retrying them is cheap: the devices of a file beyond the max
+ * entries are counted once, and it is retried only when the entries of the region have dropped
+ * enough. The indexed files keep their entries after their time index is degraded.
+ */
+public class DeviceFileIndex {
+
+  private static final Comparator<Entry> ENTRY_COMPARATOR =
+      Comparator.comparingLong((Entry entry) -> entry.startTime)
+          .thenComparingLong(entry -> entry.file.id);
+
+  // distance between the order keys of the files appended to the list
+  private static final long ORDER_GAP = 1L << 32;
+
+  // file ids start from 0, so the entries of this file are before all the others
+  private static final IndexedFile LOWEST_FILE = new IndexedFile(null, Long.MIN_VALUE);
+
+  // number of entries of all the indexes of the region
+  private final AtomicLong regionEntryCount;
+  private final long maxRegionEntryCount;
+
+  private TsFileResourceList syncedList;
+  private int syncedModCount;
+
+  private Map<TsFileResource, IndexedFile> files = new IdentityHashMap<>();
+  private final Set<IndexedFile> unindexedFiles = new LinkedHashSet<>();
+  private final Map<IDeviceID, DeviceEntries> deviceToEntries = new HashMap<>();
+  private long nextFileId = 0;
+
+  public DeviceFileIndex(AtomicLong regionEntryCount, long maxRegionEntryCount) {
+    this.regionEntryCount = regionEntryCount;
+    this.maxRegionEntryCount = maxRegionEntryCount;
+  }
+
+  /**
+   * @return the files of the list which may contain data of the device in [startTime, endTime], in
+   *     the order of the list
+   */
+  public synchronized List<TsFileResource> select(
+      TsFileResourceList list, IDeviceID deviceId, long startTime, long endTime) {
+    if (!isSynced(list, 0)) {
+      rebuild(list);
+    }
+
+    List<IndexedFile> selected = new ArrayList<>();
+    Iterator<IndexedFile> iterator = unindexedFiles.iterator();
+    while (iterator.hasNext()) {
+      IndexedFile file = iterator.next();
+      if (tryIndex(file)) {
+        iterator.remove();
+      } else {
+        selected.add(file);
+      }
+    }
+
+    DeviceEntries deviceEntries = deviceToEntries.get(deviceId);
+    if (deviceEntries != null) {
+      deviceEntries.select(startTime, endTime, selected);
+    }
+
+    selected.sort(Comparator.comparingLong(file -> file.order));
+    List<TsFileResource> result = new ArrayList<>(selected.size());
+    for (IndexedFile file : selected) {
+      result.add(file.resource);
+    }
+    return result;
+  }
+
+  /** Adds the file just inserted into the list. It is indexed by the next lookup once closed. */
+  public synchronized void add(TsFileResourceList list, TsFileResource resource) {
+    if (!isSynced(list, 1) || files.containsKey(resource)) {
+      return;
+    }
+    IndexedFile file = new IndexedFile(resource, nextFileId++);
+    IndexedFile prev = resource.getPrev() == null ? null : files.get(resource.getPrev());
+    IndexedFile next = resource.getNext() == null ? null : files.get(resource.getNext());
+    files.put(resource, file);
+    unindexedFiles.add(file);
+    syncedModCount = list.getModCount();
+    if (prev == null && next == null) {
+      file.order = 0;
+    } else if (next == null) {
+      file.order = prev.order + ORDER_GAP;
+    } else if (prev == null) {
+      file.order = next.order - ORDER_GAP;
+    } else if (next.order - prev.order > 1) {
+      file.order = prev.order + (next.order - prev.order) / 2;
+    } else {
+      renumber(list);
+    }
+  }
+
+  /** Releases the entries of the file just removed from the list. */
+  public synchronized void remove(TsFileResourceList list, TsFileResource resource) {
+    IndexedFile file = files.remove(resource);
+    if (file != null) {
+      removeEntries(file);
+      unindexedFiles.remove(file);
+    }
+    if (isSynced(list, 1)) {
+      syncedModCount = list.getModCount();
+    }
+  }
+
+  /** Releases all the entries. */
+  public synchronized void clear() {
+    for (IndexedFile file : files.values()) {
+      removeEntries(file);
+    }
+    files = new IdentityHashMap<>();
+    unindexedFiles.clear();
+    syncedList = null;
+  }
+
+  /**
+   * @return whether the index reflects the list apart from the given number of the latest changes
+   */
+  private boolean isSynced(TsFileResourceList list, int pendingChanges) {
+    return list == syncedList && list.getModCount() == syncedModCount + pendingChanges;
+  }
+
+  /** Rescans the list changed without notifying the index. */
+  private void rebuild(TsFileResourceList list) {
+    Map<TsFileResource, IndexedFile> newFiles = new IdentityHashMap<>(list.size());
+    unindexedFiles.clear();
+    for (TsFileResource resource : list) {
+      IndexedFile file = files.remove(resource);
+      if (file == null) {
+        file = new IndexedFile(resource, nextFileId++);
+      }
+      newFiles.put(resource, file);
+      if (file.entries == null) {
+        unindexedFiles.add(file);
+      }
+    }
+    // the remaining ones have been removed from the list
+    for (IndexedFile file : files.values()) {
+      removeEntries(file);
+    }
+    files = newFiles;
+    syncedList = list;
+    syncedModCount = list.getModCount();
+    renumber(list);
+  }
+
+  private void renumber(TsFileResourceList list) {
+    long order = 0;
+    for (TsFileResource resource : list) {
+      files.get(resource).order = order;
+      order += ORDER_GAP;
+    }
+  }
+
+  private boolean tryIndex(IndexedFile file) {
+    TsFileResource resource = file.resource;
+    // the time ranges of unclosed files are still changing, and the devices of degraded files are
+    // unknown without reading their resource files
+    if (!resource.isClosed()
+        || resource.getTimeIndexType() != ITimeIndex.ARRAY_DEVICE_TIME_INDEX_TYPE) {
+      return false;
+    }
+    if (file.deviceCount >= 0 && regionEntryCount.get() + file.deviceCount > maxRegionEntryCount) {
+      return false;
+    }
+    Set<IDeviceID> devices = resource.getDevices();
+    file.deviceCount = devices.size();
+    if (regionEntryCount.get() + devices.size() > maxRegionEntryCount) {
+      return false;
+    }
+    List<Entry> entries = new ArrayList<>(devices.size());
+    for (IDeviceID deviceId : devices) {
+      Optional<Long> startTime = resource.getStartTime(deviceId);
+      Optional<Long> endTime = resource.getEndTime(deviceId);
+      if (!startTime.isPresent() || !endTime.isPresent()) {
+        continue;
+      }
+      Entry entry = new Entry(deviceId, startTime.get(), endTime.get(), file);
+      deviceToEntries.computeIfAbsent(deviceId, k -> new DeviceEntries()).add(entry);
+      entries.add(entry);
+    }
+    file.entries = entries.toArray(new Entry[0]);
+    regionEntryCount.addAndGet(file.entries.length);
+    return true;
+  }
+
+  private void removeEntries(IndexedFile file) {
+    if (file.entries == null) {
+      return;
+    }
+    for (Entry entry : file.entries) {
+      DeviceEntries deviceEntries = deviceToEntries.get(entry.deviceId);
+      if (deviceEntries != null && deviceEntries.remove(entry) && deviceEntries.isEmpty()) {
+        deviceToEntries.remove(entry.deviceId);
+      }
+    }
+    regionEntryCount.addAndGet(-file.entries.length);
+    file.entries = null;
+  }
+
+  private static class IndexedFile {
+
+    private final TsFileResource resource;
+    // breaks the ties of the start times of the entries
+    private final long id;
+    // increases along the list, with gaps for the files inserted in the middle
+    private long order;
+    // null if not indexed
+    private Entry[] entries;
+    // number of devices of the closed file, -1 if not counted yet
+    private int deviceCount = -1;
+
+    private IndexedFile(TsFileResource resource, long id) {
+      this.resource = resource;
+      this.id = id;
+    }
+  }
+
+  private static class Entry {
+
+    private final IDeviceID deviceId;
+    private final long startTime;
+    private final long endTime;
+    private final IndexedFile file;
+
+    private Entry(IDeviceID deviceId, long startTime, long endTime, IndexedFile file) {
+      this.deviceId = deviceId;
+      this.startTime = startTime;
+      this.endTime = endTime;
+      this.file = file;
+    }
+  }
+
+  /**
+   * Entries of a device sorted by start time. The entries overlapping [startTime, endTime] must
+   * start in [startTime - maxLength, endTime], so they are found by a range search.
+   */
+  private static class DeviceEntries {
+
+    private final NavigableSet<Entry> entries = new TreeSet<>(ENTRY_COMPARATOR);
+    // max of endTime - startTime of the entries, never shrinks, which is still correct
+    private long maxLength = 0;
+
+    private void add(Entry entry) {
+      entries.add(entry);
+      maxLength = Math.max(maxLength, LongMath.saturatedSubtract(entry.endTime, entry.startTime));
+    }
+
+    private boolean remove(Entry entry) {
+      return entries.remove(entry);
+    }
+
+    private boolean isEmpty() {
+      return entries.isEmpty();
+    }
+
+    private void select(long startTime, long endTime, List<IndexedFile> selected) {
+      Entry lowest =
+          new Entry(
+              null,
+              LongMath.saturatedSubtract(startTime, maxLength),
+              Long.MIN_VALUE,
+              LOWEST_FILE);
+      for (Entry entry : entries.tailSet(lowest, true)) {
+        if (entry.startTime > endTime) {
+          break;
+        }
+        if (entry.endTime >= startTime) {
+          selected.add(entry.file);
+        }
+      }
+    }
+  }
+}
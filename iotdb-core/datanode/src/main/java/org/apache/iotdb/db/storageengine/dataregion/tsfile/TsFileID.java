@@ -21,8 +21,6 @@ package org.apache.iotdb.db.storageengine.dataregion.tsfile;
 
 import org.apache.tsfile.utils.RamUsageEstimator;
 
-import java.util.Objects;
-
 import static org.apache.iotdb.commons.conf.IoTDBConstant.FILE_NAME_SEPARATOR;
 import static org.apache.tsfile.utils.FilePathUtils.splitTsFilePath;
 
@@ -37,12 +35,16 @@ public class TsFileID {
   // high 32 bit is compaction level, low 32 bit is merge count
   public final long compactionVersion;
 
+  // cached since the TsFileID is hashed by every cache lookup of the file
+  private final int hashCode;
+
   public TsFileID() {
     this.regionId = -1;
     this.timePartitionId = -1;
     this.timestamp = -1;
     this.fileVersion = -1;
     this.compactionVersion = -1;
+    this.hashCode = computeHashCode();
   }
 
   public TsFileID(
@@ -56,6 +58,7 @@ public class TsFileID {
     this.timestamp = timestamp;
     this.fileVersion = fileVersion;
     this.compactionVersion = compactionVersion;
+    this.hashCode = computeHashCode();
   }
 
   public TsFileID(String tsFileAbsolutePath) {
@@ -87,6 +90,16 @@ public class TsFileID {
     this.timestamp = arr == null || arr.length != 3 ? -1 : arr[0];
     this.fileVersion = arr == null || arr.length != 3 ? -1 : arr[1];
     this.compactionVersion = arr == null || arr.length != 3 ? -1 : arr[2];
+    this.hashCode = computeHashCode();
+  }
+
+  /** Same as {@link java.util.Objects#hash} of the fields, without boxing them. */
+  private int computeHashCode() {
+    int result = 31 + Integer.hashCode(regionId);
+    result = 31 * result + Long.hashCode(timePartitionId);
+    result = 31 * result + Long.hashCode(timestamp);
+    result = 31 * result + Long.hashCode(fileVersion);
+    return 31 * result + Long.hashCode(compactionVersion);
   }
 
   /**
@@ -128,7 +141,7 @@ public class TsFileID {
 
   @Override
   public int hashCode() {
-    return Objects.hash(regionId, timePartitionId, timestamp, fileVersion, compactionVersion);
+    return hashCode;
   }
 
   public long getTimestamp() {
@@ -20,12 +20,17 @@
 package org.apache.iotdb.db.storageengine.dataregion.tsfile;
 
 import org.apache.iotdb.commons.utils.TimePartitionUtils;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.pipe.resource.PipeDataNodeResourceManager;
 import org.apache.iotdb.db.storageengine.dataregion.modification.ModFileManagement;
 import org.apache.iotdb.db.storageengine.dataregion.modification.PartitionLevelModFileManager;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.sketch.ChunkSketchIndexBuilder;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.valueindex.PageValueIndexBuilder;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.FileTimeIndexCacheRecorder;
 import org.apache.iotdb.db.storageengine.rescon.memory.TsFileResourceManager;
 
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.common.TimeRange;
 import org.apache.tsfile.read.filter.basic.Filter;
 import org.apache.tsfile.utils.Pair;
 
@@ -37,6 +42,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -55,6 +61,11 @@ public class TsFileManager {
   private final TreeMap<Long, TsFileResourceList> sequenceFiles = new TreeMap<>();
   private final TreeMap<Long, TsFileResourceList> unsequenceFiles = new TreeMap<>();
   private final TreeMap<Long, ModFileManagement> modFileManagementMap = new TreeMap<>();
+  // time partition -> index of the files from devices to their time ranges, built by queries and
+  // updated on each change of the file lists
+  private final Map<Long, DeviceFileIndex> sequenceFileIndexes = new ConcurrentHashMap<>();
+  private final Map<Long, DeviceFileIndex> unsequenceFileIndexes = new ConcurrentHashMap<>();
+  private final AtomicLong deviceFileIndexEntryCount = new AtomicLong(0);
 
   private volatile boolean allowCompaction = true;
   private final AtomicLong currentCompactionTaskSerialId = new AtomicLong(0);
@@ -136,6 +147,112 @@ public class TsFileManager {
     return new Pair<>(seq, unSeq);
   }
 
+  /**
+   * Same as {@link #getAllTsFileListForQuery(List, Filter)}, but for a single device query, only
+   * the files which may contain the device in the time range of the filter are returned, which are
+   * looked up by the {@link DeviceFileIndex} of each time partition.
+   *
+   * <p>don't need to acquire lock again, caller should guarantee the lock has been acquired
+   *
+   * @param deviceId {@code null} for all devices
+   * @return left is seq resource list, right is unSeq resource list
+   */
+  public Pair<List<TsFileResource>, List<TsFileResource>> getAllTsFileListForQuery(
+      List<Long> timePartitions, Filter timeFilter, IDeviceID deviceId) {
+    int maxEntryCount =
+        IoTDBDescriptor.getInstance().getConfig().getDeviceFileIndexMaxEntriesPerRegion();
+    if (deviceId == null || maxEntryCount <= 0) {
+      return getAllTsFileListForQuery(timePartitions, timeFilter);
+    }
+    long startTime = Long.MIN_VALUE;
+    long endTime = Long.MAX_VALUE;
+    if (timeFilter != null) {
+      List<TimeRange> timeRanges = timeFilter.getTimeRanges();
+      if (!timeRanges.isEmpty()) {
+        startTime = timeRanges.get(0).getMin();
+        endTime = timeRanges.get(timeRanges.size() - 1).getMax();
+      }
+    }
+
+    List<Long> partitions = new ArrayList<>();
+    if (timePartitions == null) {
+      for (Long timePartition : sequenceFiles.keySet()) {
+        if (TimePartitionUtils.satisfyTimePartition(timeFilter, timePartition)) {
+          partitions.add(timePartition);
+        }
+      }
+    } else {
+      partitions.addAll(timePartitions);
+    }
+
+    List<TsFileResource> seq = new ArrayList<>();
+    List<TsFileResource> unSeq = new ArrayList<>();
+    for (Long timePartition : partitions) {
+      TsFileResourceList tsFileResources = sequenceFiles.get(timePartition);
+      if (tsFileResources != null) {
+        seq.addAll(
+            getDeviceFileIndex(sequenceFileIndexes, timePartition, maxEntryCount)
+                .select(tsFileResources, deviceId, startTime, endTime));
+      }
+    }
+    if (timePartitions == null) {
+      partitions.clear();
+      for (Long timePartition : unsequenceFiles.keySet()) {
+        if (TimePartitionUtils.satisfyTimePartition(timeFilter, timePartition)) {
+          partitions.add(timePartition);
+        }
+      }
+    }
+    for (Long timePartition : partitions) {
+      TsFileResourceList tsFileResources = unsequenceFiles.get(timePartition);
+      if (tsFileResources != null) {
+        unSeq.addAll(
+            getDeviceFileIndex(unsequenceFileIndexes, timePartition, maxEntryCount)
+                .select(tsFileResources, deviceId, startTime, endTime));
+      }
+    }
+    return new Pair<>(seq, unSeq);
+  }
+
+  private DeviceFileIndex getDeviceFileIndex(
+      Map<Long, DeviceFileIndex> indexes, long timePartition, int maxEntryCount) {
+    return indexes.computeIfAbsent(
+        timePartition, k -> new DeviceFileIndex(deviceFileIndexEntryCount, maxEntryCount));
+  }
+
+  /**
+   * Release the entries of the file removed from the list of the time partition, and the whole
+   * index of the time partition once it has no files.
+   */
+  private void removeFromDeviceFileIndex(
+      Map<Long, DeviceFileIndex> indexes,
+      long timePartition,
+      TsFileResourceList list,
+      TsFileResource removed) {
+    DeviceFileIndex index = indexes.get(timePartition);
+    if (index == null) {
+      return;
+    }
+    if (list.isEmpty()) {
+      indexes.remove(timePartition);
+      index.clear();
+    } else {
+      index.remove(list, removed);
+    }
+  }
+
+  /** Add the file just inserted into the list of the time partition to its index if it has one. */
+  private void addToDeviceFileIndex(
+      Map<Long, DeviceFileIndex> indexes,
+      long timePartition,
+      TsFileResourceList list,
+      TsFileResource added) {
+    DeviceFileIndex index = indexes.get(timePartition);
+    if (index != null) {
+      index.add(list, added);
+    }
+  }
+
   public List<TsFileResource> getTsFileListSnapshot(long timePartition, boolean sequence) {
     readLock();
     try {
@@ -211,6 +328,11 @@ public class TsFileManager {
         if (entry.getValue().contains(tsFileResource)) {
           entry.getValue().remove(tsFileResource);
           TsFileResourceManager.getInstance().removeTsFileResource(tsFileResource);
+          removeFromDeviceFileIndex(
+              sequence ? sequenceFileIndexes : unsequenceFileIndexes,
+              entry.getKey(),
+              entry.getValue(),
+              tsFileResource);
           break;
         }
       }
@@ -243,6 +365,11 @@ public class TsFileManager {
       TsFileResourceList tsFileResources =
           selectedMap.computeIfAbsent(timePartition, o -> new TsFileResourceList());
       tsFileResources.set(insertPos, tsFileResource);
+      addToDeviceFileIndex(
+          sequence ? sequenceFileIndexes : unsequenceFileIndexes,
+          timePartition,
+          tsFileResources,
+          tsFileResource);
       if (tsFileResource.getModFileManagement() == null) {
         tsFileResource.setModFileManagement(
             modFileManagementMap.computeIfAbsent(
@@ -258,9 +385,15 @@ public class TsFileManager {
     writeLock("add");
     try {
       Map<Long, TsFileResourceList> selectedMap = sequence ? sequenceFiles : unsequenceFiles;
-      selectedMap
-          .computeIfAbsent(tsFileResource.getTimePartition(), o -> new TsFileResourceList())
-          .add(tsFileResource);
+      TsFileResourceList tsFileResources =
+          selectedMap.computeIfAbsent(
+              tsFileResource.getTimePartition(), o -> new TsFileResourceList());
+      tsFileResources.add(tsFileResource);
+      addToDeviceFileIndex(
+          sequence ? sequenceFileIndexes : unsequenceFileIndexes,
+          tsFileResource.getTimePartition(),
+          tsFileResources,
+          tsFileResource);
       if (tsFileResource.getModFileManagement() == null) {
         tsFileResource.setModFileManagement(
             modFileManagementMap.computeIfAbsent(
@@ -276,9 +409,15 @@ public class TsFileManager {
     writeLock("keepOrderInsert");
     try {
       Map<Long, TsFileResourceList> selectedMap = sequence ? sequenceFiles : unsequenceFiles;
-      selectedMap
-          .computeIfAbsent(tsFileResource.getTimePartition(), o -> new TsFileResourceList())
-          .keepOrderInsert(tsFileResource);
+      TsFileResourceList tsFileResources =
+          selectedMap.computeIfAbsent(
+              tsFileResource.getTimePartition(), o -> new TsFileResourceList());
+      tsFileResources.keepOrderInsert(tsFileResource);
+      addToDeviceFileIndex(
+          sequence ? sequenceFileIndexes : unsequenceFileIndexes,
+          tsFileResource.getTimePartition(),
+          tsFileResources,
+          tsFileResource);
       if (tsFileResource.getModFileManagement() == null) {
         tsFileResource.setModFileManagement(
             modFileManagementMap.computeIfAbsent(
@@ -317,28 +456,34 @@ public class TsFileManager {
     writeLock("replace");
     try {
       for (TsFileResource tsFileResource : seqFileResources) {
-        if (sequenceFiles.get(timePartition).remove(tsFileResource)) {
+        TsFileResourceList list = sequenceFiles.get(timePartition);
+        if (list.remove(tsFileResource)) {
           TsFileResourceManager.getInstance().removeTsFileResource(tsFileResource);
+          removeFromDeviceFileIndex(sequenceFileIndexes, timePartition, list, tsFileResource);
         }
       }
       for (TsFileResource tsFileResource : unseqFileResources) {
-        if (unsequenceFiles.get(timePartition).remove(tsFileResource)) {
+        TsFileResourceList list = unsequenceFiles.get(timePartition);
+        if (list.remove(tsFileResource)) {
           TsFileResourceManager.getInstance().removeTsFileResource(tsFileResource);
+          removeFromDeviceFileIndex(unsequenceFileIndexes, timePartition, list, tsFileResource);
         }
       }
       for (TsFileResource resource : targetFileResources) {
         if (!resource.isDeleted()) {
           TsFileResourceManager.getInstance().registerSealedTsFileResource(resource);
-          if (resource.isSeq()) {
-            sequenceFiles
-                .computeIfAbsent(timePartition, t -> new TsFileResourceList())
-                .keepOrderInsert(resource);
-          } else {
-            unsequenceFiles
-                .computeIfAbsent(timePartition, t -> new TsFileResourceList())
-                .keepOrderInsert(resource);
-          }
+          TsFileResourceList list =
+              (resource.isSeq() ? sequenceFiles : unsequenceFiles)
+                  .computeIfAbsent(timePartition, t -> new TsFileResourceList());
+          list.keepOrderInsert(resource);
+          addToDeviceFileIndex(
+              resource.isSeq() ? sequenceFileIndexes : unsequenceFileIndexes,
+              timePartition,
+              list,
+              resource);
           FileTimeIndexCacheRecorder.getInstance().logFileTimeIndex(resource);
+          ChunkSketchIndexBuilder.getInstance().submit(resource);
+          PageValueIndexBuilder.getInstance().submit(resource);
           if (resource.getModFileManagement() == null) {
             resource.setModFileManagement(
                 modFileManagementMap.computeIfAbsent(
@@ -379,6 +524,10 @@ public class TsFileManager {
     try {
       sequenceFiles.clear();
       unsequenceFiles.clear();
+      sequenceFileIndexes.values().forEach(DeviceFileIndex::clear);
+      sequenceFileIndexes.clear();
+      unsequenceFileIndexes.values().forEach(DeviceFileIndex::clear);
+      unsequenceFileIndexes.clear();
     } finally {
       writeUnlock();
     }
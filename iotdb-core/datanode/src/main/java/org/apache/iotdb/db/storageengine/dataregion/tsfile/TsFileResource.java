@@ -31,6 +31,7 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.load.PartitionViolationException;
 import org.apache.iotdb.db.schemaengine.schemaregion.utils.ResourceByPathUtils;
+import org.apache.iotdb.db.storageengine.buffer.DecodedPageCache;
 import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
 import org.apache.iotdb.db.storageengine.dataregion.compaction.selector.utils.InsertionCompactionCandidateStatus;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.ReadOnlyMemChunk;
@@ -43,11 +44,14 @@ import org.apache.iotdb.db.storageengine.dataregion.modification.v1.Deletion;
 import org.apache.iotdb.db.storageengine.dataregion.modification.v1.Modification;
 import org.apache.iotdb.db.storageengine.dataregion.modification.v1.ModificationFileV1;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.generator.TsFileNameGenerator;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.sidecar.ChunkSidecarIndexHolder;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.sketch.ChunkSketchIndex;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.ArrayDeviceTimeIndex;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.FileTimeIndex;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.ITimeIndex;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.PlainDeviceTimeIndex;
 import org.apache.iotdb.db.storageengine.dataregion.tsfile.timeindex.TimeIndexLevel;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.valueindex.PageValueIndex;
 import org.apache.iotdb.db.storageengine.rescon.disk.TierManager;
 
 import com.google.common.util.concurrent.RateLimiter;
@@ -142,6 +146,9 @@ public class TsFileResource implements PersistentResource, Cloneable {
   private volatile ModificationFile sharedModFile;
   private long sharedModFileOffset;
 
+  // deletions visible to queries but not written to the mod files yet, copied on write
+  private volatile List<ModEntry> pendingModEntries = Collections.emptyList();
+
   public static final boolean useSharedModFile = false;
 
   @SuppressWarnings("squid:S3077")
@@ -210,6 +217,14 @@ public class TsFileResource implements PersistentResource, Cloneable {
 
   private Map<IDeviceID, List<Pair<String, TimeValuePair>>> lastValues;
 
+  /** quantile sketches of the chunks */
+  private final ChunkSidecarIndexHolder<ChunkSketchIndex> chunkSketchIndex =
+      new ChunkSidecarIndexHolder<>(ChunkSketchIndex.SKETCH_SUFFIX, ChunkSketchIndex::load);
+
+  /** bloom filters of the values of the pages */
+  private final ChunkSidecarIndexHolder<PageValueIndex> pageValueIndex =
+      new ChunkSidecarIndexHolder<>(PageValueIndex.VALUE_INDEX_SUFFIX, PageValueIndex::load);
+
   @TestOnly
   public TsFileResource() {
     this.tsFileID = new TsFileID();
@@ -858,6 +873,9 @@ public class TsFileResource implements PersistentResource, Cloneable {
       fsFactory.deleteIfExists(file);
       fsFactory.deleteIfExists(
           new File(file.getAbsolutePath() + TsFileIOWriter.CHUNK_METADATA_TEMP_FILE_SUFFIX));
+      chunkSketchIndex.remove(file);
+      pageValueIndex.remove(file);
+      DecodedPageCache.getInstance().invalidate(tsFileID);
     } catch (IOException e) {
       LOGGER.error("TsFile {} cannot be deleted: {}", file, e.getMessage());
       return false;
@@ -896,6 +914,33 @@ public class TsFileResource implements PersistentResource, Cloneable {
           getExclusiveModFile().getFile(),
           fsFactory.getFile(targetDir, ModificationFile.getExclusiveMods(file).getName()));
     }
+
+    // the sidecar indexes are reloaded from the moved files at next use
+    chunkSketchIndex.moveTo(file, targetDir);
+    pageValueIndex.moveTo(file, targetDir);
+  }
+
+  /**
+   * @return the quantile sketches of the chunks of this sealed TsFile, null if they are not built
+   */
+  public ChunkSketchIndex getChunkSketchIndex() {
+    return chunkSketchIndex.get(file);
+  }
+
+  public void setChunkSketchIndex(ChunkSketchIndex chunkSketchIndex) {
+    this.chunkSketchIndex.set(chunkSketchIndex);
+  }
+
+  /**
+   * @return the bloom filters of the values of the pages of this sealed TsFile, null if they are
+   *     not built
+   */
+  public PageValueIndex getPageValueIndex() {
+    return pageValueIndex.get(file);
+  }
+
+  public void setPageValueIndex(PageValueIndex pageValueIndex) {
+    this.pageValueIndex.set(pageValueIndex);
   }
 
   @Override
@@ -1473,6 +1518,37 @@ public class TsFileResource implements PersistentResource, Cloneable {
     insertionCompactionCandidateStatus = status;
   }
 
+  /**
+   * Makes the deletion visible to queries before it is written to the mod files, which is done
+   * outside the lock of the data region. It must be removed by {@link #removePendingModEntry}
+   * after being written.
+   */
+  public synchronized void addPendingModEntry(ModEntry modEntry) {
+    List<ModEntry> newPendingModEntries = new ArrayList<>(pendingModEntries.size() + 1);
+    newPendingModEntries.addAll(pendingModEntries);
+    newPendingModEntries.add(modEntry);
+    pendingModEntries = newPendingModEntries;
+  }
+
+  public synchronized void removePendingModEntry(ModEntry modEntry) {
+    List<ModEntry> newPendingModEntries = new ArrayList<>(pendingModEntries.size());
+    for (ModEntry pendingModEntry : pendingModEntries) {
+      if (pendingModEntry != modEntry) {
+        newPendingModEntries.add(pendingModEntry);
+      }
+    }
+    pendingModEntries =
+        newPendingModEntries.isEmpty() ? Collections.emptyList() : newPendingModEntries;
+  }
+
+  /**
+   * The pending entries should be read before the mod files, so that an entry removed after being
+   * written is seen in either of them.
+   */
+  public List<ModEntry> getPendingModEntries() {
+    return pendingModEntries;
+  }
+
   public ModIterator getModEntryIterator() {
     return new ModIterator();
   }
@@ -1613,6 +1689,7 @@ public class TsFileResource implements PersistentResource, Cloneable {
     cloned.exclusiveModFile = this.exclusiveModFile;
     cloned.sharedModFile = this.sharedModFile;
     cloned.sharedModFileOffset = this.sharedModFileOffset;
+    cloned.pendingModEntries = this.pendingModEntries;
     cloned.compactionModFile = this.compactionModFile;
     cloned.isSeq = this.isSeq;
     cloned.tsFileRepairStatus = this.tsFileRepairStatus;
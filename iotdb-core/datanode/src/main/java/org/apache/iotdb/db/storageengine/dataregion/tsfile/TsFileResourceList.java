@@ -39,6 +39,8 @@ public class TsFileResourceList implements List<TsFileResource> {
   private TsFileResource tail;
   private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
   private int count = 0;
+  // increased on each insertion and removal, so that the indexes of the list know it has changed
+  private int modCount = 0;
 
   /**
    * Insert a new node before an existing node
@@ -59,6 +61,7 @@ public class TsFileResourceList implements List<TsFileResource> {
     }
     node.prev = newNode;
     count++;
+    modCount++;
   }
 
   /**
@@ -77,6 +80,7 @@ public class TsFileResourceList implements List<TsFileResource> {
     }
     node.next = newNode;
     count++;
+    modCount++;
   }
 
   @Override
@@ -84,6 +88,10 @@ public class TsFileResourceList implements List<TsFileResource> {
     return count;
   }
 
+  public int getModCount() {
+    return modCount;
+  }
+
   @Override
   public boolean isEmpty() {
     return count == 0;
@@ -126,6 +134,7 @@ public class TsFileResourceList implements List<TsFileResource> {
       header = newNode;
       tail = newNode;
       count++;
+      modCount++;
     } else {
       insertAfter(tail, newNode);
     }
@@ -147,6 +156,7 @@ public class TsFileResourceList implements List<TsFileResource> {
       header = newNode;
       tail = newNode;
       count++;
+      modCount++;
     } else {
       TsFileNameGenerator.TsFileName newTsFileName =
           TsFileNameGenerator.getTsFileName(newNode.getTsFile().getName());
@@ -221,6 +231,7 @@ public class TsFileResourceList implements List<TsFileResource> {
     tsFileResource.prev = null;
     tsFileResource.next = null;
     count--;
+    modCount++;
     return true;
   }
 
@@ -246,6 +257,7 @@ public class TsFileResourceList implements List<TsFileResource> {
     header = null;
     tail = null;
     count = 0;
+    modCount++;
   }
 
   @Override
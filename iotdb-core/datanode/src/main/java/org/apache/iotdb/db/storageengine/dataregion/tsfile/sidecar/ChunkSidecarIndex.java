@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile.sidecar;
+
+import org.apache.tsfile.utils.RamUsageEstimator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An index of the chunks of one sealed TsFile, stored in a sidecar file next to it. A block of the
+ * index is looked up by the offset of its chunk header in the TsFile, for aligned series that is
+ * the offset of the value chunk.
+ *
+ * <p>The sidecar file consists of the blocks, followed by the index entries (chunk header offset,
+ * block offset, block size) sorted by chunk header offset, followed by the number of entries (int)
+ * and the offset of the first entry (long). Only the index entries are kept in memory, blocks are
+ * read on demand through one channel shared by all queries.
+ */
+public abstract class ChunkSidecarIndex {
+
+  private static final long INSTANCE_SIZE =
+      RamUsageEstimator.shallowSizeOfInstance(ChunkSidecarIndex.class);
+
+  static final int ENTRY_SIZE = Long.BYTES * 2 + Integer.BYTES;
+  static final int TAIL_SIZE = Integer.BYTES + Long.BYTES;
+
+  private final File file;
+  private final long[] chunkOffsets;
+  private final long[] blockOffsets;
+  private final int[] blockSizes;
+
+  private volatile FileChannel channel;
+
+  /** Load the index entries of the given sidecar file. */
+  protected ChunkSidecarIndex(File file) throws IOException {
+    this.file = file;
+    try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer tail = read(fileChannel, fileChannel.size() - TAIL_SIZE, TAIL_SIZE);
+      int entryCount = tail.getInt();
+      long indexOffset = tail.getLong();
+
+      ByteBuffer entries = read(fileChannel, indexOffset, entryCount * ENTRY_SIZE);
+      chunkOffsets = new long[entryCount];
+      blockOffsets = new long[entryCount];
+      blockSizes = new int[entryCount];
+      for (int i = 0; i < entryCount; i++) {
+        chunkOffsets[i] = entries.getLong();
+        blockOffsets[i] = entries.getLong();
+        blockSizes[i] = entries.getInt();
+      }
+    }
+  }
+
+  /**
+   * @return the block of the chunk whose header is at the given offset, null if it has none
+   */
+  protected ByteBuffer readBlock(long chunkHeaderOffset) throws IOException {
+    int i = Arrays.binarySearch(chunkOffsets, chunkHeaderOffset);
+    return i < 0 ? null : read(getChannel(), blockOffsets[i], blockSizes[i]);
+  }
+
+  private FileChannel getChannel() throws IOException {
+    FileChannel current = channel;
+    // the channel is closed if a query reading it is interrupted
+    if (current == null || !current.isOpen()) {
+      synchronized (this) {
+        current = channel;
+        if (current == null || !current.isOpen()) {
+          current = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+          channel = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private ByteBuffer read(FileChannel fileChannel, long position, int size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    while (buffer.hasRemaining()) {
+      if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of sidecar file " + file + " at " + position);
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /** Close the channel of the sidecar file, which is reopened if the index is read again. */
+  public synchronized void close() {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException ignored) {
+      // the channel is read-only
+    }
+    channel = null;
+  }
+
+  public long ramBytesUsed() {
+    return INSTANCE_SIZE
+        + RamUsageEstimator.sizeOf(chunkOffsets)
+        + RamUsageEstimator.sizeOf(blockOffsets)
+        + RamUsageEstimator.sizeOf(blockSizes);
+  }
+}
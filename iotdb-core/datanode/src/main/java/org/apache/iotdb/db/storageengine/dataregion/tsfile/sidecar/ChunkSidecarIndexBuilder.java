@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile.sidecar;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.utils.EncryptDBUtils;
+
+import org.apache.tsfile.common.conf.TSFileConfig;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.MetaMarker;
+import org.apache.tsfile.file.header.ChunkHeader;
+import org.apache.tsfile.file.metadata.statistics.Statistics;
+import org.apache.tsfile.read.TsFileSequenceReader;
+import org.apache.tsfile.read.common.Chunk;
+import org.apache.tsfile.read.reader.IChunkReader;
+import org.apache.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.tsfile.read.reader.chunk.TableChunkReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Build a {@link ChunkSidecarIndex} of sealed TsFiles in background. Chunks are read back in file
+ * order right after flush or compaction, while they are likely still in the page cache, and each
+ * indexable chunk is turned into one block by the subclass.
+ */
+public abstract class ChunkSidecarIndexBuilder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChunkSidecarIndexBuilder.class);
+
+  private final ExecutorService buildThread;
+
+  protected ChunkSidecarIndexBuilder(ThreadName buildThreadName) {
+    this.buildThread = IoTDBThreadPoolFactory.newSingleThreadExecutor(buildThreadName.getName());
+  }
+
+  protected abstract boolean isEnabled();
+
+  protected abstract File getIndexFile(File tsFile);
+
+  /** Load the index from the sidecar file just built and attach it to the TsFile. */
+  protected abstract void setIndex(TsFileResource tsFileResource, File indexFile)
+      throws IOException;
+
+  protected abstract boolean isIndexable(TSDataType dataType);
+
+  /**
+   * @return the block of the chunk, null if the chunk is not indexed
+   */
+  protected abstract byte[] buildBlock(
+      IChunkReader chunkReader, TSDataType dataType, boolean aligned) throws IOException;
+
+  /** Build the index of the given sealed TsFile asynchronously if enabled. */
+  public void submit(TsFileResource tsFileResource) {
+    if (isEnabled()) {
+      buildThread.submit(() -> build(tsFileResource));
+    }
+  }
+
+  private void build(TsFileResource tsFileResource) {
+    if (tsFileResource.isDeleted()) {
+      return;
+    }
+    File indexFile = getIndexFile(tsFileResource.getTsFile());
+    File tmpFile = new File(indexFile.getPath() + TsFileResource.TEMP_SUFFIX);
+    try {
+      write(tsFileResource.getTsFile(), tmpFile);
+      Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      if (tsFileResource.isDeleted()) {
+        // removed by compaction or deletion while building
+        Files.deleteIfExists(indexFile.toPath());
+        return;
+      }
+      setIndex(tsFileResource, indexFile);
+    } catch (Exception e) {
+      // queries fall back to the raw data
+      LOGGER.warn("Failed to build {} of {}", indexFile.getName(), tsFileResource.getTsFile(), e);
+      try {
+        Files.deleteIfExists(tmpFile.toPath());
+      } catch (IOException ignored) {
+        // the temp file is overwritten next time
+      }
+    }
+  }
+
+  /** Write the index of the given TsFile into the given sidecar file synchronously. */
+  @SuppressWarnings("squid:S3776")
+  public void write(File tsFile, File indexFile) throws IOException {
+    String tsFilePath = tsFile.getPath();
+    List<Long> chunkOffsets = new ArrayList<>();
+    List<Long> blockOffsets = new ArrayList<>();
+    List<Integer> blockSizes = new ArrayList<>();
+    try (TsFileSequenceReader reader =
+            new TsFileSequenceReader(
+                tsFilePath, null, EncryptDBUtils.getFirstEncryptParamFromTSFilePath(tsFilePath));
+        DataOutputStream outputStream =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+      reader.position((long) TSFileConfig.MAGIC_STRING.getBytes().length + 1);
+      Chunk timeChunk = null;
+      byte marker;
+      while ((marker = reader.readMarker()) != MetaMarker.SEPARATOR) {
+        switch (marker) {
+          case MetaMarker.CHUNK_HEADER:
+          case MetaMarker.ONLY_ONE_PAGE_CHUNK_HEADER:
+          case MetaMarker.TIME_CHUNK_HEADER:
+          case MetaMarker.ONLY_ONE_PAGE_TIME_CHUNK_HEADER:
+          case MetaMarker.VALUE_CHUNK_HEADER:
+          case MetaMarker.ONLY_ONE_PAGE_VALUE_CHUNK_HEADER:
+            long chunkOffset = reader.position() - 1;
+            ChunkHeader chunkHeader = reader.readChunkHeader(marker);
+            reader.position(reader.position() + chunkHeader.getDataSize());
+            if (chunkHeader.getDataSize() == 0) {
+              // empty value chunk
+              break;
+            }
+            boolean isTimeChunk =
+                marker == MetaMarker.TIME_CHUNK_HEADER
+                    || marker == MetaMarker.ONLY_ONE_PAGE_TIME_CHUNK_HEADER;
+            boolean isValueChunk =
+                marker == MetaMarker.VALUE_CHUNK_HEADER
+                    || marker == MetaMarker.ONLY_ONE_PAGE_VALUE_CHUNK_HEADER;
+            if (isTimeChunk) {
+              timeChunk = readChunk(reader, chunkOffset);
+              break;
+            }
+            if (!isIndexable(chunkHeader.getDataType()) || (isValueChunk && timeChunk == null)) {
+              break;
+            }
+            Chunk chunk = readChunk(reader, chunkOffset);
+            IChunkReader chunkReader =
+                isValueChunk
+                    ? new TableChunkReader(timeChunk, Collections.singletonList(chunk), null)
+                    : new ChunkReader(chunk);
+            byte[] block = buildBlock(chunkReader, chunkHeader.getDataType(), isValueChunk);
+            if (block == null) {
+              break;
+            }
+            chunkOffsets.add(chunkOffset);
+            blockOffsets.add((long) outputStream.size());
+            blockSizes.add(block.length);
+            outputStream.write(block);
+            break;
+          case MetaMarker.CHUNK_GROUP_HEADER:
+            reader.readChunkGroupHeader();
+            timeChunk = null;
+            break;
+          case MetaMarker.OPERATION_INDEX_RANGE:
+            reader.readPlanIndex();
+            break;
+          default:
+            MetaMarker.handleUnexpectedMarker(marker);
+        }
+      }
+
+      long indexOffset = outputStream.size();
+      for (int i = 0; i < chunkOffsets.size(); i++) {
+        outputStream.writeLong(chunkOffsets.get(i));
+        outputStream.writeLong(blockOffsets.get(i));
+        outputStream.writeInt(blockSizes.get(i));
+      }
+      outputStream.writeInt(chunkOffsets.size());
+      outputStream.writeLong(indexOffset);
+    }
+  }
+
+  private static Chunk readChunk(TsFileSequenceReader reader, long chunkOffset)
+      throws IOException {
+    Chunk chunk = reader.readMemChunk(chunkOffset);
+    return new Chunk(
+        chunk.getHeader(),
+        chunk.getData(),
+        Collections.emptyList(),
+        Statistics.getStatsByType(chunk.getHeader().getDataType()));
+  }
+}
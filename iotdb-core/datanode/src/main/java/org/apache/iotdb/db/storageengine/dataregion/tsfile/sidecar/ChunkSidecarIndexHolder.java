@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile.sidecar;
+
+import org.apache.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.tsfile.fileSystem.fsFactory.FSFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The {@link ChunkSidecarIndex} of one TsFile, loaded from its sidecar file at first use. The
+ * sidecar file follows the TsFile when it is moved or removed.
+ */
+public class ChunkSidecarIndexHolder<T extends ChunkSidecarIndex> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChunkSidecarIndexHolder.class);
+  private static final FSFactory FS_FACTORY = FSFactoryProducer.getFSFactory();
+
+  /** Load the index entries of a sidecar file. */
+  @FunctionalInterface
+  public interface Loader<T> {
+    T load(File sidecarFile) throws IOException;
+  }
+
+  private final String suffix;
+  private final Loader<T> loader;
+
+  private volatile T index;
+  private volatile boolean loaded = false;
+
+  public ChunkSidecarIndexHolder(String suffix, Loader<T> loader) {
+    this.suffix = suffix;
+    this.loader = loader;
+  }
+
+  public File getSidecarFile(File tsFile) {
+    return new File(tsFile.getPath() + suffix);
+  }
+
+  /**
+   * @return the index of the given sealed TsFile, null if it is not built
+   */
+  public T get(File tsFile) {
+    if (!loaded) {
+      synchronized (this) {
+        if (!loaded) {
+          File sidecarFile = getSidecarFile(tsFile);
+          if (sidecarFile.exists()) {
+            try {
+              index = loader.load(sidecarFile);
+            } catch (IOException e) {
+              LOGGER.warn("Failed to load sidecar index {}", sidecarFile, e);
+            }
+          }
+          loaded = true;
+        }
+      }
+    }
+    return index;
+  }
+
+  public synchronized void set(T newIndex) {
+    close();
+    index = newIndex;
+    loaded = true;
+  }
+
+  /** Move the sidecar file along with the TsFile, the index is reloaded at next use. */
+  public synchronized void moveTo(File tsFile, File targetDir) throws IOException {
+    File sidecarFile = getSidecarFile(tsFile);
+    if (sidecarFile.exists()) {
+      FS_FACTORY.moveFile(sidecarFile, FS_FACTORY.getFile(targetDir, sidecarFile.getName()));
+    }
+    close();
+    index = null;
+    loaded = false;
+  }
+
+  public synchronized void remove(File tsFile) throws IOException {
+    close();
+    FS_FACTORY.deleteIfExists(getSidecarFile(tsFile));
+  }
+
+  /** Close the channel of the loaded index, which is reopened if the index is read again. */
+  public synchronized void close() {
+    if (index != null) {
+      index.close();
+    }
+  }
+}
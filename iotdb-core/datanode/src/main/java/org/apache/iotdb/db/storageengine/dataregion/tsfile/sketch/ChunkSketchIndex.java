@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile.sketch;
+
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.approximate.TDigest;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.sidecar.ChunkSidecarIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The quantile sketches of the numeric chunks of one sealed TsFile, stored in a sidecar file next
+ * to it. The block of a chunk is its serialized {@link TDigest}.
+ */
+public class ChunkSketchIndex extends ChunkSidecarIndex {
+
+  public static final String SKETCH_SUFFIX = ".sketch";
+
+  private ChunkSketchIndex(File file) throws IOException {
+    super(file);
+  }
+
+  public static File getSketchFile(File tsFile) {
+    return new File(tsFile.getPath() + SKETCH_SUFFIX);
+  }
+
+  /** Load the index entries of the given sidecar file. */
+  public static ChunkSketchIndex load(File sketchFile) throws IOException {
+    return new ChunkSketchIndex(sketchFile);
+  }
+
+  /**
+   * @return the sketch of the chunk whose header is at the given offset, null if it has none
+   */
+  public TDigest getSketch(long chunkHeaderOffset) throws IOException {
+    ByteBuffer block = readBlock(chunkHeaderOffset);
+    return block == null ? null : TDigest.fromBytes(block);
+  }
+}
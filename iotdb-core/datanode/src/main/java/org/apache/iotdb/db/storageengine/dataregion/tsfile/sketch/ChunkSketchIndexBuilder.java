@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile.sketch;
+
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.approximate.TDigest;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.sidecar.ChunkSidecarIndexBuilder;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.read.common.BatchData;
+import org.apache.tsfile.read.reader.IChunkReader;
+import org.apache.tsfile.read.reader.IPageReader;
+import org.apache.tsfile.utils.TsPrimitiveType;
+
+import java.io.File;
+import java.io.IOException;
+
+/** Build the {@link ChunkSketchIndex} of sealed TsFiles in background. */
+public class ChunkSketchIndexBuilder extends ChunkSidecarIndexBuilder {
+
+  private ChunkSketchIndexBuilder() {
+    super(ThreadName.CHUNK_SKETCH_INDEX_BUILD);
+  }
+
+  @Override
+  protected boolean isEnabled() {
+    return IoTDBDescriptor.getInstance().getConfig().isEnableChunkQuantileSketch();
+  }
+
+  @Override
+  protected File getIndexFile(File tsFile) {
+    return ChunkSketchIndex.getSketchFile(tsFile);
+  }
+
+  @Override
+  protected void setIndex(TsFileResource tsFileResource, File indexFile) throws IOException {
+    tsFileResource.setChunkSketchIndex(ChunkSketchIndex.load(indexFile));
+  }
+
+
+  /**
+   * @return null if the chunk has no value, or some long value has no exact double representation,
+   *     in which case approx_percentile has to fail on the raw data
+   */
+  @Override
+  protected byte[] buildBlock(IChunkReader chunkReader, TSDataType dataType, boolean aligned)
+      throws IOException {
+    TDigest sketch = buildSketch(chunkReader, dataType, aligned);
+    return sketch == null || sketch.size() == 0 ? null : sketch.toSmallByteArray();
+  }
+
+  @Override
+  protected boolean isIndexable(TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+      case INT64:
+      case TIMESTAMP:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static TDigest buildSketch(IChunkReader chunkReader, TSDataType dataType, boolean aligned)
+      throws IOException {
+    boolean isLong = dataType == TSDataType.INT64 || dataType == TSDataType.TIMESTAMP;
+    TDigest sketch = new TDigest();
+    for (IPageReader pageReader : chunkReader.loadPageReaderList()) {
+      BatchData batchData = pageReader.getAllSatisfiedPageData();
+      for (; batchData.hasCurrent(); batchData.next()) {
+        TsPrimitiveType alignedValue = aligned ? batchData.getVector()[0] : null;
+        if (aligned && alignedValue == null) {
+          continue;
+        }
+        if (isLong) {
+          long value = aligned ? alignedValue.getLong() : batchData.getLong();
+          if ((long) (double) value != value) {
+            return null;
+          }
+          sketch.add(value);
+          continue;
+        }
+        switch (dataType) {
+          case INT32:
+            sketch.add(aligned ? alignedValue.getInt() : batchData.getInt());
+            break;
+          case FLOAT:
+            sketch.add(aligned ? alignedValue.getFloat() : batchData.getFloat());
+            break;
+          default:
+            sketch.add(aligned ? alignedValue.getDouble() : batchData.getDouble());
+        }
+      }
+    }
+    return sketch;
+  }
+
+  public static ChunkSketchIndexBuilder getInstance() {
+    return ChunkSketchIndexBuilderHolder.INSTANCE;
+  }
+
+  private static class ChunkSketchIndexBuilderHolder {
+    private static final ChunkSketchIndexBuilder INSTANCE = new ChunkSketchIndexBuilder();
+
+    private ChunkSketchIndexBuilderHolder() {}
+  }
+}
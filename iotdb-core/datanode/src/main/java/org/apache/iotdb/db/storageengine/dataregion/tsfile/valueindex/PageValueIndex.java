@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile.valueindex;
+
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.sidecar.ChunkSidecarIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The page level bloom filters of the INT32, INT64, TEXT and STRING chunks of one sealed TsFile,
+ * stored in a sidecar file next to it. They are looked up by the chunk, and then by the start time
+ * of the page.
+ *
+ * <p>The block of a chunk is the number of pages (int) followed by the start time (long), the
+ * number of words (int) and the words (long) of the bloom filter of every page.
+ */
+public class PageValueIndex extends ChunkSidecarIndex {
+
+  public static final String VALUE_INDEX_SUFFIX = ".vindex";
+
+  private static final int BITS_PER_VALUE = 10;
+  private static final int HASH_FUNCTION_COUNT = 3;
+
+  private PageValueIndex(File file) throws IOException {
+    super(file);
+  }
+
+  public static File getValueIndexFile(File tsFile) {
+    return new File(tsFile.getPath() + VALUE_INDEX_SUFFIX);
+  }
+
+  /** Load the index entries of the given sidecar file. */
+  public static PageValueIndex load(File valueIndexFile) throws IOException {
+    return new PageValueIndex(valueIndexFile);
+  }
+
+  /**
+   * @return the bloom filters of the pages of the chunk whose header is at the given offset, null
+   *     if the chunk is not indexed
+   */
+  public ChunkPageBlooms getChunkPageBlooms(long chunkHeaderOffset) throws IOException {
+    ByteBuffer block = readBlock(chunkHeaderOffset);
+    if (block == null) {
+      return null;
+    }
+    int pageCount = block.getInt();
+    long[] pageStartTimes = new long[pageCount];
+    long[][] pageBits = new long[pageCount][];
+    for (int page = 0; page < pageCount; page++) {
+      pageStartTimes[page] = block.getLong();
+      pageBits[page] = new long[block.getInt()];
+      for (int word = 0; word < pageBits[page].length; word++) {
+        pageBits[page][word] = block.getLong();
+      }
+    }
+    return new ChunkPageBlooms(pageStartTimes, pageBits);
+  }
+
+  /** Hash of an INT32 or INT64 value. */
+  public static long hash(long value) {
+    // the finalizer of MurmurHash3
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  /** Hash of a TEXT or STRING value. */
+  public static long hash(byte[] value) {
+    // FNV-1a
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    return hash(hash);
+  }
+
+  static long[] newBloomFilter(int distinctValueCount) {
+    int bitCount = Math.max(Long.SIZE, distinctValueCount * BITS_PER_VALUE);
+    return new long[(bitCount + Long.SIZE - 1) / Long.SIZE];
+  }
+
+  static void put(long[] bits, long hash) {
+    long bitCount = (long) bits.length * Long.SIZE;
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    for (int i = 1; i <= HASH_FUNCTION_COUNT; i++) {
+      long bit = Math.floorMod(hash1 + (long) i * hash2, bitCount);
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  static boolean mightContain(long[] bits, long hash) {
+    long bitCount = (long) bits.length * Long.SIZE;
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    for (int i = 1; i <= HASH_FUNCTION_COUNT; i++) {
+      long bit = Math.floorMod(hash1 + (long) i * hash2, bitCount);
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** The bloom filters of the pages of one chunk, ordered by the start time of the pages. */
+  public static class ChunkPageBlooms {
+
+    private final long[] pageStartTimes;
+    private final long[][] pageBits;
+
+    ChunkPageBlooms(long[] pageStartTimes, long[][] pageBits) {
+      this.pageStartTimes = pageStartTimes;
+      this.pageBits = pageBits;
+    }
+
+    /**
+     * @return false only if the page starting at the given time contains none of the values with
+     *     the given hashes
+     */
+    public boolean mightContainAny(long pageStartTime, long[] valueHashes) {
+      int i = Arrays.binarySearch(pageStartTimes, pageStartTime);
+      if (i < 0) {
+        return true;
+      }
+      for (long valueHash : valueHashes) {
+        if (mightContain(pageBits[i], valueHash)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
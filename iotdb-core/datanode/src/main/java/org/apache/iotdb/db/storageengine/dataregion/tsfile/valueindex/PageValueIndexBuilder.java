@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile.valueindex;
+
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.sidecar.ChunkSidecarIndexBuilder;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.read.common.BatchData;
+import org.apache.tsfile.read.reader.IChunkReader;
+import org.apache.tsfile.read.reader.IPageReader;
+import org.apache.tsfile.utils.TsPrimitiveType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Build the {@link PageValueIndex} of sealed TsFiles in background. */
+public class PageValueIndexBuilder extends ChunkSidecarIndexBuilder {
+
+  private PageValueIndexBuilder() {
+    super(ThreadName.PAGE_VALUE_INDEX_BUILD);
+  }
+
+  @Override
+  protected boolean isEnabled() {
+    return IoTDBDescriptor.getInstance().getConfig().isEnablePageValueIndex();
+  }
+
+  @Override
+  protected File getIndexFile(File tsFile) {
+    return PageValueIndex.getValueIndexFile(tsFile);
+  }
+
+  @Override
+  protected void setIndex(TsFileResource tsFileResource, File indexFile) throws IOException {
+    tsFileResource.setPageValueIndex(PageValueIndex.load(indexFile));
+  }
+
+  @Override
+  protected boolean isIndexable(TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+      case INT64:
+      case TEXT:
+      case STRING:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /** Pages without any row are left out, queries never skip them. */
+  @Override
+  protected byte[] buildBlock(IChunkReader chunkReader, TSDataType dataType, boolean aligned)
+      throws IOException {
+    List<Long> pageStartTimes = new ArrayList<>();
+    List<long[]> pageBits = new ArrayList<>();
+    for (IPageReader pageReader : chunkReader.loadPageReaderList()) {
+      BatchData batchData = pageReader.getAllSatisfiedPageData();
+      if (!batchData.hasCurrent()) {
+        continue;
+      }
+      long pageStartTime = batchData.currentTime();
+      long[] hashes = new long[batchData.length()];
+      int hashCount = 0;
+      for (; batchData.hasCurrent(); batchData.next()) {
+        TsPrimitiveType alignedValue = aligned ? batchData.getVector()[0] : null;
+        if (aligned && alignedValue == null) {
+          continue;
+        }
+        long hash;
+        switch (dataType) {
+          case INT32:
+            hash = PageValueIndex.hash(aligned ? alignedValue.getInt() : batchData.getInt());
+            break;
+          case INT64:
+            hash = PageValueIndex.hash(aligned ? alignedValue.getLong() : batchData.getLong());
+            break;
+          default:
+            hash =
+                PageValueIndex.hash(
+                    (aligned ? alignedValue.getBinary() : batchData.getBinary()).getValues());
+        }
+        if (hashCount == hashes.length) {
+          hashes = Arrays.copyOf(hashes, Math.max(1, hashCount * 2));
+        }
+        hashes[hashCount++] = hash;
+      }
+      Arrays.sort(hashes, 0, hashCount);
+      int distinctCount = 0;
+      for (int i = 0; i < hashCount; i++) {
+        if (i == 0 || hashes[i] != hashes[i - 1]) {
+          hashes[distinctCount++] = hashes[i];
+        }
+      }
+      long[] bits = PageValueIndex.newBloomFilter(distinctCount);
+      for (int i = 0; i < distinctCount; i++) {
+        PageValueIndex.put(bits, hashes[i]);
+      }
+      pageStartTimes.add(pageStartTime);
+      pageBits.add(bits);
+    }
+
+    ByteArrayOutputStream block = new ByteArrayOutputStream();
+    DataOutputStream blockStream = new DataOutputStream(block);
+    blockStream.writeInt(pageStartTimes.size());
+    for (int i = 0; i < pageStartTimes.size(); i++) {
+      blockStream.writeLong(pageStartTimes.get(i));
+      blockStream.writeInt(pageBits.get(i).length);
+      for (long word : pageBits.get(i)) {
+        blockStream.writeLong(word);
+      }
+    }
+    blockStream.flush();
+    return block.toByteArray();
+  }
+
+  public static PageValueIndexBuilder getInstance() {
+    return PageValueIndexBuilderHolder.INSTANCE;
+  }
+
+  private static class PageValueIndexBuilderHolder {
+    private static final PageValueIndexBuilder INSTANCE = new PageValueIndexBuilder();
+
+    private PageValueIndexBuilderHolder() {}
+  }
+}
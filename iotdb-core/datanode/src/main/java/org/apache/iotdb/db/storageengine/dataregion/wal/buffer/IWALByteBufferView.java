@@ -34,6 +34,13 @@ public abstract class IWALByteBufferView extends OutputStream {
   /** Like {@link ByteBuffer#put(byte[])}. */
   public abstract void put(byte[] src);
 
+  /** Like {@link ByteBuffer#put(byte[], int, int)}. */
+  public void put(byte[] src, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      put(src[i]);
+    }
+  }
+
   /** Like {@link ByteBuffer#putChar(char)}. */
   public abstract void putChar(char value);
 
@@ -54,4 +61,32 @@ public abstract class IWALByteBufferView extends OutputStream {
 
   /** Like {@link ByteBuffer#position()}. */
   public abstract int position();
+
+  /** Put length ints of src starting from offset, like {@link #putInt(int)} one by one. */
+  public void putInts(int[] src, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      putInt(src[i]);
+    }
+  }
+
+  /** Put length longs of src starting from offset, like {@link #putLong(long)} one by one. */
+  public void putLongs(long[] src, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      putLong(src[i]);
+    }
+  }
+
+  /** Put length floats of src starting from offset, like {@link #putFloat(float)} one by one. */
+  public void putFloats(float[] src, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      putFloat(src[i]);
+    }
+  }
+
+  /** Put length doubles of src starting from offset, like {@link #putDouble(double)} one by one. */
+  public void putDoubles(double[] src, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      putDouble(src[i]);
+    }
+  }
 }
@@ -78,6 +78,8 @@ public class WALBuffer extends AbstractWALBuffer {
   private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
   public static final int ONE_THIRD_WAL_BUFFER_SIZE = config.getWalBufferSize() / 3;
   private static final double FSYNC_BUFFER_RATIO = 0.95;
+  // weight of the newest sample in the moving averages of fsync cost and arrival interval
+  private static final int MOVING_AVERAGE_SHIFT = 3;
   private static final WritingMetrics WRITING_METRICS = WritingMetrics.getInstance();
 
   // whether close method is called
@@ -123,6 +125,14 @@ public class WALBuffer extends AbstractWALBuffer {
   // manage wal files which have MemTableIds
   private final Map<Long, Set<Long>> memTableIdsOfWal = new ConcurrentHashMap<>();
 
+  // moving average of fsync cost, only updated by syncBufferThread
+  private volatile long avgFsyncCostInNs =
+      TimeUnit.MILLISECONDS.toNanos(config.getWalSyncModeFsyncDelayInMs());
+  // moving average of interval between two WALEntries, updated by writers without
+  // synchronization because a lost update only blurs the estimation
+  private volatile long avgArrivalIntervalInNs = 0;
+  private volatile long lastArrivalTimeInNs = System.nanoTime();
+
   public WALBuffer(String identifier, String logDirectory) throws IOException {
     this(identifier, logDirectory, new CheckpointManager(identifier, logDirectory), 0, 0L);
   }
@@ -205,6 +215,16 @@ public class WALBuffer extends AbstractWALBuffer {
       walEntry.getWalFlushListener().fail(new WALNodeClosedException(identifier));
       return;
     }
+    // intervals longer than the delay of sync mode make no difference to the batching, so they are
+    // bounded to let the average recover quickly after an idle period
+    long arrivalTime = System.nanoTime();
+    avgArrivalIntervalInNs =
+        movingAverage(
+            avgArrivalIntervalInNs,
+            Math.min(
+                arrivalTime - lastArrivalTimeInNs,
+                TimeUnit.MILLISECONDS.toNanos(config.getWalSyncModeFsyncDelayInMs())));
+    lastArrivalTimeInNs = arrivalTime;
     // just add this WALEntry to queue
     try {
       walEntries.put(walEntry);
@@ -214,6 +234,19 @@ public class WALBuffer extends AbstractWALBuffer {
     }
   }
 
+  /**
+   * Waiting longer than one fsync for a batch is not worthwhile, so the configured delay of sync
+   * mode is bounded by the recent fsync cost.
+   */
+  private long getSyncModeFsyncDelayInNs() {
+    return Math.min(
+        TimeUnit.MILLISECONDS.toNanos(config.getWalSyncModeFsyncDelayInMs()), avgFsyncCostInNs);
+  }
+
+  private static long movingAverage(long average, long sample) {
+    return average + ((sample - average) >> MOVING_AVERAGE_SHIFT);
+  }
+
   // region Task of serializeThread
   /** This info class traverses some extra info from serializeThread to syncBufferThread. */
   private static class SerializeInfo {
@@ -229,6 +262,10 @@ public class WALBuffer extends AbstractWALBuffer {
     private final ByteBufferView byteBufferView = new ByteBufferView();
     private final SerializeInfo info = new SerializeInfo();
     private int totalSize = 0;
+    // whether some writers are waiting for the fsync of this batch
+    private boolean hasFsyncWaiter = false;
+    // time when this batch should be fsynced for the waiting writers
+    private long fsyncDeadlineInNs;
 
     @Override
     public void run() {
@@ -263,7 +300,14 @@ public class WALBuffer extends AbstractWALBuffer {
         WALEntry walEntry = null;
         try {
           // for better fsync performance, wait a while to enlarge write batch
-          if (config.getWalMode().equals(WALMode.ASYNC)) {
+          if (hasFsyncWaiter) {
+            long remainingTimeInNs = fsyncDeadlineInNs - System.nanoTime();
+            // stop waiting when no more entry is expected before the deadline
+            if (avgArrivalIntervalInNs > remainingTimeInNs) {
+              remainingTimeInNs = 0;
+            }
+            walEntry = walEntries.poll(remainingTimeInNs, TimeUnit.NANOSECONDS);
+          } else if (config.getWalMode().equals(WALMode.ASYNC)) {
             walEntry =
                 walEntries.poll(config.getWalAsyncModeFsyncDelayInMs(), TimeUnit.MILLISECONDS);
           } else {
@@ -304,6 +348,11 @@ public class WALBuffer extends AbstractWALBuffer {
         return handleSignalEntry((WALSignalEntry) walEntry);
       }
 
+      if (!hasFsyncWaiter && walEntry.getWalFlushListener().isWait()) {
+        hasFsyncWaiter = true;
+        fsyncDeadlineInNs = System.nanoTime() + getSyncModeFsyncDelayInNs();
+      }
+
       handleInfoEntry(walEntry);
       return false;
     }
@@ -421,10 +470,15 @@ public class WALBuffer extends AbstractWALBuffer {
 
     @Override
     public void put(byte[] src) {
-      int offset = 0;
+      put(src, 0, src.length);
+    }
+
+    @Override
+    public void put(byte[] src, int offset, int length) {
+      int end = offset + length;
       while (true) {
         int leftCapacity = workingBuffer.remaining();
-        int needCapacity = src.length - offset;
+        int needCapacity = end - offset;
         if (leftCapacity >= needCapacity) {
           workingBuffer.put(src, offset, needCapacity);
           break;
@@ -476,6 +530,69 @@ public class WALBuffer extends AbstractWALBuffer {
     public int position() {
       return flushedBytesNum + workingBuffer.position();
     }
+
+    // bulk puts copy as many values as the working buffer can hold at a time through a typed view,
+    // instead of checking the capacity and calling put for each value
+
+    @Override
+    public void putInts(int[] src, int offset, int length) {
+      while (length > 0) {
+        int num = Math.min(length, workingBuffer.remaining() / Integer.BYTES);
+        if (num == 0) {
+          rollBuffer();
+          continue;
+        }
+        workingBuffer.asIntBuffer().put(src, offset, num);
+        workingBuffer.position(workingBuffer.position() + num * Integer.BYTES);
+        offset += num;
+        length -= num;
+      }
+    }
+
+    @Override
+    public void putLongs(long[] src, int offset, int length) {
+      while (length > 0) {
+        int num = Math.min(length, workingBuffer.remaining() / Long.BYTES);
+        if (num == 0) {
+          rollBuffer();
+          continue;
+        }
+        workingBuffer.asLongBuffer().put(src, offset, num);
+        workingBuffer.position(workingBuffer.position() + num * Long.BYTES);
+        offset += num;
+        length -= num;
+      }
+    }
+
+    @Override
+    public void putFloats(float[] src, int offset, int length) {
+      while (length > 0) {
+        int num = Math.min(length, workingBuffer.remaining() / Float.BYTES);
+        if (num == 0) {
+          rollBuffer();
+          continue;
+        }
+        workingBuffer.asFloatBuffer().put(src, offset, num);
+        workingBuffer.position(workingBuffer.position() + num * Float.BYTES);
+        offset += num;
+        length -= num;
+      }
+    }
+
+    @Override
+    public void putDoubles(double[] src, int offset, int length) {
+      while (length > 0) {
+        int num = Math.min(length, workingBuffer.remaining() / Double.BYTES);
+        if (num == 0) {
+          rollBuffer();
+          continue;
+        }
+        workingBuffer.asDoubleBuffer().put(src, offset, num);
+        workingBuffer.position(workingBuffer.position() + num * Double.BYTES);
+        offset += num;
+        length -= num;
+      }
+    }
   }
 
   /** Notice: this method only called when buffer is exhausted by SerializeTask. */
@@ -592,7 +709,9 @@ public class WALBuffer extends AbstractWALBuffer {
       } else if (forceFlag) { // force os cache to the storage device, avoid force twice by judging
         // after rolling file
         try {
+          long forceStartTime = System.nanoTime();
           currentWALFileWriter.force();
+          avgFsyncCostInNs = movingAverage(avgFsyncCostInNs, System.nanoTime() - forceStartTime);
           forceSuccess = true;
         } catch (IOException e) {
           logger.error(
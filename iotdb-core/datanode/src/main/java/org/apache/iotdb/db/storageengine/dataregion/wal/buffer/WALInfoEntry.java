@@ -58,7 +58,12 @@ public class WALInfoEntry extends WALEntry {
   }
 
   public WALInfoEntry(long memTableId, InsertTabletNode value, List<int[]> tabletRangeList) {
-    this(memTableId, value, config.getWalMode() == WALMode.SYNC);
+    this(memTableId, value, tabletRangeList, config.getWalMode() == WALMode.SYNC);
+  }
+
+  public WALInfoEntry(
+      long memTableId, InsertTabletNode value, List<int[]> tabletRangeList, boolean wait) {
+    this(memTableId, value, wait);
     tabletInfo = new TabletInfo(tabletRangeList);
   }
 
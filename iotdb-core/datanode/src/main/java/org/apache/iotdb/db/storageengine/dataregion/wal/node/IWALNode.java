@@ -30,6 +30,7 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.node.write.ObjectNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.write.RelationalDeleteDataNode;
 import org.apache.iotdb.db.storageengine.dataregion.flush.FlushListener;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.IMemTable;
+import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALMode;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.listener.WALFlushListener;
 
 import java.util.List;
@@ -46,6 +47,19 @@ public interface IWALNode extends FlushListener, AutoCloseable, ConsensusReqRead
   /** Log InsertTabletNode. */
   WALFlushListener log(long memTableId, InsertTabletNode insertTabletNode, List<int[]> rangeList);
 
+  /** Log InsertRowNode, waiting for fsync only when walMode is SYNC. */
+  WALFlushListener log(long memTableId, InsertRowNode insertRowNode, WALMode walMode);
+
+  /** Log InsertRowsNode, waiting for fsync only when walMode is SYNC. */
+  WALFlushListener log(long memTableId, InsertRowsNode insertRowsNode, WALMode walMode);
+
+  /** Log InsertTabletNode, waiting for fsync only when walMode is SYNC. */
+  WALFlushListener log(
+      long memTableId,
+      InsertTabletNode insertTabletNode,
+      List<int[]> rangeList,
+      WALMode walMode);
+
   /** Log DeleteDataNode. */
   WALFlushListener log(long memTableId, DeleteDataNode deleteDataNode);
 
@@ -28,6 +28,7 @@ import org.apache.iotdb.db.queryengine.plan.planner.plan.node.write.ObjectNode;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.write.RelationalDeleteDataNode;
 import org.apache.iotdb.db.storageengine.dataregion.memtable.IMemTable;
 import org.apache.iotdb.db.storageengine.dataregion.wal.exception.WALException;
+import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALMode;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.listener.AbstractResultListener.Status;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.listener.WALFlushListener;
 
@@ -67,6 +68,25 @@ public class WALFakeNode implements IWALNode {
     return getResult();
   }
 
+  @Override
+  public WALFlushListener log(long memTableId, InsertRowNode insertRowNode, WALMode walMode) {
+    return getResult();
+  }
+
+  @Override
+  public WALFlushListener log(long memTableId, InsertRowsNode insertRowsNode, WALMode walMode) {
+    return getResult();
+  }
+
+  @Override
+  public WALFlushListener log(
+      long memTableId,
+      InsertTabletNode insertTabletNode,
+      List<int[]> rangeList,
+      WALMode walMode) {
+    return getResult();
+  }
+
   @Override
   public WALFlushListener log(long memTableId, DeleteDataNode deleteDataNode) {
     return getResult();
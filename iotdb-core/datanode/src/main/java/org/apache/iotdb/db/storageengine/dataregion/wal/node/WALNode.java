@@ -54,6 +54,7 @@ import org.apache.iotdb.db.storageengine.dataregion.wal.checkpoint.MemTableInfo;
 import org.apache.iotdb.db.storageengine.dataregion.wal.io.WALByteBufReader;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALFileStatus;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALFileUtils;
+import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALMode;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.listener.AbstractResultListener;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.listener.AbstractResultListener.Status;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.listener.WALFlushListener;
@@ -135,32 +136,52 @@ public class WALNode implements IWALNode {
 
   @Override
   public WALFlushListener log(long memTableId, InsertRowNode insertRowNode) {
+    return log(memTableId, insertRowNode, config.getWalMode());
+  }
+
+  @Override
+  public WALFlushListener log(long memTableId, InsertRowsNode insertRowsNode) {
+    return log(memTableId, insertRowsNode, config.getWalMode());
+  }
+
+  @Override
+  public WALFlushListener log(
+      long memTableId, InsertTabletNode insertTabletNode, List<int[]> rangeList) {
+    return log(memTableId, insertTabletNode, rangeList, config.getWalMode());
+  }
+
+  @Override
+  public WALFlushListener log(long memTableId, InsertRowNode insertRowNode, WALMode walMode) {
     logger.debug(
         "WAL node-{} logs insertRowNode, the search index is {}.",
         identifier,
         insertRowNode.getSearchIndex());
-    WALEntry walEntry = new WALInfoEntry(memTableId, insertRowNode);
+    WALEntry walEntry = new WALInfoEntry(memTableId, insertRowNode, walMode == WALMode.SYNC);
     return log(walEntry);
   }
 
   @Override
-  public WALFlushListener log(long memTableId, InsertRowsNode insertRowsNode) {
+  public WALFlushListener log(long memTableId, InsertRowsNode insertRowsNode, WALMode walMode) {
     logger.debug(
         "WAL node-{} logs insertRowsNode, the search index is {}.",
         identifier,
         insertRowsNode.getSearchIndex());
-    WALEntry walEntry = new WALInfoEntry(memTableId, insertRowsNode);
+    WALEntry walEntry = new WALInfoEntry(memTableId, insertRowsNode, walMode == WALMode.SYNC);
     return log(walEntry);
   }
 
   @Override
   public WALFlushListener log(
-      long memTableId, InsertTabletNode insertTabletNode, List<int[]> rangeList) {
+      long memTableId,
+      InsertTabletNode insertTabletNode,
+      List<int[]> rangeList,
+      WALMode walMode) {
     logger.debug(
         "WAL node-{} logs insertTabletNode, the search index is {}.",
         identifier,
         insertTabletNode.getSearchIndex());
-    WALEntry walEntry = new WALInfoEntry(memTableId, insertTabletNode, rangeList);
+    WALEntry walEntry =
+        new WALInfoEntry(memTableId, insertTabletNode, rangeList, walMode == WALMode.SYNC);
     return log(walEntry);
   }
 
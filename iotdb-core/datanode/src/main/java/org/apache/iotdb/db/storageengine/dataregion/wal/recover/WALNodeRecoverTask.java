@@ -52,7 +52,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.iotdb.consensus.iot.log.ConsensusReqReader.DEFAULT_SEARCH_INDEX;
@@ -67,14 +71,20 @@ public class WALNodeRecoverTask implements Runnable {
   private final File logDirectory;
   // latch to collect all nodes' recovery end information
   private final CountDownLatch allNodesRecoveredLatch;
+  // threads to decode wal entries and redo them, entries of one memTable are redone in order
+  private final ExecutorService redoThreadPool;
+  // limits the bytes of wal entries read ahead but not redone yet
+  private final Semaphore readAheadBytes = new Semaphore(config.getWalBufferSize());
   // version id of first valid .wal file
   private long firstValidVersionId = Long.MAX_VALUE;
   private Map<Long, MemTableInfo> memTableId2Info;
   private Map<Long, UnsealedTsFileRecoverPerformer> memTableId2RecoverPerformer;
 
-  public WALNodeRecoverTask(File logDirectory, CountDownLatch allNodesRecoveredLatch) {
+  public WALNodeRecoverTask(
+      File logDirectory, CountDownLatch allNodesRecoveredLatch, ExecutorService redoThreadPool) {
     this.logDirectory = logDirectory;
     this.allNodesRecoveredLatch = allNodesRecoveredLatch;
+    this.redoThreadPool = redoThreadPool;
   }
 
   @Override
@@ -258,7 +268,8 @@ public class WALNodeRecoverTask implements Runnable {
     }
     // asc sort by version id
     WALFileUtils.ascSortByVersionId(walFiles);
-    // read .wal files and redo logs
+    // read .wal files and redo logs, the last redo of each memTable
+    Map<Long, CompletableFuture<Void>> memTableId2LastRedo = new HashMap<>();
     for (int i = 0; i < walFiles.length; ++i) {
       File walFile = walFiles[i];
       try (WALByteBufReader reader = new WALByteBufReader(walFile)) {
@@ -273,18 +284,27 @@ public class WALNodeRecoverTask implements Runnable {
           if (!memTableId2Info.containsKey(memTableId)) {
             continue;
           }
-          buffer.clear();
-          WALEntry walEntry =
-              WALEntry.deserialize(new DataInputStream(new ByteArrayInputStream(buffer.array())));
           UnsealedTsFileRecoverPerformer recoverPerformer =
-              memTableId2RecoverPerformer.get(walEntry.getMemTableId());
-          if (recoverPerformer != null) {
-            recoverPerformer.redoLog(walEntry);
-          } else {
+              memTableId2RecoverPerformer.get(memTableId);
+          if (recoverPerformer == null) {
             logger.debug(
                 "Fail to find TsFile recover performer for wal entry in TsFile {}", walFile);
+            continue;
           }
+          buffer.clear();
+          memTableId2LastRedo.put(
+              memTableId,
+              submitRedo(
+                  buffer,
+                  recoverPerformer,
+                  memTableId2LastRedo.getOrDefault(
+                      memTableId, CompletableFuture.completedFuture(null)),
+                  walFile));
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.warn("Interrupted when reading wal logs from {}", walFile);
+        break;
       } catch (BrokenWALFileException e) {
         logger.warn(
             "Fail to read memTable ids from the wal file {} of wal node: {}",
@@ -299,9 +319,53 @@ public class WALNodeRecoverTask implements Runnable {
         logger.warn("Fail to read wal logs from {}, skip them", walFile, e);
       }
     }
+    CompletableFuture.allOf(memTableId2LastRedo.values().toArray(new CompletableFuture[0])).join();
     endRecovery();
   }
 
+  /**
+   * Decode the wal entry on the redo thread pool and redo it after the previous entry of the same
+   * memTable, so that entries are decoded in parallel and memTables are redone in parallel.
+   */
+  private CompletableFuture<Void> submitRedo(
+      ByteBuffer buffer,
+      UnsealedTsFileRecoverPerformer recoverPerformer,
+      CompletableFuture<Void> lastRedo,
+      File walFile)
+      throws InterruptedException {
+    // an entry larger than the limit only waits for all the entries before it
+    int permits = Math.min(buffer.capacity(), config.getWalBufferSize());
+    readAheadBytes.acquire(permits);
+    CompletableFuture<WALEntry> decode =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return WALEntry.deserialize(
+                    new DataInputStream(new ByteArrayInputStream(buffer.array())));
+              } catch (IOException e) {
+                throw new CompletionException(e);
+              }
+            },
+            redoThreadPool);
+    return lastRedo
+        .thenCombineAsync(
+            decode,
+            (ignored, walEntry) -> {
+              recoverPerformer.redoLog(walEntry);
+              return (Void) null;
+            },
+            redoThreadPool)
+        .handle(
+            (ignored, e) -> {
+              readAheadBytes.release(permits);
+              if (e != null) {
+                // only skip this entry, the following entries of the memTable are still redone
+                logger.warn("Fail to redo wal log from {}, skip it", walFile, e);
+              }
+              return null;
+            });
+  }
+
   private void endRecovery() {
     // end recovering all recover performers
     for (UnsealedTsFileRecoverPerformer recoverPerformer : memTableId2RecoverPerformer.values()) {
@@ -64,6 +64,8 @@ public class WALRecoverManager {
 
   // threads to recover wal nodes
   private ExecutorService recoverThreadPool;
+  // threads shared by all wal nodes to decode wal entries and redo them
+  private ExecutorService redoThreadPool;
   // stores all UnsealedTsFileRecoverPerformer submitted by data region processors
   private final Map<String, UnsealedTsFileRecoverPerformer> absolutePath2RecoverPerformer =
       new ConcurrentHashMap<>();
@@ -105,9 +107,13 @@ public class WALRecoverManager {
       if (!walNodeDirs.isEmpty()) {
         recoverThreadPool =
             IoTDBThreadPoolFactory.newCachedThreadPool(ThreadName.WAL_RECOVER.getName());
+        redoThreadPool =
+            IoTDBThreadPoolFactory.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), ThreadName.WAL_REDO.getName());
         CountDownLatch allNodesRecoveredLatch = new CountDownLatch(walNodeDirs.size());
         for (File walNodeDir : walNodeDirs) {
-          recoverThreadPool.submit(new WALNodeRecoverTask(walNodeDir, allNodesRecoveredLatch));
+          recoverThreadPool.submit(
+              new WALNodeRecoverTask(walNodeDir, allNodesRecoveredLatch, redoThreadPool));
         }
 
         try {
@@ -228,6 +234,10 @@ public class WALRecoverManager {
       recoverThreadPool.shutdown();
       recoverThreadPool = null;
     }
+    if (redoThreadPool != null) {
+      redoThreadPool.shutdown();
+      redoThreadPool = null;
+    }
   }
 
   @TestOnly
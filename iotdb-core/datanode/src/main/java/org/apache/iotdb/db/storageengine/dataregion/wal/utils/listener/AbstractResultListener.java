@@ -41,6 +41,10 @@ public abstract class AbstractResultListener {
     this.cause = null;
   }
 
+  public boolean isWait() {
+    return wait;
+  }
+
   /** Set status to success and notify all threads waiting for the result. */
   public synchronized AbstractResultListener succeed() {
     status = Status.SUCCESS;
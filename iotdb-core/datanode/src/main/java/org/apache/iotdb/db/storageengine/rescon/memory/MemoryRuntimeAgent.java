@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.rescon.memory;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.commons.concurrent.threadpool.ScheduledExecutorUtil;
+import org.apache.iotdb.commons.memory.MemoryManager;
+import org.apache.iotdb.commons.service.IService;
+import org.apache.iotdb.commons.service.ServiceType;
+import org.apache.iotdb.db.conf.DataNodeMemoryConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Moves the on heap memory among the storage engine, the query engine and the pipe periodically
+ * according to their pressure, see {@link MemoryManager#rebalanceElasticChildren(long)}.
+ */
+public class MemoryRuntimeAgent implements IService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MemoryRuntimeAgent.class);
+
+  private static final DataNodeMemoryConfig MEMORY_CONFIG =
+      IoTDBDescriptor.getInstance().getMemoryConfig();
+
+  /** 1 / the proportion of the elastic memory moved from a memory pool to another in one round */
+  private static final long REBALANCE_STEP_DIVISOR = 20;
+
+  private ScheduledExecutorService rebalanceExecutor;
+
+  private long rebalanceStepInBytes;
+
+  private MemoryRuntimeAgent() {}
+
+  @Override
+  public void start() {
+    if (!MEMORY_CONFIG.isEnableElasticMemory()) {
+      return;
+    }
+    MemoryManager storageEngineMemoryManager = MEMORY_CONFIG.getStorageEngineMemoryManager();
+    MemoryManager queryEngineMemoryManager = MEMORY_CONFIG.getQueryEngineMemoryManager();
+    MemoryManager pipeMemoryManager = MEMORY_CONFIG.getPipeMemoryManager();
+
+    // the memtables are not allocated from memory blocks, so their usage is reported by SystemInfo
+    setElastic(
+        storageEngineMemoryManager,
+        () -> {
+          SystemInfo systemInfo = SystemInfo.getInstance();
+          return systemInfo.getFlushThreshold() == 0
+              ? 0
+              : systemInfo.getTotalMemTableSize() / systemInfo.getFlushThreshold();
+        });
+    storageEngineMemoryManager.addResizeListener(
+        (oldSize, newSize) -> SystemInfo.getInstance().loadWriteMemory());
+    // the caches of the query engine are always full, so only the operators tell its pressure, and
+    // the caches follow the memory lent or borrowed by their resize listeners
+    setElastic(queryEngineMemoryManager, MEMORY_CONFIG.getOperatorsMemoryManager()::getUsageRatio);
+    setElastic(pipeMemoryManager, null);
+
+    rebalanceStepInBytes =
+        (storageEngineMemoryManager.getTotalMemorySizeInBytes()
+                + queryEngineMemoryManager.getTotalMemorySizeInBytes()
+                + pipeMemoryManager.getTotalMemorySizeInBytes())
+            / REBALANCE_STEP_DIVISOR;
+    rebalanceExecutor =
+        IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor(
+            ThreadName.MEMORY_PERIODICAL_JOB_EXECUTOR.getName());
+    ScheduledExecutorUtil.safelyScheduleWithFixedDelay(
+        rebalanceExecutor,
+        this::rebalance,
+        MEMORY_CONFIG.getElasticMemoryRebalanceIntervalInMs(),
+        MEMORY_CONFIG.getElasticMemoryRebalanceIntervalInMs(),
+        TimeUnit.MILLISECONDS);
+    LOGGER.info(
+        "Elastic memory is enabled, rebalance {} bytes at most every {} ms",
+        rebalanceStepInBytes,
+        MEMORY_CONFIG.getElasticMemoryRebalanceIntervalInMs());
+  }
+
+  private void setElastic(MemoryManager memoryManager, DoubleSupplier usageRatioSupplier) {
+    long totalMemorySizeInBytes = memoryManager.getTotalMemorySizeInBytes();
+    memoryManager.setElastic(
+        (long) (totalMemorySizeInBytes * MEMORY_CONFIG.getElasticMemoryMinProportion()),
+        (long) (totalMemorySizeInBytes * MEMORY_CONFIG.getElasticMemoryMaxProportion()),
+        usageRatioSupplier);
+  }
+
+  private void rebalance() {
+    MEMORY_CONFIG.getOnHeapMemoryManager().rebalanceElasticChildren(rebalanceStepInBytes);
+  }
+
+  @Override
+  public void stop() {
+    if (rebalanceExecutor != null) {
+      rebalanceExecutor.shutdownNow();
+      rebalanceExecutor = null;
+    }
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.MEMORY_RUNTIME_AGENT;
+  }
+
+  public static MemoryRuntimeAgent getInstance() {
+    return MemoryRuntimeAgentHolder.INSTANCE;
+  }
+
+  private static class MemoryRuntimeAgentHolder {
+
+    private static final MemoryRuntimeAgent INSTANCE = new MemoryRuntimeAgent();
+
+    private MemoryRuntimeAgentHolder() {}
+  }
+}
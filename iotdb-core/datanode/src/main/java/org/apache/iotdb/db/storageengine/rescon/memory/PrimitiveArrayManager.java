@@ -20,6 +20,7 @@ package org.apache.iotdb.db.storageengine.rescon.memory;
 
 import org.apache.iotdb.commons.memory.IMemoryBlock;
 import org.apache.iotdb.commons.memory.MemoryBlockType;
+import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.DataNodeMemoryConfig;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -32,6 +33,8 @@ import org.apache.tsfile.write.UnSupportedDataTypeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
@@ -62,9 +65,17 @@ public class PrimitiveArrayManager {
           .getBufferedArraysMemoryManager()
           .exactAllocate("BufferedArrays", MemoryBlockType.DYNAMIC);
 
+  /**
+   * The pooled direct buffers of off-heap TVLists are charged to POOLED_ARRAYS_MEMORY_BLOCK, but
+   * may only take this ratio of it, the heap arrays are pooled within the rest.
+   */
+  private static final double POOLED_DIRECT_BUFFERS_MEMORY_RATIO = 0.2;
+
   /** threshold total size of arrays for all data types */
   private static final double POOLED_ARRAYS_MEMORY_THRESHOLD =
-      POOLED_ARRAYS_MEMORY_BLOCK.getTotalMemorySizeInBytes() / AMPLIFICATION_FACTOR;
+      POOLED_ARRAYS_MEMORY_BLOCK.getTotalMemorySizeInBytes()
+          * (CONFIG.isEnableOffHeapTVList() ? 1 - POOLED_DIRECT_BUFFERS_MEMORY_RATIO : 1)
+          / AMPLIFICATION_FACTOR;
 
   /** TSDataType#serialize() -> ArrayDeque<Array>, VECTOR and UNKNOWN are ignored */
   private static final ArrayDeque[] POOLED_ARRAYS = new ArrayDeque[TSDataType.values().length];
@@ -87,6 +98,21 @@ public class PrimitiveArrayManager {
 
   private static final AtomicLong TOTAL_ALLOCATION_REQUEST_COUNT = new AtomicLong(0);
 
+  /**
+   * element size in bytes -> ArrayDeque<ByteBuffer> of ARRAY_SIZE elements, only for off-heap
+   * TVLists. Direct memory is released lazily by GC, so the buffers are pooled for reuse instead.
+   */
+  private static final ArrayDeque[] POOLED_DIRECT_BUFFERS = new ArrayDeque[Long.BYTES + 1];
+
+  /** total size of the pooled direct buffers, which is allocated from POOLED_ARRAYS_MEMORY_BLOCK */
+  private static final AtomicLong POOLED_DIRECT_BUFFERS_SIZE = new AtomicLong(0);
+
+  static {
+    for (int i = 0; i < POOLED_DIRECT_BUFFERS.length; ++i) {
+      POOLED_DIRECT_BUFFERS[i] = new ArrayDeque<>();
+    }
+  }
+
   static {
     init();
   }
@@ -163,6 +189,29 @@ public class PrimitiveArrayManager {
     return array;
   }
 
+  /**
+   * Get or allocate a direct buffer holding ARRAY_SIZE values of the data type, only for the
+   * off-heap TVLists of fixed length data types.
+   *
+   * @return a direct buffer in native byte order
+   */
+  public static ByteBuffer allocateDirect(TSDataType dataType) {
+    int elementSize = dataType.getDataTypeSize();
+    ByteBuffer buffer;
+    synchronized (POOLED_DIRECT_BUFFERS[elementSize]) {
+      buffer = (ByteBuffer) POOLED_DIRECT_BUFFERS[elementSize].poll();
+    }
+    StorageEngineMemoryMetrics.getInstance().incPamAllocation();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(ARRAY_SIZE * elementSize).order(ByteOrder.nativeOrder());
+      StorageEngineMemoryMetrics.getInstance().incPamAllocationFailure();
+    } else {
+      POOLED_DIRECT_BUFFERS_SIZE.addAndGet(-buffer.capacity());
+      POOLED_ARRAYS_MEMORY_BLOCK.release(buffer.capacity());
+    }
+    return buffer;
+  }
+
   private static void updateLimits() {
     // we want to update LIMITS[i] according to ratios[i]
     double[] ratios = new double[ALLOCATION_REQUEST_COUNTS.length];
@@ -279,6 +328,9 @@ public class PrimitiveArrayManager {
     } else if (array instanceof Binary[]) {
       Arrays.fill((Binary[]) array, null);
       order = TSDataType.TEXT.serialize();
+    } else if (array instanceof ByteBuffer) {
+      releaseDirect((ByteBuffer) array);
+      return;
     } else {
       throw new UnSupportedDataTypeException(array.getClass().toString());
     }
@@ -294,8 +346,33 @@ public class PrimitiveArrayManager {
     }
   }
 
+  private static void releaseDirect(ByteBuffer buffer) {
+    StorageEngineMemoryMetrics.getInstance().incPamRelease();
+    if (!POOLED_ARRAYS_MEMORY_BLOCK.allocateIfSufficient(
+        buffer.capacity(), POOLED_DIRECT_BUFFERS_MEMORY_RATIO)) {
+      StorageEngineMemoryMetrics.getInstance().incPamReleaseFailure();
+      return;
+    }
+    buffer.clear();
+    synchronized (POOLED_DIRECT_BUFFERS[buffer.capacity() / ARRAY_SIZE]) {
+      POOLED_DIRECT_BUFFERS[buffer.capacity() / ARRAY_SIZE].add(buffer);
+    }
+    POOLED_DIRECT_BUFFERS_SIZE.addAndGet(buffer.capacity());
+  }
+
   public static void close() {
     init();
+    for (ArrayDeque<?> buffers : POOLED_DIRECT_BUFFERS) {
+      synchronized (buffers) {
+        buffers.clear();
+      }
+    }
+    POOLED_ARRAYS_MEMORY_BLOCK.release(POOLED_DIRECT_BUFFERS_SIZE.getAndSet(0));
+  }
+
+  @TestOnly
+  public static long getPooledDirectBuffersSize() {
+    return POOLED_DIRECT_BUFFERS_SIZE.get();
   }
 
   /**
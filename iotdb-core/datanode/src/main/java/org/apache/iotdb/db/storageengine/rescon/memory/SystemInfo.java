@@ -134,6 +134,8 @@ public class SystemInfo {
           totalStorageGroupMemCost,
           REJECT_THRESHOLD);
       rejected = true;
+      // let the elastic memory rebalancing lend more memory to writing
+      memoryConfig.getMemtableMemoryManager().recordRejectedAllocation();
       if (chooseMemTablesToMarkFlush(tsFileProcessor)) {
         if (totalStorageGroupMemCost < memorySizeForMemtable) {
           return true;
@@ -645,12 +645,34 @@ public class QueryDataSetUtils {
 
   public static long[] readTimesFromBuffer(ByteBuffer buffer, int size) {
     long[] times = new long[size];
-    for (int i = 0; i < size; i++) {
-      times[i] = buffer.getLong();
-    }
+    readLongs(buffer, times);
     return times;
   }
 
+  /** Fill dst with ints read from buffer in bulk, like {@link ByteBuffer#getInt()} one by one. */
+  public static void readInts(ByteBuffer buffer, int[] dst) {
+    buffer.asIntBuffer().get(dst);
+    buffer.position(buffer.position() + dst.length * Integer.BYTES);
+  }
+
+  /** Fill dst with longs read from buffer in bulk, like {@link ByteBuffer#getLong()} one by one. */
+  public static void readLongs(ByteBuffer buffer, long[] dst) {
+    buffer.asLongBuffer().get(dst);
+    buffer.position(buffer.position() + dst.length * Long.BYTES);
+  }
+
+  /** Fill dst with floats read from buffer in bulk, like {@link ByteBuffer#getFloat()}. */
+  public static void readFloats(ByteBuffer buffer, float[] dst) {
+    buffer.asFloatBuffer().get(dst);
+    buffer.position(buffer.position() + dst.length * Float.BYTES);
+  }
+
+  /** Fill dst with doubles read from buffer in bulk, like {@link ByteBuffer#getDouble()}. */
+  public static void readDoubles(ByteBuffer buffer, double[] dst) {
+    buffer.asDoubleBuffer().get(dst);
+    buffer.position(buffer.position() + dst.length * Double.BYTES);
+  }
+
   public static long[] readTimesFromStream(DataInputStream stream, int size) throws IOException {
     long[] times = new long[size];
     for (int i = 0; i < size; i++) {
@@ -730,31 +752,23 @@ public class QueryDataSetUtils {
         case INT32:
         case DATE:
           int[] intValues = new int[size];
-          for (int index = 0; index < size; index++) {
-            intValues[index] = buffer.getInt();
-          }
+          readInts(buffer, intValues);
           values[i] = intValues;
           break;
         case INT64:
         case TIMESTAMP:
           long[] longValues = new long[size];
-          for (int index = 0; index < size; index++) {
-            longValues[index] = buffer.getLong();
-          }
+          readLongs(buffer, longValues);
           values[i] = longValues;
           break;
         case FLOAT:
           float[] floatValues = new float[size];
-          for (int index = 0; index < size; index++) {
-            floatValues[index] = buffer.getFloat();
-          }
+          readFloats(buffer, floatValues);
           values[i] = floatValues;
           break;
         case DOUBLE:
           double[] doubleValues = new double[size];
-          for (int index = 0; index < size; index++) {
-            doubleValues[index] = buffer.getDouble();
-          }
+          readDoubles(buffer, doubleValues);
           values[i] = doubleValues;
           break;
         case TEXT:
@@ -112,8 +112,12 @@ public class TabletDecoder {
     TSDataType dataType = TSDataType.INT64;
     TSEncoding encodingType = columnEncodings.get(0);
 
-    Decoder decoder = Decoder.getDecoderByType(encodingType, dataType);
     long[] result = new long[rowCount];
+    if (encodingType == TSEncoding.PLAIN) {
+      QueryDataSetUtils.readLongs(buffer, result);
+      return result;
+    }
+    Decoder decoder = Decoder.getDecoderByType(encodingType, dataType);
     for (int i = 0; i < rowCount; i++) {
       result[i] = decoder.readLong(buffer);
     }
@@ -150,9 +154,7 @@ public class TabletDecoder {
         int[] intCol = new int[rowSize];
         if (encoding == TSEncoding.PLAIN) {
           // PlainEncoder uses var int, which may cause compatibility problem
-          for (int j = 0; j < rowSize; j++) {
-            intCol[j] = ReadWriteIOUtils.readInt(uncompressed);
-          }
+          QueryDataSetUtils.readInts(uncompressed, intCol);
         } else {
           for (int j = 0; j < rowSize; j++) {
             intCol[j] = decoder.readInt(uncompressed);
@@ -163,22 +165,34 @@ public class TabletDecoder {
       case INT64:
       case TIMESTAMP:
         long[] longCol = new long[rowSize];
-        for (int j = 0; j < rowSize; j++) {
-          longCol[j] = decoder.readLong(uncompressed);
+        if (encoding == TSEncoding.PLAIN) {
+          QueryDataSetUtils.readLongs(uncompressed, longCol);
+        } else {
+          for (int j = 0; j < rowSize; j++) {
+            longCol[j] = decoder.readLong(uncompressed);
+          }
         }
         column = longCol;
         break;
       case FLOAT:
         float[] floatCol = new float[rowSize];
-        for (int j = 0; j < rowSize; j++) {
-          floatCol[j] = decoder.readFloat(uncompressed);
+        if (encoding == TSEncoding.PLAIN) {
+          QueryDataSetUtils.readFloats(uncompressed, floatCol);
+        } else {
+          for (int j = 0; j < rowSize; j++) {
+            floatCol[j] = decoder.readFloat(uncompressed);
+          }
         }
         column = floatCol;
         break;
       case DOUBLE:
         double[] doubleCol = new double[rowSize];
-        for (int j = 0; j < rowSize; j++) {
-          doubleCol[j] = decoder.readDouble(uncompressed);
+        if (encoding == TSEncoding.PLAIN) {
+          QueryDataSetUtils.readDoubles(uncompressed, doubleCol);
+        } else {
+          for (int j = 0; j < rowSize; j++) {
+            doubleCol[j] = decoder.readDouble(uncompressed);
+          }
         }
         column = doubleCol;
         break;
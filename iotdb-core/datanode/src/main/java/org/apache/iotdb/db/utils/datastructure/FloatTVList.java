@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.utils.datastructure;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.storageengine.dataregion.wal.buffer.IWALByteBufferView;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALWriteUtils;
 import org.apache.iotdb.db.storageengine.rescon.memory.PrimitiveArrayManager;
@@ -34,6 +35,8 @@ import org.apache.tsfile.utils.TsPrimitiveType;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -46,10 +49,16 @@ public abstract class FloatTVList extends TVList {
   // list of primitive array, add 1 when expanded -> float primitive array
   // index relation: arrayIndex -> elementIndex
   protected List<float[]> values;
+  // list of direct buffers used instead of values when off-heap TVList is enabled
+  protected List<ByteBuffer> directValues;
 
   FloatTVList() {
     super();
-    values = new ArrayList<>();
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableOffHeapTVList()) {
+      directValues = new ArrayList<>();
+    } else {
+      values = new ArrayList<>();
+    }
   }
 
   public static FloatTVList newList() {
@@ -69,6 +78,7 @@ public abstract class FloatTVList extends TVList {
     cloneAs(cloneList);
     cloneList.bitMap = this.bitMap;
     cloneList.values = this.values;
+    cloneList.directValues = this.directValues;
     return cloneList;
   }
 
@@ -77,6 +87,12 @@ public abstract class FloatTVList extends TVList {
     FloatTVList cloneList = FloatTVList.newList();
     cloneAs(cloneList);
     cloneBitMap(cloneList);
+    if (directValues != null) {
+      for (ByteBuffer valueBuffer : directValues) {
+        cloneList.directValues.add(cloneDirectValue(valueBuffer, TSDataType.FLOAT));
+      }
+      return cloneList;
+    }
     for (float[] valueArray : values) {
       cloneList.values.add(cloneValue(valueArray));
     }
@@ -97,7 +113,11 @@ public abstract class FloatTVList extends TVList {
     maxTime = Math.max(maxTime, timestamp);
     minTime = Math.min(minTime, timestamp);
     timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    values.get(arrayIndex)[elementIndex] = value;
+    if (directValues != null) {
+      directValues.get(arrayIndex).putFloat(elementIndex * Float.BYTES, value);
+    } else {
+      values.get(arrayIndex)[elementIndex] = value;
+    }
     if (indices != null) {
       indices.get(arrayIndex)[elementIndex] = rowCount;
     }
@@ -119,11 +139,20 @@ public abstract class FloatTVList extends TVList {
     int valueIndex = getValueIndex(index);
     int arrayIndex = valueIndex / ARRAY_SIZE;
     int elementIndex = valueIndex % ARRAY_SIZE;
+    if (directValues != null) {
+      return directValues.get(arrayIndex).getFloat(elementIndex * Float.BYTES);
+    }
     return values.get(arrayIndex)[elementIndex];
   }
 
   @Override
   protected void clearValue() {
+    if (directValues != null) {
+      for (ByteBuffer dataBuffer : directValues) {
+        PrimitiveArrayManager.release(dataBuffer);
+      }
+      directValues.clear();
+    }
     if (values != null) {
       for (float[] dataArray : values) {
         PrimitiveArrayManager.release(dataArray);
@@ -137,7 +166,11 @@ public abstract class FloatTVList extends TVList {
     if (indices != null) {
       indices.add((int[]) getPrimitiveArraysByType(TSDataType.INT32));
     }
-    values.add((float[]) getPrimitiveArraysByType(TSDataType.FLOAT));
+    if (directValues != null) {
+      directValues.add(PrimitiveArrayManager.allocateDirect(TSDataType.FLOAT));
+    } else {
+      values.add((float[]) getPrimitiveArraysByType(TSDataType.FLOAT));
+    }
     if (bitMap != null) {
       bitMap.add(null);
     }
@@ -214,7 +247,7 @@ public abstract class FloatTVList extends TVList {
         // the remaining inputs can fit the last array, copy all remaining inputs into last array
         System.arraycopy(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, inputRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
+        copyValues(value, idx, arrayIdx, elementIdx, inputRemaining);
         if (indices != null) {
           int[] indexes = IntStream.range(rowCount, rowCount + inputRemaining).toArray();
           System.arraycopy(indexes, 0, indices.get(arrayIdx), elementIdx, inputRemaining);
@@ -226,7 +259,7 @@ public abstract class FloatTVList extends TVList {
         // one and enter the next loop
         System.arraycopy(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, internalRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
+        copyValues(value, idx, arrayIdx, elementIdx, internalRemaining);
         if (indices != null) {
           int[] indexes = IntStream.range(rowCount, rowCount + internalRemaining).toArray();
           System.arraycopy(indexes, 0, indices.get(arrayIdx), elementIdx, internalRemaining);
@@ -238,6 +271,16 @@ public abstract class FloatTVList extends TVList {
     }
   }
 
+  private void copyValues(float[] value, int idx, int arrayIdx, int elementIdx, int length) {
+    if (directValues != null) {
+      FloatBuffer valueBuffer = directValues.get(arrayIdx).asFloatBuffer();
+      valueBuffer.position(elementIdx);
+      valueBuffer.put(value, idx, length);
+    } else {
+      System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, length);
+    }
+  }
+
   // move null values to the end of time array and value array, then return number of null values
   int dropNullValThenUpdateMinMaxTimeAndSorted(
       long[] time, float[] values, BitMap bitMap, int start, int end, int tIdxOffset) {
@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.utils.datastructure;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.storageengine.dataregion.wal.buffer.IWALByteBufferView;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALWriteUtils;
 import org.apache.iotdb.db.storageengine.rescon.memory.PrimitiveArrayManager;
@@ -33,6 +34,8 @@ import org.apache.tsfile.utils.TsPrimitiveType;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -45,10 +48,16 @@ public abstract class IntTVList extends TVList {
   // list of primitive array, add 1 when expanded -> int primitive array
   // index relation: arrayIndex -> elementIndex
   protected List<int[]> values;
+  // list of direct buffers used instead of values when off-heap TVList is enabled
+  protected List<ByteBuffer> directValues;
 
   IntTVList() {
     super();
-    values = new ArrayList<>();
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableOffHeapTVList()) {
+      directValues = new ArrayList<>();
+    } else {
+      values = new ArrayList<>();
+    }
   }
 
   public static IntTVList newList(TSDataType dataType) {
@@ -68,6 +77,7 @@ public abstract class IntTVList extends TVList {
     cloneAs(cloneList);
     cloneList.bitMap = this.bitMap;
     cloneList.values = this.values;
+    cloneList.directValues = this.directValues;
     return cloneList;
   }
 
@@ -76,6 +86,12 @@ public abstract class IntTVList extends TVList {
     IntTVList cloneList = IntTVList.newList(dataType);
     cloneAs(cloneList);
     cloneBitMap(cloneList);
+    if (directValues != null) {
+      for (ByteBuffer valueBuffer : directValues) {
+        cloneList.directValues.add(cloneDirectValue(valueBuffer, dataType));
+      }
+      return cloneList;
+    }
     for (int[] valueArray : values) {
       cloneList.values.add(cloneValue(valueArray));
     }
@@ -96,7 +112,11 @@ public abstract class IntTVList extends TVList {
     maxTime = Math.max(maxTime, timestamp);
     minTime = Math.min(minTime, timestamp);
     timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    values.get(arrayIndex)[elementIndex] = value;
+    if (directValues != null) {
+      directValues.get(arrayIndex).putInt(elementIndex * Integer.BYTES, value);
+    } else {
+      values.get(arrayIndex)[elementIndex] = value;
+    }
     if (indices != null) {
       indices.get(arrayIndex)[elementIndex] = rowCount;
     }
@@ -118,11 +138,20 @@ public abstract class IntTVList extends TVList {
     int valueIndex = getValueIndex(index);
     int arrayIndex = valueIndex / ARRAY_SIZE;
     int elementIndex = valueIndex % ARRAY_SIZE;
+    if (directValues != null) {
+      return directValues.get(arrayIndex).getInt(elementIndex * Integer.BYTES);
+    }
     return values.get(arrayIndex)[elementIndex];
   }
 
   @Override
   protected void clearValue() {
+    if (directValues != null) {
+      for (ByteBuffer dataBuffer : directValues) {
+        PrimitiveArrayManager.release(dataBuffer);
+      }
+      directValues.clear();
+    }
     if (values != null) {
       for (int[] dataArray : values) {
         PrimitiveArrayManager.release(dataArray);
@@ -136,7 +165,11 @@ public abstract class IntTVList extends TVList {
     if (indices != null) {
       indices.add((int[]) getPrimitiveArraysByType(dataType));
     }
-    values.add((int[]) getPrimitiveArraysByType(dataType));
+    if (directValues != null) {
+      directValues.add(PrimitiveArrayManager.allocateDirect(dataType));
+    } else {
+      values.add((int[]) getPrimitiveArraysByType(dataType));
+    }
     if (bitMap != null) {
       bitMap.add(null);
     }
@@ -205,7 +238,7 @@ public abstract class IntTVList extends TVList {
         // the remaining inputs can fit the last array, copy all remaining inputs into last array
         System.arraycopy(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, inputRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
+        copyValues(value, idx, arrayIdx, elementIdx, inputRemaining);
         if (indices != null) {
           int[] indexes = IntStream.range(rowCount, rowCount + inputRemaining).toArray();
           System.arraycopy(indexes, 0, indices.get(arrayIdx), elementIdx, inputRemaining);
@@ -217,7 +250,7 @@ public abstract class IntTVList extends TVList {
         // one and enter the next loop
         System.arraycopy(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, internalRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
+        copyValues(value, idx, arrayIdx, elementIdx, internalRemaining);
         if (indices != null) {
           int[] indexes = IntStream.range(rowCount, rowCount + internalRemaining).toArray();
           System.arraycopy(indexes, 0, indices.get(arrayIdx), elementIdx, internalRemaining);
@@ -229,6 +262,16 @@ public abstract class IntTVList extends TVList {
     }
   }
 
+  private void copyValues(int[] value, int idx, int arrayIdx, int elementIdx, int length) {
+    if (directValues != null) {
+      IntBuffer valueBuffer = directValues.get(arrayIdx).asIntBuffer();
+      valueBuffer.position(elementIdx);
+      valueBuffer.put(value, idx, length);
+    } else {
+      System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, length);
+    }
+  }
+
   // move null values to the end of time array and value array, then return number of null values
   int dropNullValThenUpdateMinMaxTimeAndSorted(
       long[] time, int[] values, BitMap bitMap, int start, int end, int tIdxOffset) {
@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.utils.datastructure;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.storageengine.dataregion.wal.buffer.IWALByteBufferView;
 import org.apache.iotdb.db.storageengine.dataregion.wal.utils.WALWriteUtils;
 import org.apache.iotdb.db.storageengine.rescon.memory.PrimitiveArrayManager;
@@ -33,6 +34,8 @@ import org.apache.tsfile.utils.TsPrimitiveType;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -45,10 +48,16 @@ public abstract class LongTVList extends TVList {
   // list of primitive array, add 1 when expanded -> long primitive array
   // index relation: arrayIndex -> elementIndex
   protected List<long[]> values;
+  // list of direct buffers used instead of values when off-heap TVList is enabled
+  protected List<ByteBuffer> directValues;
 
   LongTVList() {
     super();
-    values = new ArrayList<>();
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableOffHeapTVList()) {
+      directValues = new ArrayList<>();
+    } else {
+      values = new ArrayList<>();
+    }
   }
 
   public static LongTVList newList() {
@@ -68,6 +77,7 @@ public abstract class LongTVList extends TVList {
     cloneAs(cloneList);
     cloneList.bitMap = this.bitMap;
     cloneList.values = this.values;
+    cloneList.directValues = this.directValues;
     return cloneList;
   }
 
@@ -76,6 +86,12 @@ public abstract class LongTVList extends TVList {
     LongTVList cloneList = LongTVList.newList();
     cloneAs(cloneList);
     cloneBitMap(cloneList);
+    if (directValues != null) {
+      for (ByteBuffer valueBuffer : directValues) {
+        cloneList.directValues.add(cloneDirectValue(valueBuffer, TSDataType.INT64));
+      }
+      return cloneList;
+    }
     for (long[] valueArray : values) {
       cloneList.values.add(cloneValue(valueArray));
     }
@@ -96,7 +112,11 @@ public abstract class LongTVList extends TVList {
     maxTime = Math.max(maxTime, timestamp);
     minTime = Math.min(minTime, timestamp);
     timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    values.get(arrayIndex)[elementIndex] = value;
+    if (directValues != null) {
+      directValues.get(arrayIndex).putLong(elementIndex * Long.BYTES, value);
+    } else {
+      values.get(arrayIndex)[elementIndex] = value;
+    }
     if (indices != null) {
       indices.get(arrayIndex)[elementIndex] = rowCount;
     }
@@ -118,11 +138,20 @@ public abstract class LongTVList extends TVList {
     int valueIndex = getValueIndex(index);
     int arrayIndex = valueIndex / ARRAY_SIZE;
     int elementIndex = valueIndex % ARRAY_SIZE;
+    if (directValues != null) {
+      return directValues.get(arrayIndex).getLong(elementIndex * Long.BYTES);
+    }
     return values.get(arrayIndex)[elementIndex];
   }
 
   @Override
   protected void clearValue() {
+    if (directValues != null) {
+      for (ByteBuffer dataBuffer : directValues) {
+        PrimitiveArrayManager.release(dataBuffer);
+      }
+      directValues.clear();
+    }
     if (values != null) {
       for (long[] dataArray : values) {
         PrimitiveArrayManager.release(dataArray);
@@ -136,7 +165,11 @@ public abstract class LongTVList extends TVList {
     if (indices != null) {
       indices.add((int[]) getPrimitiveArraysByType(TSDataType.INT32));
     }
-    values.add((long[]) getPrimitiveArraysByType(TSDataType.INT64));
+    if (directValues != null) {
+      directValues.add(PrimitiveArrayManager.allocateDirect(TSDataType.INT64));
+    } else {
+      values.add((long[]) getPrimitiveArraysByType(TSDataType.INT64));
+    }
     if (bitMap != null) {
       bitMap.add(null);
     }
@@ -206,7 +239,7 @@ public abstract class LongTVList extends TVList {
         // the remaining inputs can fit the last array, copy all remaining inputs into last array
         System.arraycopy(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, inputRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
+        copyValues(value, idx, arrayIdx, elementIdx, inputRemaining);
         if (indices != null) {
           int[] indexes = IntStream.range(rowCount, rowCount + inputRemaining).toArray();
           System.arraycopy(indexes, 0, indices.get(arrayIdx), elementIdx, inputRemaining);
@@ -218,7 +251,7 @@ public abstract class LongTVList extends TVList {
         // one and enter the next loop
         System.arraycopy(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, internalRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
+        copyValues(value, idx, arrayIdx, elementIdx, internalRemaining);
         if (indices != null) {
           int[] indexes = IntStream.range(rowCount, rowCount + internalRemaining).toArray();
           System.arraycopy(indexes, 0, indices.get(arrayIdx), elementIdx, internalRemaining);
@@ -230,6 +263,16 @@ public abstract class LongTVList extends TVList {
     }
   }
 
+  private void copyValues(long[] value, int idx, int arrayIdx, int elementIdx, int length) {
+    if (directValues != null) {
+      LongBuffer valueBuffer = directValues.get(arrayIdx).asLongBuffer();
+      valueBuffer.position(elementIdx);
+      valueBuffer.put(value, idx, length);
+    } else {
+      System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, length);
+    }
+  }
+
   // move null values to the end of time array and value array, then return number of null values
   int dropNullValThenUpdateMinMaxTimeAndSorted(
       long[] time, long[] values, BitMap bitMap, int start, int end, int tIdxOffset) {
@@ -44,6 +44,7 @@ import org.apache.tsfile.write.chunk.IChunkWriter;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -623,6 +624,13 @@ public abstract class TVList implements WALEntryValue {
     return PrimitiveArrayManager.allocate(dataType);
   }
 
+  protected static ByteBuffer cloneDirectValue(ByteBuffer buffer, TSDataType dataType) {
+    ByteBuffer cloneBuffer = PrimitiveArrayManager.allocateDirect(dataType);
+    // copy through duplicates, as the positions of the buffers are always kept at 0
+    cloneBuffer.duplicate().put((ByteBuffer) buffer.duplicate().clear());
+    return cloneBuffer;
+  }
+
   protected long[] cloneTime(long[] array) {
     long[] cloneArray = new long[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
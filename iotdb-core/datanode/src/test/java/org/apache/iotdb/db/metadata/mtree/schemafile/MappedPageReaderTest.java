@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mtree.schemafile;
+
+import org.apache.iotdb.db.schemaengine.schemaregion.mtree.impl.pbtree.schemafile.pagemgr.MappedPageReader;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+public class MappedPageReaderTest {
+
+  private static final int HEADER = 16;
+  private static final int PAGE = 64;
+  private static final int SEGMENT = 4 * PAGE;
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile("mapped_page_reader", ".pst").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Test
+  public void testReadAcrossGrowingFile() throws IOException {
+    try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel()) {
+      MappedPageReader reader = new MappedPageReader(file, HEADER, SEGMENT);
+      try {
+        writePage(channel, 0);
+        writePage(channel, 1);
+
+        ByteBuffer dst = ByteBuffer.allocate(PAGE);
+        Assert.assertTrue(reader.read(dst, pageAddress(1)));
+        assertPage(dst, 1);
+
+        // page beyond file is not served by mapping
+        dst.clear();
+        Assert.assertFalse(reader.read(dst, pageAddress(2)));
+
+        // pages appended later are visible after remapping, including those in next segment
+        for (int i = 2; i < 6; i++) {
+          writePage(channel, i);
+        }
+        for (int i = 0; i < 6; i++) {
+          dst.clear();
+          Assert.assertTrue(reader.read(dst, pageAddress(i)));
+          assertPage(dst, i);
+        }
+        Assert.assertEquals(2, reader.getMappedSegmentNum());
+
+        // overwritten page is visible through the existing mapping
+        writePage(channel, 0, (byte) 99);
+        dst.clear();
+        Assert.assertTrue(reader.read(dst, pageAddress(0)));
+        Assert.assertEquals(99, dst.get(0));
+      } finally {
+        reader.close();
+      }
+    }
+  }
+
+  @Test
+  public void testReadAfterClose() throws IOException {
+    try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel()) {
+      writePage(channel, 0);
+      MappedPageReader reader = new MappedPageReader(file, HEADER, SEGMENT);
+      ByteBuffer dst = ByteBuffer.allocate(PAGE);
+      Assert.assertTrue(reader.read(dst, pageAddress(0)));
+      reader.close();
+
+      // unmapped segments are never read, the caller falls back to the channel
+      dst.clear();
+      Assert.assertFalse(reader.read(dst, pageAddress(0)));
+      Assert.assertEquals(0, reader.getMappedSegmentNum());
+    }
+  }
+
+  private static long pageAddress(int pageIndex) {
+    return HEADER + (long) pageIndex * PAGE;
+  }
+
+  private static void writePage(FileChannel channel, int pageIndex) throws IOException {
+    writePage(channel, pageIndex, (byte) pageIndex);
+  }
+
+  private static void writePage(FileChannel channel, int pageIndex, byte content)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(PAGE);
+    while (buffer.hasRemaining()) {
+      buffer.put(content);
+    }
+    buffer.flip();
+    channel.write(buffer, pageAddress(pageIndex));
+  }
+
+  private static void assertPage(ByteBuffer dst, int pageIndex) {
+    Assert.assertFalse(dst.hasRemaining());
+    for (int i = 0; i < PAGE; i++) {
+      Assert.assertEquals(pageIndex, dst.get(i));
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.fragment;
+
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.DynamicFilter;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DataNodeQueryContextTest {
+
+  @Test
+  public void testIntersectFiltersOfDifferentJoins() {
+    DataNodeQueryContext context = new DataNodeQueryContext(1);
+    context.expectDynamicFilters(ImmutableMap.of("tag1", ImmutableMap.of("1", 1, "2", 1)));
+    ListenableFuture<?> future = context.getDynamicFiltersFuture(ImmutableList.of("tag1"));
+
+    context.addDynamicFilter("tag1", "1", DynamicFilter.ofValues(ImmutableSet.of("d1", "d2")));
+    assertFalse(future.isDone());
+    // the filter of a complete join is used while waiting for the others
+    assertTrue(context.getDynamicFilter("tag1").mayMatch("d2"));
+
+    // a second filter on the same symbol narrows the first one instead of replacing it
+    context.addDynamicFilter("tag1", "2", DynamicFilter.ofValues(ImmutableSet.of("d2", "d3")));
+    assertTrue(future.isDone());
+    DynamicFilter filter = context.getDynamicFilter("tag1");
+    assertFalse(filter.mayMatch("d1"));
+    assertTrue(filter.mayMatch("d2"));
+    assertFalse(filter.mayMatch("d3"));
+  }
+
+  @Test
+  public void testUniteFiltersOfInstancesOfOneJoin() {
+    DataNodeQueryContext context = new DataNodeQueryContext(1);
+    context.expectDynamicFilters(ImmutableMap.of("time", ImmutableMap.of("1", 2)));
+    ListenableFuture<?> future = context.getDynamicFiltersFuture(ImmutableList.of("time"));
+
+    context.addDynamicFilter("time", "1", DynamicFilter.ofTimeRange(10, 20));
+    // the filter of one instance only covers part of the right side, it can not be used alone
+    assertFalse(future.isDone());
+    assertNull(context.getDynamicFilter("time"));
+
+    context.addDynamicFilter("time", "1", DynamicFilter.ofTimeRange(30, 40));
+    assertTrue(future.isDone());
+    assertEquals("DynamicFilter{time in [10, 40]}", context.getDynamicFilter("time").toString());
+  }
+
+  @Test
+  public void testFilterPushedBeforeExpected() {
+    DataNodeQueryContext context = new DataNodeQueryContext(2);
+    // pushed from a remote join before the scan of this DataNode registered its expectations
+    context.addDynamicFilter("tag1", "1", DynamicFilter.ALL);
+    context.expectDynamicFilters(ImmutableMap.of("tag1", ImmutableMap.of("1", 1)));
+    // registered again by another instance of the query on this DataNode
+    context.expectDynamicFilters(ImmutableMap.of("tag1", ImmutableMap.of("1", 1)));
+
+    assertTrue(context.getDynamicFiltersFuture(ImmutableList.of("tag1")).isDone());
+    assertTrue(context.getDynamicFilter("tag1").isAll());
+    // nothing is expected on other symbols
+    assertTrue(context.getDynamicFiltersFuture(ImmutableList.of("tag2")).isDone());
+  }
+}
@@ -0,0 +1,412 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.path.IFullPath;
+import org.apache.iotdb.commons.path.MeasurementPath;
+import org.apache.iotdb.commons.path.NonAlignedFullPath;
+import org.apache.iotdb.commons.udf.builtin.UDTFM4;
+import org.apache.iotdb.db.queryengine.common.FragmentInstanceId;
+import org.apache.iotdb.db.queryengine.common.PlanFragmentId;
+import org.apache.iotdb.db.queryengine.common.QueryId;
+import org.apache.iotdb.db.queryengine.execution.driver.DriverContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.queryengine.execution.operator.source.AbstractDataSourceOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.SeriesM4ScanOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.SeriesScanOperator;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.SeriesScanOptions;
+import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
+import org.apache.iotdb.db.storageengine.dataregion.modification.ModificationFile;
+import org.apache.iotdb.db.storageengine.dataregion.modification.TreeDeletionEntry;
+import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSource;
+import org.apache.iotdb.db.storageengine.dataregion.read.reader.series.SeriesReaderTestUtil;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.udf.api.access.Row;
+import org.apache.iotdb.udf.api.access.RowIterator;
+import org.apache.iotdb.udf.api.access.RowWindow;
+import org.apache.iotdb.udf.api.collector.PointCollector;
+import org.apache.iotdb.udf.api.type.Binary;
+import org.apache.iotdb.udf.api.type.Type;
+
+import com.google.common.collect.Sets;
+import io.airlift.units.Duration;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.write.schema.IMeasurementSchema;
+import org.apache.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks that {@link SeriesM4ScanOperator} outputs the same points as the M4 UDTF applied to the
+ * raw points. The series of {@link SeriesReaderTestUtil} has overlapped sequence and unsequence
+ * files, and chunks and pages of 20 points.
+ */
+public class SeriesM4ScanOperatorTest {
+
+  private static final String SERIES_M4_SCAN_OPERATOR_TEST_SG = "root.SeriesM4ScanOperatorTest";
+  private final List<String> deviceIds = new ArrayList<>();
+  private final List<IMeasurementSchema> measurementSchemas = new ArrayList<>();
+
+  private final List<TsFileResource> seqResources = new ArrayList<>();
+  private final List<TsFileResource> unSeqResources = new ArrayList<>();
+
+  private ExecutorService instanceNotificationExecutor;
+
+  @Before
+  public void setUp() throws Exception {
+    SeriesReaderTestUtil.setUp(
+        measurementSchemas,
+        deviceIds,
+        seqResources,
+        unSeqResources,
+        SERIES_M4_SCAN_OPERATOR_TEST_SG);
+    instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    instanceNotificationExecutor.shutdown();
+    SeriesReaderTestUtil.tearDown(seqResources, unSeqResources);
+  }
+
+  @Test
+  public void testWindowsCrossingPages() throws Exception {
+    // windows of 7 cross the boundaries of most pages, overlapped pages are decoded
+    assertSameAsUdtf(7, Long.MIN_VALUE, Long.MAX_VALUE);
+    assertSameAsUdtf(13, 3, Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testWindowsCoveringChunksAndFiles() throws Exception {
+    // windows aligned with chunks and files are merged by statistics
+    assertSameAsUdtf(20, 0, Long.MAX_VALUE);
+    assertSameAsUdtf(100, 0, Long.MAX_VALUE);
+    assertSameAsUdtf(1000, Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testEmptyWindows() throws Exception {
+    // the windows before and after the data are empty
+    assertSameAsUdtf(30, -95, 700);
+    // no data in the display window
+    List<long[]> points = runM4(10, 600, 700);
+    assertEquals(0, points.size());
+  }
+
+  @Test
+  public void testLastWindow() throws Exception {
+    // the display window ends in the middle of a window and of a page
+    assertSameAsUdtf(40, 0, 475);
+    assertSameAsUdtf(40, 17, 263);
+    // the display window ends at the last point
+    assertSameAsUdtf(50, 0, 499);
+  }
+
+  @Test
+  public void testDeletion() throws Exception {
+    MeasurementPath path =
+        new MeasurementPath(SERIES_M4_SCAN_OPERATOR_TEST_SG + ".device0.sensor0");
+    List<TsFileResource> resources = new ArrayList<>(seqResources);
+    resources.addAll(unSeqResources);
+    for (TsFileResource resource : resources) {
+      try (ModificationFile modificationFile = resource.getModFileForWrite()) {
+        modificationFile.write(new TreeDeletionEntry(path, 105, 133));
+        modificationFile.write(new TreeDeletionEntry(path, 300, 340));
+      }
+    }
+    assertFalse(runRawScan().stream().anyMatch(point -> point[0] >= 105 && point[0] <= 133));
+    assertSameAsUdtf(20, 0, Long.MAX_VALUE);
+    assertSameAsUdtf(100, 0, Long.MAX_VALUE);
+    assertSameAsUdtf(9, Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  private void assertSameAsUdtf(long timeInterval, long displayWindowBegin, long displayWindowEnd)
+      throws Exception {
+    List<long[]> expected =
+        m4ByUdtf(runRawScan(), timeInterval, displayWindowBegin, displayWindowEnd);
+    List<long[]> actual = runM4(timeInterval, displayWindowBegin, displayWindowEnd);
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertArrayEquals(expected.get(i), actual.get(i));
+    }
+  }
+
+  private List<long[]> runM4(long timeInterval, long displayWindowBegin, long displayWindowEnd)
+      throws Exception {
+    DriverContext driverContext = createDriverContext();
+    PlanNodeId planNodeId = new PlanNodeId("1");
+    driverContext.addOperatorContext(1, planNodeId, SeriesM4ScanOperator.class.getSimpleName());
+    SeriesM4ScanOperator operator =
+        new SeriesM4ScanOperator(
+            driverContext.getOperatorContexts().get(0),
+            planNodeId,
+            getSeriesPath(),
+            getScanOptions(),
+            TSDataType.INT32,
+            timeInterval,
+            displayWindowBegin,
+            displayWindowEnd);
+    return collectPoints(operator);
+  }
+
+  private List<long[]> runRawScan() throws Exception {
+    DriverContext driverContext = createDriverContext();
+    PlanNodeId planNodeId = new PlanNodeId("1");
+    driverContext.addOperatorContext(1, planNodeId, SeriesScanOperator.class.getSimpleName());
+    SeriesScanOperator operator =
+        new SeriesScanOperator(
+            driverContext.getOperatorContexts().get(0),
+            planNodeId,
+            getSeriesPath(),
+            Ordering.ASC,
+            getScanOptions());
+    return collectPoints(operator);
+  }
+
+  private List<long[]> collectPoints(AbstractDataSourceOperator operator) throws Exception {
+    operator.initQueryDataSource(new QueryDataSource(seqResources, unSeqResources));
+    operator.getOperatorContext().setMaxRunTime(new Duration(500, TimeUnit.MILLISECONDS));
+    List<long[]> points = new ArrayList<>();
+    while (operator.hasNext()) {
+      TsBlock tsBlock = operator.next();
+      if (tsBlock == null) {
+        continue;
+      }
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        points.add(new long[] {tsBlock.getTimeByIndex(i), tsBlock.getColumn(0).getInt(i)});
+      }
+    }
+    return points;
+  }
+
+  private DriverContext createDriverContext() {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    return new DriverContext(fragmentInstanceContext, 0);
+  }
+
+  private IFullPath getSeriesPath() {
+    return new NonAlignedFullPath(
+        IDeviceID.Factory.DEFAULT_FACTORY.create(SERIES_M4_SCAN_OPERATOR_TEST_SG + ".device0"),
+        new MeasurementSchema("sensor0", TSDataType.INT32));
+  }
+
+  private SeriesScanOptions getScanOptions() {
+    SeriesScanOptions.Builder scanOptionsBuilder = new SeriesScanOptions.Builder();
+    scanOptionsBuilder.withAllSensors(Sets.newHashSet("sensor0"));
+    return scanOptionsBuilder.build();
+  }
+
+  /** Split the raw points into time windows the way the UDTF framework does and apply M4. */
+  private static List<long[]> m4ByUdtf(
+      List<long[]> points, long timeInterval, long displayWindowBegin, long displayWindowEnd)
+      throws Exception {
+    UDTFM4 m4 = new UDTFM4();
+    ListPointCollector collector = new ListPointCollector();
+    if (points.isEmpty()) {
+      return collector.points;
+    }
+    long windowStartTime =
+        displayWindowBegin == Long.MIN_VALUE ? points.get(0)[0] : displayWindowBegin;
+    int index = 0;
+    while (windowStartTime < displayWindowEnd && index < points.size()) {
+      long windowEndTime = Math.min(windowStartTime + timeInterval, displayWindowEnd);
+      List<long[]> window = new ArrayList<>();
+      while (index < points.size() && points.get(index)[0] < windowEndTime) {
+        if (points.get(index)[0] >= windowStartTime) {
+          window.add(points.get(index));
+        }
+        index++;
+      }
+      m4.transformInt(new ListRowWindow(window, windowStartTime, windowEndTime), collector);
+      windowStartTime += timeInterval;
+    }
+    return collector.points;
+  }
+
+  private static class ListRowWindow implements RowWindow {
+
+    private final List<long[]> points;
+    private final long windowStartTime;
+    private final long windowEndTime;
+
+    private ListRowWindow(List<long[]> points, long windowStartTime, long windowEndTime) {
+      this.points = points;
+      this.windowStartTime = windowStartTime;
+      this.windowEndTime = windowEndTime;
+    }
+
+    @Override
+    public int windowSize() {
+      return points.size();
+    }
+
+    @Override
+    public Row getRow(int rowIndex) {
+      return new PointRow(points.get(rowIndex));
+    }
+
+    @Override
+    public Type getDataType(int columnIndex) {
+      return Type.INT32;
+    }
+
+    @Override
+    public RowIterator getRowIterator() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long windowStartTime() {
+      return windowStartTime;
+    }
+
+    @Override
+    public long windowEndTime() {
+      return windowEndTime;
+    }
+  }
+
+  private static class PointRow implements Row {
+
+    private final long[] point;
+
+    private PointRow(long[] point) {
+      this.point = point;
+    }
+
+    @Override
+    public long getTime() {
+      return point[0];
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+      return (int) point[1];
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Binary getBinary(int columnIndex) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Type getDataType(int columnIndex) {
+      return Type.INT32;
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+      return false;
+    }
+
+    @Override
+    public int size() {
+      return 1;
+    }
+  }
+
+  private static class ListPointCollector implements PointCollector {
+
+    private final List<long[]> points = new ArrayList<>();
+
+    @Override
+    public void putInt(long timestamp, int value) {
+      points.add(new long[] {timestamp, value});
+    }
+
+    @Override
+    public void putLong(long timestamp, long value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putFloat(long timestamp, float value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putDouble(long timestamp, double value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putBoolean(long timestamp, boolean value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putBinary(long timestamp, Binary value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putString(long timestamp, String value) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -40,6 +40,7 @@ import org.apache.iotdb.db.queryengine.execution.operator.process.join.merge.Des
 import org.apache.iotdb.db.queryengine.execution.operator.process.join.merge.MergeSortComparator;
 import org.apache.iotdb.db.queryengine.execution.operator.process.join.merge.SingleColumnMerger;
 import org.apache.iotdb.db.queryengine.execution.operator.source.SeriesScanOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.TopKTimeBound;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.InputLocation;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.SeriesScanOptions;
@@ -82,6 +83,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doReturn;
@@ -1568,4 +1570,31 @@ public class TreeTopKOperatorTest {
       fail();
     }
   }
+
+  @Test
+  public void testPublishTimeBound() throws Exception {
+    TreeTopKOperator topKOperator = topKOperatorTest(Ordering.DESC, Ordering.ASC, limitValue);
+    TopKTimeBound timeBound = new TopKTimeBound(false);
+    topKOperator.setTimeBound(timeBound, -1);
+    assertFalse(timeBound.canSkip(0, 0));
+
+    long lastTime = Long.MAX_VALUE;
+    int count = 0;
+    while (topKOperator.isBlocked().isDone() && topKOperator.hasNext()) {
+      TsBlock tsBlock = topKOperator.next();
+      if (tsBlock == null) {
+        continue;
+      }
+      count += tsBlock.getPositionCount();
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        assertTrue(tsBlock.getTimeByIndex(i) <= lastTime);
+        lastTime = tsBlock.getTimeByIndex(i);
+      }
+    }
+    assertEquals(limitValue, count);
+
+    // the time of the k-th row has been published, only the earlier data can be skipped
+    assertFalse(timeBound.canSkip(lastTime - 1, lastTime));
+    assertTrue(timeBound.canSkip(0, lastTime - 1));
+  }
 }
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory;
+import org.apache.iotdb.db.queryengine.common.FragmentInstanceId;
+import org.apache.iotdb.db.queryengine.common.PlanFragmentId;
+import org.apache.iotdb.db.queryengine.common.QueryId;
+import org.apache.iotdb.db.queryengine.execution.aggregation.timerangeiterator.TableDateBinTimeRangeIterator;
+import org.apache.iotdb.db.queryengine.execution.driver.DriverContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.AbstractAggTableScanOperator.AbstractAggTableScanOperatorParameter;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.CountAccumulator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.TableAggregator;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.SeriesScanOptions;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.AlignedDeviceEntry;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.ColumnSchema;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationNode;
+import org.apache.iotdb.db.queryengine.transformation.dag.column.unary.scalar.DateBinFunctionColumnTransformer;
+import org.apache.iotdb.db.storageengine.buffer.BloomFilterCache;
+import org.apache.iotdb.db.storageengine.buffer.ChunkCache;
+import org.apache.iotdb.db.storageengine.buffer.SealedWindowAggregationCache;
+import org.apache.iotdb.db.storageengine.buffer.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
+import org.apache.iotdb.db.storageengine.dataregion.ILastFlushTimeMap;
+import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSource;
+import org.apache.iotdb.db.storageengine.dataregion.read.control.FileReaderManager;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResourceStatus;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.constant.TestConstant;
+
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.common.Path;
+import org.apache.tsfile.read.common.TimeRange;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.column.LongColumn;
+import org.apache.tsfile.read.common.type.LongType;
+import org.apache.tsfile.read.filter.basic.Filter;
+import org.apache.tsfile.read.filter.factory.TimeFilterApi;
+import org.apache.tsfile.utils.Binary;
+import org.apache.tsfile.write.TsFileWriter;
+import org.apache.tsfile.write.record.TSRecord;
+import org.apache.tsfile.write.record.datapoint.DataPoint;
+import org.apache.tsfile.write.schema.IMeasurementSchema;
+import org.apache.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.apache.tsfile.read.common.type.TimestampType.TIMESTAMP;
+
+/**
+ * Tests of the date_bin aggregation scan serving the results of sealed windows from {@link
+ * SealedWindowAggregationCache}. The data of the device is in two files:
+ *
+ * <ul>
+ *   <li>[0, 199] in chunks [0, 99] and [100, 199]
+ *   <li>[200, 499] in chunks [200, 349] and [350, 499]
+ * </ul>
+ *
+ * <p>The flushed time of the device is 349, so the windows of 100 up to [200, 299] are sealed,
+ * [300, 399] is partially sealed and [400, 499] is open.
+ */
+public class DefaultAggTableScanOperatorTest {
+
+  private static final String SG = "root.DefaultAggTableScanOperatorTest";
+  private static final String DEVICE = SG + ".d1";
+  private static final String REGION_ID = "1";
+  private static final String SIGNATURE = "s1=s1:INT64,count(s1)";
+  private static final long FLUSHED_TIME = 349;
+
+  private final IDeviceID deviceId = IDeviceID.Factory.DEFAULT_FACTORY.create(DEVICE);
+  private final List<IMeasurementSchema> measurementSchemas =
+      Collections.singletonList(new MeasurementSchema("s1", TSDataType.INT64));
+  private final List<TsFileResource> seqResources = new ArrayList<>();
+  private final ExecutorService instanceNotificationExecutor =
+      IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+
+  private SealedWindowAggregationCache cache;
+  private DataRegion dataRegion;
+
+  @Before
+  public void setUp() throws Exception {
+    seqResources.add(prepareFile(0, 0, 200, 100));
+    seqResources.add(prepareFile(1, 200, 300, 150));
+
+    cache = new SealedWindowAggregationCache(true, 1024 * 1024);
+    ILastFlushTimeMap lastFlushTimeMap = Mockito.mock(ILastFlushTimeMap.class);
+    Mockito.when(lastFlushTimeMap.getFlushedTimeIfPresent(Mockito.anyLong(), Mockito.any()))
+        .thenReturn(FLUSHED_TIME);
+    dataRegion = Mockito.mock(DataRegion.class);
+    Mockito.when(dataRegion.getDataRegionIdString()).thenReturn(REGION_ID);
+    Mockito.when(dataRegion.getLastFlushTimeMap()).thenReturn(lastFlushTimeMap);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for (TsFileResource tsFileResource : seqResources) {
+      tsFileResource.remove();
+    }
+    seqResources.clear();
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    ChunkCache.getInstance().clear();
+    TimeSeriesMetadataCache.getInstance().clear();
+    BloomFilterCache.getInstance().clear();
+    EnvironmentUtils.cleanAllDir();
+    instanceNotificationExecutor.shutdown();
+  }
+
+  @Test
+  public void testServeSealedWindowsFromCache() throws Exception {
+    // the first query computes all the windows and fills the cache with the sealed ones
+    Assert.assertEquals(Arrays.asList(100L, 100L, 100L, 100L, 100L), aggregate());
+    Assert.assertEquals(0, cache.getHitCount());
+    SealedWindowAggregationCache.Handle handle = createHandle();
+    Assert.assertNotNull(handle.get(new TimeRange(0, 99)));
+    Assert.assertNotNull(handle.get(new TimeRange(100, 199)));
+    Assert.assertNotNull(handle.get(new TimeRange(200, 299)));
+    // the partially sealed and the open windows are not cached
+    Assert.assertFalse(handle.isSealed(new TimeRange(300, 399)));
+    Assert.assertNull(handle.get(new TimeRange(300, 399)));
+    Assert.assertNull(handle.get(new TimeRange(400, 499)));
+
+    // the cached result is returned instead of aggregating the points of the window again
+    handle.put(new TimeRange(0, 99), countColumns(1000));
+    long hitCount = cache.getHitCount();
+    Assert.assertEquals(Arrays.asList(1000L, 100L, 100L, 100L, 100L), aggregate());
+    Assert.assertEquals(hitCount + 3, cache.getHitCount());
+  }
+
+  @Test
+  public void testRecomputeInvalidatedWindows() throws Exception {
+    aggregate();
+    SealedWindowAggregationCache.Handle handle = createHandle();
+    handle.put(new TimeRange(0, 99), countColumns(1000));
+    handle.put(new TimeRange(200, 299), countColumns(2000));
+
+    // an unsequence write into [200, 299] invalidates only that window
+    cache.invalidate(REGION_ID, deviceId, 250, 250);
+    long hitCount = cache.getHitCount();
+    Assert.assertEquals(Arrays.asList(1000L, 100L, 100L, 100L, 100L), aggregate());
+    Assert.assertEquals(hitCount + 2, cache.getHitCount());
+    // the recomputed result is cached again
+    Assert.assertEquals(100, createHandle().get(new TimeRange(200, 299))[0].getLong(0));
+
+    // all the windows are recomputed once the data region is invalidated, e.g., by a deletion
+    cache.invalidateRegion(REGION_ID);
+    Assert.assertTrue(cache.isEmpty());
+    hitCount = cache.getHitCount();
+    Assert.assertEquals(Arrays.asList(100L, 100L, 100L, 100L, 100L), aggregate());
+    Assert.assertEquals(hitCount, cache.getHitCount());
+  }
+
+  /** Run select date_bin(100, time), count(s1) from the device where time between 0 and 499. */
+  private List<Long> aggregate() throws Exception {
+    Filter timeFilter = TimeFilterApi.between(0, 499);
+    DefaultAggTableScanOperator operator = initOperator(timeFilter);
+    operator.setSealedWindowCacheHandles(
+        new SealedWindowAggregationCache.Handle[] {createHandle(timeFilter)});
+    operator.initQueryDataSource(new QueryDataSource(seqResources, Collections.emptyList()));
+
+    List<Long> counts = new ArrayList<>();
+    while (operator.hasNext()) {
+      TsBlock tsBlock = operator.next();
+      if (tsBlock == null) {
+        continue;
+      }
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        // the windows are returned in order
+        Assert.assertEquals(counts.size() * 100L, tsBlock.getColumn(0).getLong(i));
+        counts.add(tsBlock.getColumn(1).getLong(i));
+      }
+    }
+    operator.close();
+    return counts;
+  }
+
+  private DefaultAggTableScanOperator initOperator(Filter timeFilter) {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    DriverContext driverContext = new DriverContext(fragmentInstanceContext, 0);
+    PlanNodeId planNodeId = new PlanNodeId("1");
+    driverContext.addOperatorContext(
+        1, planNodeId, DefaultAggTableScanOperator.class.getSimpleName());
+
+    List<String> measurementColumnNames = Collections.singletonList("s1");
+    Set<String> allSensors = new HashSet<>(measurementColumnNames);
+    allSensors.add("");
+    SeriesScanOptions.Builder scanOptionsBuilder = new SeriesScanOptions.Builder();
+    scanOptionsBuilder.withAllSensors(allSensors);
+    scanOptionsBuilder.withGlobalTimeFilter(timeFilter);
+
+    TableAggregator countAggregator =
+        new TableAggregator(
+            new CountAccumulator(),
+            AggregationNode.Step.SINGLE,
+            TSDataType.INT64,
+            Collections.singletonList(0),
+            OptionalInt.empty());
+    return new DefaultAggTableScanOperator(
+        new AbstractAggTableScanOperatorParameter(
+            planNodeId,
+            driverContext.getOperatorContexts().get(0),
+            Collections.singletonList(
+                new ColumnSchema(
+                    "s1", LongType.getInstance(), false, TsTableColumnCategory.FIELD)),
+            new int[] {0},
+            Collections.singletonList(new AlignedDeviceEntry(deviceId, new Binary[0])),
+            1,
+            scanOptionsBuilder.build(),
+            measurementColumnNames,
+            allSensors,
+            measurementSchemas,
+            new ArrayList<>(Collections.singletonList(countAggregator)),
+            Collections.emptyList(),
+            new int[1],
+            new TableDateBinTimeRangeIterator(
+                new DateBinFunctionColumnTransformer(
+                    TIMESTAMP, 0, 100, null, 0, ZoneId.systemDefault())),
+            true,
+            true,
+            Collections.singletonList(0),
+            "time",
+            Collections.emptyList()));
+  }
+
+  private SealedWindowAggregationCache.Handle createHandle() {
+    return createHandle(TimeFilterApi.between(0, 499));
+  }
+
+  private SealedWindowAggregationCache.Handle createHandle(Filter timeFilter) {
+    return cache.createHandle(dataRegion, deviceId, SIGNATURE, 0, 499, timeFilter);
+  }
+
+  private static Column[] countColumns(long count) {
+    return new Column[] {new LongColumn(1, Optional.empty(), new long[] {count})};
+  }
+
+  /** Write the points in [startTime, startTime + pointNum) in chunks of chunkPointNum points. */
+  private TsFileResource prepareFile(int version, long startTime, long pointNum, long chunkPointNum)
+      throws Exception {
+    File file = new File(TestConstant.getTestTsFilePath(SG, 0, 0, version));
+    if (!file.getParentFile().exists()) {
+      Assert.assertTrue(file.getParentFile().mkdirs());
+    }
+    TsFileResource tsFileResource = new TsFileResource(file);
+    tsFileResource.setStatusForTest(TsFileResourceStatus.NORMAL);
+    tsFileResource.setMinPlanIndex(version);
+    tsFileResource.setMaxPlanIndex(version);
+    TsFileWriter fileWriter = new TsFileWriter(file);
+    fileWriter.registerAlignedTimeseries(new Path(DEVICE), measurementSchemas);
+    for (long time = startTime; time < startTime + pointNum; time++) {
+      TSRecord record = new TSRecord(DEVICE, time);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT64, "s1", String.valueOf(time)));
+      fileWriter.writeRecord(record);
+      if ((time - startTime + 1) % chunkPointNum == 0) {
+        fileWriter.flush();
+      }
+    }
+    fileWriter.close();
+    tsFileResource.updateStartTime(deviceId, startTime);
+    tsFileResource.updateEndTime(deviceId, startTime + pointNum - 1);
+    return tsFileResource;
+  }
+}
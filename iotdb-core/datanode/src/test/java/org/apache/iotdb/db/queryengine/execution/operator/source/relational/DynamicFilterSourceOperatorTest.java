@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.queryengine.common.FragmentInstanceId;
+import org.apache.iotdb.db.queryengine.common.PlanFragmentId;
+import org.apache.iotdb.db.queryengine.common.QueryId;
+import org.apache.iotdb.db.queryengine.execution.driver.DriverContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.queryengine.execution.operator.process.ValuesOperator;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.tsfile.common.conf.TSFileConfig;
+import org.apache.tsfile.common.conf.TSFileDescriptor;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.tsfile.read.common.block.column.RunLengthEncodedColumn;
+import org.apache.tsfile.utils.Binary;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.apache.iotdb.db.queryengine.execution.operator.source.relational.TableScanOperator.TIME_COLUMN_TEMPLATE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DynamicFilterSourceOperatorTest {
+
+  private static final ExecutorService instanceNotificationExecutor =
+      IoTDBThreadPoolFactory.newFixedThreadPool(
+          1, "dynamicFilterSourceOperator-test-instance-notification");
+
+  // the right side key columns: time, tag
+  private static final int[] KEY_CHANNELS = {0, 1};
+  private static final boolean[] IS_TIME_KEY = {true, false};
+  private static final List<String> FILTERED_SYMBOLS = ImmutableList.of("time", "tag1");
+
+  @AfterClass
+  public static void tearDown() {
+    instanceNotificationExecutor.shutdown();
+  }
+
+  @Test
+  public void testPublishBeforeReturningRows() throws Exception {
+    Map<String, DynamicFilter> published = new HashMap<>();
+    List<TsBlock> blocks =
+        Arrays.asList(
+            createTsBlock(new long[] {10, 20}, new String[] {"d1", "d2"}),
+            createTsBlock(new long[] {30}, new String[] {"d1"}));
+    try (DynamicFilterSourceOperator operator = genOperator(blocks, published, 100)) {
+      int rowCount = 0;
+      while (operator.hasNext()) {
+        TsBlock block = operator.next();
+        if (block == null) {
+          // nothing is published while the right side is being drained
+          continue;
+        }
+        // the filters are published before any row is returned to the join
+        assertNotNull(published.get("time"));
+        assertNotNull(published.get("tag1"));
+        rowCount += block.getPositionCount();
+      }
+      assertEquals(3, rowCount);
+      assertTrue(operator.isFinished());
+    }
+
+    DynamicFilter timeFilter = published.get("time");
+    assertTrue(timeFilter.isTimeFilter());
+    assertEquals("DynamicFilter{time in [10, 30]}", timeFilter.toString());
+
+    DynamicFilter tagFilter = published.get("tag1");
+    assertFalse(tagFilter.isTimeFilter());
+    assertTrue(tagFilter.mayMatch("d1"));
+    assertTrue(tagFilter.mayMatch("d2"));
+    assertFalse(tagFilter.mayMatch("d3"));
+    assertFalse(tagFilter.mayMatch(null));
+  }
+
+  @Test
+  public void testOverLimitPassesThrough() throws Exception {
+    Map<String, DynamicFilter> published = new HashMap<>();
+    List<TsBlock> blocks =
+        Arrays.asList(
+            createTsBlock(new long[] {1, 2}, new String[] {"d1", "d2"}),
+            createTsBlock(new long[] {3, 4}, new String[] {"d3", "d4"}),
+            createTsBlock(new long[] {5}, new String[] {"d5"}));
+    try (DynamicFilterSourceOperator operator = genOperator(blocks, published, 3)) {
+      int rowCount = 0;
+      while (operator.hasNext()) {
+        TsBlock block = operator.next();
+        if (block != null) {
+          rowCount += block.getPositionCount();
+        }
+      }
+      // all rows of the right side are still returned to the join
+      assertEquals(5, rowCount);
+      assertTrue(operator.isFinished());
+    }
+    // the scans stop waiting, and skip nothing, once the right side exceeds the limit
+    assertSame(DynamicFilter.ALL, published.get("time"));
+    assertSame(DynamicFilter.ALL, published.get("tag1"));
+  }
+
+  @Test
+  public void testMaxPeekMemoryCountsBufferedBlocks() throws Exception {
+    int maxBuildRows = 100_000;
+    List<TsBlock> blocks =
+        ImmutableList.of(createTsBlock(new long[] {1, 2}, new String[] {"d1", "d2"}));
+    try (DynamicFilterSourceOperator operator =
+        genOperator(blocks, new HashMap<>(), maxBuildRows)) {
+      long maxBufferedBlocks =
+          maxBuildRows / TSFileDescriptor.getInstance().getConfig().getMaxTsBlockLineNumber() + 1;
+      ValuesOperator child = genValuesOperator(blocks);
+      assertEquals(
+          child.calculateMaxPeekMemoryWithCounter()
+              + maxBufferedBlocks * child.calculateMaxReturnSize(),
+          operator.calculateMaxPeekMemory());
+    }
+  }
+
+  private DynamicFilterSourceOperator genOperator(
+      List<TsBlock> blocks, Map<String, DynamicFilter> published, int maxBuildRows) {
+    DriverContext driverContext = createDriverContext();
+    PlanNodeId planNodeId = new PlanNodeId("1");
+    driverContext.addOperatorContext(
+        1, planNodeId, DynamicFilterSourceOperator.class.getSimpleName());
+    driverContext.addOperatorContext(2, planNodeId, ValuesOperator.class.getSimpleName());
+    return new DynamicFilterSourceOperator(
+        driverContext.getOperatorContexts().get(0),
+        new ValuesOperator(driverContext.getOperatorContexts().get(1), blocks),
+        published::putAll,
+        FILTERED_SYMBOLS,
+        KEY_CHANNELS,
+        IS_TIME_KEY,
+        maxBuildRows);
+  }
+
+  private ValuesOperator genValuesOperator(List<TsBlock> blocks) {
+    DriverContext driverContext = createDriverContext();
+    PlanNodeId planNodeId = new PlanNodeId("1");
+    driverContext.addOperatorContext(1, planNodeId, ValuesOperator.class.getSimpleName());
+    return new ValuesOperator(driverContext.getOperatorContexts().get(0), blocks);
+  }
+
+  private DriverContext createDriverContext() {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    return new DriverContext(fragmentInstanceContext, 0);
+  }
+
+  private TsBlock createTsBlock(long[] times, String[] tags) {
+    TsBlockBuilder builder =
+        new TsBlockBuilder(times.length, Arrays.asList(TSDataType.TIMESTAMP, TSDataType.STRING));
+    for (int i = 0; i < times.length; i++) {
+      builder.getColumnBuilder(0).writeLong(times[i]);
+      builder.getColumnBuilder(1).writeBinary(new Binary(tags[i], TSFileConfig.STRING_CHARSET));
+    }
+    builder.declarePositions(times.length);
+    return builder.build(
+        new RunLengthEncodedColumn(TIME_COLUMN_TEMPLATE, builder.getPositionCount()));
+  }
+}
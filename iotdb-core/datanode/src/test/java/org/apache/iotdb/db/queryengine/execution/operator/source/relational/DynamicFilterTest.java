@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.execution.operator.source.relational;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DynamicFilterTest {
+
+  @Test
+  public void testSerde() {
+    DynamicFilter values = DynamicFilter.ofValues(ImmutableSet.of("d1", "d2"));
+    DynamicFilter deserialized = DynamicFilter.deserialize(values.serialize());
+    assertFalse(deserialized.isTimeFilter());
+    assertTrue(deserialized.mayMatch("d1"));
+    assertTrue(deserialized.mayMatch("d2"));
+    assertFalse(deserialized.mayMatch("d3"));
+
+    DynamicFilter timeRange = DynamicFilter.ofTimeRange(10, 20);
+    assertEquals(
+        timeRange.toString(), DynamicFilter.deserialize(timeRange.serialize()).toString());
+
+    assertSame(DynamicFilter.ALL, DynamicFilter.deserialize(DynamicFilter.ALL.serialize()));
+  }
+
+  @Test
+  public void testMerge() {
+    DynamicFilter left = DynamicFilter.ofValues(ImmutableSet.of("d1", "d2"));
+    DynamicFilter right = DynamicFilter.ofValues(ImmutableSet.of("d2", "d3"));
+    assertTrue(left.union(right).mayMatch("d3"));
+    assertFalse(left.intersect(right).mayMatch("d3"));
+    assertTrue(left.intersect(right).mayMatch("d2"));
+
+    assertEquals(
+        "DynamicFilter{time in [15, 20]}",
+        DynamicFilter.ofTimeRange(10, 20).intersect(DynamicFilter.ofTimeRange(15, 30)).toString());
+    assertEquals(
+        "DynamicFilter{time in [10, 30]}",
+        DynamicFilter.ofTimeRange(10, 20).union(DynamicFilter.ofTimeRange(15, 30)).toString());
+
+    assertSame(left, left.intersect(DynamicFilter.ALL));
+    assertSame(DynamicFilter.ALL, left.union(DynamicFilter.ALL));
+  }
+}
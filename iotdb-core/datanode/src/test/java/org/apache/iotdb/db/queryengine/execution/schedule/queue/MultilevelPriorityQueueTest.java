@@ -24,6 +24,7 @@ import org.apache.iotdb.db.queryengine.common.PlanFragmentId;
 import org.apache.iotdb.db.queryengine.common.QueryId;
 import org.apache.iotdb.db.queryengine.execution.driver.IDriver;
 import org.apache.iotdb.db.queryengine.execution.schedule.DriverScheduler;
+import org.apache.iotdb.db.queryengine.execution.schedule.ExecutionContext;
 import org.apache.iotdb.db.queryengine.execution.schedule.queue.multilevelqueue.DriverTaskHandle;
 import org.apache.iotdb.db.queryengine.execution.schedule.queue.multilevelqueue.MultilevelPriorityQueue;
 import org.apache.iotdb.db.queryengine.execution.schedule.task.DriverTask;
@@ -37,6 +38,7 @@ import org.mockito.Mockito;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
 
 public class MultilevelPriorityQueueTest {
   @Test
@@ -177,6 +179,58 @@ public class MultilevelPriorityQueueTest {
     }
   }
 
+  @Test
+  public void testLimitRunningLongTasks() throws Exception {
+    MultilevelPriorityQueue queue = new MultilevelPriorityQueue(2, 1000, new DriverTask(), 1);
+    DriverTask long1 = mockLongRunningDriverTask(queue, "inst-1");
+    DriverTask long2 = mockLongRunningDriverTask(queue, "inst-2");
+    queue.push(long1);
+    queue.push(long2);
+    DriverTask running = queue.poll();
+
+    List<DriverTask> res = new ArrayList<>();
+    Thread t1 =
+        new Thread(
+            () -> {
+              try {
+                res.add(queue.poll());
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    t1.start();
+    Thread.sleep(100);
+    // the other long-running task waits even if there are idle workers
+    Assert.assertEquals(Thread.State.WAITING, t1.getState());
+
+    DriverTask shortTask = mockDriverTask(mockDriverTaskId(), false);
+    queue.push(shortTask);
+    t1.join(1000);
+    Assert.assertEquals(1, res.size());
+    Assert.assertEquals(shortTask.getDriverTaskId(), res.get(0).getDriverTaskId());
+
+    queue.releaseRunningSlot(running);
+    Assert.assertNotEquals(running.getDriverTaskId(), queue.poll().getDriverTaskId());
+    Assert.assertEquals(0, queue.size());
+  }
+
+  private DriverTask mockLongRunningDriverTask(MultilevelPriorityQueue queue, String instanceId) {
+    IDriver mockDriver = Mockito.mock(IDriver.class);
+    DriverTaskHandle driverTaskHandle =
+        new DriverTaskHandle(1, queue, OptionalInt.of(Integer.MAX_VALUE));
+    Mockito.when(mockDriver.getDriverTaskId())
+        .thenReturn(
+            new DriverTaskId(
+                new FragmentInstanceId(new PlanFragmentId(new QueryId("test"), 0), instanceId),
+                0));
+    DriverTask driverTask =
+        new DriverTask(mockDriver, 100L, DriverTaskStatus.READY, driverTaskHandle, 0, false);
+    ExecutionContext context = new ExecutionContext();
+    context.setScheduledTimeInNanos(TimeUnit.SECONDS.toNanos(20));
+    driverTask.updateSchedulePriority(context);
+    return driverTask;
+  }
+
   private DriverTask mockDriverTask(DriverTaskId driverTaskID, boolean isHighestPriority) {
     DriverScheduler manager = DriverScheduler.getInstance();
     IDriver mockDriver = Mockito.mock(IDriver.class);
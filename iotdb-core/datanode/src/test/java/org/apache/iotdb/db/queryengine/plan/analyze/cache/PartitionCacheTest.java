@@ -53,6 +53,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class PartitionCacheTest {
@@ -450,6 +451,30 @@ public class PartitionCacheTest {
     }
   }
 
+  @Test
+  public void testContainsDataPartition() {
+    String storageGroupName = getDatabaseName(0);
+    TSeriesPartitionSlot seriesPartitionSlot =
+        partitionExecutor.getSeriesPartitionSlot(
+            Factory.DEFAULT_FACTORY.create(getDeviceName(storageGroupName, 0)));
+    assertTrue(
+        partitionCache.containsDataPartition(
+            storageGroupName, seriesPartitionSlot, new TTimePartitionSlot(0)));
+    assertFalse(
+        partitionCache.containsDataPartition(
+            storageGroupName,
+            seriesPartitionSlot,
+            new TTimePartitionSlot(TIME_PARTITION_PER_STORAGE_GROUP)));
+    assertFalse(
+        partitionCache.containsDataPartition(
+            "root.sg", seriesPartitionSlot, new TTimePartitionSlot(0)));
+
+    partitionCache.invalidAllDataPartitionCache();
+    assertFalse(
+        partitionCache.containsDataPartition(
+            storageGroupName, seriesPartitionSlot, new TTimePartitionSlot(0)));
+  }
+
   /**
    * get StorageGroupToQueryParamsMap
    *
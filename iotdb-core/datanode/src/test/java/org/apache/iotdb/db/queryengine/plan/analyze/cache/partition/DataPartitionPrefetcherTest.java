@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.queryengine.plan.analyze.cache.partition;
+
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupId;
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupType;
+import org.apache.iotdb.common.rpc.thrift.TSeriesPartitionSlot;
+import org.apache.iotdb.common.rpc.thrift.TTimePartitionSlot;
+import org.apache.iotdb.commons.client.IClientManager;
+import org.apache.iotdb.commons.consensus.ConfigRegionId;
+import org.apache.iotdb.commons.partition.DataPartitionQueryParam;
+import org.apache.iotdb.commons.partition.executor.SeriesPartitionExecutor;
+import org.apache.iotdb.commons.utils.CommonDateTimeUtils;
+import org.apache.iotdb.commons.utils.TimePartitionUtils;
+import org.apache.iotdb.confignode.rpc.thrift.TDataPartitionReq;
+import org.apache.iotdb.confignode.rpc.thrift.TDataPartitionTableResp;
+import org.apache.iotdb.confignode.rpc.thrift.TTimeSlotList;
+import org.apache.iotdb.db.protocol.client.ConfigNodeClient;
+import org.apache.iotdb.db.protocol.client.ConfigNodeInfo;
+import org.apache.iotdb.rpc.RpcUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DataPartitionPrefetcherTest {
+
+  private static final String DATABASE = "root.sg";
+  private static final TSeriesPartitionSlot SERIES_SLOT = new TSeriesPartitionSlot(1);
+
+  private final IDeviceID deviceID = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+
+  private PartitionCache partitionCache;
+  private SeriesPartitionExecutor partitionExecutor;
+  private IClientManager<ConfigRegionId, ConfigNodeClient> clientManager;
+  private ConfigNodeClient client;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    partitionCache = Mockito.mock(PartitionCache.class);
+    partitionExecutor = Mockito.mock(SeriesPartitionExecutor.class);
+    Mockito.when(partitionExecutor.getSeriesPartitionSlot(deviceID)).thenReturn(SERIES_SLOT);
+    clientManager = Mockito.mock(IClientManager.class);
+    client = Mockito.mock(ConfigNodeClient.class);
+    Mockito.when(clientManager.borrowClient(ConfigNodeInfo.CONFIG_REGION_ID)).thenReturn(client);
+  }
+
+  private DataPartitionPrefetcher newPrefetcher(long prefetchAheadTime) {
+    return new DataPartitionPrefetcher(
+        partitionCache, partitionExecutor, clientManager, prefetchAheadTime);
+  }
+
+  private Map<String, List<DataPartitionQueryParam>> currentTimePartitionParams() {
+    TTimePartitionSlot currentTimeSlot =
+        TimePartitionUtils.getTimePartitionSlot(CommonDateTimeUtils.currentTime());
+    return Collections.singletonMap(
+        DATABASE,
+        Collections.singletonList(
+            new DataPartitionQueryParam(deviceID, Collections.singletonList(currentTimeSlot))));
+  }
+
+  private TTimePartitionSlot nextTimeSlot() {
+    return TimePartitionUtils.getTimePartitionSlot(
+        TimePartitionUtils.getTimePartitionUpperBound(CommonDateTimeUtils.currentTime()));
+  }
+
+  private TDataPartitionTableResp response(TSStatusCode statusCode) {
+    TDataPartitionTableResp resp = new TDataPartitionTableResp(RpcUtils.getStatus(statusCode));
+    resp.setDataPartitionTable(new HashMap<>());
+    return resp;
+  }
+
+  /** A successful response containing the next time partition of {@link #SERIES_SLOT}. */
+  private TDataPartitionTableResp nextTimePartitionResponse() {
+    TDataPartitionTableResp resp = response(TSStatusCode.SUCCESS_STATUS);
+    resp.getDataPartitionTable()
+        .put(
+            DATABASE,
+            Collections.singletonMap(
+                SERIES_SLOT,
+                Collections.singletonMap(
+                    nextTimeSlot(),
+                    Collections.singletonList(
+                        new TConsensusGroupId(TConsensusGroupType.DataRegion, 1)))));
+    return resp;
+  }
+
+  @Test
+  public void testPrefetchExistingPartitions() throws Exception {
+    TDataPartitionTableResp resp = nextTimePartitionResponse();
+    Mockito.when(client.getDataPartitionTable(Mockito.any())).thenReturn(resp);
+    // always within the prefetch ahead time, the same below
+    DataPartitionPrefetcher prefetcher = newPrefetcher(Long.MAX_VALUE);
+
+    prefetcher.prefetchNextTimePartition(currentTimePartitionParams());
+    prefetcher.awaitRequests();
+    ArgumentCaptor<TDataPartitionReq> req = ArgumentCaptor.forClass(TDataPartitionReq.class);
+    Mockito.verify(client).getDataPartitionTable(req.capture());
+    Mockito.verify(partitionCache).updateDataPartitionCache(resp.getDataPartitionTable());
+    Mockito.verify(client, Mockito.never()).getOrCreateDataPartitionTable(Mockito.any());
+
+    TTimeSlotList timeSlotList =
+        req.getValue().getPartitionSlotsMap().get(DATABASE).get(SERIES_SLOT);
+    Assert.assertEquals(
+        Collections.singletonList(nextTimeSlot()), timeSlotList.getTimePartitionSlots());
+  }
+
+  @Test
+  public void testCreateAbsentPartitionOfWrittenSlot() throws Exception {
+    // the next time partition does not exist yet
+    Mockito.when(client.getDataPartitionTable(Mockito.any()))
+        .thenReturn(response(TSStatusCode.SUCCESS_STATUS));
+    TDataPartitionTableResp createdResp = nextTimePartitionResponse();
+    Mockito.when(client.getOrCreateDataPartitionTable(Mockito.any())).thenReturn(createdResp);
+    DataPartitionPrefetcher prefetcher = newPrefetcher(Long.MAX_VALUE);
+
+    // a series slot written once gets no partition
+    prefetcher.prefetchNextTimePartition(currentTimePartitionParams());
+    prefetcher.awaitRequests();
+    Mockito.verify(client).getDataPartitionTable(Mockito.any());
+    Mockito.verify(client, Mockito.never()).getOrCreateDataPartitionTable(Mockito.any());
+
+    // written again, its partition is created ahead of the next time partition
+    prefetcher.prefetchNextTimePartition(currentTimePartitionParams());
+    prefetcher.awaitRequests();
+    ArgumentCaptor<TDataPartitionReq> req = ArgumentCaptor.forClass(TDataPartitionReq.class);
+    Mockito.verify(client).getOrCreateDataPartitionTable(req.capture());
+    Assert.assertEquals(
+        Collections.singletonList(nextTimeSlot()),
+        req.getValue()
+            .getPartitionSlotsMap()
+            .get(DATABASE)
+            .get(SERIES_SLOT)
+            .getTimePartitionSlots());
+    Mockito.verify(partitionCache).updateDataPartitionCache(createdResp.getDataPartitionTable());
+
+    // so the first write into the next time partition finds it in the cache
+    Mockito.when(partitionCache.containsDataPartition(DATABASE, SERIES_SLOT, nextTimeSlot()))
+        .thenReturn(true);
+    prefetcher.prefetchNextTimePartition(currentTimePartitionParams());
+    prefetcher.awaitRequests();
+    Mockito.verify(client, Mockito.times(1)).getDataPartitionTable(Mockito.any());
+    Mockito.verify(client, Mockito.times(1)).getOrCreateDataPartitionTable(Mockito.any());
+  }
+
+  @Test
+  public void testRetryCreateOnFailure() throws Exception {
+    Mockito.when(client.getDataPartitionTable(Mockito.any()))
+        .thenReturn(response(TSStatusCode.SUCCESS_STATUS));
+    Mockito.when(client.getOrCreateDataPartitionTable(Mockito.any()))
+        .thenReturn(response(TSStatusCode.INTERNAL_SERVER_ERROR))
+        .thenReturn(nextTimePartitionResponse());
+    DataPartitionPrefetcher prefetcher = newPrefetcher(Long.MAX_VALUE);
+
+    for (int i = 0; i < 3; i++) {
+      prefetcher.prefetchNextTimePartition(currentTimePartitionParams());
+      prefetcher.awaitRequests();
+    }
+    // the slot found absent is not requested with get-only again
+    Mockito.verify(client, Mockito.times(1)).getDataPartitionTable(Mockito.any());
+    Mockito.verify(client, Mockito.times(2)).getOrCreateDataPartitionTable(Mockito.any());
+    Mockito.verify(partitionCache, Mockito.times(2)).updateDataPartitionCache(Mockito.any());
+  }
+
+  @Test
+  public void testRetryOnFailure() throws Exception {
+    Mockito.when(client.getDataPartitionTable(Mockito.any()))
+        .thenReturn(response(TSStatusCode.INTERNAL_SERVER_ERROR))
+        .thenReturn(response(TSStatusCode.SUCCESS_STATUS));
+    DataPartitionPrefetcher prefetcher = newPrefetcher(Long.MAX_VALUE);
+
+    prefetcher.prefetchNextTimePartition(currentTimePartitionParams());
+    prefetcher.awaitRequests();
+    Mockito.verify(partitionCache, Mockito.never()).updateDataPartitionCache(Mockito.any());
+
+    prefetcher.prefetchNextTimePartition(currentTimePartitionParams());
+    prefetcher.awaitRequests();
+    Mockito.verify(client, Mockito.times(2)).getDataPartitionTable(Mockito.any());
+    Mockito.verify(partitionCache).updateDataPartitionCache(Mockito.any());
+  }
+
+  @Test
+  public void testNoPrefetch() throws Exception {
+    // disabled
+    DataPartitionPrefetcher prefetcher = newPrefetcher(0);
+    prefetcher.prefetchNextTimePartition(currentTimePartitionParams());
+    prefetcher.awaitRequests();
+
+    prefetcher = newPrefetcher(Long.MAX_VALUE);
+    // the writes out of the current time partition
+    TTimePartitionSlot oldTimeSlot = TimePartitionUtils.getTimePartitionSlot(0);
+    prefetcher.prefetchNextTimePartition(
+        Collections.singletonMap(
+            DATABASE,
+            Collections.singletonList(
+                new DataPartitionQueryParam(deviceID, Collections.singletonList(oldTimeSlot)))));
+    prefetcher.awaitRequests();
+
+    // the cached partitions
+    Mockito.when(
+            partitionCache.containsDataPartition(
+                Mockito.eq(DATABASE), Mockito.eq(SERIES_SLOT), Mockito.any()))
+        .thenReturn(true);
+    prefetcher.prefetchNextTimePartition(currentTimePartitionParams());
+    prefetcher.awaitRequests();
+
+    Mockito.verify(clientManager, Mockito.never()).borrowClient(Mockito.any());
+  }
+}
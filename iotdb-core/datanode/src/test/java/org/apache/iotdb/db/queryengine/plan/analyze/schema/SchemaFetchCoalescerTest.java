@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.analyze.schema;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.exception.QuerySchemaFetchFailedException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.queryengine.common.MPPQueryContext;
+import org.apache.iotdb.db.queryengine.common.QueryId;
+import org.apache.iotdb.db.queryengine.common.schematree.ClusterSchemaTree;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class SchemaFetchCoalescerTest {
+
+  @Test
+  public void testCoalesceConcurrentFetches() throws Exception {
+    List<Set<PartialPath>> fetchedPaths = new CopyOnWriteArrayList<>();
+    List<Boolean> fetchedWithContext = new CopyOnWriteArrayList<>();
+    CountDownLatch firstFetchLatch = new CountDownLatch(1);
+    SchemaFetchCoalescer coalescer =
+        new SchemaFetchCoalescer(
+            (patternTree, context, memoryReserver) -> {
+              fetchedPaths.add(new HashSet<>(patternTree.getAllPathPatterns()));
+              fetchedWithContext.add(context != null);
+              try {
+                firstFetchLatch.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return new ClusterSchemaTree();
+            },
+            true,
+            1,
+            0);
+
+    PartialPath d1 = new PartialPath("root.sg.d1");
+    PartialPath d2 = new PartialPath("root.sg.d2");
+    PartialPath d3 = new PartialPath("root.sg.d3");
+    Thread first =
+        new Thread(() -> coalescer.fetch(tree -> tree.appendFullPath(d1, "s1"), newContext()));
+    first.start();
+    while (fetchedPaths.isEmpty()) {
+      Thread.sleep(10);
+    }
+    // the fetches arriving while the first one is executing are queued
+    Thread second =
+        new Thread(() -> coalescer.fetch(tree -> tree.appendFullPath(d2, "s1"), newContext()));
+    Thread third =
+        new Thread(() -> coalescer.fetch(tree -> tree.appendFullPath(d3, "s1"), newContext()));
+    second.start();
+    third.start();
+    while (second.getState() != Thread.State.TIMED_WAITING
+        || third.getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(10);
+    }
+    firstFetchLatch.countDown();
+    first.join();
+    second.join();
+    third.join();
+
+    Assert.assertEquals(2, fetchedPaths.size());
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList(new PartialPath("root.sg.d1.s1"))), fetchedPaths.get(0));
+    Assert.assertEquals(
+        new HashSet<>(
+            Arrays.asList(new PartialPath("root.sg.d2.s1"), new PartialPath("root.sg.d3.s1"))),
+        fetchedPaths.get(1));
+    // the fetch shared by several insertions is not bound to the context of any of them
+    Assert.assertEquals(Arrays.asList(true, false), fetchedWithContext);
+  }
+
+  @Test
+  public void testConcurrentFetchesWithinLimit() throws Exception {
+    CountDownLatch bothFetchingLatch = new CountDownLatch(2);
+    SchemaFetchCoalescer coalescer =
+        new SchemaFetchCoalescer(
+            (patternTree, context, memoryReserver) -> {
+              bothFetchingLatch.countDown();
+              try {
+                // only returns if the other fetch is executing at the same time
+                Assert.assertTrue(bothFetchingLatch.await(10, TimeUnit.SECONDS));
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return new ClusterSchemaTree();
+            },
+            true,
+            2,
+            0);
+
+    PartialPath d1 = new PartialPath("root.sg.d1");
+    PartialPath d2 = new PartialPath("root.sg.d2");
+    List<Throwable> failures = new CopyOnWriteArrayList<>();
+    Thread first =
+        new Thread(() -> coalescer.fetch(tree -> tree.appendFullPath(d1, "s1"), newContext()));
+    Thread second =
+        new Thread(() -> coalescer.fetch(tree -> tree.appendFullPath(d2, "s1"), newContext()));
+    first.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+    second.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+    first.start();
+    second.start();
+    first.join();
+    second.join();
+    Assert.assertTrue(failures.isEmpty());
+  }
+
+  @Test
+  public void testWaitBoundedByQueryTimeout() throws Exception {
+    CountDownLatch firstFetchLatch = new CountDownLatch(1);
+    SchemaFetchCoalescer coalescer =
+        new SchemaFetchCoalescer(
+            (patternTree, context, memoryReserver) -> {
+              try {
+                firstFetchLatch.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return new ClusterSchemaTree();
+            },
+            true,
+            1,
+            0);
+
+    PartialPath d1 = new PartialPath("root.sg.d1");
+    PartialPath d2 = new PartialPath("root.sg.d2");
+    Thread first =
+        new Thread(() -> coalescer.fetch(tree -> tree.appendFullPath(d1, "s1"), newContext()));
+    first.start();
+    while (first.getState() != Thread.State.WAITING) {
+      Thread.sleep(10);
+    }
+    MPPQueryContext context = newContext();
+    context.setTimeOut(100);
+    try {
+      coalescer.fetch(tree -> tree.appendFullPath(d2, "s1"), context);
+      Assert.fail();
+    } catch (QuerySchemaFetchFailedException e) {
+      // expected, the first fetch is still executing
+    } finally {
+      firstFetchLatch.countDown();
+      first.join();
+    }
+  }
+
+  @Test
+  public void testRecordMissingDevice() throws IllegalPathException {
+    PartialPath d1 = new PartialPath("root.sg.d1");
+    SchemaFetchCoalescer coalescer =
+        new SchemaFetchCoalescer(
+            (patternTree, context, memoryReserver) -> new ClusterSchemaTree(),
+            true,
+            1,
+            60_000);
+    Assert.assertFalse(coalescer.isMissingDevice(d1));
+    coalescer.recordIfMissing(new ClusterSchemaTree(), d1);
+    Assert.assertTrue(coalescer.isMissingDevice(d1));
+    coalescer.invalidateMissingDevice(d1);
+    Assert.assertFalse(coalescer.isMissingDevice(d1));
+
+    // all the devices are forgotten when the schema cache is invalidated
+    PartialPath d2 = new PartialPath("root.sg.d2");
+    coalescer.recordIfMissing(new ClusterSchemaTree(), d1);
+    coalescer.recordIfMissing(new ClusterSchemaTree(), d2);
+    coalescer.invalidateMissingDevice(null);
+    Assert.assertFalse(coalescer.isMissingDevice(d1));
+    Assert.assertFalse(coalescer.isMissingDevice(d2));
+
+    SchemaFetchCoalescer disabled =
+        new SchemaFetchCoalescer(
+            (patternTree, context, memoryReserver) -> new ClusterSchemaTree(), true, 1, 0);
+    disabled.recordIfMissing(new ClusterSchemaTree(), d1);
+    Assert.assertFalse(disabled.isMissingDevice(d1));
+  }
+
+  @Test
+  public void testChargeMemoryOfMergedFetch() throws Exception {
+    CountDownLatch firstFetchLatch = new CountDownLatch(1);
+    List<Boolean> fetchedWithContext = new CopyOnWriteArrayList<>();
+    SchemaFetchCoalescer coalescer =
+        new SchemaFetchCoalescer(
+            (patternTree, context, memoryReserver) -> {
+              fetchedWithContext.add(context != null);
+              try {
+                firstFetchLatch.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              memoryReserver.accept(1000);
+              return new ClusterSchemaTree();
+            },
+            true,
+            1,
+            0);
+
+    PartialPath d1 = new PartialPath("root.sg.d1");
+    PartialPath d2 = new PartialPath("root.sg.d2");
+    PartialPath d3 = new PartialPath("root.sg.d3");
+    List<List<Long>> chargedMemory = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (PartialPath device : Arrays.asList(d1, d2, d3)) {
+      List<Long> charged = new CopyOnWriteArrayList<>();
+      MPPQueryContext context = newContext();
+      context.setReserveMemoryForSchemaTreeFunc(charged::add);
+      chargedMemory.add(charged);
+      threads.add(
+          new Thread(() -> coalescer.fetch(tree -> tree.appendFullPath(device, "s1"), context)));
+    }
+    threads.get(0).start();
+    while (fetchedWithContext.isEmpty()) {
+      Thread.sleep(10);
+    }
+    threads.get(1).start();
+    threads.get(2).start();
+    while (threads.get(1).getState() != Thread.State.TIMED_WAITING
+        || threads.get(2).getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(10);
+    }
+    firstFetchLatch.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertEquals(Arrays.asList(true, false), fetchedWithContext);
+    // the fetch alone is charged to its own query, and the merged one is split among its queries
+    Assert.assertEquals(Collections.singletonList(1000L), chargedMemory.get(0));
+    Assert.assertEquals(Collections.singletonList(500L), chargedMemory.get(1));
+    Assert.assertEquals(Collections.singletonList(500L), chargedMemory.get(2));
+  }
+
+  private static MPPQueryContext newContext() {
+    MPPQueryContext context = new MPPQueryContext(new QueryId("test"));
+    context.setStartTime(System.currentTimeMillis());
+    context.setTimeOut(60_000);
+    return context;
+  }
+}
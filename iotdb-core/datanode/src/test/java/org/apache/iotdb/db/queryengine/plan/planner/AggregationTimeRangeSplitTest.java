@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.planner;
+
+import org.apache.iotdb.common.rpc.thrift.TAggregationType;
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.path.NonAlignedFullPath;
+import org.apache.iotdb.db.queryengine.common.FragmentInstanceId;
+import org.apache.iotdb.db.queryengine.common.PlanFragmentId;
+import org.apache.iotdb.db.queryengine.common.QueryId;
+import org.apache.iotdb.db.queryengine.execution.aggregation.Accumulator;
+import org.apache.iotdb.db.queryengine.execution.aggregation.AccumulatorFactory;
+import org.apache.iotdb.db.queryengine.execution.aggregation.CountIfAccumulator;
+import org.apache.iotdb.db.queryengine.execution.aggregation.TreeAggregator;
+import org.apache.iotdb.db.queryengine.execution.driver.DriverContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.queryengine.execution.operator.Operator;
+import org.apache.iotdb.db.queryengine.execution.operator.OperatorContext;
+import org.apache.iotdb.db.queryengine.execution.operator.process.AggregationOperator;
+import org.apache.iotdb.db.queryengine.execution.operator.source.SeriesAggregationScanOperator;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.AggregationDescriptor;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.AggregationStep;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.InputLocation;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.SeriesScanOptions;
+import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
+import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSource;
+import org.apache.iotdb.db.storageengine.dataregion.read.reader.series.SeriesReaderTestUtil;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+
+import io.airlift.units.Duration;
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.block.column.ColumnBuilder;
+import org.apache.tsfile.common.conf.TSFileDescriptor;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.tsfile.read.common.block.column.LongColumnBuilder;
+import org.apache.tsfile.read.common.block.column.TimeColumn;
+import org.apache.tsfile.read.filter.basic.Filter;
+import org.apache.tsfile.read.filter.factory.TimeFilterApi;
+import org.apache.tsfile.write.schema.IMeasurementSchema;
+import org.apache.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.iotdb.db.queryengine.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.apache.iotdb.db.queryengine.execution.operator.AggregationUtil.initTimeRangeIterator;
+
+/** Compares the aggregations split by time range with the ones which are not. */
+public class AggregationTimeRangeSplitTest {
+
+  private static final String SPLIT_TEST_SG = "root.AggregationTimeRangeSplitTest";
+  private static final int DEFAULT_MAX_TSBLOCK_SIZE_IN_BYTES =
+      TSFileDescriptor.getInstance().getConfig().getMaxTsBlockSizeInBytes();
+
+  private static final List<TAggregationType> AGGREGATION_TYPES =
+      Arrays.asList(
+          TAggregationType.COUNT,
+          TAggregationType.SUM,
+          TAggregationType.AVG,
+          TAggregationType.MIN_TIME,
+          TAggregationType.MAX_TIME,
+          TAggregationType.MIN_VALUE,
+          TAggregationType.MAX_VALUE,
+          TAggregationType.EXTREME,
+          TAggregationType.FIRST_VALUE,
+          TAggregationType.LAST_VALUE);
+
+  private final List<String> deviceIds = new ArrayList<>();
+  private final List<IMeasurementSchema> measurementSchemas = new ArrayList<>();
+  private final List<TsFileResource> seqResources = new ArrayList<>();
+  private final List<TsFileResource> unSeqResources = new ArrayList<>();
+  private ExecutorService instanceNotificationExecutor;
+  private DriverContext driverContext;
+
+  @Before
+  public void setUp() throws Exception {
+    SeriesReaderTestUtil.setUp(
+        measurementSchemas, deviceIds, seqResources, unSeqResources, SPLIT_TEST_SG);
+    instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    driverContext = new DriverContext(fragmentInstanceContext, 0);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    SeriesReaderTestUtil.tearDown(seqResources, unSeqResources);
+    instanceNotificationExecutor.shutdown();
+  }
+
+  @Test
+  public void testSplitResultsEqualUnsplitResults() throws Exception {
+    TsBlock unsplitResult = getOnlyResult(createScan(AggregationStep.SINGLE, null, "unsplit"));
+
+    // the ranges of the split scans, the same as the ones bounded by the time partitions
+    List<Filter> rangeFilters =
+        Arrays.asList(
+            TimeFilterApi.lt(150), TimeFilterApi.between(150, 349), TimeFilterApi.gtEq(350));
+    List<Operator> splits = new ArrayList<>();
+    for (int i = 0; i < rangeFilters.size(); i++) {
+      splits.add(createScan(AggregationStep.PARTIAL, rangeFilters.get(i), "split-" + i));
+    }
+    TsBlock splitResult = getOnlyResult(createMerge(splits));
+
+    Assert.assertEquals(AGGREGATION_TYPES.size(), splitResult.getValueColumnCount());
+    for (int i = 0; i < AGGREGATION_TYPES.size(); i++) {
+      Object expected = unsplitResult.getColumn(i).getObject(0);
+      Object actual = splitResult.getColumn(i).getObject(0);
+      if (expected instanceof Double) {
+        Assert.assertEquals((Double) expected, (Double) actual, 0.0001);
+      } else {
+        Assert.assertEquals(AGGREGATION_TYPES.get(i).toString(), expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void testCountIfRunCrossingRangeBoundary() {
+    // rows 0 to 9, of which the run 3 to 6 satisfies the predicate, split between rows 4 and 5
+    boolean[] satisfied = new boolean[10];
+    for (int i = 3; i <= 6; i++) {
+      satisfied[i] = true;
+    }
+    CountIfAccumulator unsplit = new CountIfAccumulator(keep -> keep >= 1, true);
+    unsplit.addInput(createCountIfInput(satisfied, 0, 10), null);
+    ColumnBuilder unsplitBuilder = new LongColumnBuilder(null, 1);
+    unsplit.outputFinal(unsplitBuilder);
+    Assert.assertEquals(1, unsplitBuilder.build().getLong(0));
+
+    CountIfAccumulator merged = new CountIfAccumulator(keep -> keep >= 1, true);
+    for (int[] range : new int[][] {{0, 5}, {5, 10}}) {
+      CountIfAccumulator partial = new CountIfAccumulator(keep -> keep >= 1, true);
+      partial.addInput(createCountIfInput(satisfied, range[0], range[1]), null);
+      ColumnBuilder[] partialBuilders = new ColumnBuilder[] {new LongColumnBuilder(null, 1)};
+      partial.outputIntermediate(partialBuilders);
+      merged.addIntermediate(new Column[] {partialBuilders[0].build()});
+    }
+    ColumnBuilder mergedBuilder = new LongColumnBuilder(null, 1);
+    merged.outputFinal(mergedBuilder);
+    // the run is counted once by each range
+    Assert.assertEquals(2, mergedBuilder.build().getLong(0));
+
+    // so such aggregations are never split
+    Assert.assertFalse(
+        OperatorTreeGenerator.canMergeAcrossTimeRanges(
+            Collections.singletonList(createDescriptor("count_if"))));
+    Assert.assertFalse(
+        OperatorTreeGenerator.canMergeAcrossTimeRanges(
+            Arrays.asList(createDescriptor("count"), createDescriptor("time_duration"))));
+    Assert.assertFalse(
+        OperatorTreeGenerator.canMergeAcrossTimeRanges(
+            Collections.singletonList(createDescriptor("mode"))));
+    Assert.assertTrue(
+        OperatorTreeGenerator.canMergeAcrossTimeRanges(
+            Arrays.asList(createDescriptor("count"), createDescriptor("avg"))));
+  }
+
+  private static AggregationDescriptor createDescriptor(String functionName) {
+    return new AggregationDescriptor(
+        functionName, AggregationStep.SINGLE, Collections.emptyList(), Collections.emptyMap());
+  }
+
+  private static Column[] createCountIfInput(boolean[] satisfied, int from, int to) {
+    long[] times = new long[to - from];
+    boolean[] values = new boolean[to - from];
+    for (int i = from; i < to; i++) {
+      times[i - from] = i;
+      values[i - from] = satisfied[i];
+    }
+    Column timeColumn = new TimeColumn(to - from, times);
+    Column valueColumn = new BooleanColumn(to - from, Optional.empty(), values);
+    return new Column[] {timeColumn, valueColumn};
+  }
+
+  private Operator createScan(AggregationStep step, Filter rangeFilter, String planNodeId)
+      throws Exception {
+    OperatorContext operatorContext =
+        driverContext.addOperatorContext(
+            driverContext.getOperatorContexts().size() + 1,
+            new PlanNodeId(planNodeId),
+            SeriesAggregationScanOperator.class.getSimpleName());
+    OperatorContext.setMaxRunTime(new Duration(50000, TimeUnit.MILLISECONDS));
+    NonAlignedFullPath path =
+        new NonAlignedFullPath(
+            IDeviceID.Factory.DEFAULT_FACTORY.create(SPLIT_TEST_SG + ".device0"),
+            new MeasurementSchema("sensor0", TSDataType.INT32));
+    List<TreeAggregator> aggregators = new ArrayList<>();
+    AccumulatorFactory.createBuiltinAccumulators(
+            AGGREGATION_TYPES,
+            TSDataType.INT32,
+            Collections.emptyList(),
+            Collections.emptyMap(),
+            true)
+        .forEach(o -> aggregators.add(new TreeAggregator(o, step)));
+    SeriesScanOptions.Builder scanOptionsBuilder = new SeriesScanOptions.Builder();
+    scanOptionsBuilder.withAllSensors(Collections.singleton("sensor0"));
+    if (rangeFilter != null) {
+      scanOptionsBuilder.withGlobalTimeFilter(rangeFilter);
+    }
+    SeriesAggregationScanOperator operator =
+        new SeriesAggregationScanOperator(
+            new PlanNodeId(planNodeId),
+            path,
+            Ordering.ASC,
+            scanOptionsBuilder.build(),
+            operatorContext,
+            aggregators,
+            initTimeRangeIterator(null, true, true, ZoneId.systemDefault()),
+            null,
+            DEFAULT_MAX_TSBLOCK_SIZE_IN_BYTES,
+            true);
+    operator.initQueryDataSource(
+        new QueryDataSource(new ArrayList<>(seqResources), new ArrayList<>(unSeqResources)));
+    return operator;
+  }
+
+  private Operator createMerge(List<Operator> splits) {
+    OperatorContext operatorContext =
+        driverContext.addOperatorContext(
+            driverContext.getOperatorContexts().size() + 1,
+            new PlanNodeId("merge"),
+            AggregationOperator.class.getSimpleName());
+    List<Accumulator> accumulators =
+        AccumulatorFactory.createBuiltinAccumulators(
+            AGGREGATION_TYPES,
+            TSDataType.INT32,
+            Collections.emptyList(),
+            Collections.emptyMap(),
+            true);
+    List<TreeAggregator> aggregators = new ArrayList<>();
+    int columnIndex = 0;
+    for (Accumulator accumulator : accumulators) {
+      int intermediateColumnNum = accumulator.getIntermediateType().length;
+      List<InputLocation[]> inputLocations = new ArrayList<>();
+      for (int child = 0; child < splits.size(); child++) {
+        InputLocation[] locations = new InputLocation[intermediateColumnNum];
+        for (int j = 0; j < intermediateColumnNum; j++) {
+          locations[j] = new InputLocation(child, columnIndex + j);
+        }
+        inputLocations.add(locations);
+      }
+      columnIndex += intermediateColumnNum;
+      aggregators.add(new TreeAggregator(accumulator, AggregationStep.FINAL, inputLocations));
+    }
+    return new AggregationOperator(
+        operatorContext,
+        aggregators,
+        initTimeRangeIterator(null, true, true, ZoneId.systemDefault()),
+        splits,
+        false,
+        DEFAULT_MAX_TSBLOCK_SIZE_IN_BYTES);
+  }
+
+  private static TsBlock getOnlyResult(Operator operator) throws Exception {
+    TsBlock result = null;
+    while (true) {
+      operator.isBlocked().get();
+      if (!operator.hasNext()) {
+        break;
+      }
+      TsBlock tsBlock = operator.next();
+      if (tsBlock != null && !tsBlock.isEmpty()) {
+        Assert.assertNull(result);
+        result = tsBlock;
+      }
+    }
+    Assert.assertNotNull(result);
+    operator.close();
+    return result;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.planner;
+
+import org.apache.iotdb.commons.schema.table.column.TsTableColumnCategory;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.ColumnSchema;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.ResolvedFunction;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.AggregationTableScanNode;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.tsfile.read.common.type.IntType;
+import org.apache.tsfile.read.common.type.LongType;
+import org.apache.tsfile.read.common.type.StringType;
+import org.apache.tsfile.read.common.type.Type;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+public class SealedWindowCacheSignatureTest {
+
+  private static final Symbol TIME = new Symbol("time");
+  private static final Symbol S1 = new Symbol("s1");
+  private static final Symbol ATTR = new Symbol("attr");
+
+  @Test
+  public void testColumnTypes() {
+    String intSignature =
+        TableOperatorGenerator.getSealedWindowCacheSignature(
+            mockNode(IntType.getInstance(), aggregation(S1, Optional.empty())));
+    String longSignature =
+        TableOperatorGenerator.getSealedWindowCacheSignature(
+            mockNode(LongType.getInstance(), aggregation(S1, Optional.empty())));
+    Assert.assertNotNull(intSignature);
+    Assert.assertNotNull(longSignature);
+    // results cached before the type of s1 is altered are not hit
+    Assert.assertNotEquals(intSignature, longSignature);
+    Assert.assertEquals(
+        intSignature,
+        TableOperatorGenerator.getSealedWindowCacheSignature(
+            mockNode(IntType.getInstance(), aggregation(S1, Optional.empty()))));
+  }
+
+  @Test
+  public void testNotCachedAggregations() {
+    // attributes may be updated after the results are cached
+    Assert.assertNull(
+        TableOperatorGenerator.getSealedWindowCacheSignature(
+            mockNode(IntType.getInstance(), aggregation(ATTR, Optional.empty()))));
+    Assert.assertNull(
+        TableOperatorGenerator.getSealedWindowCacheSignature(
+            mockNode(IntType.getInstance(), aggregation(S1, Optional.of(S1)))));
+  }
+
+  private static AggregationTableScanNode mockNode(
+      Type fieldType, AggregationNode.Aggregation aggregation) {
+    Map<Symbol, ColumnSchema> assignments =
+        ImmutableMap.of(
+            TIME,
+            new ColumnSchema("time", LongType.getInstance(), false, TsTableColumnCategory.TIME),
+            S1,
+            new ColumnSchema("s1", fieldType, false, TsTableColumnCategory.FIELD),
+            ATTR,
+            new ColumnSchema(
+                "attr", StringType.getInstance(), false, TsTableColumnCategory.ATTRIBUTE));
+    AggregationTableScanNode node = Mockito.mock(AggregationTableScanNode.class);
+    Mockito.when(node.getAssignments()).thenReturn(assignments);
+    Mockito.when(node.getAggregations())
+        .thenReturn(Collections.singletonMap(new Symbol("_col0"), aggregation));
+    Mockito.when(node.getStep()).thenReturn(AggregationNode.Step.SINGLE);
+    return node;
+  }
+
+  private static AggregationNode.Aggregation aggregation(Symbol argument, Optional<Symbol> filter) {
+    ResolvedFunction function = Mockito.mock(ResolvedFunction.class);
+    Mockito.when(function.toString()).thenReturn("sum");
+    return new AggregationNode.Aggregation(
+        function,
+        Collections.singletonList(argument.toSymbolReference()),
+        false,
+        filter,
+        Optional.empty(),
+        Optional.empty());
+  }
+}
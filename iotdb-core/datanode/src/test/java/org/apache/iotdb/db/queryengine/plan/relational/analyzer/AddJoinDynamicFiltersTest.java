@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.analyzer;
+
+import org.apache.iotdb.common.rpc.thrift.TDataNodeLocation;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.FragmentInstance;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.PlanTester;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.Symbol;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.DeviceTableScanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AddJoinDynamicFiltersTest {
+
+  @Test
+  public void innerJoinOnTagTest() {
+    JoinNode joinNode =
+        findJoin(
+            new PlanTester()
+                .createPlan(
+                    "SELECT t1.s1, t2.s1 FROM table1 t1 JOIN table2 t2 ON t1.tag1 = t2.tag1")
+                .getRootNode());
+    assertNotNull(joinNode);
+
+    Map<Symbol, Symbol> dynamicFilters = joinNode.getDynamicFilters();
+    assertEquals(1, dynamicFilters.size());
+    Map.Entry<Symbol, Symbol> filter = dynamicFilters.entrySet().iterator().next();
+    assertTrue(joinNode.getLeftChild().getOutputSymbols().contains(filter.getKey()));
+    assertTrue(joinNode.getRightChild().getOutputSymbols().contains(filter.getValue()));
+  }
+
+  @Test
+  public void outerJoinTest() {
+    JoinNode joinNode =
+        findJoin(
+            new PlanTester()
+                .createPlan(
+                    "SELECT t1.s1, t2.s1 FROM table1 t1 LEFT JOIN table2 t2 ON t1.tag1 = t2.tag1")
+                .getRootNode());
+    assertNotNull(joinNode);
+    // rows of the left side are all kept, so they can not be skipped
+    assertTrue(joinNode.getDynamicFilters().isEmpty());
+  }
+
+  @Test
+  public void innerJoinOnFieldTest() {
+    JoinNode joinNode =
+        findJoin(
+            new PlanTester()
+                .createPlan("SELECT t1.s1, t2.s1 FROM table1 t1 JOIN table2 t2 ON t1.s1 = t2.s1")
+                .getRootNode());
+    assertNotNull(joinNode);
+    // only tag and time columns can be used to skip data in the scan
+    assertTrue(joinNode.getDynamicFilters().isEmpty());
+  }
+
+  @Test
+  public void routeToScansInOtherFragmentsTest() {
+    PlanTester planTester = new PlanTester();
+    planTester.createPlan("SELECT t1.s1, t2.s1 FROM table1 t1 JOIN table2 t2 ON t1.tag1 = t2.tag1");
+
+    FragmentInstance joinInstance = null;
+    List<FragmentInstance> probeInstances = new ArrayList<>();
+    List<FragmentInstance> buildInstances = new ArrayList<>();
+    for (FragmentInstance instance : planTester.getFragmentInstances()) {
+      PlanNode root = instance.getFragment().getPlanNodeTree();
+      if (findJoin(root) != null) {
+        joinInstance = instance;
+      } else if (scansTable(root, "table1")) {
+        probeInstances.add(instance);
+      } else if (scansTable(root, "table2")) {
+        buildInstances.add(instance);
+      }
+    }
+    assertNotNull(joinInstance);
+    // the scans of both sides are in other fragments than the join
+    assertFalse(scansTable(joinInstance.getFragment().getPlanNodeTree(), "table1"));
+    assertFalse(probeInstances.isEmpty());
+    assertFalse(buildInstances.isEmpty());
+
+    JoinNode joinNode = findJoin(joinInstance.getFragment().getPlanNodeTree());
+    String symbol = joinNode.getDynamicFilters().keySet().iterator().next().getName();
+    Map<String, Map<String, Integer>> expected =
+        ImmutableMap.of(symbol, ImmutableMap.of(joinNode.getPlanNodeId().getId(), 1));
+
+    // the join pushes its filter to the DataNodes of the probe side, which wait for it
+    Set<TDataNodeLocation> probeHosts = new HashSet<>();
+    for (FragmentInstance probeInstance : probeInstances) {
+      assertEquals(expected, probeInstance.getExpectedDynamicFilters());
+      probeHosts.add(probeInstance.getHostDataNode());
+    }
+    assertEquals(probeHosts, new HashSet<>(joinInstance.getDynamicFilterTargets()));
+    assertTrue(joinInstance.getExpectedDynamicFilters().isEmpty());
+    for (FragmentInstance buildInstance : buildInstances) {
+      assertTrue(buildInstance.getExpectedDynamicFilters().isEmpty());
+      assertTrue(buildInstance.getDynamicFilterTargets().isEmpty());
+    }
+
+    // the routing survives the dispatch of the instances
+    FragmentInstance deserialized =
+        FragmentInstance.deserializeFrom(joinInstance.serializeToByteBuffer());
+    assertEquals(joinInstance.getDynamicFilterTargets(), deserialized.getDynamicFilterTargets());
+    deserialized = FragmentInstance.deserializeFrom(probeInstances.get(0).serializeToByteBuffer());
+    assertEquals(expected, deserialized.getExpectedDynamicFilters());
+  }
+
+  @Test
+  public void noRoutingWithoutDynamicFiltersTest() {
+    PlanTester planTester = new PlanTester();
+    planTester.createPlan(
+        "SELECT t1.s1, t2.s1 FROM table1 t1 LEFT JOIN table2 t2 ON t1.tag1 = t2.tag1");
+    for (FragmentInstance instance : planTester.getFragmentInstances()) {
+      assertTrue(instance.getExpectedDynamicFilters().isEmpty());
+      assertTrue(instance.getDynamicFilterTargets().isEmpty());
+    }
+  }
+
+  private static boolean scansTable(PlanNode node, String table) {
+    if (node instanceof DeviceTableScanNode
+        && ((DeviceTableScanNode) node).getQualifiedObjectName().getObjectName().equals(table)) {
+      return true;
+    }
+    for (PlanNode child : node.getChildren()) {
+      if (scansTable(child, table)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static JoinNode findJoin(PlanNode node) {
+    if (node instanceof JoinNode) {
+      return (JoinNode) node;
+    }
+    for (PlanNode child : node.getChildren()) {
+      JoinNode joinNode = findJoin(child);
+      if (joinNode != null) {
+        return joinNode;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.analyzer;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.queryengine.common.SessionInfo;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.QualifiedObjectName;
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.TableStatistics;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.PlanTester;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.DeviceTableScanNode;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReorderJoinsTest {
+
+  private static final String SQL =
+      "SELECT t1.s1, t2.s1, t3.s1 FROM table1 t1 "
+          + "JOIN table2 t2 ON t1.tag1 = t2.tag1 "
+          + "JOIN table3 t3 ON t1.time = t3.time";
+
+  private boolean enableJoinReorder;
+
+  @Before
+  public void setUp() {
+    enableJoinReorder = IoTDBDescriptor.getInstance().getConfig().isEnableJoinReorder();
+    IoTDBDescriptor.getInstance().getConfig().setEnableJoinReorder(true);
+  }
+
+  @After
+  public void tearDown() {
+    IoTDBDescriptor.getInstance().getConfig().setEnableJoinReorder(enableJoinReorder);
+  }
+
+  @Test
+  public void reorderByStatisticsTest() {
+    Map<String, TableStatistics> statistics =
+        ImmutableMap.of(
+            "table1", new TableStatistics(1_000_000, 1000, 0, 999_999, ImmutableMap.of()),
+            "table2", new TableStatistics(10_000, 1000, 0, 999_999, ImmutableMap.of()),
+            "table3", new TableStatistics(10, 1, 0, 9, ImmutableMap.of()));
+    PlanTester planTester =
+        new PlanTester(
+            new TestMetadata() {
+              @Override
+              public Optional<TableStatistics> getTableStatistics(
+                  SessionInfo session, QualifiedObjectName name) {
+                return Optional.ofNullable(statistics.get(name.getObjectName()));
+              }
+            });
+
+    // joining the small table3 first keeps the input of the second join small
+    assertEquals(
+        ImmutableList.of("table1", "table3", "table2"),
+        getScannedTables(planTester.createPlan(SQL).getRootNode()));
+  }
+
+  @Test
+  public void keepOrderWithoutStatisticsTest() {
+    assertEquals(
+        ImmutableList.of("table1", "table2", "table3"),
+        getScannedTables(new PlanTester().createPlan(SQL).getRootNode()));
+  }
+
+  private static List<String> getScannedTables(PlanNode root) {
+    List<String> tables = new ArrayList<>();
+    collectScannedTables(root, tables);
+    return tables;
+  }
+
+  private static void collectScannedTables(PlanNode node, List<String> tables) {
+    if (node instanceof DeviceTableScanNode) {
+      tables.add(((DeviceTableScanNode) node).getQualifiedObjectName().getObjectName());
+    }
+    for (PlanNode child : node.getChildren()) {
+      collectScannedTables(child, tables);
+    }
+  }
+}
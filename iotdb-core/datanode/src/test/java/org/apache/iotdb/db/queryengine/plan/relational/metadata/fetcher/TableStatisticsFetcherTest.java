@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.metadata.fetcher;
+
+import org.apache.iotdb.db.queryengine.plan.relational.metadata.TableStatistics;
+import org.apache.iotdb.mpp.rpc.thrift.TFetchTableStatisticsResp;
+import org.apache.iotdb.rpc.RpcUtils;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TableStatisticsFetcherTest {
+
+  private TFetchTableStatisticsResp regionStatistics(
+      long minTime,
+      long maxTime,
+      ImmutableMap<Long, Long> timePartitionRowCounts,
+      ImmutableMap<Long, Long> timePartitionDeviceCounts) {
+    TFetchTableStatisticsResp resp = new TFetchTableStatisticsResp(RpcUtils.SUCCESS_STATUS);
+    resp.setMinTime(minTime);
+    resp.setMaxTime(maxTime);
+    resp.setTimePartitionRowCounts(timePartitionRowCounts);
+    resp.setTimePartitionDeviceCounts(timePartitionDeviceCounts);
+    return resp;
+  }
+
+  @Test
+  public void testMergeRegionStatistics() {
+    TableStatistics statistics =
+        TableStatisticsFetcher.mergeRegionStatistics(
+            Arrays.asList(
+                regionStatistics(
+                    10, 200, ImmutableMap.of(0L, 100L, 1L, 50L), ImmutableMap.of(0L, 3L, 1L, 2L)),
+                regionStatistics(0, 150, ImmutableMap.of(0L, 40L), ImmutableMap.of(0L, 4L)),
+                // a region without data of the table
+                regionStatistics(
+                    Long.MAX_VALUE, Long.MIN_VALUE, ImmutableMap.of(), ImmutableMap.of())));
+
+    Assert.assertEquals(190, statistics.getRowCount());
+    // devices of different regions in the same time partition are different devices
+    Assert.assertEquals(7, statistics.getDeviceCount());
+    Assert.assertEquals(0, statistics.getMinTime());
+    Assert.assertEquals(200, statistics.getMaxTime());
+    Assert.assertEquals(ImmutableMap.of(0L, 140L, 1L, 50L), statistics.getTimePartitionRowCounts());
+  }
+
+  @Test
+  public void testMergeWithoutData() {
+    TableStatistics statistics =
+        TableStatisticsFetcher.mergeRegionStatistics(
+            Collections.singletonList(
+                regionStatistics(
+                    Long.MAX_VALUE, Long.MIN_VALUE, ImmutableMap.of(), ImmutableMap.of())));
+
+    Assert.assertEquals(0, statistics.getRowCount());
+    Assert.assertEquals(0, statistics.getDeviceCount());
+    Assert.assertEquals(0, statistics.getDistinctTimeCount());
+  }
+}
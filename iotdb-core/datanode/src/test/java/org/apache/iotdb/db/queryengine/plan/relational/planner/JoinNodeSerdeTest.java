@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.queryengine.plan.relational.planner;
+
+import org.apache.iotdb.db.queryengine.plan.planner.node.PlanNodeDeserializeHelper;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNodeType;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.JoinNode;
+import org.apache.iotdb.db.queryengine.plan.relational.planner.node.ValuesNode;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JoinNodeSerdeTest {
+
+  private static final Symbol LEFT_TAG = new Symbol("tag1");
+  private static final Symbol RIGHT_TAG = new Symbol("tag1_0");
+
+  @Test
+  public void testSerdeWithoutDynamicFilters() throws Exception {
+    JoinNode node = createJoinNode();
+    ByteBuffer buffer = serialize(node);
+
+    // the node type of the plans readable by the DataNodes not knowing dynamic filters
+    assertEquals(PlanNodeType.TABLE_JOIN_NODE.getNodeType(), buffer.getShort(0));
+    JoinNode deserialized = (JoinNode) PlanNodeDeserializeHelper.deserialize(buffer);
+    assertEquals(node.getCriteria(), deserialized.getCriteria());
+    assertTrue(deserialized.getDynamicFilters().isEmpty());
+    assertEquals(2, deserialized.getChildren().size());
+  }
+
+  @Test
+  public void testSerdeWithDynamicFilters() throws Exception {
+    JoinNode node = createJoinNode();
+    node.setDynamicFilters(ImmutableMap.of(LEFT_TAG, RIGHT_TAG));
+    ByteBuffer buffer = serialize(node);
+
+    assertEquals(
+        PlanNodeType.TABLE_JOIN_NODE_WITH_DYNAMIC_FILTERS.getNodeType(), buffer.getShort(0));
+    JoinNode deserialized = (JoinNode) PlanNodeDeserializeHelper.deserialize(buffer);
+    assertEquals(node.getCriteria(), deserialized.getCriteria());
+    assertEquals(ImmutableMap.of(LEFT_TAG, RIGHT_TAG), deserialized.getDynamicFilters());
+    assertEquals(2, deserialized.getChildren().size());
+  }
+
+  private static JoinNode createJoinNode() {
+    return new JoinNode(
+        new PlanNodeId("1"),
+        JoinNode.JoinType.INNER,
+        new ValuesNode(new PlanNodeId("2"), 1),
+        new ValuesNode(new PlanNodeId("3"), 1),
+        ImmutableList.of(new JoinNode.EquiJoinClause(LEFT_TAG, RIGHT_TAG)),
+        Optional.empty(),
+        ImmutableList.of(LEFT_TAG),
+        ImmutableList.of(RIGHT_TAG),
+        Optional.empty(),
+        Optional.empty());
+  }
+
+  private static ByteBuffer serialize(JoinNode node) throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    try (DataOutputStream stream = new DataOutputStream(byteArrayOutputStream)) {
+      node.serialize(stream);
+    }
+    return ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
+  }
+}
@@ -29,6 +29,7 @@ import org.apache.iotdb.db.queryengine.common.QueryId;
 import org.apache.iotdb.db.queryengine.common.SessionInfo;
 import org.apache.iotdb.db.queryengine.execution.warnings.WarningCollector;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.DistributedQueryPlan;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.FragmentInstance;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.LogicalQueryPlan;
 import org.apache.iotdb.db.queryengine.plan.planner.plan.node.PlanNode;
 import org.apache.iotdb.db.queryengine.plan.relational.analyzer.Analysis;
@@ -226,12 +227,25 @@ public class PlanTester {
   }
 
   public PlanNode getFragmentPlan(int index) {
+    return getDistributedQueryPlan()
+        .getFragments()
+        .get(index)
+        .getPlanNodeTree()
+        .getChildren()
+        .get(0);
+  }
+
+  public List<FragmentInstance> getFragmentInstances() {
+    return getDistributedQueryPlan().getInstances();
+  }
+
+  private DistributedQueryPlan getDistributedQueryPlan() {
     if (distributedQueryPlan == null) {
       distributedQueryPlan =
           new TableDistributedPlanner(
                   analysis, symbolAllocator, plan, metadata, dataNodeLocationSupplier)
               .plan();
     }
-    return distributedQueryPlan.getFragments().get(index).getPlanNodeTree().getChildren().get(0);
+    return distributedQueryPlan;
   }
 }
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.storageengine.buffer;
+
+import org.apache.iotdb.db.queryengine.execution.fragment.QueryContext;
+import org.apache.iotdb.db.storageengine.dataregion.read.control.FileReaderManager;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileID;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResourceStatus;
+import org.apache.iotdb.db.utils.constant.TestConstant;
+
+import org.apache.tsfile.common.conf.TSFileDescriptor;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.exception.write.WriteProcessException;
+import org.apache.tsfile.file.metadata.ChunkMetadata;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.file.metadata.enums.CompressionType;
+import org.apache.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.tsfile.read.TsFileSequenceReader;
+import org.apache.tsfile.read.common.Path;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.apache.tsfile.read.reader.IPageReader;
+import org.apache.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.tsfile.write.TsFileWriter;
+import org.apache.tsfile.write.record.TSRecord;
+import org.apache.tsfile.write.record.datapoint.DataPoint;
+import org.apache.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class DecodedPageCacheTest {
+
+  private static final String DEVICE = "root.sg1.d1";
+  private static final int POINTS_IN_PAGE = 10;
+  private static final int PAGE_NUM = 5;
+
+  private final QueryContext context = new QueryContext(false, false);
+  private int maxNumberOfPointsInPage;
+  private TsFileResource resource;
+  private TsFileSequenceReader reader;
+  private ChunkMetadata chunkMetadata;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException {
+    maxNumberOfPointsInPage =
+        TSFileDescriptor.getInstance().getConfig().getMaxNumberOfPointsInPage();
+    TSFileDescriptor.getInstance().getConfig().setMaxNumberOfPointsInPage(POINTS_IN_PAGE);
+
+    File file = new File(TestConstant.getTestTsFilePath("root.sg1", 0, 0, 1));
+    if (!file.getParentFile().exists()) {
+      Assert.assertTrue(file.getParentFile().mkdirs());
+    }
+    resource = new TsFileResource(file);
+    resource.setStatusForTest(TsFileResourceStatus.NORMAL);
+    TsFileWriter writer = new TsFileWriter(file);
+    writer.registerTimeseries(
+        new Path(DEVICE),
+        new MeasurementSchema(
+            "s1", TSDataType.INT64, TSEncoding.PLAIN, CompressionType.UNCOMPRESSED));
+    for (long time = 0; time < POINTS_IN_PAGE * PAGE_NUM; time++) {
+      TSRecord record = new TSRecord(DEVICE, time);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT64, "s1", String.valueOf(time)));
+      writer.writeRecord(record);
+    }
+    writer.close();
+    IDeviceID deviceId = IDeviceID.Factory.DEFAULT_FACTORY.create(DEVICE);
+    resource.updateStartTime(deviceId, 0);
+    resource.updateEndTime(deviceId, POINTS_IN_PAGE * PAGE_NUM - 1);
+
+    reader = new TsFileSequenceReader(file.getPath());
+    chunkMetadata = reader.getChunkMetadataList(new Path(DEVICE, "s1", true)).get(0);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    reader.close();
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    ChunkCache.getInstance().clear();
+    resource.remove();
+    TSFileDescriptor.getInstance().getConfig().setMaxNumberOfPointsInPage(maxNumberOfPointsInPage);
+  }
+
+  private List<IPageReader> loadPageReaders() throws IOException {
+    List<IPageReader> pageReaders =
+        new ChunkReader(reader.readMemChunk(chunkMetadata)).loadPageReaderList();
+    Assert.assertEquals(PAGE_NUM, pageReaders.size());
+    return pageReaders;
+  }
+
+  private void assertSamePages(List<IPageReader> expected, List<IPageReader> actual)
+      throws IOException {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      TsBlock expectedPage = expected.get(i).getAllSatisfiedData();
+      TsBlock actualPage = actual.get(i).getAllSatisfiedData();
+      Assert.assertEquals(expectedPage.getPositionCount(), actualPage.getPositionCount());
+      for (int j = 0; j < expectedPage.getPositionCount(); j++) {
+        Assert.assertEquals(expectedPage.getTimeByIndex(j), actualPage.getTimeByIndex(j));
+        Assert.assertEquals(
+            expectedPage.getColumn(0).getLong(j), actualPage.getColumn(0).getLong(j));
+      }
+    }
+  }
+
+  @Test
+  public void testHitAndMiss() throws IOException {
+    DecodedPageCache cache = new DecodedPageCache(true, 1024 * 1024, 60_000);
+
+    // the first scan decodes the chunk once for all its pages
+    List<IPageReader> first =
+        cache.share(context, resource, chunkMetadata, loadPageReaders(), null);
+    assertSamePages(loadPageReaders(), first);
+    Assert.assertEquals(1, cache.getMissCount());
+    Assert.assertEquals(PAGE_NUM - 1, cache.getHitCount());
+    Assert.assertEquals(1, cache.size());
+
+    // the following scans of the same chunk share the decoded pages
+    List<IPageReader> second =
+        cache.share(context, resource, chunkMetadata, loadPageReaders(), null);
+    assertSamePages(loadPageReaders(), second);
+    Assert.assertEquals(1, cache.getMissCount());
+    Assert.assertEquals(PAGE_NUM * 2 - 1, cache.getHitCount());
+  }
+
+  @Test
+  public void testEvictionByWeight() throws IOException {
+    // too small to keep the decoded pages of the chunk
+    DecodedPageCache cache = new DecodedPageCache(true, 1, 60_000);
+
+    List<IPageReader> first =
+        cache.share(context, resource, chunkMetadata, loadPageReaders(), null);
+    assertSamePages(loadPageReaders(), first);
+    Assert.assertEquals(0, cache.size());
+
+    // the evicted pages are decoded again by the next scan
+    long missCount = cache.getMissCount();
+    List<IPageReader> second =
+        cache.share(context, resource, chunkMetadata, loadPageReaders(), null);
+    assertSamePages(loadPageReaders(), second);
+    Assert.assertTrue(cache.getMissCount() > missCount);
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testModifiedPages() throws IOException {
+    DecodedPageCache cache = new DecodedPageCache(true, 1024 * 1024, 60_000);
+
+    // the modified pages are read by their own readers
+    List<IPageReader> pageReaders = loadPageReaders();
+    IPageReader modifiedPageReader = Mockito.mock(IPageReader.class);
+    Mockito.when(modifiedPageReader.isModified()).thenReturn(true);
+    pageReaders.set(0, modifiedPageReader);
+    List<IPageReader> shared = cache.share(context, resource, chunkMetadata, pageReaders, null);
+    Assert.assertSame(modifiedPageReader, shared.get(0));
+    for (int i = 1; i < PAGE_NUM; i++) {
+      Assert.assertNotSame(pageReaders.get(i), shared.get(i));
+    }
+    assertSamePages(loadPageReaders().subList(1, PAGE_NUM), shared.subList(1, PAGE_NUM));
+
+    // the pages of unclosed files are not shared
+    resource.setStatusForTest(TsFileResourceStatus.UNCLOSED);
+    pageReaders = loadPageReaders();
+    Assert.assertSame(
+        pageReaders, cache.share(context, resource, chunkMetadata, pageReaders, null));
+    resource.setStatusForTest(TsFileResourceStatus.NORMAL);
+
+    // nothing is shared if disabled
+    DecodedPageCache disabledCache = new DecodedPageCache(false, 1024 * 1024, 60_000);
+    Assert.assertSame(
+        pageReaders, disabledCache.share(context, resource, chunkMetadata, pageReaders, null));
+  }
+
+  @Test
+  public void testInvalidateRemovedFile() throws IOException {
+    DecodedPageCache cache = new DecodedPageCache(true, 1024 * 1024, 60_000);
+    List<IPageReader> shared =
+        cache.share(context, resource, chunkMetadata, loadPageReaders(), null);
+    assertSamePages(loadPageReaders(), shared);
+    Assert.assertEquals(1, cache.size());
+
+    // the pages of the other files are kept
+    cache.invalidate(new TsFileID(0, 0, 2, 2, 0));
+    Assert.assertEquals(1, cache.size());
+
+    cache.invalidate(resource.getTsFileID());
+    Assert.assertEquals(0, cache.size());
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.buffer;
+
+import org.apache.iotdb.db.queryengine.plan.analyze.cache.schema.DataNodeTTLCache;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.db.storageengine.dataregion.DataRegion;
+import org.apache.iotdb.db.storageengine.dataregion.ILastFlushTimeMap;
+
+import org.apache.tsfile.block.column.Column;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.common.TimeRange;
+import org.apache.tsfile.read.common.block.column.IntColumn;
+import org.apache.tsfile.utils.TimeDuration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Optional;
+
+public class SealedWindowAggregationCacheTest {
+
+  private static final String REGION_ID = "1";
+  private static final String SIGNATURE = "[s1],count()";
+  private static final long FLUSHED_TIME = 999;
+
+  private final IDeviceID deviceId = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+  private final IDeviceID otherDeviceId = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d2");
+
+  private SealedWindowAggregationCache cache;
+  private DataRegion dataRegion;
+
+  @Before
+  public void setUp() {
+    cache = new SealedWindowAggregationCache(true, 1024 * 1024);
+    ILastFlushTimeMap lastFlushTimeMap = Mockito.mock(ILastFlushTimeMap.class);
+    Mockito.when(lastFlushTimeMap.getFlushedTimeIfPresent(Mockito.anyLong(), Mockito.any()))
+        .thenReturn(FLUSHED_TIME);
+    dataRegion = Mockito.mock(DataRegion.class);
+    Mockito.when(dataRegion.getDataRegionIdString()).thenReturn(REGION_ID);
+    Mockito.when(dataRegion.getLastFlushTimeMap()).thenReturn(lastFlushTimeMap);
+  }
+
+  @Test
+  public void testHitAndMiss() {
+    SealedWindowAggregationCache.Handle handle = createHandle(deviceId);
+    TimeRange window = new TimeRange(0, 99);
+    Assert.assertNull(handle.get(window));
+    Assert.assertEquals(1, cache.getMissCount());
+
+    handle.put(window, values(10));
+    Assert.assertEquals(10, createHandle(deviceId).get(window)[0].getInt(0));
+    Assert.assertEquals(1, cache.getHitCount());
+
+    // windows of other devices and signatures, or windows not sealed are never hit
+    Assert.assertNull(createHandle(otherDeviceId).get(window));
+    Assert.assertNull(
+        cache
+            .createHandle(dataRegion, deviceId, "[s2],count()", 0, FLUSHED_TIME, null)
+            .get(window));
+    TimeRange openWindow = new TimeRange(900, 1099);
+    handle.put(openWindow, values(20));
+    Assert.assertNull(handle.get(openWindow));
+  }
+
+  @Test
+  public void testInvalidateByUnsequenceWrite() {
+    SealedWindowAggregationCache.Handle handle = createHandle(deviceId);
+    handle.put(new TimeRange(0, 99), values(10));
+    handle.put(new TimeRange(100, 199), values(20));
+    createHandle(otherDeviceId).put(new TimeRange(0, 99), values(30));
+
+    cache.invalidate(REGION_ID, deviceId, 150, 150);
+    SealedWindowAggregationCache.Handle newHandle = createHandle(deviceId);
+    Assert.assertNotNull(newHandle.get(new TimeRange(0, 99)));
+    Assert.assertNull(newHandle.get(new TimeRange(100, 199)));
+    Assert.assertNotNull(createHandle(otherDeviceId).get(new TimeRange(0, 99)));
+
+    // a scan which took its snapshot before the write shall not put its stale result
+    handle.put(new TimeRange(100, 199), values(20));
+    Assert.assertNull(newHandle.get(new TimeRange(100, 199)));
+    newHandle.put(new TimeRange(100, 199), values(21));
+    Assert.assertEquals(21, newHandle.get(new TimeRange(100, 199))[0].getInt(0));
+  }
+
+  @Test
+  public void testInvalidateWithoutCachedWindows() {
+    SealedWindowAggregationCache.Handle handle = createHandle(deviceId);
+    cache.invalidate(REGION_ID, deviceId, 150, 150);
+    Assert.assertTrue(cache.isEmpty());
+
+    handle.put(new TimeRange(100, 199), values(20));
+    Assert.assertTrue(cache.isEmpty());
+  }
+
+  @Test
+  public void testInvalidateByDeletion() {
+    SealedWindowAggregationCache.Handle handle = createHandle(deviceId);
+    handle.put(new TimeRange(0, 99), values(10));
+    createHandle(otherDeviceId).put(new TimeRange(0, 99), values(30));
+
+    cache.invalidateRegion(REGION_ID);
+    Assert.assertTrue(cache.isEmpty());
+    handle.put(new TimeRange(100, 199), values(20));
+    Assert.assertTrue(cache.isEmpty());
+  }
+
+  @Test
+  public void testInvalidateByTTL() throws Exception {
+    SealedWindowAggregationCache.Handle handle = createHandle(deviceId);
+    handle.put(new TimeRange(0, 99), values(10));
+
+    // results of windows are neither read nor written by scans started before TTL is changed
+    cache.invalidateAll();
+    Assert.assertTrue(cache.isEmpty());
+    handle.put(new TimeRange(100, 199), values(20));
+    Assert.assertTrue(cache.isEmpty());
+    createHandle(deviceId).put(new TimeRange(0, 99), values(10));
+    Assert.assertNull(handle.get(new TimeRange(0, 99)));
+
+    GroupByTimeParameter groupByTimeParameter =
+        new GroupByTimeParameter(0, 1000, new TimeDuration(0, 100), new TimeDuration(0, 100), true);
+    Assert.assertNotNull(
+        cache.createHandle(dataRegion, deviceId, SIGNATURE, groupByTimeParameter, null));
+    DataNodeTTLCache.getInstance().setTTLForTree("root.sg.d1", 1000);
+    try {
+      Assert.assertNull(
+          cache.createHandle(dataRegion, deviceId, SIGNATURE, groupByTimeParameter, null));
+    } finally {
+      DataNodeTTLCache.getInstance().clearAllTTLForTree();
+    }
+  }
+
+  private SealedWindowAggregationCache.Handle createHandle(IDeviceID deviceId) {
+    return cache.createHandle(dataRegion, deviceId, SIGNATURE, 0, FLUSHED_TIME, null);
+  }
+
+  private static Column[] values(int value) {
+    return new Column[] {new IntColumn(1, Optional.empty(), new int[] {value})};
+  }
+}
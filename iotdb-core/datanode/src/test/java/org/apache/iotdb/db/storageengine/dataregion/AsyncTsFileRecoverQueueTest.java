@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion;
+
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.generator.TsFileNameGenerator;
+import org.apache.iotdb.db.utils.constant.TestConstant;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncTsFileRecoverQueueTest {
+
+  private TsFileResource generateTsFileResource(long timePartition, int version) {
+    File dir = new File(TestConstant.BASE_OUTPUT_PATH, String.valueOf(timePartition));
+    return new TsFileResource(
+        new File(TsFileNameGenerator.generateNewTsFilePath(dir.getPath(), version, version, 0, 0)));
+  }
+
+  @Test
+  public void testQueriedFileRecoveredFirst() {
+    AsyncTsFileRecoverQueue queue = new AsyncTsFileRecoverQueue();
+    List<TsFileResource> partition0 = new ArrayList<>();
+    List<TsFileResource> partition1 = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      partition0.add(generateTsFileResource(0, i));
+      partition1.add(generateTsFileResource(1, i));
+    }
+    partition0.forEach(queue::add);
+    partition1.forEach(queue::add);
+
+    List<TsFileResource> recovered = new ArrayList<>();
+    AtomicInteger recoveredFilesNum = new AtomicInteger();
+    queue.recover(
+        partition0.get(0),
+        file -> {
+          recovered.add(file);
+          recoveredFilesNum.incrementAndGet();
+        });
+    Assert.assertEquals(Collections.singletonList(partition0.get(0)), recovered);
+
+    // queries touch a pending file of the other partition, then a recovered file
+    Assert.assertTrue(queue.touch(partition1.get(2)));
+    Assert.assertFalse(queue.touch(partition1.get(2)));
+    Assert.assertFalse(queue.touch(partition0.get(0)));
+    Assert.assertTrue(queue.isPending(partition1.get(2)));
+
+    for (TsFileResource tsFileResource : partition0.subList(1, 3)) {
+      queue.recover(
+          tsFileResource,
+          file -> {
+            recovered.add(file);
+            recoveredFilesNum.incrementAndGet();
+          });
+    }
+    Assert.assertEquals(
+        Arrays.asList(partition0.get(0), partition1.get(2), partition0.get(1), partition0.get(2)),
+        recovered);
+    Assert.assertFalse(queue.isPending(partition1.get(2)));
+    // a recovered file is not queued again
+    Assert.assertFalse(queue.touch(partition1.get(2)));
+
+    // the queried file is skipped when its own partition is recovered
+    for (TsFileResource tsFileResource : partition1) {
+      queue.recover(
+          tsFileResource,
+          file -> {
+            recovered.add(file);
+            recoveredFilesNum.incrementAndGet();
+          });
+    }
+    Assert.assertEquals(
+        Arrays.asList(
+            partition0.get(0),
+            partition1.get(2),
+            partition0.get(1),
+            partition0.get(2),
+            partition1.get(0),
+            partition1.get(1)),
+        recovered);
+    Assert.assertEquals(6, recoveredFilesNum.get());
+    Assert.assertFalse(queue.touch(partition1.get(0)));
+  }
+
+  @Test
+  public void testConcurrentRecoverOnce() throws Exception {
+    AsyncTsFileRecoverQueue queue = new AsyncTsFileRecoverQueue();
+    int partitionNum = 4;
+    int fileNum = 100;
+    List<List<TsFileResource>> partitions = new ArrayList<>();
+    for (int p = 0; p < partitionNum; p++) {
+      List<TsFileResource> partition = new ArrayList<>();
+      for (int i = 0; i < fileNum; i++) {
+        TsFileResource tsFileResource = generateTsFileResource(p, i);
+        partition.add(tsFileResource);
+        queue.add(tsFileResource);
+      }
+      partitions.add(partition);
+    }
+
+    Map<TsFileResource, AtomicInteger> recoverCounts = new ConcurrentHashMap<>();
+    AtomicInteger recoveredFilesNum = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(partitionNum + 1);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (List<TsFileResource> partition : partitions) {
+        futures.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  for (TsFileResource tsFileResource : partition) {
+                    queue.recover(
+                        tsFileResource,
+                        file -> {
+                          recoverCounts
+                              .computeIfAbsent(file, k -> new AtomicInteger())
+                              .incrementAndGet();
+                          recoveredFilesNum.incrementAndGet();
+                        });
+                  }
+                  return null;
+                }));
+      }
+      // queries keep touching the last files of every partition while they are recovered
+      futures.add(
+          pool.submit(
+              () -> {
+                start.await();
+                for (int i = fileNum - 1; i >= 0; i--) {
+                  for (List<TsFileResource> partition : partitions) {
+                    queue.touch(partition.get(i));
+                    queue.touch(partition.get(i));
+                  }
+                }
+                return null;
+              }));
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    Assert.assertEquals(partitionNum * fileNum, recoveredFilesNum.get());
+    Assert.assertEquals(partitionNum * fileNum, recoverCounts.size());
+    for (AtomicInteger recoverCount : recoverCounts.values()) {
+      Assert.assertEquals(1, recoverCount.get());
+    }
+    for (List<TsFileResource> partition : partitions) {
+      for (TsFileResource tsFileResource : partition) {
+        Assert.assertFalse(queue.isPending(tsFileResource));
+        Assert.assertFalse(queue.touch(tsFileResource));
+      }
+    }
+  }
+}
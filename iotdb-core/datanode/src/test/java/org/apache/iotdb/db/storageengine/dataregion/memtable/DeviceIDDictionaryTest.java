@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.storageengine.dataregion.memtable;
+
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeviceIDDictionaryTest {
+
+  @Test
+  public void testIntern() {
+    DeviceIDDictionary dictionary = new DeviceIDDictionary(1024 * 1024);
+    IDeviceID d1 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+    IDeviceID t1 = IDeviceID.Factory.DEFAULT_FACTORY.create(new String[] {"table1", "id1"});
+    Assert.assertSame(d1, dictionary.intern(d1));
+    Assert.assertSame(t1, dictionary.intern(t1));
+    Assert.assertSame(
+        d1, dictionary.intern(IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1")));
+    Assert.assertSame(
+        t1,
+        dictionary.intern(
+            IDeviceID.Factory.DEFAULT_FACTORY.create(new String[] {"table1", "id1"})));
+    Assert.assertEquals(2, dictionary.size());
+    Assert.assertTrue(dictionary.ramBytesUsed() > d1.ramBytesUsed() + t1.ramBytesUsed());
+
+    dictionary.clear();
+    Assert.assertEquals(0, dictionary.size());
+    Assert.assertEquals(0, dictionary.ramBytesUsed());
+    IDeviceID anotherD1 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+    Assert.assertSame(anotherD1, dictionary.intern(anotherD1));
+    Assert.assertSame(anotherD1, dictionary.intern(d1));
+  }
+
+  @Test
+  public void testEviction() {
+    long maxMemory = 16 * 1024;
+    DeviceIDDictionary dictionary = new DeviceIDDictionary(maxMemory);
+    for (int i = 0; i < 10_000; i++) {
+      dictionary.intern(IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d" + i));
+    }
+    // the devices beyond the memory of the dictionary are evicted
+    Assert.assertTrue(dictionary.size() < 10_000);
+    Assert.assertTrue(dictionary.ramBytesUsed() <= maxMemory);
+
+    // an evicted device is interned again by its new instance
+    IDeviceID d0 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d0");
+    IDeviceID canonicalD0 = dictionary.intern(d0);
+    Assert.assertEquals(d0, canonicalD0);
+    Assert.assertSame(
+        canonicalD0, dictionary.intern(IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d0")));
+  }
+
+  @Test
+  public void testRemoveIf() {
+    DeviceIDDictionary dictionary = new DeviceIDDictionary(1024 * 1024);
+    IDeviceID t1 = IDeviceID.Factory.DEFAULT_FACTORY.create(new String[] {"table1", "id1"});
+    IDeviceID t2 = IDeviceID.Factory.DEFAULT_FACTORY.create(new String[] {"table2", "id1"});
+    dictionary.intern(t1);
+    dictionary.intern(t2);
+
+    // the devices of the dropped table are no longer kept
+    dictionary.removeIf(deviceID -> deviceID.getTableName().equals("table1"));
+    Assert.assertEquals(1, dictionary.size());
+    IDeviceID anotherT1 = IDeviceID.Factory.DEFAULT_FACTORY.create(new String[] {"table1", "id1"});
+    Assert.assertSame(anotherT1, dictionary.intern(anotherT1));
+    Assert.assertSame(
+        t2,
+        dictionary.intern(
+            IDeviceID.Factory.DEFAULT_FACTORY.create(new String[] {"table2", "id1"})));
+  }
+
+  @Test
+  public void testDisabled() {
+    DeviceIDDictionary dictionary = new DeviceIDDictionary(0);
+    IDeviceID d1 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+    IDeviceID anotherD1 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+    Assert.assertSame(d1, dictionary.intern(d1));
+    Assert.assertSame(anotherD1, dictionary.intern(anotherD1));
+    Assert.assertEquals(0, dictionary.size());
+    dictionary.removeIf(deviceID -> true);
+    dictionary.clear();
+  }
+}
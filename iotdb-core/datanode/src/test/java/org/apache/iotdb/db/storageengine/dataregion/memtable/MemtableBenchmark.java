@@ -22,10 +22,16 @@ import org.apache.iotdb.commons.exception.IllegalPathException;
 import org.apache.iotdb.commons.path.PartialPath;
 
 import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.file.metadata.IDeviceID;
 import org.apache.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.tsfile.write.schema.IMeasurementSchema;
 import org.apache.tsfile.write.schema.MeasurementSchema;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 /** Memtable insert benchmark. Bench the Memtable and get its performance. */
 public class MemtableBenchmark {
@@ -47,16 +53,21 @@ public class MemtableBenchmark {
 
   public static void main(String[] args) throws IllegalPathException {
     IMemTable memTable = new PrimitiveMemTable(database, dataRegionId);
+    // build the device id and schemas up front so that only the memtable allocates in the loop
+    IDeviceID device = DeviceIDFactory.getInstance().getDeviceID(new PartialPath(deviceId));
+    List<List<IMeasurementSchema>> schemaLists = new ArrayList<>(numOfMeasurement);
+    for (int j = 0; j < numOfMeasurement; j++) {
+      schemaLists.add(
+          Collections.singletonList(
+              new MeasurementSchema(measurementId[j], tsDataType, TSEncoding.PLAIN)));
+    }
+    final long startGcCount = getGcCount();
+    final long startGcTime = getGcTime();
     final long startTime = System.currentTimeMillis();
     // cpu not locality
     for (int i = 0; i < numOfPoint; i++) {
       for (int j = 0; j < numOfMeasurement; j++) {
-        memTable.write(
-            DeviceIDFactory.getInstance().getDeviceID(new PartialPath(deviceId)),
-            Collections.singletonList(
-                new MeasurementSchema(measurementId[j], tsDataType, TSEncoding.PLAIN)),
-            System.nanoTime(),
-            new Object[] {System.currentTimeMillis()});
+        memTable.write(device, schemaLists.get(j), i, new Object[] {(long) i});
       }
     }
 
@@ -65,7 +76,29 @@ public class MemtableBenchmark {
         String.format(
             "Num of time series: %d, "
                 + "Num of points for each time series: %d, "
-                + "The total time: %d ms. ",
-            numOfMeasurement, numOfPoint, endTime - startTime));
+                + "The total time: %d ms, "
+                + "GC count: %d, "
+                + "GC time: %d ms. ",
+            numOfMeasurement,
+            numOfPoint,
+            endTime - startTime,
+            getGcCount() - startGcCount,
+            getGcTime() - startGcTime));
+  }
+
+  private static long getGcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(gcBean.getCollectionCount(), 0);
+    }
+    return count;
+  }
+
+  private static long getGcTime() {
+    long time = 0;
+    for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(gcBean.getCollectionTime(), 0);
+    }
+    return time;
   }
 }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.read.reader.series;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.path.IFullPath;
+import org.apache.iotdb.commons.path.MeasurementPath;
+import org.apache.iotdb.db.queryengine.execution.fragment.QueryStatistics;
+import org.apache.iotdb.db.queryengine.execution.operator.source.SeriesScanUtil;
+import org.apache.iotdb.db.queryengine.execution.operator.source.TopKTimeBound;
+import org.apache.iotdb.db.queryengine.plan.planner.plan.parameter.SeriesScanOptions;
+import org.apache.iotdb.db.queryengine.plan.statement.component.Ordering;
+import org.apache.iotdb.db.storageengine.dataregion.read.QueryDataSource;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.read.common.block.TsBlock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class SeriesScanTopKTimeBoundTest extends AbstractSeriesScanTest {
+
+  private final QueryStatistics queryStatistics =
+      EnvironmentUtils.TEST_QUERY_FI_CONTEXT.getQueryStatistics();
+
+  private SeriesScanUtil getSeriesScanUtil(TopKTimeBound topKTimeBound, Ordering scanOrder)
+      throws IllegalPathException {
+    MeasurementPath scanPath = new MeasurementPath(TEST_PATH, TSDataType.INT32);
+
+    SeriesScanOptions.Builder scanOptionsBuilder = new SeriesScanOptions.Builder();
+    scanOptionsBuilder.withAllSensors(Collections.singleton(scanPath.getMeasurement()));
+    SeriesScanOptions scanOptions = scanOptionsBuilder.build();
+    scanOptions.setTopKTimeBound(topKTimeBound);
+    SeriesScanUtil seriesScanUtil =
+        new SeriesScanUtil(
+            IFullPath.convertToIFullPath(scanPath),
+            scanOrder,
+            scanOptions,
+            EnvironmentUtils.TEST_QUERY_FI_CONTEXT);
+    seriesScanUtil.initQueryDataSource(new QueryDataSource(seqResources, unSeqResources));
+    return seriesScanUtil;
+  }
+
+  @Test
+  public void testSkipFile() throws IllegalPathException, IOException {
+    TopKTimeBound topKTimeBound = new TopKTimeBound(true);
+    SeriesScanUtil seriesScanUtil = getSeriesScanUtil(topKTimeBound, Ordering.ASC);
+    long timeSeriesFilteredRows = queryStatistics.getTimeSeriesIndexFilteredRows().get();
+
+    // f4 is unpacked together with f1 before the bound is published
+    Assert.assertTrue(hasNext(seriesScanUtil::hasNextFile));
+    topKTimeBound.update(29);
+
+    // f2-c2 touching the bound is read, f3 is not visited and the unpacked f4 is skipped
+    Assert.assertEquals(expectedTimes(0, 29), readAll(seriesScanUtil));
+    Assert.assertEquals(
+        20, queryStatistics.getTimeSeriesIndexFilteredRows().get() - timeSeriesFilteredRows);
+  }
+
+  @Test
+  public void testSkipChunk() throws IllegalPathException, IOException {
+    TopKTimeBound topKTimeBound = new TopKTimeBound(true);
+    topKTimeBound.update(49);
+    SeriesScanUtil seriesScanUtil = getSeriesScanUtil(topKTimeBound, Ordering.ASC);
+    long chunkFilteredRows = queryStatistics.getChunkIndexFilteredRows().get();
+    long pageFilteredRows = queryStatistics.getPageIndexFilteredRows().get();
+
+    // f3-c1 touching the bound is read with both its pages, f3-c2 is skipped and f4 is not visited
+    Assert.assertEquals(expectedTimes(0, 49), readAll(seriesScanUtil));
+    Assert.assertEquals(10, queryStatistics.getChunkIndexFilteredRows().get() - chunkFilteredRows);
+    Assert.assertEquals(0, queryStatistics.getPageIndexFilteredRows().get() - pageFilteredRows);
+  }
+
+  @Test
+  public void testSkipPage() throws IllegalPathException, IOException {
+    TopKTimeBound topKTimeBound = new TopKTimeBound(true);
+    topKTimeBound.update(39);
+    SeriesScanUtil seriesScanUtil = getSeriesScanUtil(topKTimeBound, Ordering.ASC);
+    long chunkFilteredRows = queryStatistics.getChunkIndexFilteredRows().get();
+    long pageFilteredRows = queryStatistics.getPageIndexFilteredRows().get();
+
+    // f3-c1-p1 touching the bound is read, f3-c1-p2 and f3-c2 are skipped
+    Assert.assertEquals(expectedTimes(0, 39), readAll(seriesScanUtil));
+    Assert.assertEquals(10, queryStatistics.getPageIndexFilteredRows().get() - pageFilteredRows);
+    Assert.assertEquals(10, queryStatistics.getChunkIndexFilteredRows().get() - chunkFilteredRows);
+  }
+
+  @Test
+  public void testSkipChunkDesc() throws IllegalPathException, IOException {
+    TopKTimeBound topKTimeBound = new TopKTimeBound(false);
+    topKTimeBound.update(20);
+    SeriesScanUtil seriesScanUtil = getSeriesScanUtil(topKTimeBound, Ordering.DESC);
+    long chunkFilteredRows = queryStatistics.getChunkIndexFilteredRows().get();
+
+    // f2-c2 touching the bound is read, f2-c1 is skipped and f1 is not visited
+    List<Long> expectedTimes = expectedTimes(20, 69);
+    Collections.reverse(expectedTimes);
+    Assert.assertEquals(expectedTimes, readAll(seriesScanUtil));
+    Assert.assertEquals(10, queryStatistics.getChunkIndexFilteredRows().get() - chunkFilteredRows);
+  }
+
+  @Test
+  public void testNoBound() throws IllegalPathException, IOException {
+    SeriesScanUtil seriesScanUtil = getSeriesScanUtil(new TopKTimeBound(true), Ordering.ASC);
+    Assert.assertEquals(expectedTimes(0, 69), readAll(seriesScanUtil));
+  }
+
+  private List<Long> readAll(SeriesScanUtil seriesScanUtil) throws IOException {
+    List<Long> times = new ArrayList<>();
+    while (hasNext(seriesScanUtil::hasNextFile)) {
+      while (hasNext(seriesScanUtil::hasNextChunk)) {
+        while (seriesScanUtil.hasNextPage()) {
+          TsBlock tsBlock = seriesScanUtil.nextPage();
+          if (tsBlock == null) {
+            continue;
+          }
+          for (int i = 0, size = tsBlock.getPositionCount(); i < size; i++) {
+            times.add(tsBlock.getTimeByIndex(i));
+          }
+        }
+      }
+    }
+    return times;
+  }
+
+  private static boolean hasNext(SeriesReaderTestUtil.SeriesScanHasNextSupplier supplier)
+      throws IOException {
+    Optional<Boolean> hasNext;
+    do {
+      hasNext = supplier.get();
+    } while (!hasNext.isPresent());
+    return hasNext.get();
+  }
+
+  private static List<Long> expectedTimes(long startTime, long endTime) {
+    return LongStream.rangeClosed(startTime, endTime).boxed().collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile;
+
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.generator.TsFileNameGenerator;
+import org.apache.iotdb.db.utils.constant.TestConstant;
+
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.read.filter.factory.TimeFilterApi;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DeviceFileIndexTest {
+
+  private final IDeviceID d1 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+  private final IDeviceID d2 = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d2");
+
+  private TsFileResource generateTsFileResource(
+      int id, IDeviceID deviceId, long startTime, long endTime, boolean closed) {
+    File file =
+        new File(
+            TsFileNameGenerator.generateNewTsFilePath(
+                TestConstant.BASE_OUTPUT_PATH, id, id, id, id));
+    TsFileResource resource = new TsFileResource(file);
+    resource.updateStartTime(deviceId, startTime);
+    resource.updateEndTime(deviceId, endTime);
+    resource.setStatusForTest(
+        closed ? TsFileResourceStatus.NORMAL : TsFileResourceStatus.UNCLOSED);
+    return resource;
+  }
+
+  @Test
+  public void testSelect() {
+    TsFileResourceList list = new TsFileResourceList();
+    TsFileResource resource1 = generateTsFileResource(1, d1, 0, 100, true);
+    TsFileResource resource2 = generateTsFileResource(2, d2, 50, 150, true);
+    TsFileResource resource3 = generateTsFileResource(3, d1, 200, 300, true);
+    TsFileResource resource4 = generateTsFileResource(4, d1, 400, 500, false);
+    list.add(resource1);
+    list.add(resource2);
+    list.add(resource3);
+    list.add(resource4);
+
+    AtomicLong entryCount = new AtomicLong();
+    DeviceFileIndex index = new DeviceFileIndex(entryCount, 100);
+    // the unclosed file is always selected
+    Assert.assertEquals(
+        Arrays.asList(resource1, resource3, resource4),
+        index.select(list, d1, Long.MIN_VALUE, Long.MAX_VALUE));
+    Assert.assertEquals(Arrays.asList(resource1, resource4), index.select(list, d1, 100, 150));
+    Assert.assertEquals(Arrays.asList(resource3, resource4), index.select(list, d1, 250, 260));
+    Assert.assertEquals(Collections.singletonList(resource4), index.select(list, d1, 101, 199));
+    Assert.assertEquals(Arrays.asList(resource2, resource4), index.select(list, d2, 0, 1000));
+    Assert.assertEquals(3, entryCount.get());
+
+    // the list changed without notifying the index is rescanned by the next lookup
+    list.remove(resource1);
+    TsFileResource resource5 = generateTsFileResource(5, d1, 90, 210, true);
+    list.add(resource5);
+    Assert.assertEquals(
+        Arrays.asList(resource3, resource4, resource5), index.select(list, d1, 0, 200));
+    Assert.assertEquals(3, entryCount.get());
+
+    index.clear();
+    Assert.assertEquals(0, entryCount.get());
+  }
+
+  @Test
+  public void testMaxEntryCount() {
+    TsFileResourceList list = new TsFileResourceList();
+    TsFileResource resource1 = generateTsFileResource(1, d1, 0, 100, true);
+    TsFileResource resource2 = generateTsFileResource(2, d1, 200, 300, true);
+    list.add(resource1);
+    list.add(resource2);
+
+    AtomicLong entryCount = new AtomicLong();
+    DeviceFileIndex index = new DeviceFileIndex(entryCount, 1);
+    index.select(list, d1, 0, 0);
+    Assert.assertEquals(1, entryCount.get());
+    // the file beyond the max entry count is not indexed but still selected
+    Assert.assertEquals(Collections.singletonList(resource2), index.select(list, d1, 150, 160));
+    Assert.assertEquals(Collections.singletonList(resource2), index.select(list, d2, 0, 1000));
+
+    // the file is indexed once the entries of the region have dropped
+    list.remove(resource1);
+    index.remove(list, resource1);
+    Assert.assertEquals(0, entryCount.get());
+    Assert.assertEquals(Collections.emptyList(), index.select(list, d1, 150, 160));
+    Assert.assertEquals(Collections.singletonList(resource2), index.select(list, d1, 250, 260));
+    Assert.assertEquals(1, entryCount.get());
+  }
+
+  @Test
+  public void testRemove() {
+    TsFileResourceList list = new TsFileResourceList();
+    TsFileResource resource1 = generateTsFileResource(1, d1, 0, 100, true);
+    TsFileResource resource2 = generateTsFileResource(2, d2, 200, 300, true);
+    TsFileResource resource3 = generateTsFileResource(3, d1, 400, 500, false);
+    list.add(resource1);
+    list.add(resource2);
+    list.add(resource3);
+
+    AtomicLong entryCount = new AtomicLong();
+    DeviceFileIndex index = new DeviceFileIndex(entryCount, 100);
+    index.select(list, d1, 0, 0);
+    Assert.assertEquals(2, entryCount.get());
+
+    // the entries are released without another lookup
+    list.remove(resource1);
+    index.remove(list, resource1);
+    Assert.assertEquals(1, entryCount.get());
+    list.remove(resource3);
+    index.remove(list, resource3);
+    Assert.assertEquals(1, entryCount.get());
+    Assert.assertEquals(Collections.emptyList(), index.select(list, d1, Long.MIN_VALUE, 1000));
+    Assert.assertEquals(Collections.singletonList(resource2), index.select(list, d2, 0, 1000));
+
+    // removing a file twice or a file never indexed is harmless
+    index.remove(list, resource1);
+    index.remove(list, generateTsFileResource(4, d1, 0, 100, true));
+    Assert.assertEquals(1, entryCount.get());
+  }
+
+  @Test
+  public void testInterleaveFlushesAndLookups() throws IOException {
+    TsFileManager tsFileManager =
+        new TsFileManager("root.sg", "0", TestConstant.BASE_OUTPUT_PATH);
+    List<TsFileResource> flushedFiles = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      long startTime = i * 100L;
+      // a file is created for the first flushed memtable and stays unclosed until it is sealed
+      TsFileResource resource =
+          generateTsFileResource(i * 10, i % 2 == 0 ? d1 : d2, startTime, startTime + 50, false);
+      tsFileManager.add(resource, true);
+      flushedFiles.add(resource);
+      assertSelected(tsFileManager, d1, startTime + 60, startTime + 70);
+      assertSelected(tsFileManager, d2, Long.MIN_VALUE, Long.MAX_VALUE);
+
+      resource.setStatusForTest(TsFileResourceStatus.NORMAL);
+      assertSelected(tsFileManager, d1, startTime + 60, startTime + 70);
+      assertSelected(tsFileManager, d1, startTime, startTime);
+      assertSelected(tsFileManager, d2, 0, startTime);
+    }
+    Assert.assertEquals(
+        Arrays.asList(
+            flushedFiles.get(1),
+            flushedFiles.get(3),
+            flushedFiles.get(5),
+            flushedFiles.get(7),
+            flushedFiles.get(9)),
+        select(tsFileManager, d1, Long.MIN_VALUE, Long.MAX_VALUE));
+
+    // a loaded file is inserted in the middle of the list and returned in the order of the list
+    TsFileResource loaded = generateTsFileResource(15, d1, 300, 350, true);
+    tsFileManager.keepOrderInsert(loaded, true);
+    assertSelected(tsFileManager, d1, Long.MIN_VALUE, Long.MAX_VALUE);
+    Assert.assertEquals(
+        Arrays.asList(loaded, flushedFiles.get(1)), select(tsFileManager, d1, 250, 399));
+
+    // the files removed by compaction are no longer returned
+    tsFileManager.remove(flushedFiles.get(1), true);
+    tsFileManager.remove(loaded, true);
+    assertSelected(tsFileManager, d1, Long.MIN_VALUE, Long.MAX_VALUE);
+    assertSelected(tsFileManager, d2, Long.MIN_VALUE, Long.MAX_VALUE);
+    Assert.assertEquals(Collections.emptyList(), select(tsFileManager, d1, 250, 399));
+    tsFileManager.clear();
+  }
+
+  private List<TsFileResource> select(
+      TsFileManager tsFileManager, IDeviceID deviceId, long startTime, long endTime) {
+    return tsFileManager
+        .getAllTsFileListForQuery(null, TimeFilterApi.between(startTime, endTime), deviceId)
+        .left;
+  }
+
+  /** Checks the selected files against a scan of all the files. */
+  private void assertSelected(
+      TsFileManager tsFileManager, IDeviceID deviceId, long startTime, long endTime) {
+    List<TsFileResource> expected = new ArrayList<>();
+    for (TsFileResource resource : tsFileManager.getTsFileList(true)) {
+      if (!resource.isClosed()
+          || resource.getStartTime(deviceId).isPresent()
+              && resource.getStartTime(deviceId).get() <= endTime
+              && resource.getEndTime(deviceId).get() >= startTime) {
+        expected.add(resource);
+      }
+    }
+    Assert.assertEquals(expected, select(tsFileManager, deviceId, startTime, endTime));
+  }
+}
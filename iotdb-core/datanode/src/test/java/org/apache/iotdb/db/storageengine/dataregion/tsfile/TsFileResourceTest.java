@@ -20,6 +20,7 @@ package org.apache.iotdb.db.storageengine.dataregion.tsfile;
 
 import org.apache.iotdb.commons.exception.IllegalPathException;
 import org.apache.iotdb.commons.path.MeasurementPath;
+import org.apache.iotdb.db.queryengine.execution.fragment.QueryContext;
 import org.apache.iotdb.db.storageengine.dataregion.modification.ModEntry;
 import org.apache.iotdb.db.storageengine.dataregion.modification.ModificationFile;
 import org.apache.iotdb.db.storageengine.dataregion.modification.TreeDeletionEntry;
@@ -43,6 +44,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -248,4 +250,53 @@ public class TsFileResourceTest {
       fail("Mod file upgrade takes too long");
     }
   }
+
+  @Test
+  public void testPendingModEntries() throws IllegalPathException {
+    ModEntry deletion1 = new TreeDeletionEntry(new MeasurementPath("root.sg.d1.**"), 0, 100);
+    ModEntry deletion2 = new TreeDeletionEntry(new MeasurementPath("root.sg.d2.**"), 0, 100);
+    tsFileResource.addPendingModEntry(deletion1);
+    tsFileResource.addPendingModEntry(deletion2);
+    List<ModEntry> pendingModEntries = tsFileResource.getPendingModEntries();
+    assertEquals(Arrays.asList(deletion1, deletion2), pendingModEntries);
+
+    tsFileResource.removePendingModEntry(deletion1);
+    assertEquals(Collections.singletonList(deletion2), tsFileResource.getPendingModEntries());
+    // the snapshot read before is not changed
+    assertEquals(Arrays.asList(deletion1, deletion2), pendingModEntries);
+    tsFileResource.removePendingModEntry(deletion2);
+    assertTrue(tsFileResource.getPendingModEntries().isEmpty());
+  }
+
+  @Test
+  public void testPendingModEntriesVisibleToQuery() throws IllegalPathException, IOException {
+    IDeviceID deviceID = IDeviceID.Factory.DEFAULT_FACTORY.create("root.sg.d1");
+    ModEntry deletion = new TreeDeletionEntry(new MeasurementPath("root.sg.d1.**"), 0, 100);
+    assertTrue(
+        new QueryContext(false, false)
+            .getPathModifications(tsFileResource, deviceID, "s1")
+            .isEmpty());
+
+    // the deletion is visible to a query before its mods are written
+    tsFileResource.addPendingModEntry(deletion);
+    assertFalse(tsFileResource.anyModFileExists());
+    assertEquals(
+        Collections.singletonList(deletion),
+        new QueryContext(false, false).getPathModifications(tsFileResource, deviceID, "s1"));
+
+    // once the mods are written the pending entry is removed, and the deletion is read from disk
+    assertTrue(file.getParentFile().exists() || file.getParentFile().mkdirs());
+    ModificationFile modFile = tsFileResource.getExclusiveModFile();
+    try {
+      modFile.write(deletion);
+      tsFileResource.removePendingModEntry(deletion);
+      assertTrue(tsFileResource.getPendingModEntries().isEmpty());
+      assertTrue(tsFileResource.anyModFileExists());
+      assertEquals(
+          Collections.singletonList(deletion),
+          new QueryContext(false, false).getPathModifications(tsFileResource, deviceID, "s1"));
+    } finally {
+      modFile.remove();
+    }
+  }
 }
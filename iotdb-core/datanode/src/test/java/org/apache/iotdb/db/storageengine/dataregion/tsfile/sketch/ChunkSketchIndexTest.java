@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile.sketch;
+
+import org.apache.iotdb.db.queryengine.execution.operator.source.relational.aggregation.approximate.TDigest;
+import org.apache.iotdb.db.storageengine.dataregion.compaction.utils.CompactionTestFileWriter;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.generator.TsFileNameGenerator;
+import org.apache.iotdb.db.utils.constant.TestConstant;
+
+import org.apache.tsfile.external.commons.io.FileUtils;
+import org.apache.tsfile.file.metadata.IChunkMetadata;
+import org.apache.tsfile.file.metadata.enums.CompressionType;
+import org.apache.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.tsfile.read.TsFileSequenceReader;
+import org.apache.tsfile.read.common.Path;
+import org.apache.tsfile.read.common.TimeRange;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class ChunkSketchIndexTest {
+
+  private final File file =
+      new File(
+          TsFileNameGenerator.generateNewTsFilePath(TestConstant.BASE_OUTPUT_PATH, 1, 1, 1, 1));
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(new File(TestConstant.BASE_OUTPUT_PATH));
+  }
+
+  @Test
+  public void testBuildAndLoad() throws IOException {
+    writeTsFile();
+
+    File sketchFile = ChunkSketchIndex.getSketchFile(file);
+    ChunkSketchIndexBuilder.getInstance().write(file, sketchFile);
+    ChunkSketchIndex index = ChunkSketchIndex.load(sketchFile);
+
+    List<IChunkMetadata> chunkMetadataList;
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      chunkMetadataList = reader.getChunkMetadataList(new Path("root.testsg.d1", "s1", true));
+    }
+    Assert.assertEquals(2, chunkMetadataList.size());
+    for (IChunkMetadata chunkMetadata : chunkMetadataList) {
+      TDigest sketch = index.getSketch(chunkMetadata.getOffsetOfChunkHeader());
+      Assert.assertNotNull(sketch);
+      Assert.assertEquals(100, sketch.size());
+      Assert.assertEquals(chunkMetadata.getStartTime(), sketch.getMin(), 0);
+      Assert.assertEquals(chunkMetadata.getEndTime(), sketch.getMax(), 0);
+    }
+    Assert.assertNull(index.getSketch(0));
+
+    // sketches are still readable after the shared channel is closed
+    index.close();
+    Assert.assertNotNull(index.getSketch(chunkMetadataList.get(0).getOffsetOfChunkHeader()));
+    index.close();
+  }
+
+  @Test
+  public void testReloadAfterMove() throws IOException {
+    TsFileResource resource = writeTsFile();
+    ChunkSketchIndexBuilder.getInstance().write(file, ChunkSketchIndex.getSketchFile(file));
+    Assert.assertNotNull(resource.getChunkSketchIndex());
+
+    File targetDir = new File(TestConstant.BASE_OUTPUT_PATH, "target");
+    Assert.assertTrue(targetDir.mkdirs());
+    resource.moveTo(targetDir);
+    resource.setFile(new File(targetDir, file.getName()));
+
+    // the index is loaded again from the moved sidecar file
+    Assert.assertTrue(ChunkSketchIndex.getSketchFile(resource.getTsFile()).exists());
+    ChunkSketchIndex index = resource.getChunkSketchIndex();
+    Assert.assertNotNull(index);
+    List<IChunkMetadata> chunkMetadataList;
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(resource.getTsFilePath())) {
+      chunkMetadataList = reader.getChunkMetadataList(new Path("root.testsg.d1", "s1", true));
+    }
+    Assert.assertNotNull(index.getSketch(chunkMetadataList.get(0).getOffsetOfChunkHeader()));
+    index.close();
+  }
+
+  private TsFileResource writeTsFile() throws IOException {
+    file.getParentFile().mkdirs();
+    TsFileResource resource = new TsFileResource(file);
+    try (CompactionTestFileWriter writer = new CompactionTestFileWriter(resource)) {
+      writer.startChunkGroup("d1");
+      writer.generateSimpleNonAlignedSeriesToCurrentDevice(
+          "s1",
+          new TimeRange[] {new TimeRange(0, 99), new TimeRange(200, 299)},
+          TSEncoding.PLAIN,
+          CompressionType.UNCOMPRESSED);
+      writer.endChunkGroup();
+      writer.endFile();
+    }
+    return resource;
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.storageengine.dataregion.tsfile.valueindex;
+
+import org.apache.iotdb.db.storageengine.dataregion.compaction.utils.CompactionTestFileWriter;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.TsFileResource;
+import org.apache.iotdb.db.storageengine.dataregion.tsfile.generator.TsFileNameGenerator;
+import org.apache.iotdb.db.utils.constant.TestConstant;
+
+import org.apache.tsfile.common.conf.TSFileConfig;
+import org.apache.tsfile.enums.TSDataType;
+import org.apache.tsfile.external.commons.io.FileUtils;
+import org.apache.tsfile.file.metadata.AbstractAlignedChunkMetadata;
+import org.apache.tsfile.file.metadata.IChunkMetadata;
+import org.apache.tsfile.file.metadata.IDeviceID;
+import org.apache.tsfile.file.metadata.enums.CompressionType;
+import org.apache.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.tsfile.read.TsFileSequenceReader;
+import org.apache.tsfile.read.common.Path;
+import org.apache.tsfile.read.common.TimeRange;
+import org.apache.tsfile.utils.Binary;
+import org.apache.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public class PageValueIndexTest {
+
+  private final File file =
+      new File(
+          TsFileNameGenerator.generateNewTsFilePath(TestConstant.BASE_OUTPUT_PATH, 1, 1, 1, 1));
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(new File(TestConstant.BASE_OUTPUT_PATH));
+  }
+
+  @Test
+  public void testBuildAndLoad() throws IOException {
+    file.getParentFile().mkdirs();
+    TsFileResource resource = new TsFileResource(file);
+    try (CompactionTestFileWriter writer = new CompactionTestFileWriter(resource)) {
+      writer.startChunkGroup("d1");
+      writer.generateSimpleNonAlignedSeriesToCurrentDevice(
+          "s1",
+          new TimeRange[][] {new TimeRange[] {new TimeRange(0, 99), new TimeRange(100, 199)}},
+          TSEncoding.PLAIN,
+          CompressionType.UNCOMPRESSED);
+      writer.endChunkGroup();
+      writer.endFile();
+    }
+
+    File valueIndexFile = PageValueIndex.getValueIndexFile(file);
+    PageValueIndexBuilder.getInstance().write(file, valueIndexFile);
+    PageValueIndex index = PageValueIndex.load(valueIndexFile);
+
+    List<IChunkMetadata> chunkMetadataList;
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      chunkMetadataList = reader.getChunkMetadataList(new Path("root.testsg.d1", "s1", true));
+    }
+    Assert.assertEquals(1, chunkMetadataList.size());
+    PageValueIndex.ChunkPageBlooms chunkPageBlooms =
+        index.getChunkPageBlooms(chunkMetadataList.get(0).getOffsetOfChunkHeader());
+    Assert.assertNotNull(chunkPageBlooms);
+
+    // the value of every point equals its time
+    int falsePositives = 0;
+    for (long value = 0; value < 200; value++) {
+      long[] hashes = new long[] {PageValueIndex.hash(value)};
+      long pageStartTime = value < 100 ? 0 : 100;
+      Assert.assertTrue(chunkPageBlooms.mightContainAny(pageStartTime, hashes));
+      if (chunkPageBlooms.mightContainAny(100 - pageStartTime, hashes)) {
+        falsePositives++;
+      }
+    }
+    Assert.assertTrue(falsePositives < 20);
+
+    // unknown pages are never skipped
+    Assert.assertTrue(chunkPageBlooms.mightContainAny(50, new long[] {PageValueIndex.hash(-1)}));
+    Assert.assertNull(index.getChunkPageBlooms(0));
+  }
+
+  @Test
+  public void testAlignedSeries() throws IOException {
+    file.getParentFile().mkdirs();
+    TsFileResource resource = new TsFileResource(file);
+    IDeviceID device;
+    try (CompactionTestFileWriter writer = new CompactionTestFileWriter(resource)) {
+      device = writer.startChunkGroup("d1");
+      writer.generateSimpleAlignedSeriesToCurrentDevice(
+          Arrays.asList("s1", "s2"),
+          new TimeRange[][] {new TimeRange[] {new TimeRange(0, 99), new TimeRange(100, 199)}},
+          TSEncoding.PLAIN,
+          CompressionType.UNCOMPRESSED);
+      writer.endChunkGroup();
+      writer.endFile();
+    }
+
+    File valueIndexFile = PageValueIndex.getValueIndexFile(file);
+    PageValueIndexBuilder.getInstance().write(file, valueIndexFile);
+    PageValueIndex index = PageValueIndex.load(valueIndexFile);
+
+    List<AbstractAlignedChunkMetadata> alignedChunkMetadataList;
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      alignedChunkMetadataList = reader.getAlignedChunkMetadata(device, true);
+    }
+    Assert.assertEquals(1, alignedChunkMetadataList.size());
+    AbstractAlignedChunkMetadata alignedChunkMetadata = alignedChunkMetadataList.get(0);
+    // the time chunk has no value to index
+    Assert.assertNull(
+        index.getChunkPageBlooms(
+            alignedChunkMetadata.getTimeChunkMetadata().getOffsetOfChunkHeader()));
+
+    for (IChunkMetadata valueChunkMetadata : alignedChunkMetadata.getValueChunkMetadataList()) {
+      PageValueIndex.ChunkPageBlooms chunkPageBlooms =
+          index.getChunkPageBlooms(valueChunkMetadata.getOffsetOfChunkHeader());
+      Assert.assertNotNull(chunkPageBlooms);
+      int falsePositives = 0;
+      for (long value = 0; value < 200; value++) {
+        long[] hashes = new long[] {PageValueIndex.hash(value)};
+        long pageStartTime = value < 100 ? 0 : 100;
+        Assert.assertTrue(chunkPageBlooms.mightContainAny(pageStartTime, hashes));
+        if (chunkPageBlooms.mightContainAny(100 - pageStartTime, hashes)) {
+          falsePositives++;
+        }
+      }
+      Assert.assertTrue(falsePositives < 20);
+    }
+  }
+
+  @Test
+  public void testTextAndNotIndexedSeries() throws IOException {
+    file.getParentFile().mkdirs();
+    TsFileResource resource = new TsFileResource(file);
+    try (CompactionTestFileWriter writer = new CompactionTestFileWriter(resource)) {
+      writer.startChunkGroup("d1");
+      ChunkWriterImpl textChunkWriter =
+          new ChunkWriterImpl(
+              new MeasurementSchema(
+                  "s1", TSDataType.TEXT, TSEncoding.PLAIN, CompressionType.UNCOMPRESSED));
+      for (long time = 0; time < 200; time++) {
+        textChunkWriter.write(time, new Binary("v" + time, TSFileConfig.STRING_CHARSET));
+        if (time == 99) {
+          textChunkWriter.sealCurrentPage();
+        }
+      }
+      textChunkWriter.sealCurrentPage();
+      textChunkWriter.writeToFileWriter(writer.getFileWriter());
+
+      ChunkWriterImpl floatChunkWriter =
+          new ChunkWriterImpl(
+              new MeasurementSchema(
+                  "s2", TSDataType.FLOAT, TSEncoding.PLAIN, CompressionType.UNCOMPRESSED));
+      for (long time = 0; time < 200; time++) {
+        floatChunkWriter.write(time, (float) time);
+      }
+      floatChunkWriter.sealCurrentPage();
+      floatChunkWriter.writeToFileWriter(writer.getFileWriter());
+      writer.endChunkGroup();
+      writer.endFile();
+    }
+
+    File valueIndexFile = PageValueIndex.getValueIndexFile(file);
+    PageValueIndexBuilder.getInstance().write(file, valueIndexFile);
+    PageValueIndex index = PageValueIndex.load(valueIndexFile);
+
+    long textChunkOffset;
+    long floatChunkOffset;
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      textChunkOffset =
+          reader
+              .getChunkMetadataList(new Path("root.testsg.d1", "s1", true))
+              .get(0)
+              .getOffsetOfChunkHeader();
+      floatChunkOffset =
+          reader
+              .getChunkMetadataList(new Path("root.testsg.d1", "s2", true))
+              .get(0)
+              .getOffsetOfChunkHeader();
+    }
+    Assert.assertNull(index.getChunkPageBlooms(floatChunkOffset));
+
+    PageValueIndex.ChunkPageBlooms chunkPageBlooms = index.getChunkPageBlooms(textChunkOffset);
+    Assert.assertNotNull(chunkPageBlooms);
+    int falsePositives = 0;
+    for (long time = 0; time < 200; time++) {
+      long[] hashes =
+          new long[] {PageValueIndex.hash(("v" + time).getBytes(TSFileConfig.STRING_CHARSET))};
+      long pageStartTime = time < 100 ? 0 : 100;
+      Assert.assertTrue(chunkPageBlooms.mightContainAny(pageStartTime, hashes));
+      if (chunkPageBlooms.mightContainAny(100 - pageStartTime, hashes)) {
+        falsePositives++;
+      }
+    }
+    Assert.assertTrue(falsePositives < 20);
+
+    // any of several values may match
+    long[] hashes =
+        new long[] {
+          PageValueIndex.hash("absent".getBytes(TSFileConfig.STRING_CHARSET)),
+          PageValueIndex.hash("v150".getBytes(TSFileConfig.STRING_CHARSET))
+        };
+    Assert.assertTrue(chunkPageBlooms.mightContainAny(100, hashes));
+
+    // the channel is reopened after close
+    index.close();
+    Assert.assertNotNull(index.getChunkPageBlooms(textChunkOffset));
+    index.close();
+  }
+}
@@ -150,6 +150,39 @@ public class WALNodeTest {
     assertEquals(expectedInsertTabletNodes, actualInsertTabletNodes);
   }
 
+  @Test
+  public void testWriteWithWalModeOfDatabase() throws Exception {
+    Map<String, WALMode> prevWalModeOfDatabases = config.getWalModeOfDatabases();
+    try {
+      config.setWalModeOfDatabases(Collections.singletonMap(databasePath, WALMode.ASYNC));
+      assertEquals(WALMode.ASYNC, config.getWalModeOfDatabase(databasePath));
+      assertEquals(WALMode.SYNC, config.getWalModeOfDatabase("root.other_sg"));
+
+      InsertTabletNode asyncNode = getInsertTabletNode(devicePath, new long[] {1});
+      WALFlushListener asyncListener =
+          walNode.log(
+              0,
+              asyncNode,
+              Collections.singletonList(new int[] {0, asyncNode.getRowCount()}),
+              config.getWalModeOfDatabase(databasePath));
+      assertFalse(asyncListener.isWait());
+
+      InsertTabletNode syncNode = getInsertTabletNode(devicePath, new long[] {2});
+      WALFlushListener syncListener =
+          walNode.log(
+              0,
+              syncNode,
+              Collections.singletonList(new int[] {0, syncNode.getRowCount()}),
+              config.getWalModeOfDatabase("root.other_sg"));
+      assertTrue(syncListener.isWait());
+      // entries are fsynced in order, so the async one is durable once the sync one is
+      assertEquals(WALFlushListener.Status.SUCCESS, syncListener.waitForResult());
+      assertEquals(WALFlushListener.Status.SUCCESS, asyncListener.waitForResult());
+    } finally {
+      config.setWalModeOfDatabases(prevWalModeOfDatabases);
+    }
+  }
+
   private void writeInsertTabletNode(
       int memTableId,
       Set<InsertTabletNode> expectedInsertTabletNodes,
@@ -68,6 +68,7 @@ import org.awaitility.Awaitility;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -76,6 +77,7 @@ import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -294,6 +296,84 @@ public class WALRecoverManagerTest {
     checkpointManager.fsyncCheckpointFile();
   }
 
+  @Test
+  public void testRedoSeveralMemTables() throws Exception {
+    int memTableNum = 3;
+    long rowNum = 20;
+    long failedTime = 5;
+    long firstValidVersionId = walBuffer.getCurrentWALFileVersion();
+    List<IMemTable> memTables = new ArrayList<>();
+    List<String> tsFilePaths = new ArrayList<>();
+    for (int i = 0; i < memTableNum; i++) {
+      IMemTable memTable = new PrimitiveMemTable(SG_NAME, DATA_REGION_ID);
+      String tsFilePath = TsFileUtilsForRecoverTest.getTestTsFilePath(SG_NAME, 0, 0, 2 + i);
+      memTables.add(memTable);
+      tsFilePaths.add(tsFilePath);
+      MemTableInfo memTableInfo = new MemTableInfo(memTable, tsFilePath, firstValidVersionId);
+      checkpointManager.makeCreateMemTableCPInMemory(memTableInfo);
+      checkpointManager.makeCreateMemTableCPOnDisk(memTableInfo.getMemTableId());
+    }
+    // the entries of the memTables are interleaved in the .wal files
+    WALEntry walEntry = null;
+    for (long time = 1; time <= rowNum; time++) {
+      for (IMemTable memTable : memTables) {
+        walEntry =
+            new WALInfoEntry(
+                memTable.getMemTableId(), getInsertRowNode(DEVICE1_NAME.toString(), time), true);
+        walBuffer.write(walEntry);
+      }
+    }
+    walEntry.getWalFlushListener().waitForResult();
+    checkpointManager.fsyncCheckpointFile();
+    WALRecoverManager.getInstance().clear();
+    walBuffer.close();
+    bufferClosed = true;
+
+    // record the redone entries of each memTable, the first memTable fails to redo one entry
+    List<List<Long>> redoneTimes = new ArrayList<>();
+    List<WALRecoverListener> recoverListeners = new ArrayList<>();
+    for (int i = 0; i < memTableNum; i++) {
+      List<Long> times = Collections.synchronizedList(new ArrayList<>());
+      boolean failing = i == 0;
+      WALRecoverListener recoverListener = new WALRecoverListener(tsFilePaths.get(i));
+      UnsealedTsFileRecoverPerformer recoverPerformer =
+          Mockito.mock(UnsealedTsFileRecoverPerformer.class);
+      Mockito.when(recoverPerformer.getTsFileResource())
+          .thenReturn(new TsFileResource(new File(tsFilePaths.get(i))));
+      Mockito.when(recoverPerformer.getRecoverListener()).thenReturn(recoverListener);
+      Mockito.doAnswer(
+              invocation -> {
+                WALEntry entry = invocation.getArgument(0);
+                long time = ((InsertRowNode) entry.getValue()).getTime();
+                if (failing && time == failedTime) {
+                  throw new RuntimeException("Failed to redo for test");
+                }
+                times.add(time);
+                return null;
+              })
+          .when(recoverPerformer)
+          .redoLog(Mockito.any());
+      recoverManager.addRecoverPerformer(recoverPerformer);
+      redoneTimes.add(times);
+      recoverListeners.add(recoverListener);
+    }
+
+    recoverManager.setAllDataRegionScannedLatch(new ExceptionalCountDownLatch(0));
+    recoverManager.recover();
+
+    // each memTable is redone in wal order, and a failed entry only skips itself
+    for (int i = 0; i < memTableNum; i++) {
+      assertEquals(WALRecoverListener.Status.SUCCESS, recoverListeners.get(i).waitForResult());
+      List<Long> expectedTimes = new ArrayList<>();
+      for (long time = 1; time <= rowNum; time++) {
+        if (i != 0 || time != failedTime) {
+          expectedTimes.add(time);
+        }
+      }
+      assertEquals(expectedTimes, redoneTimes.get(i));
+    }
+  }
+
   private void recoverAndCheck() throws Exception {
     // prepare tsFiles
     List<WALRecoverListener> recoverListeners = prepareCrashedTsFile();
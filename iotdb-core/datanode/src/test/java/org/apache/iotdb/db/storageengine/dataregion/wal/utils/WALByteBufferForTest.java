@@ -49,6 +49,11 @@ public class WALByteBufferForTest extends IWALByteBufferView {
     buffer.put(src);
   }
 
+  @Override
+  public void put(byte[] src, int offset, int length) {
+    buffer.put(src, offset, length);
+  }
+
   @Override
   public void putChar(char value) {
     buffer.putChar(value);
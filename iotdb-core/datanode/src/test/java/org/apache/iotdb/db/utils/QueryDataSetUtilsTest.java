@@ -134,6 +134,49 @@ public class QueryDataSetUtilsTest {
     assertEquals((byte) 0x80, res.left.bitmapList.get(5).get());
   }
 
+  @Test
+  public void testReadTabletValuesFromBuffer() {
+    int size = 3;
+    ByteBuffer buffer = ByteBuffer.allocate(1 + size * (Long.BYTES * 2 + Integer.BYTES * 2 + 1));
+    // values do not start at the beginning of the buffer
+    buffer.put((byte) 7);
+    for (int i = 0; i < size; i++) {
+      buffer.putLong(i * 10L);
+    }
+    for (int i = 0; i < size; i++) {
+      buffer.putInt(i);
+    }
+    for (int i = 0; i < size; i++) {
+      buffer.putFloat(i + 0.5f);
+    }
+    for (int i = 0; i < size; i++) {
+      buffer.putDouble(i + 0.25d);
+    }
+    for (int i = 0; i < size; i++) {
+      buffer.put((byte) (i % 2));
+    }
+    buffer.flip();
+    assertEquals(7, buffer.get());
+
+    long[] times = QueryDataSetUtils.readTimesFromBuffer(buffer, size);
+    Object[] values =
+        QueryDataSetUtils.readTabletValuesFromBuffer(
+            buffer,
+            new TSDataType[] {
+              TSDataType.INT32, TSDataType.FLOAT, TSDataType.DOUBLE, TSDataType.BOOLEAN
+            },
+            4,
+            size);
+    assertFalse(buffer.hasRemaining());
+    for (int i = 0; i < size; i++) {
+      assertEquals(i * 10L, times[i]);
+      assertEquals(i, ((int[]) values[0])[i]);
+      assertEquals(i + 0.5f, ((float[]) values[1])[i], 0);
+      assertEquals(i + 0.25d, ((double[]) values[2])[i], 0);
+      assertEquals(i % 2 == 1, ((boolean[]) values[3])[i]);
+    }
+  }
+
   @Test
   public void testConvertQueryResultByFetchSize() throws IoTDBException, IOException {
 
@@ -108,4 +108,26 @@ public class BinaryTVListTest {
       Assert.assertEquals(tvList.getTime((int) i), clonedTvList.getTime((int) i));
     }
   }
+
+  @Test
+  public void testLargeValuesAreNotCopied() {
+    BinaryTVList tvList = BinaryTVList.newList();
+    Binary[] binaryList = new Binary[10];
+    long[] times = new long[10];
+    for (int i = 0; i < binaryList.length; i++) {
+      times[i] = i;
+      binaryList[i] = new Binary(new byte[8192]);
+    }
+    Binary single = new Binary(new byte[65535]);
+    tvList.putBinaries(times, binaryList, null, 0, binaryList.length);
+    tvList.putBinary(binaryList.length, single);
+
+    BinaryTVList clonedTvList = tvList.clone();
+    for (int i = 0; i < binaryList.length; i++) {
+      Assert.assertSame(binaryList[i], tvList.getBinary(i));
+      Assert.assertSame(binaryList[i], clonedTvList.getBinary(i));
+    }
+    Assert.assertSame(single, tvList.getBinary(binaryList.length));
+    Assert.assertEquals(65535, tvList.getBinary(binaryList.length).getValues().length);
+  }
 }
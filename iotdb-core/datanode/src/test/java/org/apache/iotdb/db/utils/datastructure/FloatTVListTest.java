@@ -18,6 +18,9 @@
  */
 package org.apache.iotdb.db.utils.datastructure;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
 import org.apache.tsfile.external.commons.lang3.ArrayUtils;
 import org.apache.tsfile.utils.BitMap;
 import org.junit.Assert;
@@ -133,4 +136,46 @@ public class FloatTVListTest {
       Assert.assertEquals(tvList.getTime((int) i), clonedTvList.getTime((int) i));
     }
   }
+
+  @Test
+  public void testOffHeapFloatTVList() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean enableOffHeapTVList = config.isEnableOffHeapTVList();
+    config.setEnableOffHeapTVList(true);
+    try {
+      FloatTVList tvList = FloatTVList.newList();
+      long[] times = new long[1000];
+      float[] values = new float[1000];
+      BitMap bitMap = new BitMap(1000);
+      for (int i = 0; i < 1000; i++) {
+        times[i] = 1000 - i;
+        values[i] = -(1000 - i);
+        if (i % 100 == 0) {
+          bitMap.mark(i);
+        }
+      }
+      // the values marked null are dropped from the batch
+      tvList.putFloats(times, values, bitMap, 0, 500);
+      for (int i = 500; i < 1000; i++) {
+        tvList.putFloat(times[i], values[i]);
+      }
+      Assert.assertNull(tvList.values);
+      Assert.assertEquals(995, tvList.rowCount);
+      tvList.sort();
+      FloatTVList clonedTvList = tvList.clone();
+      tvList.clear();
+      int index = 0;
+      for (int time = 1; time <= 1000; time++) {
+        if (time > 500 && time % 100 == 0) {
+          continue;
+        }
+        Assert.assertEquals(time, clonedTvList.getTime(index));
+        Assert.assertEquals(-time, clonedTvList.getFloat(index), delta);
+        index++;
+      }
+      clonedTvList.clear();
+    } finally {
+      config.setEnableOffHeapTVList(enableOffHeapTVList);
+    }
+  }
 }
@@ -18,6 +18,9 @@
  */
 package org.apache.iotdb.db.utils.datastructure;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
 import org.apache.tsfile.external.commons.lang3.ArrayUtils;
 import org.apache.tsfile.read.TimeValuePair;
 import org.apache.tsfile.utils.BitMap;
@@ -154,4 +157,35 @@ public class LongTVListTest {
       Assert.assertEquals(tvList.getTime((int) i), clonedTvList.getTime((int) i));
     }
   }
+
+  @Test
+  public void testOffHeapLongTVList() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean enableOffHeapTVList = config.isEnableOffHeapTVList();
+    config.setEnableOffHeapTVList(true);
+    try {
+      LongTVList tvList = LongTVList.newList();
+      long[] times = new long[1000];
+      long[] values = new long[1000];
+      for (int i = 0; i < 1000; i++) {
+        times[i] = 1000 - i;
+        values[i] = -(1000 - i);
+      }
+      tvList.putLongs(times, values, null, 0, 500);
+      for (int i = 500; i < 1000; i++) {
+        tvList.putLong(times[i], values[i]);
+      }
+      Assert.assertNull(tvList.values);
+      tvList.sort();
+      LongTVList clonedTvList = tvList.clone();
+      tvList.clear();
+      for (int i = 0; i < clonedTvList.rowCount; i++) {
+        Assert.assertEquals(i + 1, clonedTvList.getTime(i));
+        Assert.assertEquals(-(i + 1), clonedTvList.getLong(i));
+      }
+      clonedTvList.clear();
+    } finally {
+      config.setEnableOffHeapTVList(enableOffHeapTVList);
+    }
+  }
 }
@@ -29,6 +29,10 @@ import org.apache.tsfile.utils.Binary;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.apache.iotdb.db.storageengine.rescon.memory.PrimitiveArrayManager.ARRAY_SIZE;
 
 public class PrimitiveArrayManagerTest {
@@ -101,4 +105,35 @@ public class PrimitiveArrayManagerTest {
       }
     }
   }
+
+  @Test
+  public void testPooledDirectBuffersLimit() {
+    long bufferSize = (long) ARRAY_SIZE * Long.BYTES;
+    long maxPooledSize =
+        (long)
+            (dataNodeMemoryConfig.getBufferedArraysMemoryManager().getTotalMemorySizeInBytes()
+                * 0.2);
+    List<ByteBuffer> buffers = new ArrayList<>();
+    for (long i = 0; i < maxPooledSize / bufferSize + 10; i++) {
+      buffers.add(PrimitiveArrayManager.allocateDirect(TSDataType.INT64));
+    }
+    try {
+      for (ByteBuffer buffer : buffers) {
+        PrimitiveArrayManager.release(buffer);
+      }
+      // the buffers beyond the limit are left to GC
+      Assert.assertTrue(PrimitiveArrayManager.getPooledDirectBuffersSize() <= maxPooledSize);
+      Assert.assertTrue(
+          PrimitiveArrayManager.getPooledDirectBuffersSize() > maxPooledSize - bufferSize);
+
+      // the pooled buffers are reused and no longer counted
+      ByteBuffer buffer = PrimitiveArrayManager.allocateDirect(TSDataType.INT64);
+      Assert.assertTrue(buffers.stream().anyMatch(pooledBuffer -> pooledBuffer == buffer));
+      Assert.assertTrue(
+          PrimitiveArrayManager.getPooledDirectBuffersSize() <= maxPooledSize - bufferSize);
+    } finally {
+      PrimitiveArrayManager.close();
+    }
+    Assert.assertEquals(0, PrimitiveArrayManager.getPooledDirectBuffersSize());
+  }
 }
@@ -125,10 +125,15 @@ public class BinaryAllocator {
     }
   }
 
+  /** Whether a binary of the given capacity is served from the arenas instead of the JVM heap. */
+  public boolean isPooled(int reqCapacity) {
+    return reqCapacity >= allocatorConfig.minAllocateSize
+        && reqCapacity <= allocatorConfig.maxAllocateSize
+        && state.get() == BinaryAllocatorState.OPEN;
+  }
+
   public PooledBinary allocateBinary(int reqCapacity, boolean autoRelease) {
-    if (reqCapacity < allocatorConfig.minAllocateSize
-        || reqCapacity > allocatorConfig.maxAllocateSize
-        || state.get() != BinaryAllocatorState.OPEN) {
+    if (!isPooled(reqCapacity)) {
       return new PooledBinary(new byte[reqCapacity]);
     }
 
@@ -166,6 +171,18 @@ public class BinaryAllocator {
     return totalActiveMemory;
   }
 
+  /** The ratio of the pooled allocations that reused a byte array cached in the arenas. */
+  public double getHitRate() {
+    long allocationsFromAllocator = 0;
+    long allocationsFromJVM = 0;
+    for (Arena arena : heapArenas) {
+      allocationsFromAllocator += arena.getAllocationsFromAllocator();
+      allocationsFromJVM += arena.getAllocationsFromJVM();
+    }
+    long allocations = allocationsFromAllocator + allocationsFromJVM;
+    return allocations == 0 ? 0 : (double) allocationsFromAllocator / allocations;
+  }
+
   @TestOnly
   public void resetArenaBinding() {
     arenaRegistry.get().unbindArena();
@@ -118,6 +118,22 @@ public class Arena {
     return totalActiveMemory;
   }
 
+  public long getAllocationsFromAllocator() {
+    long allocations = 0;
+    for (SlabRegion region : regions) {
+      allocations += region.allocationsFromAllocator.get();
+    }
+    return allocations;
+  }
+
+  public long getAllocationsFromJVM() {
+    long allocations = 0;
+    for (SlabRegion region : regions) {
+      allocations += region.allocationsFromJVM.get();
+    }
+    return allocations;
+  }
+
   public int getNumRegisteredThread() {
     return numRegisteredThread.get();
   }
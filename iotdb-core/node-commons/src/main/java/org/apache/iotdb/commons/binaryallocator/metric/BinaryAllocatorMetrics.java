@@ -34,6 +34,7 @@ public class BinaryAllocatorMetrics implements IMetricSet {
   private static final String ALLOCATE_FROM_SLAB = "allocate-from-slab";
   private static final String ALLOCATE_FROM_JVM = "allocate-from-jvm";
   private static final String ACTIVE_MEMORY = "active-memory";
+  private static final String HIT_RATE = "hit-rate";
   private static final String EVICTED_BY_SAMPLE_EVICTION = "evicted-by-sample-eviction";
   private static final String EVICTED_BY_GC_EVICTION = "evicted-by-gc-eviction";
 
@@ -63,6 +64,13 @@ public class BinaryAllocatorMetrics implements IMetricSet {
         BinaryAllocator::getTotalActiveMemory,
         Tag.NAME.toString(),
         ACTIVE_MEMORY);
+    metricService.createAutoGauge(
+        Metric.BINARY_ALLOCATOR.toString(),
+        MetricLevel.IMPORTANT,
+        binaryAllocator,
+        BinaryAllocator::getHitRate,
+        Tag.NAME.toString(),
+        HIT_RATE);
     allocateFromSlab =
         metricService.getOrCreateCounter(
             Metric.BINARY_ALLOCATOR.toString(),
@@ -101,6 +109,8 @@ public class BinaryAllocatorMetrics implements IMetricSet {
         Metric.BINARY_ALLOCATOR.toString(),
         Tag.NAME.toString(),
         ACTIVE_MEMORY);
+    metricService.remove(
+        MetricType.AUTO_GAUGE, Metric.BINARY_ALLOCATOR.toString(), Tag.NAME.toString(), HIT_RATE);
     metricService.remove(
         MetricType.COUNTER,
         Metric.BINARY_ALLOCATOR.toString(),
@@ -56,6 +56,7 @@ public enum ThreadName {
   WAL_SYNC("WAL-Sync"),
   WAL_DELETE("WAL-Delete"),
   WAL_RECOVER("WAL-Recover"),
+  WAL_REDO("WAL-Redo"),
   TSFILE_RECOVER("TsFile-Recover"),
   // -------------------------- Flush --------------------------
   FLUSH("Flush"),
@@ -205,6 +206,11 @@ public enum ThreadName {
   BINARY_ALLOCATOR_AUTO_RELEASER("BinaryAllocator-Auto-Releaser"),
   FIND_EARLIEST_TIME_SLOT_PARALLEL_POOL("FindEarliestTimeSlot-Parallel-Pool"),
   DATA_PARTITION_RECOVER_PARALLEL_POOL("DataPartitionRecover-Parallel-Pool"),
+  DATA_PARTITION_CACHE_PREFETCH("DataPartitionCache-Prefetch"),
+  CHUNK_SKETCH_INDEX_BUILD("ChunkSketchIndex-Build"),
+  PAGE_VALUE_INDEX_BUILD("PageValueIndex-Build"),
+  TABLE_STATISTICS_REFRESH("TableStatistics-Refresh"),
+  JOIN_DYNAMIC_FILTER_PUSH("JoinDynamicFilter-Push"),
 
   // the unknown thread name is used for metrics
   UNKNOWN("UNKNOWN");
@@ -238,7 +244,8 @@ public enum ThreadName {
 
   private static final Set<ThreadName> walThreadNames =
       new HashSet<>(
-          Arrays.asList(WAL_SERIALIZE, WAL_SYNC, WAL_DELETE, WAL_RECOVER, TSFILE_RECOVER));
+          Arrays.asList(
+              WAL_SERIALIZE, WAL_SYNC, WAL_DELETE, WAL_RECOVER, WAL_REDO, TSFILE_RECOVER));
 
   private static final Set<ThreadName> flushThreadNames =
       new HashSet<>(
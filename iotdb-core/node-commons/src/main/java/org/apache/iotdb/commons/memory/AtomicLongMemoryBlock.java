@@ -67,6 +67,9 @@ public class AtomicLongMemoryBlock extends IMemoryBlock {
           result.set(true);
           return memCost + sizeInByte;
         });
+    if (!result.get() && memoryManager != null) {
+      memoryManager.recordRejectedAllocation();
+    }
     return result.get();
   }
 
@@ -81,6 +84,9 @@ public class AtomicLongMemoryBlock extends IMemoryBlock {
           result.set(true);
           return memCost + sizeInByte;
         });
+    if (!result.get() && memoryManager != null) {
+      memoryManager.recordRejectedAllocation();
+    }
     return result.get();
   }
 
@@ -24,8 +24,15 @@ import org.apache.iotdb.commons.utils.TestOnly;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
 import java.util.function.LongUnaryOperator;
 
 public class MemoryManager {
@@ -40,6 +47,12 @@ public class MemoryManager {
   /** The min memory size to allocate */
   private static final long MEMORY_ALLOCATE_MIN_SIZE_IN_BYTES = 32;
 
+  /** The usage ratio above which an elastic memory manager borrows memory when rebalancing */
+  private static final double ELASTIC_BUSY_USAGE_RATIO = 0.9;
+
+  /** The usage ratio below which an elastic memory manager lends memory when rebalancing */
+  private static final double ELASTIC_IDLE_USAGE_RATIO = 0.5;
+
   /** The name of memory manager */
   private final String name;
 
@@ -61,6 +74,27 @@ public class MemoryManager {
   /** The allocated memory blocks of this memory manager */
   private final Map<String, IMemoryBlock> allocatedMemoryBlocks = new ConcurrentHashMap<>();
 
+  /** Whether the total memory size can be changed by the rebalancing of the parent */
+  private volatile boolean elastic = false;
+
+  /** The min total memory size in bytes when rebalanced */
+  private volatile long minTotalMemorySizeInBytes;
+
+  /** The max total memory size in bytes when rebalanced */
+  private volatile long maxTotalMemorySizeInBytes;
+
+  /** The usage ratio of the memory, null to use the used memory of the memory blocks */
+  private volatile DoubleSupplier usageRatioSupplier;
+
+  /** The times of rejected allocation of this memory manager and its descendants */
+  private final AtomicLong rejectedAllocationCount = new AtomicLong(0);
+
+  /** The rejectedAllocationCount seen by the last rebalancing */
+  private long lastRebalancedRejectedAllocationCount = 0;
+
+  /** The listeners notified after the total memory size is changed by rebalancing */
+  private final List<MemoryResizeListener> resizeListeners = new CopyOnWriteArrayList<>();
+
   @TestOnly
   public MemoryManager(long totalMemorySizeInBytes) {
     this.name = "Test";
@@ -116,6 +150,7 @@ public class MemoryManager {
       }
     }
 
+    recordRejectedAllocation();
     throw new MemoryException(
         String.format(
             "exactAllocate: failed to allocate memory after %d retries, "
@@ -162,6 +197,7 @@ public class MemoryManager {
       return exactAllocate(name, sizeInBytes, memoryBlockType);
     } else {
       // TODO @spricoder: consider to find more memory in active way
+      recordRejectedAllocation();
       LOGGER.debug(
           "exactAllocateIfSufficient: failed to allocate memory, "
               + "total memory size {} bytes, used memory size {} bytes, "
@@ -219,6 +255,7 @@ public class MemoryManager {
     }
 
     // TODO @spricoder: consider to find more memory in active way
+    recordRejectedAllocation();
     LOGGER.warn(
         "tryAllocate: failed to allocate memory, "
             + "total memory size {} bytes, used memory size {} bytes, "
@@ -361,16 +398,18 @@ public class MemoryManager {
    *
    * @param ratio the ratio of new total memory size to old total memory size
    */
-  private void reAllocateMemoryAccordingToRatio(double ratio) {
+  private synchronized void reAllocateMemoryAccordingToRatio(double ratio) {
     // first increase the total memory size of this memory manager
     this.totalMemorySizeInBytes *= ratio;
+    this.allocatedMemorySizeInBytes *= ratio;
     // then re-allocate memory for all memory blocks
     for (IMemoryBlock block : allocatedMemoryBlocks.values()) {
       block.setTotalMemorySizeInBytes((long) (block.getTotalMemorySizeInBytes() * ratio));
     }
-    // finally re-allocate memory for all child memory managers
+    // finally resize all child memory managers, so that their listeners are notified
     for (Map.Entry<String, MemoryManager> entry : children.entrySet()) {
-      entry.getValue().reAllocateMemoryAccordingToRatio(ratio);
+      MemoryManager child = entry.getValue();
+      child.resize((long) (child.getTotalMemorySizeInBytes() * ratio));
     }
   }
 
@@ -443,6 +482,171 @@ public class MemoryManager {
 
   // endregion
 
+  // region The Methods Of Elastic Rebalancing
+
+  /**
+   * Let the parent memory manager change the total memory size of this memory manager within [min,
+   * max] when rebalancing, according to the usage ratio and the rejected allocations.
+   *
+   * @param minTotalMemorySizeInBytes the min total memory size in bytes
+   * @param maxTotalMemorySizeInBytes the max total memory size in bytes
+   * @param usageRatioSupplier the usage ratio of the memory, null to use the used memory of the
+   *     memory blocks
+   */
+  public synchronized void setElastic(
+      long minTotalMemorySizeInBytes,
+      long maxTotalMemorySizeInBytes,
+      DoubleSupplier usageRatioSupplier) {
+    this.minTotalMemorySizeInBytes = Math.min(minTotalMemorySizeInBytes, totalMemorySizeInBytes);
+    this.maxTotalMemorySizeInBytes = Math.max(maxTotalMemorySizeInBytes, totalMemorySizeInBytes);
+    this.usageRatioSupplier = usageRatioSupplier;
+    this.elastic = true;
+  }
+
+  public boolean isElastic() {
+    return elastic;
+  }
+
+  /**
+   * Add the listener notified after the total memory size is changed by rebalancing or reloading,
+   * including the changes scaled from an ancestor, e.g. to shrink the caches sized by the memory
+   * manager.
+   */
+  public void addResizeListener(MemoryResizeListener listener) {
+    resizeListeners.add(listener);
+  }
+
+  /**
+   * Record an allocation rejected for lack of memory, which makes this memory manager and its
+   * ancestors borrow memory in the next rebalancing. The consumers managing their memory out of
+   * the memory blocks should call it when they reject or throttle.
+   */
+  public void recordRejectedAllocation() {
+    rejectedAllocationCount.incrementAndGet();
+    if (parentMemoryManager != null) {
+      parentMemoryManager.recordRejectedAllocation();
+    }
+  }
+
+  public long getRejectedAllocationCount() {
+    return rejectedAllocationCount.get();
+  }
+
+  /** Get the usage ratio of the memory, which decides whether to lend or borrow memory */
+  public double getUsageRatio() {
+    DoubleSupplier supplier = usageRatioSupplier;
+    if (supplier != null) {
+      return supplier.getAsDouble();
+    }
+    return totalMemorySizeInBytes == 0
+        ? 0
+        : (double) getUsedMemorySizeInBytes() / totalMemorySizeInBytes;
+  }
+
+  /**
+   * Move memory from the idle elastic children to the ones under pressure. A child is under
+   * pressure if any allocation has been rejected since the last rebalancing or its usage ratio is
+   * above {@link #ELASTIC_BUSY_USAGE_RATIO}, and it is idle if no allocation has been rejected and
+   * its usage ratio is below {@link #ELASTIC_IDLE_USAGE_RATIO}. An idle child lends at most the
+   * memory that keeps its usage ratio below {@link #ELASTIC_IDLE_USAGE_RATIO}, and no child leaves
+   * its [min, max] range.
+   *
+   * @param stepInBytes the max memory size in bytes a child lends or borrows in one rebalancing
+   */
+  public synchronized void rebalanceElasticChildren(long stepInBytes) {
+    List<MemoryManager> busyChildren = new ArrayList<>();
+    List<MemoryManager> idleChildren = new ArrayList<>();
+    Map<MemoryManager, Long> rejectedCounts = new HashMap<>();
+    Map<MemoryManager, Double> usageRatios = new HashMap<>();
+    for (MemoryManager child : children.values()) {
+      if (!child.isElastic()) {
+        continue;
+      }
+      long rejectedAllocationCountOfChild = child.rejectedAllocationCount.get();
+      long rejected = rejectedAllocationCountOfChild - child.lastRebalancedRejectedAllocationCount;
+      child.lastRebalancedRejectedAllocationCount = rejectedAllocationCountOfChild;
+      double usageRatio = child.getUsageRatio();
+      rejectedCounts.put(child, rejected);
+      usageRatios.put(child, usageRatio);
+      if (rejected > 0 || usageRatio >= ELASTIC_BUSY_USAGE_RATIO) {
+        if (child.totalMemorySizeInBytes < child.maxTotalMemorySizeInBytes) {
+          busyChildren.add(child);
+        }
+      } else if (usageRatio < ELASTIC_IDLE_USAGE_RATIO
+          && child.totalMemorySizeInBytes > child.minTotalMemorySizeInBytes) {
+        idleChildren.add(child);
+      }
+    }
+    if (busyChildren.isEmpty() || idleChildren.isEmpty()) {
+      return;
+    }
+    // the most rejected borrows first, and the least used lends first
+    busyChildren.sort(
+        Comparator.comparingLong((MemoryManager child) -> rejectedCounts.get(child))
+            .thenComparingDouble(usageRatios::get)
+            .reversed());
+    idleChildren.sort(Comparator.comparingDouble(usageRatios::get));
+
+    int idleIndex = 0;
+    for (MemoryManager busyChild : busyChildren) {
+      long sizeToBorrow =
+          Math.min(
+              stepInBytes,
+              busyChild.maxTotalMemorySizeInBytes - busyChild.totalMemorySizeInBytes);
+      while (sizeToBorrow > 0 && idleIndex < idleChildren.size()) {
+        MemoryManager idleChild = idleChildren.get(idleIndex);
+        long usedSize =
+            (long) Math.ceil(usageRatios.get(idleChild) * idleChild.totalMemorySizeInBytes);
+        long sizeToLend =
+            Math.min(
+                Math.min(stepInBytes, sizeToBorrow),
+                Math.min(
+                    idleChild.totalMemorySizeInBytes - idleChild.minTotalMemorySizeInBytes,
+                    idleChild.totalMemorySizeInBytes
+                        - (long) Math.ceil(usedSize / ELASTIC_IDLE_USAGE_RATIO)));
+        if (sizeToLend <= 0) {
+          idleIndex++;
+          continue;
+        }
+        LOGGER.info(
+            "rebalanceElasticChildren: move {} bytes from {} to {}",
+            sizeToLend,
+            idleChild.getName(),
+            busyChild.getName());
+        idleChild.resize(idleChild.totalMemorySizeInBytes - sizeToLend);
+        busyChild.resize(busyChild.totalMemorySizeInBytes + sizeToLend);
+        sizeToBorrow -= sizeToLend;
+        // an idle child lends at most one step in one rebalancing
+        idleIndex++;
+      }
+    }
+  }
+
+  private void resize(long newTotalMemorySizeInBytes) {
+    long oldTotalMemorySizeInBytes;
+    // hold the monitor of this memory manager rather than the parent, against its allocations
+    synchronized (this) {
+      oldTotalMemorySizeInBytes = totalMemorySizeInBytes;
+      if (oldTotalMemorySizeInBytes == newTotalMemorySizeInBytes
+          || oldTotalMemorySizeInBytes == 0) {
+        return;
+      }
+      reAllocateMemoryAccordingToRatio(
+          (double) newTotalMemorySizeInBytes / oldTotalMemorySizeInBytes);
+      // avoid the accumulated error of the ratio
+      totalMemorySizeInBytes = newTotalMemorySizeInBytes;
+    }
+    for (MemoryResizeListener listener : resizeListeners) {
+      try {
+        listener.onResized(oldTotalMemorySizeInBytes, newTotalMemorySizeInBytes);
+      } catch (Exception e) {
+        LOGGER.warn("resize: failed to notify the listener of memory manager {}", name, e);
+      }
+    }
+  }
+
+  // endregion
+
   // region The Methods of Attribute
 
   public String getName() {
@@ -33,6 +33,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -66,6 +67,23 @@ public class BinaryAllocatorTest {
     binaryAllocator.deallocateBinary(binary);
   }
 
+  @Test
+  public void testHitRate() {
+    AllocatorConfig config = new AllocatorConfig();
+    config.arenaNum = 1;
+    BinaryAllocator binaryAllocator = new BinaryAllocator(config);
+    binaryAllocator.resetArenaBinding();
+
+    assertTrue(binaryAllocator.isPooled(4096));
+    assertFalse(binaryAllocator.isPooled(255));
+    assertEquals(0, binaryAllocator.getHitRate(), 0);
+    PooledBinary binary = binaryAllocator.allocateBinary(4096, false);
+    binaryAllocator.deallocateBinary(binary);
+    binary = binaryAllocator.allocateBinary(4096, false);
+    binaryAllocator.deallocateBinary(binary);
+    assertEquals(0.5, binaryAllocator.getHitRate(), 0);
+  }
+
   @Test
   public void testStrategy() throws InterruptedException {
     BinaryAllocator binaryAllocator = new BinaryAllocator(AllocatorConfig.DEFAULT_CONFIG);
@@ -168,4 +168,68 @@ public class MemoryManagerTest {
     Assert.assertTrue(memoryBlock6.isReleased());
     Assert.assertTrue(memoryBlock7.isReleased());
   }
+
+  @Test
+  public void testRebalanceElasticChildren() {
+    MemoryManager busyManager = GLOBAL_MEMORY_MANAGER.getOrCreateMemoryManager("Busy", 40);
+    MemoryManager idleManager = GLOBAL_MEMORY_MANAGER.getOrCreateMemoryManager("Idle", 40);
+    busyManager.setElastic(20, 60, null);
+    idleManager.setElastic(20, 60, null);
+    long[] resized = new long[2];
+    busyManager.addResizeListener(
+        (oldSize, newSize) -> {
+          resized[0] = oldSize;
+          resized[1] = newSize;
+        });
+    IMemoryBlock busyBlock = busyManager.exactAllocate("BusyBlock", MemoryBlockType.DYNAMIC);
+    IMemoryBlock idleBlock = idleManager.exactAllocate("IdleBlock", MemoryBlockType.DYNAMIC);
+    Assert.assertTrue(busyBlock.allocate(40));
+
+    // the busy one borrows a step from the idle one
+    GLOBAL_MEMORY_MANAGER.rebalanceElasticChildren(10);
+    Assert.assertEquals(50, busyManager.getTotalMemorySizeInBytes());
+    Assert.assertEquals(50, busyBlock.getTotalMemorySizeInBytes());
+    Assert.assertEquals(30, idleManager.getTotalMemorySizeInBytes());
+    Assert.assertEquals(30, idleBlock.getTotalMemorySizeInBytes());
+    Assert.assertEquals(40, resized[0]);
+    Assert.assertEquals(50, resized[1]);
+
+    // neither busy nor rejected
+    GLOBAL_MEMORY_MANAGER.rebalanceElasticChildren(10);
+    Assert.assertEquals(50, busyManager.getTotalMemorySizeInBytes());
+
+    // the rejected one borrows again until the idle one reaches its min size
+    Assert.assertFalse(busyBlock.allocate(20));
+    Assert.assertEquals(1, busyManager.getRejectedAllocationCount());
+    GLOBAL_MEMORY_MANAGER.rebalanceElasticChildren(20);
+    Assert.assertEquals(60, busyManager.getTotalMemorySizeInBytes());
+    Assert.assertEquals(20, idleManager.getTotalMemorySizeInBytes());
+    Assert.assertEquals(80, GLOBAL_MEMORY_MANAGER.getAllocatedMemorySizeInBytes());
+  }
+
+  @Test
+  public void testRebalanceResizesDescendants() {
+    MemoryManager busyManager = GLOBAL_MEMORY_MANAGER.getOrCreateMemoryManager("Busy", 40);
+    MemoryManager idleManager = GLOBAL_MEMORY_MANAGER.getOrCreateMemoryManager("Idle", 40);
+    busyManager.setElastic(20, 60, null);
+    idleManager.setElastic(20, 60, null);
+    MemoryManager cacheManager = idleManager.getOrCreateMemoryManager("Cache", 20);
+    IMemoryBlock cacheBlock = cacheManager.exactAllocate("CacheBlock", MemoryBlockType.STATIC);
+    long[] resized = new long[2];
+    cacheManager.addResizeListener(
+        (oldSize, newSize) -> {
+          resized[0] = oldSize;
+          resized[1] = newSize;
+        });
+    IMemoryBlock busyBlock = busyManager.exactAllocate("BusyBlock", MemoryBlockType.DYNAMIC);
+    Assert.assertTrue(busyBlock.allocate(40));
+
+    // the cache sized by a child of the lender is told to shrink
+    GLOBAL_MEMORY_MANAGER.rebalanceElasticChildren(10);
+    Assert.assertEquals(30, idleManager.getTotalMemorySizeInBytes());
+    Assert.assertEquals(15, cacheManager.getTotalMemorySizeInBytes());
+    Assert.assertEquals(15, cacheBlock.getTotalMemorySizeInBytes());
+    Assert.assertEquals(20, resized[0]);
+    Assert.assertEquals(15, resized[1]);
+  }
 }
@@ -813,6 +813,31 @@ struct TFetchFragmentInstanceStatisticsResp {
   17: optional i32 initDataQuerySourceRetryCount
 }
 
+struct TFetchTableStatisticsReq {
+  // without "root"
+  1: required string database
+  2: required string tableName
+  3: required list<common.TConsensusGroupId> regionIds
+}
+
+struct TFetchTableStatisticsResp {
+  1: required common.TSStatus status
+  2: optional i64 minTime
+  3: optional i64 maxTime
+  // time partition -> row count
+  4: optional map<i64, i64> timePartitionRowCounts
+  // time partition -> device count
+  5: optional map<i64, i64> timePartitionDeviceCounts
+}
+
+struct TPushDynamicFiltersReq {
+  1: required string queryId
+  // plan node id of the join publishing the filters
+  2: required string sourceId
+  // symbol of a table scan column -> serialized filter on it
+  3: required map<string, binary> dynamicFilters
+}
+
 struct TKillQueryInstanceReq {
   1: optional string queryId
   2: optional string allowedUsername
@@ -1236,6 +1261,16 @@ service IDataNodeRPCService {
   */
   TFetchFragmentInstanceStatisticsResp fetchFragmentInstanceStatistics(TFetchFragmentInstanceStatisticsReq req)
 
+  /**
+  * Fetch statistics of a table in the given local data regions for join reordering
+  */
+  TFetchTableStatisticsResp fetchTableStatistics(TFetchTableStatisticsReq req)
+
+  /**
+  * Push the dynamic filters of a join to the table scans of the query on this DataNode
+  */
+  common.TSStatus pushDynamicFilters(TPushDynamicFiltersReq req)
+
   /**
   * Update Table Cache
   */